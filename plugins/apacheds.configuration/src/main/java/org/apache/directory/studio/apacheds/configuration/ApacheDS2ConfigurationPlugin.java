@@ -21,6 +21,7 @@ package org.apache.directory.studio.apacheds.configuration;
 
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.PropertyResourceBundle;
 
@@ -28,6 +29,7 @@ import org.apache.directory.api.ldap.model.schema.SchemaManager;
 import org.apache.directory.api.ldap.model.schema.registries.SchemaLoader;
 import org.apache.directory.api.ldap.schema.loader.JarLdifSchemaLoader;
 import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.apache.directory.studio.connection.core.SchemaImage;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
@@ -44,6 +46,9 @@ import org.osgi.framework.BundleContext;
  */
 public class ApacheDS2ConfigurationPlugin extends AbstractUIPlugin
 {
+    /** The schema image of the 'adsconfig' schema, generated at build time */
+    private static final String SCHEMA_IMAGE = "adsconfig.schema"; //$NON-NLS-1$
+
     /** The shared instance */
     private static ApacheDS2ConfigurationPlugin plugin;
 
@@ -92,17 +97,25 @@ public class ApacheDS2ConfigurationPlugin extends AbstractUIPlugin
         // Is the schema manager initialized?
         if ( schemaManager == null )
         {
-            // Initializing the schema loader and schema manager
-            SchemaLoader loader = new JarLdifSchemaLoader();
-            schemaManager = new DefaultSchemaManager( loader );
-
-            // Loading only the 'adsconfig' schema with its dependencies
-            schemaManager.loadWithDeps( "adsconfig" ); //$NON-NLS-1$
+            // Initializing the schema manager from the schema image
+            SchemaLoader imageLoader = getSchemaImageLoader();
+            if ( imageLoader != null )
+            {
+                try
+                {
+                    schemaManager = loadSchemaManager( imageLoader );
+                }
+                catch ( Exception e )
+                {
+                    getLog().log( new Status( Status.WARNING, ApacheDS2ConfigurationPluginConstants.PLUGIN_ID,
+                        Status.OK, Messages.getString( "ApacheDS2ConfigurationPlugin.CouldNotLoadSchemaImage" ), e ) ); //$NON-NLS-1$
+                }
+            }
 
-            // Checking if no error occurred when loading the schemas
-            if ( schemaManager.getErrors().size() != 0 )
+            // Falling back to the LDIF files of the schemas
+            if ( schemaManager == null )
             {
-                throw new Exception( Messages.getString( "ApacheDS2ConfigurationPlugin.CouldNotLoadSchemaCorrectly" ) ); //$NON-NLS-1$
+                schemaManager = loadSchemaManager( new JarLdifSchemaLoader() );
             }
         }
 
@@ -110,6 +123,57 @@ public class ApacheDS2ConfigurationPlugin extends AbstractUIPlugin
     }
 
 
+    /**
+     * Creates a schema manager and loads the 'adsconfig' schema.
+     *
+     * @param loader the schema loader
+     * @return the schema manager
+     * @throws Exception if an error occurs when loading the schema
+     */
+    static SchemaManager loadSchemaManager( SchemaLoader loader ) throws Exception
+    {
+        SchemaManager schemaManager = new DefaultSchemaManager( loader );
+
+        // Loading only the 'adsconfig' schema with its dependencies
+        schemaManager.loadWithDeps( "adsconfig" ); //$NON-NLS-1$
+
+        // Checking if no error occurred when loading the schemas
+        if ( schemaManager.getErrors().size() != 0 )
+        {
+            throw new Exception( Messages.getString( "ApacheDS2ConfigurationPlugin.CouldNotLoadSchemaCorrectly" ) ); //$NON-NLS-1$
+        }
+
+        return schemaManager;
+    }
+
+
+    /**
+     * Gets the schema loader of the schema image bundled with this plugin.
+     *
+     * @return the schema loader, or null if the image is missing or can't be read
+     */
+    static SchemaLoader getSchemaImageLoader()
+    {
+        try ( InputStream in = ApacheDS2ConfigurationPlugin.class.getResourceAsStream( SCHEMA_IMAGE ) )
+        {
+            if ( in != null )
+            {
+                return SchemaImage.load( in );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            if ( plugin != null )
+            {
+                plugin.getLog().log( new Status( Status.WARNING, ApacheDS2ConfigurationPluginConstants.PLUGIN_ID,
+                    Status.OK, Messages.getString( "ApacheDS2ConfigurationPlugin.CouldNotLoadSchemaImage" ), e ) ); //$NON-NLS-1$
+            }
+        }
+
+        return null;
+    }
+
+
     /**
      * Returns the shared instance.
      *
@@ -30,6 +30,7 @@ import java.util.PropertyResourceBundle;
 import org.apache.directory.api.ldap.model.exception.LdapTlsHandshakeFailCause;
 import org.apache.directory.studio.connection.core.event.CoreEventRunner;
 import org.apache.directory.studio.connection.core.event.EventRunner;
+import org.apache.directory.studio.connection.core.io.api.LdapMetricsLogger;
 import org.apache.directory.studio.connection.core.io.api.LdifModificationLogger;
 import org.apache.directory.studio.connection.core.io.api.LdifSearchLogger;
 import org.eclipse.core.runtime.FileLocator;
@@ -158,6 +159,12 @@ public class ConnectionCorePlugin extends Plugin
      */
     public void stop( BundleContext context ) throws Exception
     {
+        if ( connectionManager != null )
+        {
+            // write a pending connection store update
+            connectionManager.flush();
+        }
+
         plugin = null;
         super.stop( context );
 
@@ -435,6 +442,25 @@ public class ConnectionCorePlugin extends Plugin
     }
 
 
+    /**
+     * Gets the LDAP metrics logger.
+     * 
+     * @return the LDAP metrics logger, null if none found.
+     */
+    public LdapMetricsLogger getLdapMetricsLogger()
+    {
+        List<ILdapLogger> ldapLoggers = getLdapLoggers();
+        for ( ILdapLogger ldapLogger : ldapLoggers )
+        {
+            if ( ldapLogger instanceof LdapMetricsLogger )
+            {
+                return ( LdapMetricsLogger ) ldapLogger;
+            }
+        }
+        return null;
+    }
+
+
     /**
      * Gets the LDAP loggers.
      * 
@@ -32,13 +32,16 @@ import org.apache.directory.api.util.FileUtils;
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.connection.core.event.ConnectionUpdateListener;
 import org.apache.directory.studio.connection.core.io.ConnectionIO;
+import org.apache.directory.studio.connection.core.io.api.LdapMetricsLogger;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtensionPoint;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 
 /**
@@ -62,9 +65,21 @@ public class ConnectionManager implements ConnectionUpdateListener
 
     public static final String TEMP_SUFFIX = "-temp"; //$NON-NLS-1$
 
+    /** The delay in milliseconds before a scheduled save is performed, to coalesce bursts of updates */
+    private static final long SAVE_DELAY = 500L;
+
     /** The list of connections. */
     private Set<Connection> connectionList;
 
+    /** The snapshot of the connection parameters waiting to be saved by the save job, null if none */
+    private Set<ConnectionParameter> pendingConnectionParameters;
+
+    /** The lock for the pending connection parameters */
+    private final Object pendingLock = new Object();
+
+    /** The job that saves the connections in background */
+    private Job saveJob;
+
 
     /**
      * Creates a new instance of ConnectionManager.
@@ -72,6 +87,17 @@ public class ConnectionManager implements ConnectionUpdateListener
     public ConnectionManager()
     {
         this.connectionList = new HashSet<>();
+
+        saveJob = new Job( Messages.jobs__save_connections_name )
+        {
+            protected IStatus run( IProgressMonitor monitor )
+            {
+                savePendingConnections();
+                return Status.OK_STATUS;
+            }
+        };
+        saveJob.setSystem( true );
+
         loadInitializers();
         loadConnections();
         ConnectionEventRegistry.addConnectionUpdateListener( this, ConnectionCorePlugin.getDefault().getEventRunner() );
@@ -290,7 +316,7 @@ public class ConnectionManager implements ConnectionUpdateListener
      */
     public void connectionAdded( Connection connection )
     {
-        saveConnections();
+        scheduleSave();
     }
 
 
@@ -299,7 +325,13 @@ public class ConnectionManager implements ConnectionUpdateListener
      */
     public void connectionRemoved( Connection connection )
     {
-        saveConnections();
+        LdapMetricsLogger metricsLogger = ConnectionCorePlugin.getDefault().getLdapMetricsLogger();
+        if ( metricsLogger != null )
+        {
+            metricsLogger.dispose( connection );
+        }
+
+        scheduleSave();
     }
 
 
@@ -308,7 +340,7 @@ public class ConnectionManager implements ConnectionUpdateListener
      */
     public void connectionUpdated( Connection connection )
     {
-        saveConnections();
+        scheduleSave();
     }
 
 
@@ -352,10 +384,80 @@ public class ConnectionManager implements ConnectionUpdateListener
     }
 
 
+    /**
+     * Schedules a background save of the Connections. The connection parameters are
+     * collected immediately, several updates within the save delay are written at once.
+     */
+    private void scheduleSave()
+    {
+        synchronized ( pendingLock )
+        {
+            pendingConnectionParameters = getConnectionParameters();
+        }
+
+        saveJob.schedule( SAVE_DELAY );
+    }
+
+
+    /**
+     * Saves the Connections collected by the last scheduled save, if any.
+     */
+    private synchronized void savePendingConnections()
+    {
+        Set<ConnectionParameter> connectionParameters;
+
+        synchronized ( pendingLock )
+        {
+            connectionParameters = pendingConnectionParameters;
+            pendingConnectionParameters = null;
+        }
+
+        if ( connectionParameters != null )
+        {
+            save( connectionParameters );
+        }
+    }
+
+
+    /**
+     * Saves a scheduled but not yet performed save immediately.
+     */
+    public void flush()
+    {
+        saveJob.cancel();
+
+        try
+        {
+            saveJob.join();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        savePendingConnections();
+    }
+
+
     /**
      * Saves the Connections
      */
     public synchronized void saveConnections()
+    {
+        Set<ConnectionParameter> connectionParameters;
+
+        synchronized ( pendingLock )
+        {
+            // a pending save is superseded
+            connectionParameters = getConnectionParameters();
+            pendingConnectionParameters = null;
+        }
+
+        save( connectionParameters );
+    }
+
+
+    private Set<ConnectionParameter> getConnectionParameters()
     {
         Set<ConnectionParameter> connectionParameters = new HashSet<>();
 
@@ -364,6 +466,17 @@ public class ConnectionManager implements ConnectionUpdateListener
             connectionParameters.add( connection.getConnectionParameter() );
         }
 
+        return connectionParameters;
+    }
+
+
+    /**
+     * Saves the given connection parameters to the connection store.
+     *
+     * @param connectionParameters the connection parameters
+     */
+    private void save( Set<ConnectionParameter> connectionParameters )
+    {
         File file = new File( getConnectionStoreFileName() );
         File tempFile = new File( getConnectionStoreFileName() + TEMP_SUFFIX );
 
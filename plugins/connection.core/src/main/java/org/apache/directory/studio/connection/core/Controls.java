@@ -92,6 +92,12 @@ public class Controls
 
     public static byte[] getEncodedValue( Control control )
     {
+        if ( control instanceof OpaqueControl )
+        {
+            // no codec registered, e.g. the tree delete and post-read controls
+            return ( ( OpaqueControl ) control ).getEncodedValue();
+        }
+
         LdapApiService codec = LdapApiServiceFactory.getSingleton();
         ControlFactory<? extends Control> factory = codec.getRequestControlFactories().get( control.getOid() );
         Asn1Buffer buffer = new Asn1Buffer();
@@ -216,6 +216,54 @@ public interface ILdapLogger
     {
     }
 
+
+    /**
+     * Logs the duration of a finished LDAP operation. Called after the operation specific
+     * log method, searches are reported with their request and done log methods.
+     *
+     * @param connection the connection
+     * @param operationType the type of the operation
+     * @param durationNanos the duration of the operation in nanoseconds
+     * @param ex the LDAP exception if an error occurred, null otherwise
+     */
+    default void logOperation( Connection connection, LdapOperationType operationType, long durationNanos,
+        StudioLdapException ex )
+    {
+    }
+
+
+    /**
+     * Logs a referral that was followed for an operation other than search.
+     *
+     * @param connection the connection that returned the referral
+     * @param referral the referral
+     */
+    default void logReferral( Connection connection, Referral referral )
+    {
+    }
+
+
+    /**
+     * Logs an automatic reconnect after the connection was lost.
+     *
+     * @param connection the connection
+     */
+    default void logReconnect( Connection connection )
+    {
+    }
+
+
+    /**
+     * Logs the bytes transferred on the network since the last call.
+     *
+     * @param connection the connection
+     * @param bytesRead the number of bytes read
+     * @param bytesWritten the number of bytes written
+     */
+    default void logTransferredBytes( Connection connection, long bytesRead, long bytesWritten )
+    {
+    }
+
     /**
      * Gets the masked attributes.
      * 
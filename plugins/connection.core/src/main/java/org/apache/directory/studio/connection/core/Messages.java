@@ -81,6 +81,8 @@ public class Messages extends NLS
     public static String jobs__close_connections_error_1;
     public static String jobs__close_connections_error_n;
 
+    public static String jobs__save_connections_name;
+
     public static String StudioTrustManager_CantCreateTrustManager;
 
     public static String StudioKeyStoreManager_CantAddCertificateToTrustStore;
@@ -90,5 +92,6 @@ public class Messages extends NLS
     public static String DirectoryApiConnectionWrapper_NoConnection;
     public static String DirectoryApiConnectionWrapper_UnableToConnect;
     public static String DirectoryApiConnectionWrapper_UnsecuredConnection;
+    public static String DirectoryApiConnectionWrapper_ResponseTimeout;
 
 }
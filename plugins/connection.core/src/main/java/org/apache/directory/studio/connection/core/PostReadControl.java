@@ -0,0 +1,298 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.connection.core;
+
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.directory.api.ldap.codec.api.BinaryAttributeDetector;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.controls.OpaqueControl;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * Implementation of the RFC 4527 Post-Read Control.
+ * <p>
+ * The request value is the list of attributes the server should return, the response
+ * value is a SearchResultEntry with the state of the entry after the add, modify or
+ * modify DN operation. The Directory API has no codec for this control, so the value
+ * is encoded and decoded here and the decoded entry is attached to the request control
+ * by the connection wrapper once the operation succeeded.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class PostReadControl extends OpaqueControl
+{
+    /** The OID of the Post-Read Control (1.3.6.1.1.13.2) */
+    public static final String OID = "1.3.6.1.1.13.2"; //$NON-NLS-1$
+
+    /** The BER tag of a SEQUENCE */
+    private static final int SEQUENCE_TAG = 0x30;
+
+    /** The BER tag of a SET */
+    private static final int SET_TAG = 0x31;
+
+    /** The BER tag of an OCTET STRING */
+    private static final int OCTET_STRING_TAG = 0x04;
+
+    /** The BER tag of a SearchResultEntry, [APPLICATION 4] */
+    private static final int SEARCH_RESULT_ENTRY_TAG = 0x64;
+
+    /** The requested attributes */
+    private final String[] attributes;
+
+    /** The entry returned by the server, null if not received yet */
+    private Entry responseEntry;
+
+
+    /**
+     * Creates a new non-critical instance of PostReadControl.
+     * 
+     * @param attributes the attributes to return, e.g. "*" and "+"
+     */
+    public PostReadControl( String... attributes )
+    {
+        super( OID, false );
+        this.attributes = attributes != null ? attributes.clone() : new String[0];
+        setEncodedValue( encodeAttributeSelection( this.attributes ) );
+    }
+
+
+    /**
+     * Gets the requested attributes.
+     * 
+     * @return the requested attributes
+     */
+    public String[] getAttributes()
+    {
+        return attributes.clone();
+    }
+
+
+    /**
+     * Gets the entry returned by the server.
+     * 
+     * @return the entry returned by the server, null if the server didn't return the control
+     */
+    public Entry getResponseEntry()
+    {
+        return responseEntry;
+    }
+
+
+    /**
+     * Sets the entry returned by the server.
+     * 
+     * @param responseEntry the entry returned by the server
+     */
+    public void setResponseEntry( Entry responseEntry )
+    {
+        this.responseEntry = responseEntry;
+    }
+
+
+    /**
+     * Encodes the AttributeSelection, a SEQUENCE OF LDAPString.
+     * 
+     * @param attributes the attributes
+     * @return the BER encoded attribute selection
+     */
+    static byte[] encodeAttributeSelection( String[] attributes )
+    {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for ( String attribute : attributes )
+        {
+            writeTlv( content, OCTET_STRING_TAG, attribute.getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        ByteArrayOutputStream sequence = new ByteArrayOutputStream();
+        writeTlv( sequence, SEQUENCE_TAG, content.toByteArray() );
+        return sequence.toByteArray();
+    }
+
+
+    /**
+     * Decodes the response value, a SearchResultEntry.
+     * 
+     * @param value the BER encoded response value
+     * @param binaryAttributeDetector the detector for binary attributes, may be null
+     * @return the entry
+     * @throws LdapException if the value isn't a valid SearchResultEntry
+     */
+    public static Entry decodeSearchResultEntry( byte[] value, BinaryAttributeDetector binaryAttributeDetector )
+        throws LdapException
+    {
+        try
+        {
+            Reader entryReader = new Reader( value, 0, value.length ).enter( SEARCH_RESULT_ENTRY_TAG );
+            String dn = Strings.utf8ToString( entryReader.read( OCTET_STRING_TAG ) );
+            Entry entry = new DefaultEntry( new Dn( dn ) );
+
+            Reader attributesReader = entryReader.enter( SEQUENCE_TAG );
+            while ( attributesReader.hasMore() )
+            {
+                Reader attributeReader = attributesReader.enter( SEQUENCE_TAG );
+                String type = Strings.utf8ToString( attributeReader.read( OCTET_STRING_TAG ) );
+                boolean isBinary = isBinary( type, binaryAttributeDetector );
+
+                Reader valuesReader = attributeReader.enter( SET_TAG );
+                while ( valuesReader.hasMore() )
+                {
+                    byte[] bytes = valuesReader.read( OCTET_STRING_TAG );
+                    if ( isBinary )
+                    {
+                        entry.add( type, bytes );
+                    }
+                    else
+                    {
+                        entry.add( type, Strings.utf8ToString( bytes ) );
+                    }
+                }
+            }
+
+            return entry;
+        }
+        catch ( IndexOutOfBoundsException | IllegalArgumentException e )
+        {
+            throw new LdapException( "Invalid Post-Read response value", e ); //$NON-NLS-1$
+        }
+    }
+
+
+    private static boolean isBinary( String type, BinaryAttributeDetector binaryAttributeDetector )
+    {
+        if ( binaryAttributeDetector != null )
+        {
+            return binaryAttributeDetector.isBinary( type );
+        }
+
+        return Strings.toLowerCase( type ).endsWith( ";binary" ); //$NON-NLS-1$
+    }
+
+
+    private static void writeTlv( ByteArrayOutputStream out, int tag, byte[] value )
+    {
+        out.write( tag );
+
+        int length = value.length;
+        if ( length < 0x80 )
+        {
+            out.write( length );
+        }
+        else
+        {
+            int numBytes = ( 32 - Integer.numberOfLeadingZeros( length ) + 7 ) / 8;
+            out.write( 0x80 | numBytes );
+            for ( int i = numBytes - 1; i >= 0; i-- )
+            {
+                out.write( length >>> ( i * 8 ) );
+            }
+        }
+
+        out.write( value, 0, value.length );
+    }
+
+    /**
+     * A minimal reader for the definite length BER encoding used by LDAP.
+     */
+    private static class Reader
+    {
+        private final byte[] bytes;
+
+        private int pos;
+
+        private final int end;
+
+
+        Reader( byte[] bytes, int start, int end )
+        {
+            this.bytes = bytes;
+            this.pos = start;
+            this.end = end;
+        }
+
+
+        boolean hasMore()
+        {
+            return pos < end;
+        }
+
+
+        /**
+         * Reads the TLV with the given tag and returns a reader for its content.
+         */
+        Reader enter( int tag )
+        {
+            int length = readHeader( tag );
+            Reader reader = new Reader( bytes, pos, pos + length );
+            pos += length;
+            return reader;
+        }
+
+
+        /**
+         * Reads the TLV with the given tag and returns a copy of its content.
+         */
+        byte[] read( int tag )
+        {
+            int length = readHeader( tag );
+            byte[] value = new byte[length];
+            System.arraycopy( bytes, pos, value, 0, length );
+            pos += length;
+            return value;
+        }
+
+
+        private int readHeader( int tag )
+        {
+            if ( pos >= end || ( bytes[pos] & 0xFF ) != tag )
+            {
+                throw new IllegalArgumentException( "Unexpected tag at position " + pos ); //$NON-NLS-1$
+            }
+            pos++;
+
+            int length = bytes[pos++] & 0xFF;
+            if ( length >= 0x80 )
+            {
+                int numBytes = length & 0x7F;
+                if ( numBytes == 0 || numBytes > 4 )
+                {
+                    throw new IllegalArgumentException( "Unsupported length at position " + pos ); //$NON-NLS-1$
+                }
+                length = 0;
+                for ( int i = 0; i < numBytes; i++ )
+                {
+                    length = ( length << 8 ) | ( bytes[pos++] & 0xFF );
+                }
+            }
+
+            if ( length < 0 || pos + length > end )
+            {
+                throw new IllegalArgumentException( "Invalid length at position " + pos ); //$NON-NLS-1$
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.connection.core;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.registries.AbstractSchemaLoader;
+import org.apache.directory.api.ldap.model.schema.registries.DefaultSchema;
+import org.apache.directory.api.ldap.model.schema.registries.Schema;
+import org.apache.directory.api.ldap.model.schema.registries.SchemaLoader;
+
+
+/**
+ * A schema image contains the schema entries of a schema and its dependencies, as
+ * provided by a {@link SchemaLoader}, in a compact binary form. Reading an image
+ * is much faster than scanning and parsing the LDIF files of the schemas.
+ * <p>
+ * Images are generated at build time with {@link #main(String[])} and loaded
+ * with {@link #load(InputStream)}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class SchemaImage
+{
+    /** The magic number at the start of an image, "SCHI" */
+    private static final int MAGIC = 0x53434849;
+
+    /** The version of the image format */
+    private static final int VERSION = 1;
+
+    /** The number of schema object types */
+    private static final int TYPE_COUNT = 11;
+
+
+    private SchemaImage()
+    {
+    }
+
+
+    /**
+     * Generates a schema image.
+     * <p>
+     * Arguments:
+     * <ol>
+     * <li>the class name of the schema loader, with a public no-argument constructor</li>
+     * <li>the name of the schema, its dependencies are included</li>
+     * <li>the image file to write</li>
+     * </ol>
+     * 
+     * @param args the arguments
+     * @throws Exception if the schema can't be loaded or the image can't be written
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        if ( args.length != 3 )
+        {
+            throw new IllegalArgumentException( "Usage: SchemaImage <schema loader class> <schema name> <file>" ); //$NON-NLS-1$
+        }
+
+        SchemaLoader loader = ( SchemaLoader ) Class.forName( args[0] ).getConstructor().newInstance();
+        File file = new File( args[2] );
+        file.getParentFile().mkdirs();
+        try ( OutputStream out = new FileOutputStream( file ) )
+        {
+            write( loader, args[1], out );
+        }
+    }
+
+
+    /**
+     * Writes the image of a schema and its dependencies.
+     * 
+     * @param loader the schema loader
+     * @param schemaName the name of the schema
+     * @param out the output stream
+     * @throws LdapException if the schema can't be loaded
+     * @throws IOException if the image can't be written
+     */
+    public static void write( SchemaLoader loader, String schemaName, OutputStream out )
+        throws LdapException, IOException
+    {
+        // the schema and its dependencies, dependencies first
+        Map<String, Schema> schemas = new LinkedHashMap<String, Schema>();
+        addSchemaWithDeps( loader, schemaName, schemas );
+
+        DataOutputStream dos = new DataOutputStream( out );
+        dos.writeInt( MAGIC );
+        dos.writeInt( VERSION );
+        dos.writeInt( schemas.size() );
+        for ( Schema schema : schemas.values() )
+        {
+            writeString( dos, schema.getSchemaName() );
+            writeString( dos, schema.getOwner() );
+            dos.writeBoolean( schema.isDisabled() );
+            String[] dependencies = schema.getDependencies();
+            dos.writeInt( dependencies.length );
+            for ( String dependency : dependencies )
+            {
+                writeString( dos, dependency );
+            }
+
+            for ( int type = 0; type < TYPE_COUNT; type++ )
+            {
+                List<Entry> entries = loadEntries( loader, type, schema );
+                dos.writeInt( entries.size() );
+                for ( Entry entry : entries )
+                {
+                    writeEntry( dos, entry );
+                }
+            }
+        }
+        dos.flush();
+    }
+
+
+    /**
+     * Loads a schema image.
+     * 
+     * @param in the input stream, it is read completely but not closed
+     * @return the schema loader that provides the schemas of the image
+     * @throws IOException if the image can't be read, has an unknown format or is corrupt
+     */
+    public static SchemaLoader load( InputStream in ) throws IOException
+    {
+        // the image is read at once and decoded in memory
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ( ( read = in.read( buffer ) ) != -1 )
+        {
+            image.write( buffer, 0, read );
+        }
+        DataInputStream dis = new DataInputStream( new ByteArrayInputStream( image.toByteArray() ) );
+
+        if ( dis.readInt() != MAGIC )
+        {
+            throw new IOException( "Not a schema image" ); //$NON-NLS-1$
+        }
+        int version = dis.readInt();
+        if ( version != VERSION )
+        {
+            throw new IOException( "Unsupported schema image version " + version ); //$NON-NLS-1$
+        }
+
+        ImageSchemaLoader loader = new ImageSchemaLoader();
+        try
+        {
+            int schemaCount = readLength( dis );
+            for ( int i = 0; i < schemaCount; i++ )
+            {
+                String name = readString( dis );
+                String owner = readString( dis );
+                boolean disabled = dis.readBoolean();
+                String[] dependencies = new String[readLength( dis )];
+                for ( int j = 0; j < dependencies.length; j++ )
+                {
+                    dependencies[j] = readString( dis );
+                }
+
+                List<List<Entry>> entriesByType = new ArrayList<List<Entry>>( TYPE_COUNT );
+                for ( int type = 0; type < TYPE_COUNT; type++ )
+                {
+                    int entryCount = readLength( dis );
+                    List<Entry> entries = new ArrayList<Entry>( entryCount );
+                    for ( int j = 0; j < entryCount; j++ )
+                    {
+                        entries.add( readEntry( dis ) );
+                    }
+                    entriesByType.add( entries );
+                }
+
+                loader.addSchema( new DefaultSchema( loader, name, owner, dependencies, disabled ), entriesByType );
+            }
+        }
+        catch ( LdapException | RuntimeException e )
+        {
+            // a corrupt image, the caller falls back to the LDIF files
+            throw new IOException( e );
+        }
+
+        return loader;
+    }
+
+
+    private static void addSchemaWithDeps( SchemaLoader loader, String schemaName, Map<String, Schema> schemas )
+        throws LdapException
+    {
+        if ( schemas.containsKey( schemaName ) )
+        {
+            return;
+        }
+
+        Schema schema = loader.getSchema( schemaName );
+        if ( schema == null )
+        {
+            throw new LdapException( "Unknown schema " + schemaName ); //$NON-NLS-1$
+        }
+
+        for ( String dependency : schema.getDependencies() )
+        {
+            addSchemaWithDeps( loader, dependency, schemas );
+        }
+        schemas.put( schemaName, schema );
+    }
+
+
+    private static List<Entry> loadEntries( SchemaLoader loader, int type, Schema schema )
+        throws LdapException, IOException
+    {
+        switch ( type )
+        {
+            case 0:
+                return loader.loadComparators( schema );
+            case 1:
+                return loader.loadSyntaxCheckers( schema );
+            case 2:
+                return loader.loadNormalizers( schema );
+            case 3:
+                return loader.loadSyntaxes( schema );
+            case 4:
+                return loader.loadMatchingRules( schema );
+            case 5:
+                return loader.loadAttributeTypes( schema );
+            case 6:
+                return loader.loadMatchingRuleUses( schema );
+            case 7:
+                return loader.loadNameForms( schema );
+            case 8:
+                return loader.loadDitContentRules( schema );
+            case 9:
+                return loader.loadDitStructureRules( schema );
+            default:
+                return loader.loadObjectClasses( schema );
+        }
+    }
+
+
+    private static void writeEntry( DataOutputStream dos, Entry entry ) throws IOException
+    {
+        writeString( dos, entry.getDn().getName() );
+        dos.writeInt( entry.size() );
+        for ( Attribute attribute : entry )
+        {
+            writeString( dos, attribute.getUpId() );
+            dos.writeInt( attribute.size() );
+            for ( Value value : attribute )
+            {
+                dos.writeBoolean( value.isHumanReadable() );
+                byte[] bytes = value.isHumanReadable() ? value.getString().getBytes( StandardCharsets.UTF_8 )
+                    : value.getBytes();
+                dos.writeInt( bytes.length );
+                dos.write( bytes );
+            }
+        }
+    }
+
+
+    private static Entry readEntry( DataInputStream dis ) throws IOException, LdapException
+    {
+        Entry entry = new DefaultEntry( new Dn( readString( dis ) ) );
+        int attributeCount = readLength( dis );
+        for ( int i = 0; i < attributeCount; i++ )
+        {
+            String upId = readString( dis );
+            int valueCount = readLength( dis );
+            for ( int j = 0; j < valueCount; j++ )
+            {
+                boolean humanReadable = dis.readBoolean();
+                byte[] bytes = new byte[readLength( dis )];
+                dis.readFully( bytes );
+                if ( humanReadable )
+                {
+                    entry.add( upId, new String( bytes, StandardCharsets.UTF_8 ) );
+                }
+                else
+                {
+                    entry.add( upId, bytes );
+                }
+            }
+        }
+        return entry;
+    }
+
+
+    private static void writeString( DataOutputStream dos, String s ) throws IOException
+    {
+        dos.writeBoolean( s != null );
+        if ( s != null )
+        {
+            byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+            dos.writeInt( bytes.length );
+            dos.write( bytes );
+        }
+    }
+
+
+    private static String readString( DataInputStream dis ) throws IOException
+    {
+        if ( !dis.readBoolean() )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[readLength( dis )];
+        dis.readFully( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+
+    /**
+     * Reads a length or a count. Each byte or counted item takes at least one byte of
+     * the image, so a value larger than the remaining bytes is corrupt.
+     */
+    private static int readLength( DataInputStream dis ) throws IOException
+    {
+        int length = dis.readInt();
+        if ( length < 0 || length > dis.available() )
+        {
+            throw new IOException( "Corrupt schema image" ); //$NON-NLS-1$
+        }
+        return length;
+    }
+
+    /**
+     * A schema loader that provides the schemas of an image.
+     */
+    private static class ImageSchemaLoader extends AbstractSchemaLoader
+    {
+        /** The entries of each schema, by schema object type */
+        private Map<String, List<List<Entry>>> entries = new HashMap<String, List<List<Entry>>>();
+
+
+        private void addSchema( Schema schema, List<List<Entry>> entriesByType )
+        {
+            schemaMap.put( schema.getSchemaName(), schema );
+            entries.put( schema.getSchemaName(), entriesByType );
+        }
+
+
+        private List<Entry> getEntries( int type, Schema... schemas )
+        {
+            List<Entry> result = new ArrayList<Entry>();
+            if ( schemas != null )
+            {
+                for ( Schema schema : schemas )
+                {
+                    List<List<Entry>> entriesByType = entries.get( schema.getSchemaName() );
+                    if ( entriesByType != null )
+                    {
+                        result.addAll( entriesByType.get( type ) );
+                    }
+                }
+            }
+            return result;
+        }
+
+
+        @Override
+        public List<Entry> loadComparators( Schema... schemas )
+        {
+            return getEntries( 0, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadSyntaxCheckers( Schema... schemas )
+        {
+            return getEntries( 1, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadNormalizers( Schema... schemas )
+        {
+            return getEntries( 2, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadSyntaxes( Schema... schemas )
+        {
+            return getEntries( 3, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadMatchingRules( Schema... schemas )
+        {
+            return getEntries( 4, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadAttributeTypes( Schema... schemas )
+        {
+            return getEntries( 5, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadMatchingRuleUses( Schema... schemas )
+        {
+            return getEntries( 6, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadNameForms( Schema... schemas )
+        {
+            return getEntries( 7, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadDitContentRules( Schema... schemas )
+        {
+            return getEntries( 8, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadDitStructureRules( Schema... schemas )
+        {
+            return getEntries( 9, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadObjectClasses( Schema... schemas )
+        {
+            return getEntries( 10, schemas );
+        }
+    }
+}
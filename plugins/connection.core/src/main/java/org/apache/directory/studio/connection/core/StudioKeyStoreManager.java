@@ -59,6 +59,9 @@ public class StudioKeyStoreManager
     /** The in-memory key store, only relevant for type Memory */
     private KeyStore memoryKeyStore;
 
+    /** The modification count, incremented each time a certificate is added or removed */
+    private long modificationCount;
+
 
     /**
      * Creates a key store manager, backed by a key store on disk.
@@ -115,6 +118,18 @@ public class StudioKeyStoreManager
     }
 
 
+    /**
+     * Gets the modification count of the key store. The count is incremented each time
+     * a certificate is added or removed, it allows to detect stale cached trust managers.
+     * 
+     * @return the modification count
+     */
+    public synchronized long getModificationCount()
+    {
+        return modificationCount;
+    }
+
+
     /**
      * Gets the memory key store.
      * 
@@ -177,6 +192,8 @@ public class StudioKeyStoreManager
      */
     public synchronized void addCertificate( X509Certificate certificate ) throws CertificateException
     {
+        modificationCount++;
+
         if ( type == Type.File )
         {
             addToFileKeyStore( certificate );
@@ -278,6 +295,8 @@ public class StudioKeyStoreManager
      */
     public synchronized void removeCertificate( X509Certificate certificate ) throws CertificateException
     {
+        modificationCount++;
+
         if ( type == Type.File )
         {
             removeFromFileKeyStore( certificate );
@@ -21,6 +21,7 @@ package org.apache.directory.studio.connection.core.io;
 
 
 import java.util.Collection;
+import java.util.List;
 
 import javax.naming.directory.SearchControls;
 import javax.net.ssl.SSLSession;
@@ -164,6 +165,27 @@ public interface ConnectionWrapper
         final ReferralsInfo referralsInfo );
 
 
+    /**
+     * Creates several entries. The add requests are pipelined on the connection,
+     * at most <code>window</code> requests are outstanding at any time. As the
+     * server may process outstanding requests in any order the given entries must
+     * not depend on each other, e.g. they must not be parent and child.
+     * 
+     * Referrals are not followed, they are returned as errors.
+     * 
+     * @param entries the entries to create
+     * @param controls the controls, added to each add request
+     * @param window the maximum number of outstanding add requests
+     * @param monitor the progress monitor
+     * 
+     * @return an array with one element for each entry: <code>null</code> if the entry was
+     *         created, the error otherwise; <code>null</code> if the requests couldn't be
+     *         sent at all, the error is reported to the monitor in that case
+     */
+    Exception[] createEntries( final List<Entry> entries, final Control[] controls, final int window,
+        final StudioProgressMonitor monitor );
+
+
     /**
      * Deletes an entry.
      * 
@@ -176,6 +198,29 @@ public interface ConnectionWrapper
         final ReferralsInfo referralsInfo );
 
 
+    /**
+     * Deletes several entries. The delete requests are pipelined on the connection,
+     * at most <code>window</code> requests are outstanding at any time. As the
+     * server may process outstanding requests in any order the given entries must
+     * not depend on each other, e.g. they must not be parent and child.
+     * 
+     * Referrals are not followed, they are returned as errors. Requests that time out
+     * are abandoned. If the connection is re-established only the deletes that weren't
+     * answered yet are sent again.
+     * 
+     * @param dns the Dns of the entries to delete
+     * @param controls the controls, added to each delete request
+     * @param window the maximum number of outstanding delete requests
+     * @param monitor the progress monitor
+     * 
+     * @return an array with one element for each Dn: <code>null</code> if the entry was
+     *         deleted, the error otherwise; <code>null</code> if the requests couldn't be
+     *         sent at all, the error is reported to the monitor in that case
+     */
+    Exception[] deleteEntries( final List<Dn> dns, final Control[] controls, final int window,
+        final StudioProgressMonitor monitor );
+
+
     ExtendedResponse extended( ExtendedRequest request, final StudioProgressMonitor monitor );
 
 }
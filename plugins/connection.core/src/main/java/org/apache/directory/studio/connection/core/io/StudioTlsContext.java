@@ -0,0 +1,136 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.connection.core.io;
+
+
+import java.security.KeyStore;
+import java.security.SecureRandom;
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+
+
+/**
+ * Caches the TLS setup of a connection, so that reconnects don't need to reload
+ * the JVM "cacerts" key store and to recreate the {@link StudioTrustManager}s.
+ * The cached trust managers are discarded when the host changes or when the
+ * permanent or session trust store is modified.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class StudioTlsContext
+{
+    /** The default trust managers (using JVM "cacerts" key store), shared by all connections */
+    private static TrustManager[] defaultTrustManagers;
+
+    /** The secure random, shared by all connections */
+    private static SecureRandom secureRandom;
+
+    /** The host the trust managers were created for */
+    private String host;
+
+    /** The modification count of the permanent trust store the trust managers were created for */
+    private long permanentModificationCount = -1;
+
+    /** The modification count of the session trust store the trust managers were created for */
+    private long sessionModificationCount = -1;
+
+    /** The cached trust managers */
+    private StudioTrustManager[] trustManagers;
+
+
+    /**
+     * Gets the trust managers for the given host. The trust managers are
+     * reused as long as the host and the trust stores are unchanged.
+     * 
+     * @param host the host, used to verify the hostname of the certificate
+     * 
+     * @return the trust managers
+     * 
+     * @throws Exception the exception
+     */
+    public synchronized StudioTrustManager[] getTrustManagers( String host ) throws Exception
+    {
+        long permanentCount = ConnectionCorePlugin.getDefault().getPermanentTrustStoreManager()
+            .getModificationCount();
+        long sessionCount = ConnectionCorePlugin.getDefault().getSessionTrustStoreManager().getModificationCount();
+
+        if ( ( trustManagers == null ) || !host.equals( this.host )
+            || ( permanentCount != permanentModificationCount ) || ( sessionCount != sessionModificationCount ) )
+        {
+            // create wrappers around the trust managers
+            TrustManager[] defaultTrustManagers = getDefaultTrustManagers();
+            StudioTrustManager[] studioTrustManagers = new StudioTrustManager[defaultTrustManagers.length];
+
+            for ( int i = 0; i < defaultTrustManagers.length; i++ )
+            {
+                studioTrustManagers[i] = new StudioTrustManager( ( X509TrustManager ) defaultTrustManagers[i] );
+                studioTrustManagers[i].setHost( host );
+            }
+
+            this.trustManagers = studioTrustManagers;
+            this.host = host;
+            this.permanentModificationCount = permanentCount;
+            this.sessionModificationCount = sessionCount;
+        }
+
+        return trustManagers;
+    }
+
+
+    /**
+     * Gets the shared secure random, seeding a new one for every handshake is expensive.
+     * 
+     * @return the secure random
+     */
+    public static synchronized SecureRandom getSecureRandom()
+    {
+        if ( secureRandom == null )
+        {
+            secureRandom = new SecureRandom();
+        }
+
+        return secureRandom;
+    }
+
+
+    /**
+     * Gets the default trust managers, the JVM "cacerts" key store is only loaded once.
+     * 
+     * @return the default trust managers
+     * 
+     * @throws Exception the exception
+     */
+    private static synchronized TrustManager[] getDefaultTrustManagers() throws Exception
+    {
+        if ( defaultTrustManagers == null )
+        {
+            TrustManagerFactory factory = TrustManagerFactory.getInstance( TrustManagerFactory
+                .getDefaultAlgorithm() );
+            factory.init( ( KeyStore ) null );
+            defaultTrustManagers = factory.getTrustManagers();
+        }
+
+        return defaultTrustManagers;
+    }
+}
@@ -40,6 +40,7 @@ import org.apache.directory.api.ldap.model.exception.LdapTlsHandshakeFailCause.L
 import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
 import org.apache.directory.studio.connection.core.ICertificateHandler;
 import org.apache.directory.studio.connection.core.Messages;
+import org.apache.directory.studio.connection.core.StudioKeyStoreManager;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 
 
@@ -54,6 +55,14 @@ public class StudioTrustManager implements X509TrustManager
     private X509TrustManager jvmTrustManager;
     private String host;
 
+    /** The cached permanent trust manager and the modification count of the trust store it was built from */
+    private X509TrustManager permanentTrustManager;
+    private long permanentModificationCount = -1;
+
+    /** The cached session trust manager and the modification count of the trust store it was built from */
+    private X509TrustManager sessionTrustManager;
+    private long sessionModificationCount = -1;
+
     /**
      * Creates a new instance of StudioTrustManager.
      * 
@@ -194,30 +203,46 @@ public class StudioTrustManager implements X509TrustManager
 
     /**
      * Gets the permanent trust manager, based on the permanent trust store.
+     * The trust manager is only rebuilt if the trust store was modified.
      * 
      * @return the permanent trust manager, null if the trust store is empty
      * 
      * @throws CertificateException the certificate exception
      */
-    private X509TrustManager getPermanentTrustManager() throws CertificateException
+    private synchronized X509TrustManager getPermanentTrustManager() throws CertificateException
     {
-        KeyStore permanentTrustStore = ConnectionCorePlugin.getDefault().getPermanentTrustStoreManager().getKeyStore();
-        X509TrustManager permanentTrustManager = getTrustManager( permanentTrustStore );
+        StudioKeyStoreManager manager = ConnectionCorePlugin.getDefault().getPermanentTrustStoreManager();
+        long modificationCount = manager.getModificationCount();
+
+        if ( modificationCount != permanentModificationCount )
+        {
+            permanentTrustManager = getTrustManager( manager.getKeyStore() );
+            permanentModificationCount = modificationCount;
+        }
+
         return permanentTrustManager;
     }
 
 
     /**
      * Gets the session trust manager, based on the session trust store.
+     * The trust manager is only rebuilt if the trust store was modified.
      * 
      * @return the session trust manager, null if the trust store is empty
      * 
      * @throws CertificateException the certificate exception
      */
-    private X509TrustManager getSessionTrustManager() throws CertificateException
+    private synchronized X509TrustManager getSessionTrustManager() throws CertificateException
     {
-        KeyStore sessionTrustStore = ConnectionCorePlugin.getDefault().getSessionTrustStoreManager().getKeyStore();
-        X509TrustManager sessionTrustManager = getTrustManager( sessionTrustStore );
+        StudioKeyStoreManager manager = ConnectionCorePlugin.getDefault().getSessionTrustStoreManager();
+        long modificationCount = manager.getModificationCount();
+
+        if ( modificationCount != sessionModificationCount )
+        {
+            sessionTrustManager = getTrustManager( manager.getKeyStore() );
+            sessionModificationCount = modificationCount;
+        }
+
         return sessionTrustManager;
     }
 
@@ -0,0 +1,358 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.io.api;
+
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.directory.api.ldap.model.exception.LdapOperationException;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.LdapOperationType;
+import org.apache.directory.studio.connection.core.io.StudioLdapException;
+
+
+/**
+ * The LDAP metrics of one connection: latency histograms and error codes per operation type,
+ * received entries, referrals, reconnects and transferred bytes.
+ * 
+ * All methods are thread-safe and lock-free, they are called from the job threads
+ * for every LDAP operation.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConnectionMetrics implements ConnectionMetricsMXBean
+{
+    /** The operation name of the time between a search request and its first entry */
+    public static final String SEARCH_FIRST_ENTRY = "SEARCH_FIRST_ENTRY"; //$NON-NLS-1$
+
+    /** The result code used for errors without LDAP result code */
+    public static final int NO_RESULT_CODE = -1;
+
+    /** Limits the searches whose results are awaited, enumerations may be abandoned without done */
+    private static final int MAX_PENDING_SEARCHES = 1000;
+
+    /** The connection */
+    private final Connection connection;
+
+    /** The metrics per operation type */
+    private final Map<LdapOperationType, OperationMetrics> operations = new EnumMap<LdapOperationType, OperationMetrics>(
+        LdapOperationType.class );
+
+    /** The time between a search request and its first entry */
+    private final OperationMetrics searchFirstEntry = new OperationMetrics();
+
+    /** The start times of the running searches by request number */
+    private final Map<Long, long[]> pendingSearches = new ConcurrentHashMap<Long, long[]>();
+
+    private final LongAdder entries = new LongAdder();
+
+    private final LongAdder referrals = new LongAdder();
+
+    private final LongAdder reconnects = new LongAdder();
+
+    private final LongAdder bytesRead = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+
+    /**
+     * Creates a new instance of ConnectionMetrics.
+     *
+     * @param connection the connection
+     */
+    public ConnectionMetrics( Connection connection )
+    {
+        this.connection = connection;
+
+        for ( LdapOperationType operationType : LdapOperationType.values() )
+        {
+            operations.put( operationType, new OperationMetrics() );
+        }
+    }
+
+
+    /**
+     * Gets the connection.
+     *
+     * @return the connection
+     */
+    public Connection getConnection()
+    {
+        return connection;
+    }
+
+
+    /**
+     * Records a finished operation.
+     *
+     * @param operationType the operation type
+     * @param durationNanos the duration in nanoseconds
+     * @param ex the LDAP exception if an error occurred, null otherwise
+     */
+    public void recordOperation( LdapOperationType operationType, long durationNanos, StudioLdapException ex )
+    {
+        operations.get( operationType ).record( durationNanos, ex );
+    }
+
+
+    /**
+     * Records a sent search request.
+     *
+     * @param requestNum the request number
+     */
+    public void recordSearchRequest( long requestNum )
+    {
+        if ( pendingSearches.size() >= MAX_PENDING_SEARCHES )
+        {
+            pendingSearches.clear();
+        }
+
+        // the start time and whether the first entry was received
+        pendingSearches.put( requestNum, new long[]
+            { System.nanoTime(), 0L } );
+    }
+
+
+    /**
+     * Records a received search result entry.
+     *
+     * @param requestNum the request number
+     */
+    public void recordSearchResultEntry( long requestNum )
+    {
+        entries.increment();
+
+        long[] pendingSearch = pendingSearches.get( requestNum );
+        if ( pendingSearch != null && pendingSearch[1] == 0L )
+        {
+            pendingSearch[1] = 1L;
+            searchFirstEntry.record( System.nanoTime() - pendingSearch[0], null );
+        }
+    }
+
+
+    /**
+     * Records a finished search.
+     *
+     * @param requestNum the request number
+     * @param ex the LDAP exception if an error occurred, null otherwise
+     */
+    public void recordSearchResultDone( long requestNum, StudioLdapException ex )
+    {
+        long[] pendingSearch = pendingSearches.remove( requestNum );
+        if ( pendingSearch != null )
+        {
+            recordOperation( LdapOperationType.SEARCH, System.nanoTime() - pendingSearch[0], ex );
+        }
+    }
+
+
+    /**
+     * Records a received referral or search result reference.
+     */
+    public void recordReferral()
+    {
+        referrals.increment();
+    }
+
+
+    /**
+     * Records an automatic reconnect.
+     */
+    public void recordReconnect()
+    {
+        reconnects.increment();
+    }
+
+
+    /**
+     * Records transferred bytes.
+     *
+     * @param read the number of bytes read
+     * @param written the number of bytes written
+     */
+    public void recordTransferredBytes( long read, long written )
+    {
+        bytesRead.add( read );
+        bytesWritten.add( written );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getConnectionName()
+    {
+        return connection.getName();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<OperationStatistics> getOperations()
+    {
+        List<OperationStatistics> statistics = new ArrayList<OperationStatistics>();
+
+        for ( Map.Entry<LdapOperationType, OperationMetrics> entry : operations.entrySet() )
+        {
+            if ( entry.getValue().histogram.getCount() > 0 )
+            {
+                statistics.add( entry.getValue().getStatistics( entry.getKey().name() ) );
+            }
+
+            if ( entry.getKey() == LdapOperationType.SEARCH && searchFirstEntry.histogram.getCount() > 0 )
+            {
+                statistics.add( searchFirstEntry.getStatistics( SEARCH_FIRST_ENTRY ) );
+            }
+        }
+
+        return statistics;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getEntries()
+    {
+        return entries.sum();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getEntriesPerSecond()
+    {
+        long searchNanos = operations.get( LdapOperationType.SEARCH ).histogram.getSum();
+        return searchNanos == 0 ? 0d : getEntries() * 1000000000d / searchNanos;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getReferrals()
+    {
+        return referrals.sum();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getReconnects()
+    {
+        return reconnects.sum();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getBytesRead()
+    {
+        return bytesRead.sum();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getBytesWritten()
+    {
+        return bytesWritten.sum();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        for ( OperationMetrics operationMetrics : operations.values() )
+        {
+            operationMetrics.reset();
+        }
+        searchFirstEntry.reset();
+        pendingSearches.clear();
+        entries.reset();
+        referrals.reset();
+        reconnects.reset();
+        bytesRead.reset();
+        bytesWritten.reset();
+    }
+
+    /**
+     * The latencies and errors of one operation type.
+     */
+    private static class OperationMetrics
+    {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final Map<Integer, LongAdder> errorCodes = new ConcurrentHashMap<Integer, LongAdder>();
+
+
+        private void record( long durationNanos, StudioLdapException ex )
+        {
+            histogram.record( durationNanos );
+
+            if ( ex != null )
+            {
+                errors.increment();
+
+                int resultCode = ex.getCause() instanceof LdapOperationException
+                    ? ( ( LdapOperationException ) ex.getCause() ).getResultCode().getResultCode()
+                    : NO_RESULT_CODE;
+                errorCodes.computeIfAbsent( resultCode, k -> new LongAdder() ).increment();
+            }
+        }
+
+
+        private OperationStatistics getStatistics( String operation )
+        {
+            Map<Integer, Long> codes = new HashMap<Integer, Long>();
+            for ( Map.Entry<Integer, LongAdder> entry : errorCodes.entrySet() )
+            {
+                codes.put( entry.getKey(), entry.getValue().sum() );
+            }
+
+            return new OperationStatistics( operation, histogram, errors.sum(), codes );
+        }
+
+
+        private void reset()
+        {
+            histogram.reset();
+            errors.reset();
+            errorCodes.clear();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.io.api;
+
+
+import java.util.List;
+
+
+/**
+ * The JMX view of the LDAP metrics of a connection, registered by the {@link LdapMetricsLogger}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface ConnectionMetricsMXBean
+{
+    /**
+     * @return the name of the connection
+     */
+    String getConnectionName();
+
+
+    /**
+     * @return the metrics of all operation types that were used
+     */
+    List<OperationStatistics> getOperations();
+
+
+    /**
+     * @return the number of received search result entries
+     */
+    long getEntries();
+
+
+    /**
+     * @return the number of received search result entries per second of search time
+     */
+    double getEntriesPerSecond();
+
+
+    /**
+     * @return the number of received referrals and search result references
+     */
+    long getReferrals();
+
+
+    /**
+     * @return the number of automatic reconnects
+     */
+    long getReconnects();
+
+
+    /**
+     * @return the number of bytes read from the network
+     */
+    long getBytesRead();
+
+
+    /**
+     * @return the number of bytes written to the network
+     */
+    long getBytesWritten();
+
+
+    /**
+     * Clears all metrics of the connection.
+     */
+    void reset();
+}
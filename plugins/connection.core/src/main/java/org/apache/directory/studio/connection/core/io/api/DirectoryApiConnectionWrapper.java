@@ -20,18 +20,17 @@
 package org.apache.directory.studio.connection.core.io.api;
 
 
-import java.security.KeyStore;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.naming.directory.SearchControls;
 import javax.net.ssl.SSLSession;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.TrustManagerFactory;
-import javax.net.ssl.X509TrustManager;
 import javax.security.auth.login.AppConfigurationEntry;
 import javax.security.auth.login.AppConfigurationEntry.LoginModuleControlFlag;
 import javax.security.auth.login.Configuration;
@@ -69,6 +68,7 @@ import org.apache.directory.api.ldap.model.message.ResultResponse;
 import org.apache.directory.api.ldap.model.message.SearchRequest;
 import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
 import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.OpaqueControl;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.url.LdapUrl;
 import org.apache.directory.ldap.client.api.LdapConnectionConfig;
@@ -77,6 +77,7 @@ import org.apache.directory.ldap.client.api.SaslCramMd5Request;
 import org.apache.directory.ldap.client.api.SaslDigestMd5Request;
 import org.apache.directory.ldap.client.api.SaslGssApiRequest;
 import org.apache.directory.ldap.client.api.exception.InvalidConnectionException;
+import org.apache.directory.ldap.client.api.future.ResponseFuture;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
@@ -88,12 +89,15 @@ import org.apache.directory.studio.connection.core.ConnectionParameter.Encryptio
 import org.apache.directory.studio.connection.core.IAuthHandler;
 import org.apache.directory.studio.connection.core.ICredentials;
 import org.apache.directory.studio.connection.core.ILdapLogger;
+import org.apache.directory.studio.connection.core.LdapOperationType;
 import org.apache.directory.studio.connection.core.Messages;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.connection.core.ReferralsInfo;
 import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.ConnectionWrapperUtils;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
-import org.apache.directory.studio.connection.core.io.StudioTrustManager;
+import org.apache.directory.studio.connection.core.io.StudioTlsContext;
+import org.apache.mina.core.session.IoSession;
 import org.eclipse.core.runtime.Preferences;
 import org.eclipse.osgi.util.NLS;
 
@@ -120,6 +124,18 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     /** The current job thread */
     private Thread jobThread;
 
+    /** The cached TLS setup, reused for reconnects */
+    private StudioTlsContext tlsContext = new StudioTlsContext();
+
+    /** The network session of the LDAP connection, used to count the transferred bytes */
+    private IoSession ioSession;
+
+    /** The number of bytes read that were already reported to the LDAP loggers */
+    private long reportedBytesRead;
+
+    /** The number of bytes written that were already reported to the LDAP loggers */
+    private long reportedBytesWritten;
+
     /**
      * Creates a new instance of DirectoryApiConnectionWrapper.
      * 
@@ -171,8 +187,6 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         binaryAttributeDetector = new DefaultConfigurableBinaryAttributeDetector();
         ldapConnectionConfig.setBinaryAttributeDetector( binaryAttributeDetector );
 
-        AtomicReference<StudioTrustManager> studioTrustmanager = new AtomicReference<>();
-
         if ( ( connection.getEncryptionMethod() == EncryptionMethod.LDAPS )
             || ( connection.getEncryptionMethod() == EncryptionMethod.START_TLS ) )
         {
@@ -181,23 +195,9 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
 
             try
             {
-                // get default trust managers (using JVM "cacerts" key store)
-                TrustManagerFactory factory = TrustManagerFactory.getInstance( TrustManagerFactory
-                    .getDefaultAlgorithm() );
-                factory.init( ( KeyStore ) null );
-                TrustManager[] defaultTrustManagers = factory.getTrustManagers();
-
-                // create wrappers around the trust managers
-                StudioTrustManager[] trustManagers = new StudioTrustManager[defaultTrustManagers.length];
-
-                for ( int i = 0; i < defaultTrustManagers.length; i++ )
-                {
-                    trustManagers[i] = new StudioTrustManager( ( X509TrustManager ) defaultTrustManagers[i] );
-                    trustManagers[i].setHost( connection.getHost() );
-                }
-                studioTrustmanager.set( trustManagers[0] );
-
-                ldapConnectionConfig.setTrustManagers( trustManagers );
+                // reuse the trust managers of previous connects unless the host or the trust stores changed
+                ldapConnectionConfig.setTrustManagers( tlsContext.getTrustManagers( connection.getHost() ) );
+                ldapConnectionConfig.setSecureRandom( StudioTlsContext.getSecureRandom() );
             }
             catch ( Exception e )
             {
@@ -223,7 +223,14 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     ldapConnectionConfig.setTimeout( Math.min( oldTimeout, 5000L ) );
 
                     // Connecting
-                    ldapConnectionUnderConstruction = new LdapNetworkConnection( ldapConnectionConfig );
+                    ldapConnectionUnderConstruction = new LdapNetworkConnection( ldapConnectionConfig )
+                    {
+                        public void sessionCreated( IoSession session ) throws Exception
+                        {
+                            super.sessionCreated( session );
+                            setIoSession( session );
+                        }
+                    };
                     ldapConnectionUnderConstruction.connect();
 
                     // DIRSTUDIO-1219: Establish TLS layer if TLS is enabled and SSL is not
@@ -299,6 +306,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         }
         if ( ldapConnection != null )
         {
+            logTransferredBytes();
+
             try
             {
                 ldapConnection.close();
@@ -348,6 +357,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             {
                 public void run()
                 {
+                    long start = 0L;
+
                     try
                     {
                         BindResponse bindResponse = null;
@@ -357,6 +368,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                             .getAuthMethod() == ConnectionParameter.AuthenticationMethod.NONE )
                         {
                             BindRequest bindRequest = new BindRequestImpl();
+                            start = System.nanoTime();
                             bindResponse = ldapConnection.bind( bindRequest );
                         }
                         else
@@ -388,6 +400,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                             String bindPrincipal = credentials.getBindPrincipal();
                             String bindPassword = credentials.getBindPassword();
 
+                            start = System.nanoTime();
                             switch ( connection.getConnectionParameter().getAuthMethod() )
                             {
                                 case SIMPLE:
@@ -482,6 +495,11 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     {
                         exception = toStudioLdapException( e );
                     }
+
+                    if ( start != 0L )
+                    {
+                        logOperation( LdapOperationType.BIND, start, exception );
+                    }
                 }
             };
 
@@ -613,6 +631,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                         logger.logSearchResultDone( connection, 0, requestNum, exception );
                     }
                 }
+
+                logTransferredBytes();
             }
         };
 
@@ -716,6 +736,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         {
             public void run()
             {
+                long start = System.nanoTime();
+
                 try
                 {
                     // Preparing the modify request
@@ -748,6 +770,9 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
 
                     // Checking the response
                     checkResponse( modifyResponse );
+
+                    // Attaching the Post-Read entry, if requested and returned
+                    handlePostReadControl( controls, modifyResponse );
                 }
                 catch ( Exception e )
                 {
@@ -758,6 +783,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                 {
                     logger.logChangetypeModify( connection, dn, modifications, controls, exception );
                 }
+
+                logOperation( LdapOperationType.MODIFY, start, exception );
             }
         };
 
@@ -799,6 +826,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         {
             public void run()
             {
+                long start = System.nanoTime();
+
                 try
                 {
                     // Preparing the rename request
@@ -827,6 +856,9 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
 
                     // Checking the response
                     checkResponse( modifyDnResponse );
+
+                    // Attaching the Post-Read entry, if requested and returned
+                    handlePostReadControl( controls, modifyDnResponse );
                 }
                 catch ( Exception e )
                 {
@@ -837,6 +869,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                 {
                     logger.logChangetypeModDn( connection, oldDn, newDn, deleteOldRdn, controls, exception );
                 }
+
+                logOperation( LdapOperationType.MODDN, start, exception );
             }
         };
 
@@ -878,6 +912,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         {
             public void run()
             {
+                long start = System.nanoTime();
+
                 try
                 {
                     // Preparing the add request
@@ -906,6 +942,9 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
 
                     // Checking the response
                     checkResponse( addResponse );
+
+                    // Attaching the Post-Read entry, if requested and returned
+                    handlePostReadControl( controls, addResponse );
                 }
                 catch ( Exception e )
                 {
@@ -916,6 +955,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                 {
                     logger.logChangetypeAdd( connection, entry, controls, exception );
                 }
+
+                logOperation( LdapOperationType.ADD, start, exception );
             }
         };
 
@@ -957,6 +998,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         {
             public void run()
             {
+                long start = System.nanoTime();
+
                 try
                 {
                     // Preparing the delete request
@@ -992,6 +1035,209 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                 {
                     logger.logChangetypeDelete( connection, dn, controls, exception );
                 }
+
+                logOperation( LdapOperationType.DELETE, start, exception );
+            }
+        };
+
+        try
+        {
+            checkConnectionAndRunAndMonitor( runnable, monitor );
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
+
+        if ( runnable.isCanceled() )
+        {
+            monitor.setCanceled( true );
+        }
+        if ( runnable.getException() != null )
+        {
+            monitor.reportError( runnable.getException() );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Exception[] createEntries( final List<Entry> entries, final Control[] controls, final int window,
+        final StudioProgressMonitor monitor )
+    {
+        PipelinedRequestSender sender = index -> {
+            AddRequest request = new AddRequestImpl();
+            request.setEntry( entries.get( index ) );
+            if ( controls != null )
+            {
+                request.addAllControls( controls );
+            }
+            return ldapConnection.addAsync( request );
+        };
+
+        PipelinedResponseLogger responseLogger = ( index, error ) -> {
+            for ( ILdapLogger logger : getLdapLoggers() )
+            {
+                logger.logChangetypeAdd( connection, entries.get( index ), controls, error );
+            }
+        };
+
+        return runPipelined( LdapOperationType.ADD, entries.size(), window, sender, responseLogger, monitor );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Exception[] deleteEntries( final List<Dn> dns, final Control[] controls, final int window,
+        final StudioProgressMonitor monitor )
+    {
+        PipelinedRequestSender sender = index -> {
+            DeleteRequest request = new DeleteRequestImpl();
+            request.setName( dns.get( index ) );
+            if ( controls != null )
+            {
+                request.addAllControls( controls );
+            }
+            return ldapConnection.deleteAsync( request );
+        };
+
+        PipelinedResponseLogger responseLogger = ( index, error ) -> {
+            for ( ILdapLogger logger : getLdapLoggers() )
+            {
+                logger.logChangetypeDelete( connection, dns.get( index ), controls, error );
+            }
+        };
+
+        return runPipelined( LdapOperationType.DELETE, dns.size(), window, sender, responseLogger, monitor );
+    }
+
+
+    /**
+     * Sends requests pipelined, with at most <code>window</code> outstanding requests,
+     * and collects the responses in sending order.
+     * 
+     * Requests whose response doesn't arrive within the configured timeout are abandoned.
+     * If the runnable is run again after a reconnect only the requests that weren't
+     * answered yet are sent again, the outstanding requests of the failed run are abandoned.
+     *
+     * @param operationType the type of the requests
+     * @param count the number of requests
+     * @param window the maximum number of outstanding requests
+     * @param sender sends the request with the given index
+     * @param responseLogger logs the outcome of the request with the given index
+     * @param monitor the progress monitor
+     * 
+     * @return the errors per request, null if the requests couldn't be sent
+     */
+    private Exception[] runPipelined( final LdapOperationType operationType, final int count, final int window,
+        final PipelinedRequestSender sender, final PipelinedResponseLogger responseLogger,
+        final StudioProgressMonitor monitor )
+    {
+        if ( connection.isReadOnly() )
+        {
+            monitor
+                .reportError(
+                    new Exception( NLS.bind( Messages.error__connection_is_readonly, connection.getName() ) ) );
+            return null;
+        }
+
+        final Exception[] errors = new Exception[count];
+
+        // kept across runs, a run after a reconnect only sends the requests that weren't answered yet
+        final boolean[] answered = new boolean[count];
+        final long[] sendNanos = new long[count];
+
+        InnerRunnable runnable = new InnerRunnable()
+        {
+            public void run()
+            {
+                long timeout = ldapConnection.getConfig().getTimeout();
+                if ( timeout <= 0 )
+                {
+                    timeout = Long.MAX_VALUE;
+                }
+
+                // the indices of the outstanding requests and their futures, in sending order
+                Deque<Integer> outstandingIndices = new ArrayDeque<>();
+                Deque<ResponseFuture<? extends ResultResponse>> outstandingFutures = new ArrayDeque<>();
+
+                try
+                {
+                    int next = 0;
+                    while ( next < count || !outstandingFutures.isEmpty() )
+                    {
+                        // fill the window
+                        while ( next < count && outstandingFutures.size() < Math.max( 1, window )
+                            && !monitor.isCanceled() )
+                        {
+                            if ( !answered[next] )
+                            {
+                                sendNanos[next] = System.nanoTime();
+                                outstandingFutures.add( sender.send( next ) );
+                                outstandingIndices.add( next );
+                            }
+                            next++;
+                        }
+
+                        if ( monitor.isCanceled() )
+                        {
+                            // don't send more requests, but collect the responses of the outstanding ones
+                            next = count;
+                        }
+
+                        if ( outstandingFutures.isEmpty() )
+                        {
+                            break;
+                        }
+
+                        // wait for the oldest outstanding response
+                        ResponseFuture<? extends ResultResponse> future = outstandingFutures.poll();
+                        int index = outstandingIndices.poll();
+                        StudioLdapException error = null;
+                        try
+                        {
+                            ResultResponse response = future.get( timeout, TimeUnit.MILLISECONDS );
+                            if ( response == null )
+                            {
+                                // don't leave the request pending on the server and in the connection
+                                abandon( future );
+                                throw new LdapException( Messages.DirectoryApiConnectionWrapper_ResponseTimeout );
+                            }
+                            checkResponse( response );
+                        }
+                        catch ( ExecutionException e )
+                        {
+                            error = toStudioLdapException( e.getCause() instanceof Exception ? ( Exception ) e
+                                .getCause() : e );
+                        }
+                        catch ( InterruptedException e )
+                        {
+                            abandon( future );
+                            throw e;
+                        }
+                        catch ( Exception e )
+                        {
+                            error = toStudioLdapException( e );
+                        }
+                        errors[index] = error;
+                        answered[index] = true;
+
+                        responseLogger.log( index, error );
+                        logOperation( operationType, sendNanos[index], error );
+                    }
+                }
+                catch ( Exception e )
+                {
+                    exception = toStudioLdapException( e );
+
+                    // the outstanding requests are sent again if the runnable is retried
+                    for ( ResponseFuture<? extends ResultResponse> future : outstandingFutures )
+                    {
+                        abandon( future );
+                    }
+                }
             }
         };
 
@@ -1002,6 +1248,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         catch ( Exception e )
         {
             monitor.reportError( e );
+            return null;
         }
 
         if ( runnable.isCanceled() )
@@ -1011,6 +1258,23 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         if ( runnable.getException() != null )
         {
             monitor.reportError( runnable.getException() );
+            return null;
+        }
+
+        return errors;
+    }
+
+
+    /**
+     * Abandons the request of the given future, if the connection is still alive.
+     *
+     * @param future the future of the request to abandon
+     */
+    private void abandon( ResponseFuture<? extends ResultResponse> future )
+    {
+        if ( ldapConnection != null && ldapConnection.isConnected() )
+        {
+            ldapConnection.abandon( future.getMessageId() );
         }
     }
 
@@ -1031,6 +1295,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         {
             public void run()
             {
+                long start = System.nanoTime();
+
                 try
                 {
                     ExtendedResponse response = ldapConnection.extended( request );
@@ -1046,9 +1312,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     exception = toStudioLdapException( e );
                 }
 
-                for ( ILdapLogger logger : getLdapLoggers() )
-                {
-                }
+                logOperation( LdapOperationType.EXTENDED, start, exception );
             }
         };
 
@@ -1136,6 +1400,22 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
 
     }
 
+    @FunctionalInterface
+    private interface PipelinedRequestSender
+    {
+
+        ResponseFuture<? extends ResultResponse> send( int index ) throws LdapException;
+
+    }
+
+    @FunctionalInterface
+    private interface PipelinedResponseLogger
+    {
+
+        void log( int index, StudioLdapException error );
+
+    }
+
     private boolean checkAndHandleReferral( ResultResponse response, StudioProgressMonitor monitor,
         ReferralsInfo referralsInfo, ReferralHandlingDataConsumer consumer ) throws LdapException
     {
@@ -1157,6 +1437,11 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
 
         Referral referral = ldapResult.getReferral();
         referralsInfo.addReferral( referral );
+
+        for ( ILdapLogger logger : getLdapLoggers() )
+        {
+            logger.logReferral( connection, referral );
+        }
         Referral nextReferral = referralsInfo.getNextReferral();
 
         Connection referralConnection = ConnectionWrapperUtils.getReferralConnection( nextReferral, monitor, this );
@@ -1211,6 +1496,11 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             // check reconnection
             if ( ( i == 0 ) && ( runnable.getException() instanceof InvalidConnectionException ) )
             {
+                for ( ILdapLogger logger : getLdapLoggers() )
+                {
+                    logger.logReconnect( connection );
+                }
+
                 doConnect( monitor );
                 doBind( monitor );
                 runnable.reset();
@@ -1316,6 +1606,65 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         }
     }
 
+    /**
+     * Reports the duration of an operation and the bytes transferred so far to the LDAP loggers.
+     *
+     * @param operationType the type of the operation
+     * @param startNanos the value of {@link System#nanoTime()} when the operation was started
+     * @param ex the LDAP exception if an error occurred, null otherwise
+     */
+    private void logOperation( LdapOperationType operationType, long startNanos, StudioLdapException ex )
+    {
+        long durationNanos = System.nanoTime() - startNanos;
+
+        for ( ILdapLogger logger : getLdapLoggers() )
+        {
+            logger.logOperation( connection, operationType, durationNanos, ex );
+        }
+
+        logTransferredBytes();
+    }
+
+
+    /**
+     * Reports the bytes transferred since the last report to the LDAP loggers.
+     */
+    synchronized void logTransferredBytes()
+    {
+        if ( ioSession == null )
+        {
+            return;
+        }
+
+        long bytesRead = ioSession.getReadBytes() - reportedBytesRead;
+        long bytesWritten = ioSession.getWrittenBytes() - reportedBytesWritten;
+
+        if ( bytesRead > 0 || bytesWritten > 0 )
+        {
+            reportedBytesRead += bytesRead;
+            reportedBytesWritten += bytesWritten;
+
+            for ( ILdapLogger logger : getLdapLoggers() )
+            {
+                logger.logTransferredBytes( connection, bytesRead, bytesWritten );
+            }
+        }
+    }
+
+
+    /**
+     * Sets the network session of a new LDAP connection, the byte counters start at zero.
+     *
+     * @param session the network session
+     */
+    private synchronized void setIoSession( IoSession session )
+    {
+        ioSession = session;
+        reportedBytesRead = 0L;
+        reportedBytesWritten = 0L;
+    }
+
+
     private List<ILdapLogger> getLdapLoggers()
     {
         return ConnectionCorePlugin.getDefault().getLdapLoggers();
@@ -1339,6 +1688,48 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     }
 
 
+    /**
+     * Attaches the entry of the Post-Read response control to the Post-Read request control,
+     * if one was passed in the given controls. The response entry stays null if the server
+     * didn't return the control or if its value can't be decoded, the caller then has to
+     * read the entry itself.
+     * 
+     * @param controls the request controls, may be null
+     * @param response the response of the successful operation
+     */
+    private void handlePostReadControl( Control[] controls, ResultResponse response )
+    {
+        if ( controls == null || response == null )
+        {
+            return;
+        }
+
+        for ( Control control : controls )
+        {
+            if ( control instanceof PostReadControl )
+            {
+                PostReadControl postReadControl = ( PostReadControl ) control;
+                postReadControl.setResponseEntry( null );
+
+                Control responseControl = response.getControl( PostReadControl.OID );
+                if ( responseControl instanceof OpaqueControl
+                    && ( ( OpaqueControl ) responseControl ).hasEncodedValue() )
+                {
+                    try
+                    {
+                        postReadControl.setResponseEntry( PostReadControl.decodeSearchResultEntry(
+                            ( ( OpaqueControl ) responseControl ).getEncodedValue(), binaryAttributeDetector ) );
+                    }
+                    catch ( LdapException e )
+                    {
+                        // ignore, the operation itself succeeded
+                    }
+                }
+            }
+        }
+    }
+
+
     private StudioLdapException toStudioLdapException( Exception exception )
     {
         if ( exception == null )
@@ -0,0 +1,213 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.io.api;
+
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A lock-free latency histogram with logarithmic buckets in the style of HdrHistogram.
+ * 
+ * Each power of two is divided into 16 linear sub-buckets, so a recorded value
+ * is represented with a relative error of less than 1/16 over the whole range
+ * of a long, using a fixed array of counters. Recording is a few bit operations
+ * and atomic increments, so it can be done for every LDAP operation.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LatencyHistogram
+{
+    /** The number of bits used for the linear sub-buckets of each power of two */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** The number of sub-buckets of each power of two */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** The number of buckets needed for all non-negative long values */
+    private static final int BUCKET_COUNT = ( 64 - SUB_BUCKET_BITS ) * SUB_BUCKET_COUNT;
+
+    /** The counters of the buckets */
+    private final AtomicLongArray counts = new AtomicLongArray( BUCKET_COUNT );
+
+    /** The number of recorded values */
+    private final LongAdder totalCount = new LongAdder();
+
+    /** The sum of the recorded values */
+    private final LongAdder totalSum = new LongAdder();
+
+    /** The highest recorded value */
+    private final LongAccumulator maxValue = new LongAccumulator( Math::max, 0L );
+
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are recorded as 0
+     */
+    public void record( long value )
+    {
+        long v = Math.max( 0L, value );
+        counts.incrementAndGet( getBucketIndex( v ) );
+        totalCount.increment();
+        totalSum.add( v );
+        maxValue.accumulate( v );
+    }
+
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount()
+    {
+        return totalCount.sum();
+    }
+
+
+    /**
+     * Gets the sum of the recorded values.
+     *
+     * @return the sum of the recorded values
+     */
+    public long getSum()
+    {
+        return totalSum.sum();
+    }
+
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return the mean, 0 if no value was recorded
+     */
+    public double getMean()
+    {
+        long count = getCount();
+        return count == 0 ? 0d : ( double ) getSum() / count;
+    }
+
+
+    /**
+     * Gets the highest recorded value.
+     *
+     * @return the highest recorded value, 0 if no value was recorded
+     */
+    public long getMax()
+    {
+        return maxValue.get();
+    }
+
+
+    /**
+     * Gets the value at the given percentile. The returned value is the highest value
+     * that is equivalent to the recorded values in the same bucket, but never more
+     * than the highest recorded value.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the percentile, 0 if no value was recorded
+     */
+    public long getValueAtPercentile( double percentile )
+    {
+        long count = 0L;
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            count += counts.get( i );
+        }
+
+        if ( count == 0 )
+        {
+            return 0L;
+        }
+
+        long rank = Math.max( 1L, ( long ) Math.ceil( count * Math.min( 100d, Math.max( 0d, percentile ) ) / 100d ) );
+        long seen = 0L;
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            seen += counts.get( i );
+            if ( seen >= rank )
+            {
+                return Math.min( getHighestEquivalentValue( i ), getMax() );
+            }
+        }
+
+        return getMax();
+    }
+
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset()
+    {
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            counts.set( i, 0L );
+        }
+        totalCount.reset();
+        totalSum.reset();
+        maxValue.reset();
+    }
+
+
+    /**
+     * Gets the index of the bucket that counts the given value.
+     *
+     * @param value the non-negative value
+     * @return the bucket index
+     */
+    static int getBucketIndex( long value )
+    {
+        if ( value < SUB_BUCKET_COUNT )
+        {
+            return ( int ) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros( value );
+        int subBucket = ( int ) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKET_COUNT - 1 );
+
+        return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+
+    /**
+     * Gets the highest value that is counted by the given bucket.
+     *
+     * @param index the bucket index
+     * @return the highest value of the bucket
+     */
+    static long getHighestEquivalentValue( int index )
+    {
+        if ( index < SUB_BUCKET_COUNT )
+        {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        long lowest = ( SUB_BUCKET_COUNT + subBucket ) << ( exponent - SUB_BUCKET_BITS );
+
+        return lowest + ( 1L << ( exponent - SUB_BUCKET_BITS ) ) - 1;
+    }
+}
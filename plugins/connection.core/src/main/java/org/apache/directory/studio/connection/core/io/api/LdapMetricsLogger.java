@@ -0,0 +1,357 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.io.api;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.naming.directory.SearchControls;
+
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.Referral;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.ILdapLogger;
+import org.apache.directory.studio.connection.core.LdapOperationType;
+import org.apache.directory.studio.connection.core.ReferralsInfo;
+import org.apache.directory.studio.connection.core.io.StudioLdapException;
+
+
+/**
+ * The LdapMetricsLogger collects per-connection metrics of all LDAP operations:
+ * latency histograms per operation type, received entries, referrals, reconnects,
+ * error codes and transferred bytes.
+ * 
+ * The metrics of each connection are registered as MXBean in the platform MBean server
+ * and can be exported to a file.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapMetricsLogger implements ILdapLogger
+{
+    /** The domain of the JMX object names */
+    private static final String JMX_DOMAIN = "org.apache.directory.studio"; //$NON-NLS-1$
+
+    /** The ID. */
+    private String id;
+
+    /** The name. */
+    private String name;
+
+    /** The description. */
+    private String description;
+
+    /** The metrics by connection ID. */
+    private Map<String, ConnectionMetrics> metrics = new ConcurrentHashMap<String, ConnectionMetrics>();
+
+
+    /**
+     * Gets the metrics of the given connection.
+     *
+     * @param connection the connection
+     * @return the metrics of the connection
+     */
+    public ConnectionMetrics getMetrics( Connection connection )
+    {
+        ConnectionMetrics connectionMetrics = metrics.get( connection.getId() );
+
+        if ( connectionMetrics == null )
+        {
+            connectionMetrics = metrics.computeIfAbsent( connection.getId(), k -> {
+                ConnectionMetrics newMetrics = new ConnectionMetrics( connection );
+                registerMBean( newMetrics );
+                return newMetrics;
+            } );
+        }
+
+        return connectionMetrics;
+    }
+
+
+    /**
+     * Gets the metrics of all connections that were used, sorted by connection name.
+     *
+     * @return the metrics of all connections
+     */
+    public List<ConnectionMetrics> getMetrics()
+    {
+        List<ConnectionMetrics> list = new ArrayList<ConnectionMetrics>( metrics.values() );
+        list.sort( Comparator.comparing( ConnectionMetrics::getConnectionName,
+            Comparator.nullsFirst( String.CASE_INSENSITIVE_ORDER ) ) );
+        return list;
+    }
+
+
+    /**
+     * Clears the metrics of all connections.
+     */
+    public void reset()
+    {
+        for ( ConnectionMetrics connectionMetrics : metrics.values() )
+        {
+            connectionMetrics.reset();
+        }
+    }
+
+
+    /**
+     * Disposes the metrics of the given connection.
+     *
+     * @param connection the connection
+     */
+    public void dispose( Connection connection )
+    {
+        ConnectionMetrics connectionMetrics = metrics.remove( connection.getId() );
+
+        if ( connectionMetrics != null )
+        {
+            unregisterMBean( connectionMetrics );
+        }
+    }
+
+
+    /**
+     * Writes the metrics of all connections as CSV, one line per connection and operation type.
+     * Durations are in milliseconds.
+     *
+     * @param writer the writer
+     * @throws IOException if writing fails
+     */
+    public void export( Writer writer ) throws IOException
+    {
+        writer.write( "connection,operation,count,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms,error_codes," //$NON-NLS-1$
+            + "entries,entries_per_second,referrals,reconnects,bytes_read,bytes_written\n" ); //$NON-NLS-1$
+
+        for ( ConnectionMetrics connectionMetrics : getMetrics() )
+        {
+            for ( OperationStatistics statistics : connectionMetrics.getOperations() )
+            {
+                StringJoiner errorCodes = new StringJoiner( " " ); //$NON-NLS-1$
+                for ( Map.Entry<Integer, Long> entry : statistics.getErrorCodes().entrySet() )
+                {
+                    errorCodes.add( entry.getKey() + "=" + entry.getValue() ); //$NON-NLS-1$
+                }
+
+                writer.write( String.format( Locale.ROOT,
+                    "\"%s\",%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%s,%d,%.1f,%d,%d,%d,%d\n", //$NON-NLS-1$
+                    String.valueOf( connectionMetrics.getConnectionName() ).replace( "\"", "\"\"" ), //$NON-NLS-1$ //$NON-NLS-2$
+                    statistics.getOperation(), statistics.getCount(), statistics.getErrors(),
+                    statistics.getMeanMillis(), statistics.getMedianMillis(), statistics.getPercentile90Millis(),
+                    statistics.getPercentile99Millis(), statistics.getMaxMillis(), errorCodes,
+                    connectionMetrics.getEntries(), connectionMetrics.getEntriesPerSecond(),
+                    connectionMetrics.getReferrals(), connectionMetrics.getReconnects(),
+                    connectionMetrics.getBytesRead(), connectionMetrics.getBytesWritten() ) );
+            }
+        }
+
+        writer.flush();
+    }
+
+
+    private static ObjectName getObjectName( ConnectionMetrics connectionMetrics ) throws JMException
+    {
+        return new ObjectName( JMX_DOMAIN + ":type=LdapMetrics,connection=" //$NON-NLS-1$
+            + ObjectName.quote( connectionMetrics.getConnection().getId() ) );
+    }
+
+
+    private static void registerMBean( ConnectionMetrics connectionMetrics )
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName( connectionMetrics );
+
+            if ( server.isRegistered( objectName ) )
+            {
+                server.unregisterMBean( objectName );
+            }
+
+            server.registerMBean( connectionMetrics, objectName );
+        }
+        catch ( JMException | SecurityException e )
+        {
+            // the metrics are still available in the view and the export
+        }
+    }
+
+
+    private static void unregisterMBean( ConnectionMetrics connectionMetrics )
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName( connectionMetrics );
+
+            if ( server.isRegistered( objectName ) )
+            {
+                server.unregisterMBean( objectName );
+            }
+        }
+        catch ( JMException | SecurityException e )
+        {
+            // nothing to do
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void logOperation( Connection connection, LdapOperationType operationType, long durationNanos,
+        StudioLdapException ex )
+    {
+        getMetrics( connection ).recordOperation( operationType, durationNanos, ex );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void logSearchRequest( Connection connection, String searchBase, String filter,
+        SearchControls searchControls, AliasDereferencingMethod aliasesDereferencingMethod, Control[] controls,
+        long requestNum, StudioLdapException ex )
+    {
+        getMetrics( connection ).recordSearchRequest( requestNum );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void logSearchResultEntry( Connection connection, StudioSearchResult studioSearchResult, long requestNum,
+        StudioLdapException ex )
+    {
+        getMetrics( connection ).recordSearchResultEntry( requestNum );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void logSearchResultReference( Connection connection, Referral referral, ReferralsInfo referralsInfo,
+        long requestNum, StudioLdapException ex )
+    {
+        getMetrics( connection ).recordReferral();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void logSearchResultDone( Connection connection, long count, long requestNum, StudioLdapException ex )
+    {
+        getMetrics( connection ).recordSearchResultDone( requestNum, ex );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void logReferral( Connection connection, Referral referral )
+    {
+        getMetrics( connection ).recordReferral();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void logReconnect( Connection connection )
+    {
+        getMetrics( connection ).recordReconnect();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void logTransferredBytes( Connection connection, long bytesRead, long bytesWritten )
+    {
+        getMetrics( connection ).recordTransferredBytes( bytesRead, bytesWritten );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setId( String id )
+    {
+        this.id = id;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setName( String name )
+    {
+        this.name = name;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getDescription()
+    {
+        return description;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setDescription( String description )
+    {
+        this.description = description;
+    }
+}
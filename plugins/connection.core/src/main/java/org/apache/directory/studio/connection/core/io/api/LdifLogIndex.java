@@ -0,0 +1,635 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.io.api;
+
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.ldifparser.LdifUtils;
+
+
+/**
+ * The LdifLogIndex keeps an index of the records contained in the LDIF log files
+ * written by the {@link LdifSearchLogger} and the {@link LdifModificationLogger}.
+ * <p>
+ * For each log file only the byte offset and some header information (request number,
+ * connection, timestamp and DN) of each record is kept. The index of a file is extended
+ * incrementally while the logger appends to it, and rebuilt when the file was rotated.
+ * This allows the logs views to page through records and to filter them without loading
+ * whole log files into memory.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifLogIndex
+{
+
+    /** The prefix of the header lines written by the loggers. */
+    private static final String HEADER_PREFIX = "#!"; //$NON-NLS-1$
+
+    /** The prefix of the connection header line. */
+    private static final String CONNECTION_PREFIX = "#!CONNECTION "; //$NON-NLS-1$
+
+    /** The prefix of the date header line. */
+    private static final String DATE_PREFIX = "#!DATE "; //$NON-NLS-1$
+
+    /** The prefix of the error header line. */
+    private static final String ERROR_PREFIX = "#!ERROR "; //$NON-NLS-1$
+
+    /** The prefix of the base DN comment line of search requests. */
+    private static final String BASE_OBJECT_PREFIX = "# baseObject   : "; //$NON-NLS-1$
+
+    /** The prefix of the DN line of LDIF records. */
+    private static final String DN_PREFIX = "dn:"; //$NON-NLS-1$
+
+    /** The number of bytes used to detect a rotated log file. */
+    private static final int FINGERPRINT_LENGTH = 256;
+
+    /** The charset used by the log file handlers. */
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    /** The file indexes. */
+    private Map<File, FileIndex> fileIndexes = new HashMap<File, FileIndex>();
+
+
+    /**
+     * A Record describes a single log record within a log file.
+     */
+    public static class Record
+    {
+        /** The log file */
+        private File file;
+
+        /** The byte offset of the record within the log file */
+        private long offset;
+
+        /** The length of the record in bytes */
+        private long length;
+
+        /** The type of the record, e.g. "SEARCH REQUEST" or "RESULT" */
+        private String type;
+
+        /** The request number, -1 if not available */
+        private long requestNumber = -1;
+
+        /** The error flag */
+        private boolean error;
+
+        /** The connection URL */
+        private String connection;
+
+        /** The timestamp */
+        private String date;
+
+        /** The DN, may be null */
+        private String dn;
+
+        /** The lower-cased DN, used for filtering */
+        private String normalizedDn;
+
+
+        private Record( File file, long offset )
+        {
+            this.file = file;
+            this.offset = offset;
+        }
+
+
+        /**
+         * Gets the log file.
+         *
+         * @return the log file
+         */
+        public File getFile()
+        {
+            return file;
+        }
+
+
+        /**
+         * Gets the byte offset of the record within the log file.
+         *
+         * @return the byte offset
+         */
+        public long getOffset()
+        {
+            return offset;
+        }
+
+
+        /**
+         * Gets the length of the record in bytes.
+         *
+         * @return the length
+         */
+        public long getLength()
+        {
+            return length;
+        }
+
+
+        /**
+         * Gets the type of the record, e.g. "SEARCH REQUEST" or "RESULT".
+         *
+         * @return the type
+         */
+        public String getType()
+        {
+            return type;
+        }
+
+
+        /**
+         * Gets the request number.
+         *
+         * @return the request number, -1 if not available
+         */
+        public long getRequestNumber()
+        {
+            return requestNumber;
+        }
+
+
+        /**
+         * Checks if the logged operation failed.
+         *
+         * @return true, if the logged operation failed
+         */
+        public boolean isError()
+        {
+            return error;
+        }
+
+
+        /**
+         * Gets the connection URL.
+         *
+         * @return the connection URL
+         */
+        public String getConnection()
+        {
+            return connection;
+        }
+
+
+        /**
+         * Gets the timestamp.
+         *
+         * @return the timestamp
+         */
+        public String getDate()
+        {
+            return date;
+        }
+
+
+        /**
+         * Gets the DN.
+         *
+         * @return the DN, may be null
+         */
+        public String getDn()
+        {
+            return dn;
+        }
+
+
+        /**
+         * Checks if this record matches the given filter. A record matches if the
+         * filter is a number equal to the request number or if the DN contains the
+         * filter, ignoring case.
+         *
+         * @param filter the filter, may be null or empty
+         * @return true, if the record matches
+         */
+        public boolean matches( String filter )
+        {
+            if ( Strings.isEmpty( filter ) )
+            {
+                return true;
+            }
+
+            String trimmed = filter.trim();
+
+            if ( requestNumber >= 0 && Long.toString( requestNumber ).equals( trimmed ) )
+            {
+                return true;
+            }
+
+            return normalizedDn != null && normalizedDn.contains( Strings.toLowerCase( trimmed ) );
+        }
+    }
+
+    /**
+     * The index of a single log file.
+     */
+    private static class FileIndex
+    {
+        /** The indexed records */
+        private List<Record> records = new ArrayList<Record>();
+
+        /** The number of indexed bytes */
+        private long indexedLength;
+
+        /** The first bytes of the file, used to detect rotation */
+        private byte[] fingerprint = new byte[0];
+    }
+
+
+    /**
+     * Gets all records of the given log file. The index of the file is
+     * updated before, only the bytes appended since the last call are read.
+     *
+     * @param file the log file
+     * @return the records, oldest first
+     * @throws IOException if the log file can't be read
+     */
+    public synchronized List<Record> getRecords( File file ) throws IOException
+    {
+        FileIndex fileIndex = update( file );
+        return Collections.unmodifiableList( new ArrayList<Record>( fileIndex.records ) );
+    }
+
+
+    /**
+     * Gets all records of the given log file that match the given filter.
+     *
+     * @param file the log file
+     * @param filter the filter, see {@link Record#matches(String)}
+     * @return the matching records, oldest first
+     * @throws IOException if the log file can't be read
+     */
+    public synchronized List<Record> getRecords( File file, String filter ) throws IOException
+    {
+        FileIndex fileIndex = update( file );
+        List<Record> matching = new ArrayList<Record>();
+
+        for ( Record record : fileIndex.records )
+        {
+            if ( record.matches( filter ) )
+            {
+                matching.add( record );
+            }
+        }
+
+        return Collections.unmodifiableList( matching );
+    }
+
+
+    /**
+     * Reads the text of the given records. Adjacent records are read
+     * with a single read operation.
+     *
+     * @param records the records, must belong to the same log file
+     * @return the concatenated text of all records
+     * @throws IOException if the log file can't be read
+     */
+    public String read( List<Record> records ) throws IOException
+    {
+        if ( records.isEmpty() )
+        {
+            return ""; //$NON-NLS-1$
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        try ( RandomAccessFile raf = new RandomAccessFile( records.get( 0 ).getFile(), "r" ) ) //$NON-NLS-1$
+        {
+            int i = 0;
+
+            while ( i < records.size() )
+            {
+                long start = records.get( i ).getOffset();
+                long end = start + records.get( i ).getLength();
+                i++;
+
+                while ( i < records.size() && records.get( i ).getOffset() == end )
+                {
+                    end += records.get( i ).getLength();
+                    i++;
+                }
+
+                byte[] bytes = new byte[( int ) Math.min( end - start, raf.length() - start )];
+                raf.seek( start );
+                raf.readFully( bytes );
+                sb.append( new String( bytes, CHARSET ) );
+            }
+        }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Removes the index of the given log files.
+     *
+     * @param files the log files
+     */
+    public synchronized void remove( File... files )
+    {
+        for ( File file : files )
+        {
+            fileIndexes.remove( file );
+        }
+    }
+
+
+    /**
+     * Removes all indexes.
+     */
+    public synchronized void clear()
+    {
+        fileIndexes.clear();
+    }
+
+
+    /**
+     * Updates the index of the given file. If the file was rotated since the last
+     * update the index is rebuilt, otherwise only the appended bytes are indexed.
+     */
+    private FileIndex update( File file ) throws IOException
+    {
+        FileIndex fileIndex = fileIndexes.get( file );
+        long length = file.length();
+
+        if ( fileIndex != null
+            && ( length < fileIndex.indexedLength || !hasFingerprint( file, fileIndex.fingerprint ) ) )
+        {
+            fileIndex = null;
+        }
+
+        if ( fileIndex == null )
+        {
+            fileIndex = new FileIndex();
+            fileIndexes.put( file, fileIndex );
+        }
+
+        if ( length > fileIndex.indexedLength )
+        {
+            scan( file, fileIndex );
+        }
+
+        return fileIndex;
+    }
+
+
+    /**
+     * Checks if the given file still starts with the given bytes.
+     */
+    private static boolean hasFingerprint( File file, byte[] fingerprint ) throws IOException
+    {
+        return file.exists() && Arrays.equals( readFingerprint( file, fingerprint.length ), fingerprint );
+    }
+
+
+    private static byte[] readFingerprint( File file, int maxLength ) throws IOException
+    {
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "r" ) ) //$NON-NLS-1$
+        {
+            byte[] bytes = new byte[( int ) Math.min( maxLength, raf.length() )];
+            raf.readFully( bytes );
+            return bytes;
+        }
+    }
+
+
+    /**
+     * Scans the file starting at the last indexed record. The last record is
+     * rescanned because the logger may have appended to it.
+     */
+    private static void scan( File file, FileIndex fileIndex ) throws IOException
+    {
+        long start = 0L;
+
+        if ( !fileIndex.records.isEmpty() )
+        {
+            start = fileIndex.records.remove( fileIndex.records.size() - 1 ).getOffset();
+        }
+
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "r" ) ) //$NON-NLS-1$
+        {
+            raf.seek( start );
+            InputStream in = new BufferedInputStream( Channels.newInputStream( raf.getChannel() ), 64 * 1024 );
+            Scanner scanner = new Scanner( file, fileIndex.records );
+            ByteArrayOutputStream line = new ByteArrayOutputStream( 256 );
+            long position = start;
+            long lineStart = start;
+
+            for ( int b = in.read(); b != -1; b = in.read() )
+            {
+                position++;
+
+                if ( b == '\n' )
+                {
+                    scanner.line( line, lineStart );
+                    line.reset();
+                    lineStart = position;
+                }
+                else
+                {
+                    line.write( b );
+                }
+            }
+
+            if ( line.size() > 0 )
+            {
+                scanner.line( line, lineStart );
+            }
+
+            scanner.finish( position );
+            fileIndex.indexedLength = position;
+        }
+
+        fileIndex.fingerprint = readFingerprint( file, FINGERPRINT_LENGTH );
+    }
+
+    /**
+     * Line based scanner that splits the log file into records.
+     */
+    private static class Scanner
+    {
+        private File file;
+
+        private List<Record> records;
+
+        private Record current;
+
+        private boolean previousWasHeader;
+
+        private StringBuilder dnBuffer;
+
+
+        private Scanner( File file, List<Record> records )
+        {
+            this.file = file;
+            this.records = records;
+        }
+
+
+        private void line( ByteArrayOutputStream bytes, long lineStart )
+        {
+            String line = new String( bytes.toByteArray(), CHARSET );
+
+            if ( line.endsWith( "\r" ) ) //$NON-NLS-1$
+            {
+                line = line.substring( 0, line.length() - 1 );
+            }
+
+            if ( dnBuffer != null )
+            {
+                if ( line.startsWith( " " ) ) //$NON-NLS-1$
+                {
+                    dnBuffer.append( line, 1, line.length() );
+                    return;
+                }
+
+                finishDn();
+            }
+
+            if ( line.startsWith( HEADER_PREFIX ) )
+            {
+                if ( !previousWasHeader )
+                {
+                    finishRecord( lineStart );
+                    current = new Record( file, lineStart );
+                    parseTypeLine( current, line.substring( HEADER_PREFIX.length() ) );
+                }
+                else if ( line.startsWith( CONNECTION_PREFIX ) )
+                {
+                    current.connection = line.substring( CONNECTION_PREFIX.length() );
+                }
+                else if ( line.startsWith( DATE_PREFIX ) )
+                {
+                    current.date = line.substring( DATE_PREFIX.length() );
+                }
+                else if ( line.startsWith( ERROR_PREFIX ) )
+                {
+                    current.error = true;
+                }
+
+                previousWasHeader = true;
+            }
+            else
+            {
+                previousWasHeader = false;
+
+                if ( current != null && current.dn == null )
+                {
+                    if ( line.startsWith( DN_PREFIX ) )
+                    {
+                        dnBuffer = new StringBuilder( line.substring( DN_PREFIX.length() ) );
+                    }
+                    else if ( line.startsWith( BASE_OBJECT_PREFIX ) )
+                    {
+                        setDn( current, line.substring( BASE_OBJECT_PREFIX.length() ) );
+                    }
+                }
+            }
+        }
+
+
+        private void finishDn()
+        {
+            String value = dnBuffer.toString();
+            dnBuffer = null;
+
+            if ( value.startsWith( ":" ) ) //$NON-NLS-1$
+            {
+                value = LdifUtils.utf8decode( LdifUtils.base64decodeToByteArray( value.substring( 1 ).trim() ) );
+            }
+
+            setDn( current, value.trim() );
+        }
+
+
+        private void finishRecord( long end )
+        {
+            if ( current != null )
+            {
+                current.length = end - current.offset;
+                records.add( current );
+                current = null;
+            }
+        }
+
+
+        private void finish( long end )
+        {
+            if ( dnBuffer != null )
+            {
+                finishDn();
+            }
+
+            finishRecord( end );
+        }
+
+
+        private static void setDn( Record record, String dn )
+        {
+            record.dn = dn;
+            record.normalizedDn = Strings.toLowerCase( dn );
+        }
+
+
+        /**
+         * Parses the first header line, e.g. "SEARCH REQUEST (12) OK" or "RESULT ERROR".
+         */
+        private static void parseTypeLine( Record record, String line )
+        {
+            record.error = line.endsWith( " ERROR" ); //$NON-NLS-1$
+
+            int open = line.indexOf( " (" ); //$NON-NLS-1$
+            int close = line.indexOf( ')', open + 1 );
+
+            if ( open > 0 && close > open )
+            {
+                record.type = line.substring( 0, open );
+
+                try
+                {
+                    record.requestNumber = Long.parseLong( line.substring( open + 2, close ) );
+                }
+                catch ( NumberFormatException e )
+                {
+                    record.requestNumber = -1;
+                }
+            }
+            else
+            {
+                int blank = line.lastIndexOf( ' ' );
+                record.type = blank > 0 ? line.substring( 0, blank ) : line;
+            }
+        }
+    }
+}
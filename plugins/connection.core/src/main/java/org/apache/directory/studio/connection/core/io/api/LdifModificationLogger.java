@@ -23,6 +23,7 @@ package org.apache.directory.studio.connection.core.io.api;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
@@ -31,7 +32,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringJoiner;
 import java.util.logging.FileHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
@@ -55,22 +55,7 @@ import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.ILdapLogger;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
-import org.apache.directory.studio.ldifparser.model.container.LdifChangeAddRecord;
-import org.apache.directory.studio.ldifparser.model.container.LdifChangeDeleteRecord;
-import org.apache.directory.studio.ldifparser.model.container.LdifChangeModDnRecord;
-import org.apache.directory.studio.ldifparser.model.container.LdifChangeModifyRecord;
-import org.apache.directory.studio.ldifparser.model.container.LdifChangeRecord;
-import org.apache.directory.studio.ldifparser.model.container.LdifModSpec;
-import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifChangeTypeLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifControlLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifDeloldrdnLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifModSpecSepLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifNewrdnLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifNewsuperiorLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
+import org.apache.directory.studio.ldifparser.LdifStreamWriter;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -99,6 +84,9 @@ public class LdifModificationLogger implements ILdapLogger
     /** The loggers. */
     private Map<String, Logger> loggers = new HashMap<String, Logger>();
 
+    /** The index of the log files. */
+    private LdifLogIndex index = new LdifLogIndex();
+
     /**
      * Creates a new instance of LdifModificationLogger.
      */
@@ -139,6 +127,7 @@ public class LdifModificationLogger implements ILdapLogger
                 }
 
                 loggers.clear();
+                index.clear();
             }
         } );
     }
@@ -199,6 +188,7 @@ public class LdifModificationLogger implements ILdapLogger
             {
                 deleteFileWithRetry( file );
             }
+            index.remove( files );
 
             loggers.remove( id );
         }
@@ -218,40 +208,33 @@ public class LdifModificationLogger implements ILdapLogger
 
         if ( loggers.containsKey( id ) )
         {
-            StringJoiner lines = new StringJoiner( "" );
             DateFormat df = new SimpleDateFormat( ConnectionCoreConstants.DATEFORMAT );
             df.setTimeZone( ConnectionCoreConstants.UTC_TIME_ZONE );
 
-            if ( ex != null )
+            StringWriter sw = new StringWriter( text.length() + 128 );
+            LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+            try
             {
-                lines.add( LdifCommentLine
-                    .create( "#!RESULT ERROR" ).toFormattedString( LdifFormatParameters.DEFAULT ) ); //$NON-NLS-1$
-            }
-            else
-            {
-                lines.add( LdifCommentLine
-                    .create( "#!RESULT OK" ).toFormattedString( LdifFormatParameters.DEFAULT ) ); //$NON-NLS-1$
-            }
+                writer.writeComment( ex != null ? "#!RESULT ERROR" : "#!RESULT OK" ); //$NON-NLS-1$ //$NON-NLS-2$
+                writer.writeComment( "#!CONNECTION ldap://" + connection.getHost() + ":" + connection.getPort() ); //$NON-NLS-1$//$NON-NLS-2$
+                writer.writeComment( "#!DATE " + df.format( new Date() ) ); //$NON-NLS-1$
 
-            lines.add(
-                LdifCommentLine
-                    .create( "#!CONNECTION ldap://" + connection.getHost() + ":" + connection.getPort() ) //$NON-NLS-1$//$NON-NLS-2$
-                    .toFormattedString( LdifFormatParameters.DEFAULT ) );
-            lines.add( LdifCommentLine
-                .create( "#!DATE " + df.format( new Date() ) ).toFormattedString( LdifFormatParameters.DEFAULT ) ); //$NON-NLS-1$
-
-            if ( ex != null )
+                if ( ex != null )
+                {
+                    String errorComment = "#!ERROR " + ex.getMessage(); //$NON-NLS-1$
+                    errorComment = errorComment.replaceAll( "\r", " " ); //$NON-NLS-1$ //$NON-NLS-2$
+                    errorComment = errorComment.replaceAll( "\n", " " ); //$NON-NLS-1$ //$NON-NLS-2$
+                    writer.writeComment( errorComment );
+                }
+            }
+            catch ( IOException e )
             {
-                String errorComment = "#!ERROR " + ex.getMessage(); //$NON-NLS-1$
-                errorComment = errorComment.replaceAll( "\r", " " ); //$NON-NLS-1$ //$NON-NLS-2$
-                errorComment = errorComment.replaceAll( "\n", " " ); //$NON-NLS-1$ //$NON-NLS-2$
-                LdifCommentLine errorCommentLine = LdifCommentLine.create( errorComment );
-                lines.add( errorCommentLine.toFormattedString( LdifFormatParameters.DEFAULT ) );
+                // a StringWriter does not throw
             }
 
-            lines.add( text );
+            sw.write( text );
             Logger logger = loggers.get( id );
-            logger.log( Level.ALL, lines.toString() );
+            logger.log( Level.ALL, sw.toString() );
         }
     }
 
@@ -268,35 +251,25 @@ public class LdifModificationLogger implements ILdapLogger
         }
 
         Set<String> maskedAttributes = getMaskedAttributes();
-        LdifChangeAddRecord record = new LdifChangeAddRecord( LdifDnLine.create( entry.getDn().getName() ) );
-        addControlLines( record, controls );
-        record.setChangeType( LdifChangeTypeLine.createAdd() );
-        for ( Attribute attribute : entry )
+        StringWriter sw = new StringWriter();
+        LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+        try
         {
-            String attributeName = attribute.getUpId();
-            for ( Value value : attribute )
+            writer.writeDn( entry.getDn().getName() );
+            writeControls( writer, controls );
+            writer.writeChangeType( "add" ); //$NON-NLS-1$
+            for ( Attribute attribute : entry )
             {
-                if ( maskedAttributes.contains( Strings.toLowerCaseAscii( attributeName ) ) )
-                {
-                    record.addAttrVal( LdifAttrValLine.create( attributeName, "**********" ) ); //$NON-NLS-1$
-                }
-                else
-                {
-                    if ( value.isHumanReadable() )
-                    {
-                        record.addAttrVal( LdifAttrValLine.create( attributeName, value.getString() ) );
-                    }
-                    else
-                    {
-                        record.addAttrVal( LdifAttrValLine.create( attributeName, value.getBytes() ) );
-                    }
-                }
+                writeValues( writer, attribute, maskedAttributes );
             }
+            writer.writeSeparator();
+        }
+        catch ( IOException e )
+        {
+            // a StringWriter does not throw
         }
-        record.finish( LdifSepLine.create() );
 
-        String formattedString = record.toFormattedString( LdifFormatParameters.DEFAULT );
-        log( formattedString, ex, connection );
+        log( sw.toString(), ex, connection );
     }
 
 
@@ -311,13 +284,21 @@ public class LdifModificationLogger implements ILdapLogger
             return;
         }
 
-        LdifChangeDeleteRecord record = new LdifChangeDeleteRecord( LdifDnLine.create( dn.getName() ) );
-        addControlLines( record, controls );
-        record.setChangeType( LdifChangeTypeLine.createDelete() );
-        record.finish( LdifSepLine.create() );
+        StringWriter sw = new StringWriter();
+        LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+        try
+        {
+            writer.writeDn( dn.getName() );
+            writeControls( writer, controls );
+            writer.writeChangeType( "delete" ); //$NON-NLS-1$
+            writer.writeSeparator();
+        }
+        catch ( IOException e )
+        {
+            // a StringWriter does not throw
+        }
 
-        String formattedString = record.toFormattedString( LdifFormatParameters.DEFAULT );
-        log( formattedString, ex, connection );
+        log( sw.toString(), ex, connection );
     }
 
 
@@ -333,53 +314,42 @@ public class LdifModificationLogger implements ILdapLogger
         }
 
         Set<String> maskedAttributes = getMaskedAttributes();
-        LdifChangeModifyRecord record = new LdifChangeModifyRecord( LdifDnLine.create( dn.getName() ) );
-        addControlLines( record, controls );
-        record.setChangeType( LdifChangeTypeLine.createModify() );
-        for ( Modification item : modifications )
+        StringWriter sw = new StringWriter();
+        LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+        try
         {
-            String attributeName = item.getAttribute().getUpId();
-            LdifModSpec modSpec;
-            switch ( item.getOperation() )
-            {
-                case ADD_ATTRIBUTE:
-                    modSpec = LdifModSpec.createAdd( attributeName );
-                    break;
-                case REMOVE_ATTRIBUTE:
-                    modSpec = LdifModSpec.createDelete( attributeName );
-                    break;
-                case REPLACE_ATTRIBUTE:
-                    modSpec = LdifModSpec.createReplace( attributeName );
-                    break;
-                default:
-                    continue;
-            }
-            for ( Value value : item.getAttribute() )
+            writer.writeDn( dn.getName() );
+            writeControls( writer, controls );
+            writer.writeChangeType( "modify" ); //$NON-NLS-1$
+            for ( Modification item : modifications )
             {
-                if ( maskedAttributes.contains( Strings.toLowerCaseAscii( attributeName ) ) )
+                String modType;
+                switch ( item.getOperation() )
                 {
-                    modSpec.addAttrVal( LdifAttrValLine.create( attributeName, "**********" ) ); //$NON-NLS-1$
-                }
-                else
-                {
-                    if ( value.isHumanReadable() )
-                    {
-                        modSpec.addAttrVal( LdifAttrValLine.create( attributeName, value.getString() ) );
-                    }
-                    else
-                    {
-                        modSpec.addAttrVal( LdifAttrValLine.create( attributeName, value.getBytes() ) );
-                    }
+                    case ADD_ATTRIBUTE:
+                        modType = "add"; //$NON-NLS-1$
+                        break;
+                    case REMOVE_ATTRIBUTE:
+                        modType = "delete"; //$NON-NLS-1$
+                        break;
+                    case REPLACE_ATTRIBUTE:
+                        modType = "replace"; //$NON-NLS-1$
+                        break;
+                    default:
+                        continue;
                 }
+                writer.writeModSpecType( modType, item.getAttribute().getUpId() );
+                writeValues( writer, item.getAttribute(), maskedAttributes );
+                writer.writeModSpecSeparator();
             }
-            modSpec.finish( LdifModSpecSepLine.create() );
-
-            record.addModSpec( modSpec );
+            writer.writeSeparator();
+        }
+        catch ( IOException e )
+        {
+            // a StringWriter does not throw
         }
-        record.finish( LdifSepLine.create() );
 
-        String formattedString = record.toFormattedString( LdifFormatParameters.DEFAULT );
-        log( formattedString, ex, connection );
+        log( sw.toString(), ex, connection );
     }
 
 
@@ -397,36 +367,72 @@ public class LdifModificationLogger implements ILdapLogger
         Rdn newrdn = newDn.getRdn();
         Dn newsuperior = newDn.getParent();
 
-        LdifChangeModDnRecord record = new LdifChangeModDnRecord( LdifDnLine.create( oldDn.getName() ) );
-        addControlLines( record, controls );
-        record.setChangeType( LdifChangeTypeLine.createModDn() );
-        record.setNewrdn( LdifNewrdnLine.create( newrdn.getName() ) );
-        record.setDeloldrdn( deleteOldRdn ? LdifDeloldrdnLine.create1() : LdifDeloldrdnLine.create0() );
-        record.setNewsuperior( LdifNewsuperiorLine.create( newsuperior.getName() ) );
-        record.finish( LdifSepLine.create() );
+        StringWriter sw = new StringWriter();
+        LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+        try
+        {
+            writer.writeDn( oldDn.getName() );
+            writeControls( writer, controls );
+            writer.writeChangeType( "moddn" ); //$NON-NLS-1$
+            writer.writeNewrdn( newrdn.getName() );
+            writer.writeDeloldrdn( deleteOldRdn );
+            writer.writeNewsuperior( newsuperior.getName() );
+            writer.writeSeparator();
+        }
+        catch ( IOException e )
+        {
+            // a StringWriter does not throw
+        }
+
+        log( sw.toString(), ex, connection );
+    }
 
-        String formattedString = record.toFormattedString( LdifFormatParameters.DEFAULT );
-        log( formattedString, ex, connection );
+
+    /**
+     * Writes the values of the attribute, values of masked attributes are replaced by asterisks.
+     *
+     * @param writer the LDIF writer
+     * @param attribute the attribute
+     * @param maskedAttributes the lower-cased names of the masked attributes
+     * @throws IOException if writing fails
+     */
+    private static void writeValues( LdifStreamWriter writer, Attribute attribute, Set<String> maskedAttributes )
+        throws IOException
+    {
+        String attributeName = attribute.getUpId();
+        boolean masked = maskedAttributes.contains( Strings.toLowerCaseAscii( attributeName ) );
+        for ( Value value : attribute )
+        {
+            if ( masked )
+            {
+                writer.writeAttrVal( attributeName, "**********" ); //$NON-NLS-1$
+            }
+            else if ( value.isHumanReadable() )
+            {
+                writer.writeAttrVal( attributeName, value.getString() );
+            }
+            else
+            {
+                writer.writeAttrVal( attributeName, value.getBytes() );
+            }
+        }
     }
 
 
     /**
-     * Adds control lines to the record
+     * Writes the control lines.
      *
-     * @param record the recored
+     * @param writer the LDIF writer
      * @param controls the controls
+     * @throws IOException if writing fails
      */
-    private static void addControlLines( LdifChangeRecord record, Control[] controls )
+    private static void writeControls( LdifStreamWriter writer, Control[] controls ) throws IOException
     {
         if ( controls != null )
         {
             for ( Control control : controls )
             {
-                String oid = control.getOid();
-                boolean isCritical = control.isCritical();
-                byte[] bytes = Controls.getEncodedValue( control );
-                LdifControlLine controlLine = LdifControlLine.create( oid, isCritical, bytes );
-                record.addControl( controlLine );
+                writer.writeControl( control.getOid(), control.isCritical(), Controls.getEncodedValue( control ) );
             }
         }
     }
@@ -461,6 +467,18 @@ public class LdifModificationLogger implements ILdapLogger
     }
 
 
+    /**
+     * Gets the index of the log files. The index is updated lazily
+     * when the records of a log file are requested.
+     * 
+     * @return the index of the log files
+     */
+    public LdifLogIndex getIndex()
+    {
+        return index;
+    }
+
+
     /**
      * Gets the log files.
      * 
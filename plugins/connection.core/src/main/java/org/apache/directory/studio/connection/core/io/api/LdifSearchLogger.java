@@ -23,16 +23,14 @@ package org.apache.directory.studio.connection.core.io.api;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringJoiner;
 import java.util.logging.FileHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
@@ -60,12 +58,7 @@ import org.apache.directory.studio.connection.core.ReferralsInfo;
 import org.apache.directory.studio.connection.core.Utils;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
-import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
-import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifLineBase;
-import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
+import org.apache.directory.studio.ldifparser.LdifStreamWriter;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 
@@ -93,6 +86,9 @@ public class LdifSearchLogger implements ILdapLogger
     /** The loggers. */
     private Map<String, Logger> loggers = new HashMap<String, Logger>();
 
+    /** The index of the log files. */
+    private LdifLogIndex index = new LdifLogIndex();
+
     /**
      * Creates a new instance of LdifSearchLogger.
      */
@@ -133,6 +129,7 @@ public class LdifSearchLogger implements ILdapLogger
                 }
 
                 loggers.clear();
+                index.clear();
             }
         } );
     }
@@ -193,6 +190,7 @@ public class LdifSearchLogger implements ILdapLogger
             {
                 deleteFileWithRetry( file );
             }
+            index.remove( files );
 
             loggers.remove( id );
         }
@@ -212,40 +210,33 @@ public class LdifSearchLogger implements ILdapLogger
 
         if ( loggers.containsKey( id ) )
         {
-            StringJoiner lines = new StringJoiner( "" );
             DateFormat df = new SimpleDateFormat( ConnectionCoreConstants.DATEFORMAT );
             df.setTimeZone( ConnectionCoreConstants.UTC_TIME_ZONE );
 
-            if ( ex != null )
-            {
-                lines.add( LdifCommentLine.create( "#!" + type + " ERROR" ) //$NON-NLS-1$//$NON-NLS-2$
-                    .toFormattedString( LdifFormatParameters.DEFAULT ) );
-            }
-            else
+            StringWriter sw = new StringWriter( text.length() + 128 );
+            LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+            try
             {
-                lines.add( LdifCommentLine.create( "#!" + type + " OK" ) //$NON-NLS-1$ //$NON-NLS-2$
-                    .toFormattedString( LdifFormatParameters.DEFAULT ) );
-            }
-
-            lines.add(
-                LdifCommentLine
-                    .create( "#!CONNECTION ldap://" + connection.getHost() + ":" + connection.getPort() ) //$NON-NLS-1$//$NON-NLS-2$
-                    .toFormattedString( LdifFormatParameters.DEFAULT ) );
-            lines.add( LdifCommentLine.create( "#!DATE " + df.format( new Date() ) ) //$NON-NLS-1$
-                .toFormattedString( LdifFormatParameters.DEFAULT ) );
+                writer.writeComment( "#!" + type + ( ex != null ? " ERROR" : " OK" ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                writer.writeComment( "#!CONNECTION ldap://" + connection.getHost() + ":" + connection.getPort() ); //$NON-NLS-1$//$NON-NLS-2$
+                writer.writeComment( "#!DATE " + df.format( new Date() ) ); //$NON-NLS-1$
 
-            if ( ex != null )
+                if ( ex != null )
+                {
+                    String errorComment = "#!ERROR " + ex.getMessage(); //$NON-NLS-1$
+                    errorComment = errorComment.replaceAll( "\r", " " ); //$NON-NLS-1$ //$NON-NLS-2$
+                    errorComment = errorComment.replaceAll( "\n", " " ); //$NON-NLS-1$ //$NON-NLS-2$
+                    writer.writeComment( errorComment );
+                }
+            }
+            catch ( IOException e )
             {
-                String errorComment = "#!ERROR " + ex.getMessage(); //$NON-NLS-1$
-                errorComment = errorComment.replaceAll( "\r", " " ); //$NON-NLS-1$ //$NON-NLS-2$
-                errorComment = errorComment.replaceAll( "\n", " " ); //$NON-NLS-1$ //$NON-NLS-2$
-                LdifCommentLine errorCommentLine = LdifCommentLine.create( errorComment );
-                lines.add( errorCommentLine.toFormattedString( LdifFormatParameters.DEFAULT ) );
+                // a StringWriter does not throw
             }
 
-            lines.add( text );
+            sw.write( text );
             Logger logger = loggers.get( id );
-            logger.log( Level.ALL, lines.toString() );
+            logger.log( Level.ALL, sw.toString() );
         }
     }
 
@@ -283,34 +274,36 @@ public class LdifSearchLogger implements ILdapLogger
             aliasesDereferencingMethod, searchControls.getCountLimit(), searchControls.getTimeLimit(), filter,
             searchControls.getReturningAttributes() );
 
-        // build 
-        Collection<LdifLineBase> lines = new ArrayList<LdifLineBase>();
-        lines.add( LdifCommentLine.create( "# LDAP URL     : " + url.toString() ) ); //$NON-NLS-1$
-        lines.add( LdifCommentLine.create( "# command line : " + cmdLine.toString() ) ); //$NON-NLS-1$
-        lines.add( LdifCommentLine.create( "# baseObject   : " + searchBase ) ); //$NON-NLS-1$
-        lines.add( LdifCommentLine.create( "# scope        : " + scopeAsString ) ); //$NON-NLS-1$
-        lines.add( LdifCommentLine.create( "# derefAliases : " + aliasAsString ) ); //$NON-NLS-1$
-        lines.add( LdifCommentLine.create( "# sizeLimit    : " + searchControls.getCountLimit() ) ); //$NON-NLS-1$
-        lines.add( LdifCommentLine.create( "# timeLimit    : " + searchControls.getTimeLimit() ) ); //$NON-NLS-1$
-        lines.add( LdifCommentLine.create( "# typesOnly    : " + "False" ) ); //$NON-NLS-1$ //$NON-NLS-2$
-        lines.add( LdifCommentLine.create( "# filter       : " + filter ) ); //$NON-NLS-1$
-        lines.add( LdifCommentLine.create( "# attributes   : " + attributesAsString ) ); //$NON-NLS-1$
-        if ( controls != null )
+        // build
+        StringWriter sw = new StringWriter();
+        LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+        try
         {
-            for ( Control control : controls )
+            writer.writeComment( "# LDAP URL     : " + url.toString() ); //$NON-NLS-1$
+            writer.writeComment( "# command line : " + cmdLine.toString() ); //$NON-NLS-1$
+            writer.writeComment( "# baseObject   : " + searchBase ); //$NON-NLS-1$
+            writer.writeComment( "# scope        : " + scopeAsString ); //$NON-NLS-1$
+            writer.writeComment( "# derefAliases : " + aliasAsString ); //$NON-NLS-1$
+            writer.writeComment( "# sizeLimit    : " + searchControls.getCountLimit() ); //$NON-NLS-1$
+            writer.writeComment( "# timeLimit    : " + searchControls.getTimeLimit() ); //$NON-NLS-1$
+            writer.writeComment( "# typesOnly    : " + "False" ); //$NON-NLS-1$ //$NON-NLS-2$
+            writer.writeComment( "# filter       : " + filter ); //$NON-NLS-1$
+            writer.writeComment( "# attributes   : " + attributesAsString ); //$NON-NLS-1$
+            if ( controls != null )
             {
-                lines.add( LdifCommentLine.create( "# control      : " + control.getOid() ) ); //$NON-NLS-1$
+                for ( Control control : controls )
+                {
+                    writer.writeComment( "# control      : " + control.getOid() ); //$NON-NLS-1$
+                }
             }
+            writer.writeSeparator();
         }
-        lines.add( LdifSepLine.create() );
-
-        String formattedString = ""; //$NON-NLS-1$
-        for ( LdifLineBase line : lines )
+        catch ( IOException e )
         {
-            formattedString += line.toFormattedString( LdifFormatParameters.DEFAULT );
+            // a StringWriter does not throw
         }
 
-        log( formattedString, "SEARCH REQUEST (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
+        log( sw.toString(), "SEARCH REQUEST (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
 
@@ -331,31 +324,38 @@ public class LdifSearchLogger implements ILdapLogger
             Set<String> maskedAttributes = getMaskedAttributes();
             Entry entry = studioSearchResult.getEntry();
 
-            LdifContentRecord record = new LdifContentRecord( LdifDnLine.create( entry.getDn().getName() ) );
-            for ( Attribute attribute : entry )
+            StringWriter sw = new StringWriter();
+            LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+            try
             {
-                String attributeName = attribute.getUpId();
-                for ( Value value : attribute )
+                writer.writeDn( entry.getDn().getName() );
+                for ( Attribute attribute : entry )
                 {
-                    if ( maskedAttributes.contains( Strings.toLowerCaseAscii( attributeName ) ) )
-                    {
-                        record.addAttrVal( LdifAttrValLine.create( attributeName, "**********" ) ); //$NON-NLS-1$
-                    }
-                    else
+                    String attributeName = attribute.getUpId();
+                    boolean masked = maskedAttributes.contains( Strings.toLowerCaseAscii( attributeName ) );
+                    for ( Value value : attribute )
                     {
-                        if ( value.isHumanReadable() )
+                        if ( masked )
                         {
-                            record.addAttrVal( LdifAttrValLine.create( attributeName, value.getString() ) );
+                            writer.writeAttrVal( attributeName, "**********" ); //$NON-NLS-1$
+                        }
+                        else if ( value.isHumanReadable() )
+                        {
+                            writer.writeAttrVal( attributeName, value.getString() );
                         }
                         else
                         {
-                            record.addAttrVal( LdifAttrValLine.create( attributeName, value.getBytes() ) );
+                            writer.writeAttrVal( attributeName, value.getBytes() );
                         }
                     }
                 }
+                writer.writeSeparator();
+            }
+            catch ( IOException e )
+            {
+                // a StringWriter does not throw
             }
-            record.finish( LdifSepLine.create() );
-            formattedString = record.toFormattedString( LdifFormatParameters.DEFAULT );
+            formattedString = sw.toString();
         }
         else
         {
@@ -377,17 +377,19 @@ public class LdifSearchLogger implements ILdapLogger
             return;
         }
 
-        Collection<LdifLineBase> lines = new ArrayList<LdifLineBase>();
-        lines
-            .add( LdifCommentLine.create( "# reference : " + ( referral != null ? referral.getLdapUrls() : "null" ) ) ); //$NON-NLS-1$ //$NON-NLS-2$
-        lines.add( LdifSepLine.create() );
-
-        String formattedString = ""; //$NON-NLS-1$
-        for ( LdifLineBase line : lines )
+        StringWriter sw = new StringWriter();
+        LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+        try
+        {
+            writer.writeComment( "# reference : " + ( referral != null ? referral.getLdapUrls() : "null" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+            writer.writeSeparator();
+        }
+        catch ( IOException e )
         {
-            formattedString += line.toFormattedString( LdifFormatParameters.DEFAULT );
+            // a StringWriter does not throw
         }
-        log( formattedString, "SEARCH RESULT REFERENCE (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        log( sw.toString(), "SEARCH RESULT REFERENCE (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
 
@@ -401,16 +403,19 @@ public class LdifSearchLogger implements ILdapLogger
             return;
         }
 
-        Collection<LdifLineBase> lines = new ArrayList<LdifLineBase>();
-        lines.add( LdifCommentLine.create( "# numEntries : " + count ) ); //$NON-NLS-1$
-        lines.add( LdifSepLine.create() );
-
-        String formattedString = ""; //$NON-NLS-1$
-        for ( LdifLineBase line : lines )
+        StringWriter sw = new StringWriter();
+        LdifStreamWriter writer = new LdifStreamWriter( sw, LdifFormatParameters.DEFAULT );
+        try
         {
-            formattedString += line.toFormattedString( LdifFormatParameters.DEFAULT );
+            writer.writeComment( "# numEntries : " + count ); //$NON-NLS-1$
+            writer.writeSeparator();
         }
-        log( formattedString, "SEARCH RESULT DONE (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
+        catch ( IOException e )
+        {
+            // a StringWriter does not throw
+        }
+
+        log( sw.toString(), "SEARCH RESULT DONE (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
 
@@ -443,6 +448,18 @@ public class LdifSearchLogger implements ILdapLogger
     }
 
 
+    /**
+     * Gets the index of the log files. The index is updated lazily
+     * when the records of a log file are requested.
+     * 
+     * @return the index of the log files
+     */
+    public LdifLogIndex getIndex()
+    {
+        return index;
+    }
+
+
     /**
      * Gets the log files.
      * 
@@ -0,0 +1,161 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.io.api;
+
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * An immutable snapshot of the metrics of one operation type of a connection.
+ * All durations are in milliseconds.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class OperationStatistics
+{
+    private static final double NANOS_PER_MILLI = 1000000d;
+
+    private final String operation;
+
+    private final long count;
+
+    private final long errors;
+
+    private final double meanMillis;
+
+    private final double medianMillis;
+
+    private final double percentile90Millis;
+
+    private final double percentile99Millis;
+
+    private final double maxMillis;
+
+    private final Map<Integer, Long> errorCodes;
+
+
+    /**
+     * Creates a new instance of OperationStatistics.
+     *
+     * @param operation the operation name
+     * @param histogram the latency histogram, in nanoseconds
+     * @param errors the number of failed operations
+     * @param errorCodes the number of failed operations by LDAP result code,
+     *        -1 for errors without result code, e.g. network errors or timeouts
+     */
+    public OperationStatistics( String operation, LatencyHistogram histogram, long errors,
+        Map<Integer, Long> errorCodes )
+    {
+        this.operation = operation;
+        this.count = histogram.getCount();
+        this.errors = errors;
+        this.meanMillis = histogram.getMean() / NANOS_PER_MILLI;
+        this.medianMillis = histogram.getValueAtPercentile( 50d ) / NANOS_PER_MILLI;
+        this.percentile90Millis = histogram.getValueAtPercentile( 90d ) / NANOS_PER_MILLI;
+        this.percentile99Millis = histogram.getValueAtPercentile( 99d ) / NANOS_PER_MILLI;
+        this.maxMillis = histogram.getMax() / NANOS_PER_MILLI;
+        this.errorCodes = Collections.unmodifiableMap( new TreeMap<Integer, Long>( errorCodes ) );
+    }
+
+
+    /**
+     * @return the operation name
+     */
+    public String getOperation()
+    {
+        return operation;
+    }
+
+
+    /**
+     * @return the number of operations
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * @return the number of failed operations
+     */
+    public long getErrors()
+    {
+        return errors;
+    }
+
+
+    /**
+     * @return the mean duration
+     */
+    public double getMeanMillis()
+    {
+        return meanMillis;
+    }
+
+
+    /**
+     * @return the median duration
+     */
+    public double getMedianMillis()
+    {
+        return medianMillis;
+    }
+
+
+    /**
+     * @return the 90th percentile of the durations
+     */
+    public double getPercentile90Millis()
+    {
+        return percentile90Millis;
+    }
+
+
+    /**
+     * @return the 99th percentile of the durations
+     */
+    public double getPercentile99Millis()
+    {
+        return percentile99Millis;
+    }
+
+
+    /**
+     * @return the highest duration
+     */
+    public double getMaxMillis()
+    {
+        return maxMillis;
+    }
+
+
+    /**
+     * @return the number of failed operations by LDAP result code, -1 for errors without result code
+     */
+    public Map<Integer, Long> getErrorCodes()
+    {
+        return errorCodes;
+    }
+}
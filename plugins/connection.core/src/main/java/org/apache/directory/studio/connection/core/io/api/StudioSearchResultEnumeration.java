@@ -249,6 +249,11 @@ public class StudioSearchResultEnumeration
                 logger.logSearchResultDone( connection, resultEntryCounter, requestNum, null );
             }
 
+            if ( connection.getConnectionWrapper() instanceof DirectoryApiConnectionWrapper )
+            {
+                ( ( DirectoryApiConnectionWrapper ) connection.getConnectionWrapper() ).logTransferredBytes();
+            }
+
             return false;
         }
         catch ( CursorException e )
@@ -0,0 +1,327 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.connection.core;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.schema.registries.AbstractSchemaLoader;
+import org.apache.directory.api.ldap.model.schema.registries.DefaultSchema;
+import org.apache.directory.api.ldap.model.schema.registries.Schema;
+import org.apache.directory.api.ldap.model.schema.registries.SchemaLoader;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests writing and loading schema images.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaImageTest
+{
+    /**
+     * Tests that a written image provides the same schemas and entries as the schema loader.
+     */
+    @Test
+    public void testWriteAndLoad() throws Exception
+    {
+        SchemaLoader loader = createSchemaLoader();
+
+        SchemaLoader imageLoader = SchemaImage.load( new ByteArrayInputStream( write( loader, "test" ) ) );
+
+        assertSameSchemas( loader, imageLoader, "core", "test" );
+        assertNull( imageLoader.getSchema( "other" ) );
+    }
+
+
+    /**
+     * Tests that an unknown schema can't be written.
+     */
+    @Test
+    public void testWriteUnknownSchema() throws Exception
+    {
+        assertThrows( LdapException.class, () -> write( createSchemaLoader(), "unknown" ) );
+    }
+
+
+    /**
+     * Tests that a corrupt image isn't loaded.
+     */
+    @Test
+    public void testLoadCorruptImage() throws Exception
+    {
+        byte[] image = write( createSchemaLoader(), "test" );
+
+        // not an image
+        assertLoadFails( "dn: cn=test".getBytes() );
+
+        // an unknown version
+        byte[] version = image.clone();
+        version[7] = 99;
+        assertLoadFails( version );
+
+        // truncated images
+        assertLoadFails( Arrays.copyOf( image, 2 ) );
+        assertLoadFails( Arrays.copyOf( image, image.length / 2 ) );
+        assertLoadFails( Arrays.copyOf( image, image.length - 1 ) );
+
+        // a schema count that is larger than the image
+        byte[] count = image.clone();
+        ByteBuffer.wrap( count ).putInt( 8, Integer.MAX_VALUE );
+        assertLoadFails( count );
+
+        // a negative length of the first schema name
+        byte[] length = image.clone();
+        ByteBuffer.wrap( length ).putInt( 13, -1 );
+        assertLoadFails( length );
+    }
+
+
+    private static void assertLoadFails( byte[] image )
+    {
+        assertThrows( IOException.class, () -> SchemaImage.load( new ByteArrayInputStream( image ) ) );
+    }
+
+
+    private static byte[] write( SchemaLoader loader, String schemaName ) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SchemaImage.write( loader, schemaName, out );
+        return out.toByteArray();
+    }
+
+
+    private static void assertSameSchemas( SchemaLoader expected, SchemaLoader actual, String... schemaNames )
+        throws Exception
+    {
+        for ( String schemaName : schemaNames )
+        {
+            Schema expectedSchema = expected.getSchema( schemaName );
+            Schema actualSchema = actual.getSchema( schemaName );
+            assertNotNull( actualSchema, schemaName );
+            assertEquals( expectedSchema.getSchemaName(), actualSchema.getSchemaName() );
+            assertEquals( expectedSchema.getOwner(), actualSchema.getOwner() );
+            assertEquals( expectedSchema.isDisabled(), actualSchema.isDisabled() );
+            assertArrayEquals( expectedSchema.getDependencies(), actualSchema.getDependencies() );
+
+            List<List<Entry>> expectedEntries = loadEntries( expected, expectedSchema );
+            List<List<Entry>> actualEntries = loadEntries( actual, actualSchema );
+            for ( int type = 0; type < expectedEntries.size(); type++ )
+            {
+                assertEquals( describe( expectedEntries.get( type ) ), describe( actualEntries.get( type ) ),
+                    schemaName + " " + type );
+            }
+        }
+    }
+
+
+    private static List<List<Entry>> loadEntries( SchemaLoader loader, Schema schema ) throws Exception
+    {
+        return Arrays.asList( loader.loadComparators( schema ), loader.loadSyntaxCheckers( schema ),
+            loader.loadNormalizers( schema ), loader.loadSyntaxes( schema ), loader.loadMatchingRules( schema ),
+            loader.loadAttributeTypes( schema ), loader.loadMatchingRuleUses( schema ),
+            loader.loadNameForms( schema ), loader.loadDitContentRules( schema ),
+            loader.loadDitStructureRules( schema ), loader.loadObjectClasses( schema ) );
+    }
+
+
+    private static List<String> describe( List<Entry> entries )
+    {
+        List<String> descriptions = new ArrayList<String>();
+        for ( Entry entry : entries )
+        {
+            descriptions.add( entry.toString() );
+        }
+        return descriptions;
+    }
+
+
+    private static SchemaLoader createSchemaLoader() throws LdapException
+    {
+        TestSchemaLoader loader = new TestSchemaLoader();
+
+        Schema core = loader.addSchema( "core", new String[0], false );
+        Entry comparator = new DefaultEntry( "m-oid=1.1.1,ou=comparators,cn=core,ou=schema",
+            "objectClass: top",
+            "objectClass: metaTop",
+            "objectClass: metaComparator",
+            "m-oid: 1.1.1",
+            "m-fqcn: org.example.TestComparator" );
+        comparator.add( "m-bytecode", new byte[]
+            { ( byte ) 0xCA, ( byte ) 0xFE, 0x00, ( byte ) 0xBA, ( byte ) 0xBE } );
+        loader.addEntry( core, 0, comparator );
+        loader.addEntry( core, 5, new DefaultEntry( "m-oid=1.1.2,ou=attributeTypes,cn=core,ou=schema",
+            "objectClass: top",
+            "objectClass: metaTop",
+            "objectClass: metaAttributeType",
+            "m-oid: 1.1.2",
+            "m-name: testName",
+            "m-name: tn",
+            "m-description: A test attribute \u00e4\u00f6\u00fc" ) );
+
+        Schema test = loader.addSchema( "test", new String[]
+            { "core" }, true );
+        loader.addEntry( test, 10, new DefaultEntry( "m-oid=1.1.3,ou=objectClasses,cn=test,ou=schema",
+            "objectClass: top",
+            "objectClass: metaTop",
+            "objectClass: metaObjectClass",
+            "m-oid: 1.1.3",
+            "m-name: testObject",
+            "m-must: testName" ) );
+
+        loader.addSchema( "other", new String[0], false );
+
+        return loader;
+    }
+
+    /**
+     * A schema loader that provides in-memory entries.
+     */
+    private static class TestSchemaLoader extends AbstractSchemaLoader
+    {
+        /** The entries of each schema, by schema object type */
+        private Map<String, List<List<Entry>>> entries = new HashMap<String, List<List<Entry>>>();
+
+
+        private Schema addSchema( String name, String[] dependencies, boolean disabled )
+        {
+            Schema schema = new DefaultSchema( this, name, "uid=admin,ou=system", dependencies, disabled );
+            schemaMap.put( name, schema );
+            List<List<Entry>> entriesByType = new ArrayList<List<Entry>>();
+            for ( int type = 0; type < 11; type++ )
+            {
+                entriesByType.add( new ArrayList<Entry>() );
+            }
+            entries.put( name, entriesByType );
+            return schema;
+        }
+
+
+        private void addEntry( Schema schema, int type, Entry entry )
+        {
+            entries.get( schema.getSchemaName() ).get( type ).add( entry );
+        }
+
+
+        private List<Entry> getEntries( int type, Schema... schemas )
+        {
+            List<Entry> result = new ArrayList<Entry>();
+            for ( Schema schema : schemas )
+            {
+                result.addAll( entries.get( schema.getSchemaName() ).get( type ) );
+            }
+            return result;
+        }
+
+
+        @Override
+        public List<Entry> loadComparators( Schema... schemas )
+        {
+            return getEntries( 0, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadSyntaxCheckers( Schema... schemas )
+        {
+            return getEntries( 1, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadNormalizers( Schema... schemas )
+        {
+            return getEntries( 2, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadSyntaxes( Schema... schemas )
+        {
+            return getEntries( 3, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadMatchingRules( Schema... schemas )
+        {
+            return getEntries( 4, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadAttributeTypes( Schema... schemas )
+        {
+            return getEntries( 5, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadMatchingRuleUses( Schema... schemas )
+        {
+            return getEntries( 6, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadNameForms( Schema... schemas )
+        {
+            return getEntries( 7, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadDitContentRules( Schema... schemas )
+        {
+            return getEntries( 8, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadDitStructureRules( Schema... schemas )
+        {
+            return getEntries( 9, schemas );
+        }
+
+
+        @Override
+        public List<Entry> loadObjectClasses( Schema... schemas )
+        {
+            return getEntries( 10, schemas );
+        }
+    }
+}
@@ -92,6 +92,8 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
 
     private static final String X_FETCH_OPERATIONAL_ATTRIBUTES = "X-FETCH-OPERATIONAL-ATTRIBUTES"; //$NON-NLS-1$
 
+    private static final String X_DIT_SNAPSHOT = "X-DIT-SNAPSHOT"; //$NON-NLS-1$
+
     private static final String X_PAGED_SEARCH = "X-PAGED-SEARCH"; //$NON-NLS-1$
 
     private static final String X_PAGED_SEARCH_SIZE = "X-PAGED-SEARCH-SIZE"; //$NON-NLS-1$
@@ -137,6 +139,9 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
     /** The fetch operational attributes button. */
     private Button fetchOperationalAttributesButton;
 
+    /** The DIT snapshot button. */
+    private Button ditSnapshotButton;
+
 
     /**
      * Creates a new instance of BrowserParameterPage.
@@ -249,6 +254,18 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
     }
 
 
+    /**
+     * Returns true if a snapshot of the browsed directory tree
+     * should be kept on disk.
+     * 
+     * @return true, if a snapshot of the directory tree should be kept
+     */
+    private boolean isDitSnapshot()
+    {
+        return ditSnapshotButton.getSelection();
+    }
+
+
     /**
      * Returns true if paged search should be used
      * while browsing.
@@ -409,6 +426,12 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         fetchOperationalAttributesButton.setToolTipText( Messages
             .getString( "BrowserParameterPage.FetchOperationalAttributesWhileBrowsingTooltip" ) ); //$NON-NLS-1$
         fetchOperationalAttributesButton.setSelection( false );
+
+        // DIT snapshot feature
+        ditSnapshotButton = BaseWidgetUtils.createCheckbox( groupComposite, Messages
+            .getString( "BrowserParameterPage.KeepDitSnapshot" ), 1 ); //$NON-NLS-1$
+        ditSnapshotButton.setToolTipText( Messages.getString( "BrowserParameterPage.KeepDitSnapshotTooltip" ) ); //$NON-NLS-1$
+        ditSnapshotButton.setSelection( false );
     }
 
 
@@ -506,6 +529,9 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         boolean fetchOperationalAttributes = parameter
             .getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES );
         fetchOperationalAttributesButton.setSelection( fetchOperationalAttributes );
+
+        boolean ditSnapshot = parameter.getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_DIT_SNAPSHOT );
+        ditSnapshotButton.setSelection( ditSnapshot );
     }
 
 
@@ -614,6 +640,14 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
                 connectionPageModified();
             }
         } );
+
+        ditSnapshotButton.addSelectionListener( new SelectionAdapter()
+        {
+            public void widgetSelected( SelectionEvent arg0 )
+            {
+                connectionPageModified();
+            }
+        } );
     }
 
 
@@ -642,6 +676,7 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
             isPagedSearchScrollMode() );
         parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES,
             isFetchOperationalAttributes() );
+        parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_DIT_SNAPSHOT, isDitSnapshot() );
     }
 
 
@@ -711,11 +746,13 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
             .getByOrdinal( aliasesDereferencingMethodOrdinal );
         boolean fetchOperationalAttributes = connectionParameter
             .getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES );
+        boolean ditSnapshot = connectionParameter
+            .getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_DIT_SNAPSHOT );
 
         return fetchBaseDns != isAutoFetchBaseDns() || !StringUtils.equals( baseDn, getBaseDN() )
             || referralsHandlingMethod != getReferralsHandlingMethod()
             || aliasesDereferencingMethod != getAliasesDereferencingMethod()
-            || fetchOperationalAttributes != isFetchOperationalAttributes();
+            || fetchOperationalAttributes != isFetchOperationalAttributes() || ditSnapshot != isDitSnapshot();
     }
 
 
@@ -823,6 +860,13 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         {
             ldapUrl.getExtensions().add( new Extension( false, X_FETCH_OPERATIONAL_ATTRIBUTES, null ) );
         }
+
+        // DIT snapshot
+        boolean ditSnapshot = parameter.getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_DIT_SNAPSHOT );
+        if ( ditSnapshot )
+        {
+            ldapUrl.getExtensions().add( new Extension( false, X_DIT_SNAPSHOT, null ) );
+        }
     }
 
 
@@ -943,5 +987,9 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         Extension fetchOperationalAttributes = ldapUrl.getExtension( X_FETCH_OPERATIONAL_ATTRIBUTES );
         parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES,
             fetchOperationalAttributes != null );
+
+        // DIT snapshot
+        Extension ditSnapshot = ldapUrl.getExtension( X_DIT_SNAPSHOT );
+        parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_DIT_SNAPSHOT, ditSnapshot != null );
     }
 }
@@ -30,17 +30,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.directory.api.ldap.model.schema.AttributeType;
-import org.apache.directory.api.ldap.model.schema.LdapSyntax;
-import org.apache.directory.api.util.Strings;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonConstants;
+import org.apache.directory.studio.ldapbrowser.common.ValueEditorsPreferences;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.AttributeTypeInfo;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
-import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionPoint;
@@ -247,45 +245,19 @@ public class ValueEditorManager
             return userSelectedValueEditor;
         }
 
-        AttributeType atd = schema.getAttributeTypeDescription( attributeType );
-        // check attribute preferences
-        Map<String, String> attributeValueEditorMap = BrowserCommonActivator.getDefault().getValueEditorsPreferences()
-            .getAttributeValueEditorMap();
-        
-        String oidStr = Strings.toLowerCase( atd.getOid() );
-        
-        if ( atd.getOid() != null && attributeValueEditorMap.containsKey( oidStr ) )
-        {
-            return ( IValueEditor ) class2ValueEditors.get( attributeValueEditorMap.get( oidStr ) );
-        }
-        List<String> names = atd.getNames();
-        
-        for ( String name : names )
-        {
-            String nameStr = Strings.toLowerCase( name );
-            
-            if ( attributeValueEditorMap.containsKey( nameStr ) )
-            {
-                return ( IValueEditor ) class2ValueEditors.get( attributeValueEditorMap.get( nameStr ) );
-            }
-        }
+        // check attribute and syntax preferences
+        AttributeTypeInfo info = schema.getAttributeTypeInfo( attributeType );
+        ValueEditorsPreferences preferences = BrowserCommonActivator.getDefault().getValueEditorsPreferences();
+        String valueEditorClassName = info.getValueEditorClassName( preferences.getAttributeValueEditorMap(),
+            preferences.getSyntaxValueEditorMap() );
 
-        // check syntax preferences
-        String syntaxNumericOid = SchemaUtils.getSyntaxNumericOidTransitive( atd, schema );
-        Map<String, String> syntaxValueEditorMap = BrowserCommonActivator.getDefault().getValueEditorsPreferences()
-            .getSyntaxValueEditorMap();
-        
-        String syntaxtNumericOidStr = Strings.toLowerCase( syntaxNumericOid );
-        
-        if ( ( syntaxNumericOid != null ) && syntaxValueEditorMap.containsKey( syntaxtNumericOidStr ) )
+        if ( valueEditorClassName != null )
         {
-            return ( IValueEditor ) class2ValueEditors.get( syntaxValueEditorMap.get( syntaxtNumericOidStr ) );
+            return ( IValueEditor ) class2ValueEditors.get( valueEditorClassName );
         }
 
         // return default
-        LdapSyntax lsd = schema.getLdapSyntaxDescription( syntaxNumericOid );
-        
-        if ( SchemaUtils.isBinary( lsd ) )
+        if ( info.isBinarySyntax() )
         {
             return defaultBinaryValueEditor;
         }
@@ -440,15 +412,13 @@ public class ValueEditorManager
     {
         List<IValueEditor> alternativeList = new ArrayList<IValueEditor>();
 
-        AttributeType atd = schema.getAttributeTypeDescription( attributeName );
-
-        if ( SchemaUtils.isBinary( atd, schema ) )
+        if ( schema.getAttributeTypeInfo( attributeName ).isBinary() )
         {
             alternativeList.add( defaultBinaryValueEditor );
             alternativeList.add( defaultStringSingleLineValueEditor );
             alternativeList.add( defaultStringMultiLineValueEditor );
         }
-        else if ( SchemaUtils.isString( atd, schema ) )
+        else
         {
             alternativeList.add( defaultStringSingleLineValueEditor );
             alternativeList.add( defaultStringMultiLineValueEditor );
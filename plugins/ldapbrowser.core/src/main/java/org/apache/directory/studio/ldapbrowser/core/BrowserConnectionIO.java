@@ -28,6 +28,7 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -435,6 +436,33 @@ public class BrowserConnectionIO
      */
     public static void save( OutputStream stream, Map<String, IBrowserConnection> browserConnectionMap )
         throws IOException
+    {
+        List<Element> browserConnectionElements = new ArrayList<Element>();
+
+        if ( browserConnectionMap != null )
+        {
+            for ( IBrowserConnection browserConnection : browserConnectionMap.values() )
+            {
+                browserConnectionElements.add( createBrowserConnectionElement( browserConnection ) );
+            }
+        }
+
+        save( stream, browserConnectionElements );
+    }
+
+
+    /**
+     * Saves the already serialized browser connections using the output stream.
+     *
+     * @param stream
+     *      the OutputStream
+     * @param browserConnectionElements
+     *      the browser connection Elements, as created by {@link #createBrowserConnectionElement(IBrowserConnection)}
+     * @throws IOException
+     *      if an I/O error occurs
+     */
+    public static void save( OutputStream stream, Collection<Element> browserConnectionElements )
+        throws IOException
     {
         // Creating the Document
         Document document = DocumentHelper.createDocument();
@@ -442,12 +470,10 @@ public class BrowserConnectionIO
         // Creating the root element
         Element root = document.addElement( BROWSER_CONNECTIONS_TAG );
 
-        if ( browserConnectionMap != null )
+        for ( Element browserConnectionElement : browserConnectionElements )
         {
-            for ( IBrowserConnection browserConnection : browserConnectionMap.values() )
-            {
-                writeBrowserConnection( root, browserConnection );
-            }
+            // the given elements may be cached by the caller, so they are copied and never re-parented 
+            root.add( browserConnectionElement.createCopy() );
         }
 
         // Writing the file to disk
@@ -460,19 +486,37 @@ public class BrowserConnectionIO
 
 
     /**
-     * Writes the given browser connection to the given parent Element.
+     * Creates a detached Element containing the searches and bookmarks of the given browser connection.
      *
-     * @param parent
-     *      the parent Element
      * @param browserConnection
      *      the browser connection
-     * @throws IOException 
+     * @return
+     *      the browser connection Element
+     * @throws IOException
+     *      if an I/O error occurs
      */
-    private static void writeBrowserConnection( Element parent, IBrowserConnection browserConnection )
+    public static Element createBrowserConnectionElement( IBrowserConnection browserConnection )
         throws IOException
     {
-        Element browserConnectionElement = parent.addElement( BROWSER_CONNECTION_TAG );
+        Element browserConnectionElement = DocumentHelper.createElement( BROWSER_CONNECTION_TAG );
+        writeBrowserConnection( browserConnectionElement, browserConnection );
+
+        return browserConnectionElement;
+    }
+
 
+    /**
+     * Writes the given browser connection to the given Element.
+     *
+     * @param browserConnectionElement
+     *      the browser connection Element
+     * @param browserConnection
+     *      the browser connection
+     * @throws IOException 
+     */
+    private static void writeBrowserConnection( Element browserConnectionElement,
+        IBrowserConnection browserConnection ) throws IOException
+    {
         // ID
         browserConnectionElement.addAttribute( ID_TAG, browserConnection.getConnection().getId() );
 
@@ -33,6 +33,8 @@ import org.apache.directory.studio.ldapbrowser.core.events.BrowserConnectionUpda
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeAttributesRunnable;
 import org.apache.directory.studio.ldapbrowser.core.jobs.ReloadSchemaRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.RevalidateDitSnapshotRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.StudioBrowserJob;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IRootDSE;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
@@ -74,6 +76,12 @@ public class BrowserConnectionListener implements IConnectionListener
                     BrowserConnectionUpdateEvent.Detail.SCHEMA_UPDATED );
                 EventRegistry.fireBrowserConnectionUpdated( schemaUpdateEvent, this );
             }
+
+            // browse from the snapshot of the last session, check it against the directory in background
+            if ( BrowserCorePlugin.getDefault().getConnectionManager().openDitSnapshot( browserConnection ) != null )
+            {
+                new StudioBrowserJob( new RevalidateDitSnapshotRunnable( browserConnection ) ).execute();
+            }
         }
     }
 
@@ -90,6 +98,7 @@ public class BrowserConnectionListener implements IConnectionListener
             try
             {
                 EventRegistry.suspendEventFiringInCurrentThread();
+                BrowserCorePlugin.getDefault().getConnectionManager().closeDitSnapshot( browserConnection );
                 browserConnection.clearCaches();
             }
             finally
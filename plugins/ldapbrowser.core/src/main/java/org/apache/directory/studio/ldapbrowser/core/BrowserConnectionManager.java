@@ -35,7 +35,9 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.directory.api.util.FileUtils;
@@ -62,6 +64,11 @@ import org.apache.directory.studio.ldapbrowser.core.model.impl.Bookmark;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.BrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.dom4j.Element;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 
 /**
@@ -73,9 +80,24 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
     SearchUpdateListener, BookmarkUpdateListener
 {
 
+    /** The delay in milliseconds before a scheduled save is performed, to coalesce bursts of updates */
+    private static final long SAVE_DELAY = 500L;
+
     /** The list of connections. */
     private Map<String, IBrowserConnection> connectionMap;
 
+    /** The serialized searches and bookmarks of each connection, only rebuilt for modified connections */
+    private Map<String, Element> browserConnectionElements;
+
+    /** Flag indicating that the serialized browser connections have changes not yet written */
+    private boolean dirty;
+
+    /** The job that saves the browser connections in background */
+    private Job saveJob;
+
+    /** The open directory tree snapshots, by connection id */
+    private Map<String, DitSnapshot> ditSnapshots;
+
 
     /**
      * Creates a new instance of ConnectionManager.
@@ -83,6 +105,18 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
     public BrowserConnectionManager()
     {
         this.connectionMap = new HashMap<String, IBrowserConnection>();
+        this.browserConnectionElements = new HashMap<String, Element>();
+        this.ditSnapshots = new HashMap<String, DitSnapshot>();
+
+        saveJob = new Job( BrowserCoreMessages.jobs__save_browser_connections_name )
+        {
+            protected IStatus run( IProgressMonitor monitor )
+            {
+                saveBrowserConnections();
+                return Status.OK_STATUS;
+            }
+        };
+        saveJob.setSystem( true );
 
         // no need to fire events while loading connections
         EventRegistry.suspendEventFiringInCurrentThread();
@@ -111,6 +145,21 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
     }
 
 
+    /**
+     * Gets the directory tree snapshot filename for the corresponding browser connection.
+     *
+     * @param id
+     *      the id of the Connection
+     * @return
+     *      the directory tree snapshot filename for the corresponding browser connection
+     */
+    public static final String getDitSnapshotFileName( String id )
+    {
+        return BrowserCorePlugin.getDefault().getStateLocation().append(
+            "dit-" + Utils.getFilenameString( id ) + ".snapshot" ).toOSString(); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
     /**
      * Gets the filename of the Connection Store.
      *
@@ -218,6 +267,10 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
     {
         // update connection list
         connectionMap.remove( connection.getId() );
+        synchronized ( browserConnectionElements )
+        {
+            browserConnectionElements.remove( connection.getId() );
+        }
 
         // remove schema file
         File schemaFile = new File( getSchemaCacheFileName( connection.getId() ) );
@@ -226,8 +279,11 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
             schemaFile.delete();
         }
 
+        // remove directory tree snapshot
+        removeDitSnapshot( connection.getId() );
+
         // make persistent
-        saveBrowserConnections();
+        scheduleSave( null );
     }
 
 
@@ -241,7 +297,7 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
         connectionMap.put( connection.getId(), browserConnection );
 
         // make persistent
-        saveBrowserConnections();
+        scheduleSave( browserConnection );
     }
 
 
@@ -250,8 +306,14 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
      */
     public void connectionUpdated( Connection connection )
     {
-        saveBrowserConnections();
+        scheduleSave( getBrowserConnection( connection ) );
         saveSchema( getBrowserConnection( connection ) );
+
+        IBrowserConnection browserConnection = getBrowserConnection( connection );
+        if ( browserConnection != null && !browserConnection.isDitSnapshot() )
+        {
+            removeDitSnapshot( connection.getId() );
+        }
     }
 
 
@@ -317,7 +379,7 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
             || searchUpdateEvent.getDetail() == SearchUpdateEvent.EventDetail.SEARCH_RENAMED
             || searchUpdateEvent.getDetail() == SearchUpdateEvent.EventDetail.SEARCH_PARAMETER_UPDATED )
         {
-            saveBrowserConnections();
+            scheduleSave( searchUpdateEvent.getSearch().getBrowserConnection() );
         }
     }
 
@@ -331,21 +393,217 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
             || bookmarkUpdateEvent.getDetail() == BookmarkUpdateEvent.Detail.BOOKMARK_REMOVED
             || bookmarkUpdateEvent.getDetail() == BookmarkUpdateEvent.Detail.BOOKMARK_UPDATED )
         {
-            saveBrowserConnections();
+            scheduleSave( bookmarkUpdateEvent.getBookmark().getBrowserConnection() );
+        }
+    }
+
+
+    /**
+     * Schedules a background save of the browser connections. Only the given browser
+     * connection is serialized immediately, the others are reused from previous saves.
+     * Several updates within the save delay are written at once.
+     *
+     * @param browserConnection
+     *      the modified browser connection, may be null
+     */
+    private void scheduleSave( IBrowserConnection browserConnection )
+    {
+        synchronized ( browserConnectionElements )
+        {
+            try
+            {
+                if ( browserConnection != null )
+                {
+                    browserConnectionElements.put( browserConnection.getConnection().getId(),
+                        BrowserConnectionIO.createBrowserConnectionElement( browserConnection ) );
+                }
+
+                // serialize connections that were never saved before
+                for ( IBrowserConnection bc : connectionMap.values() )
+                {
+                    if ( !browserConnectionElements.containsKey( bc.getConnection().getId() ) )
+                    {
+                        browserConnectionElements.put( bc.getConnection().getId(),
+                            BrowserConnectionIO.createBrowserConnectionElement( bc ) );
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                e.printStackTrace();
+            }
+
+            dirty = true;
+        }
+
+        saveJob.schedule( SAVE_DELAY );
+    }
+
+
+    /**
+     * Saves a scheduled but not yet performed save immediately.
+     */
+    public void flush()
+    {
+        saveJob.cancel();
+
+        try
+        {
+            saveJob.join();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        saveBrowserConnections();
+
+        synchronized ( ditSnapshots )
+        {
+            for ( DitSnapshot ditSnapshot : ditSnapshots.values() )
+            {
+                try
+                {
+                    ditSnapshot.save();
+                }
+                catch ( IOException e )
+                {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets the open directory tree snapshot of the browser connection.
+     *
+     * @param browserConnection
+     *      the browser connection
+     * @return
+     *      the directory tree snapshot, null if the snapshot is disabled or
+     *      the connection isn't opened
+     */
+    public DitSnapshot getDitSnapshot( IBrowserConnection browserConnection )
+    {
+        synchronized ( ditSnapshots )
+        {
+            return browserConnection.getConnection() != null ? ditSnapshots.get( browserConnection.getConnection()
+                .getId() ) : null;
         }
     }
 
 
+    /**
+     * Opens the directory tree snapshot of the browser connection, if enabled.
+     *
+     * @param browserConnection
+     *      the browser connection
+     * @return
+     *      the opened directory tree snapshot, null if the snapshot is disabled
+     */
+    public DitSnapshot openDitSnapshot( IBrowserConnection browserConnection )
+    {
+        if ( !browserConnection.isDitSnapshot() || browserConnection.getConnection() == null )
+        {
+            return null;
+        }
+
+        String id = browserConnection.getConnection().getId();
+        DitSnapshot ditSnapshot = new DitSnapshot( browserConnection, new File( getDitSnapshotFileName( id ) ) );
+        try
+        {
+            ditSnapshot.open();
+        }
+        catch ( IOException e )
+        {
+            // start with an empty snapshot, the file is replaced on save
+            e.printStackTrace();
+        }
+
+        synchronized ( ditSnapshots )
+        {
+            ditSnapshots.put( id, ditSnapshot );
+        }
+        return ditSnapshot;
+    }
+
+
+    /**
+     * Saves and closes the directory tree snapshot of the browser connection.
+     *
+     * @param browserConnection
+     *      the browser connection
+     */
+    public void closeDitSnapshot( IBrowserConnection browserConnection )
+    {
+        DitSnapshot ditSnapshot;
+        synchronized ( ditSnapshots )
+        {
+            ditSnapshot = browserConnection.getConnection() != null ? ditSnapshots.remove( browserConnection
+                .getConnection().getId() ) : null;
+        }
+
+        if ( ditSnapshot != null )
+        {
+            try
+            {
+                ditSnapshot.save();
+            }
+            catch ( IOException e )
+            {
+                e.printStackTrace();
+            }
+            ditSnapshot.close();
+        }
+    }
+
+
+    /**
+     * Closes the directory tree snapshot of the connection without saving it and deletes its file.
+     *
+     * @param id
+     *      the id of the Connection
+     */
+    private void removeDitSnapshot( String id )
+    {
+        DitSnapshot ditSnapshot;
+        synchronized ( ditSnapshots )
+        {
+            ditSnapshot = ditSnapshots.remove( id );
+        }
+
+        if ( ditSnapshot != null )
+        {
+            ditSnapshot.close();
+        }
+
+        DitSnapshot.delete( new File( getDitSnapshotFileName( id ) ) );
+    }
+
+
     /**
      * Saves the browser Connections
      */
-    private void saveBrowserConnections()
+    private synchronized void saveBrowserConnections()
     {
+        List<Element> elements;
+
+        synchronized ( browserConnectionElements )
+        {
+            if ( !dirty )
+            {
+                return;
+            }
+
+            elements = new ArrayList<Element>( browserConnectionElements.values() );
+            dirty = false;
+        }
+
         // To avoid a corrupt file, save object to a temp file first 
-        try
+        try ( FileOutputStream out = new FileOutputStream( getBrowserConnectionStoreFileName() + "-temp" ) ) //$NON-NLS-1$
         {
-            BrowserConnectionIO.save( new FileOutputStream( getBrowserConnectionStoreFileName() + "-temp" ), //$NON-NLS-1$
-                connectionMap );
+            BrowserConnectionIO.save( out, elements );
         }
         catch ( IOException e )
         {
@@ -59,6 +59,8 @@ public final class BrowserCoreConstants
 
     public static final String PREFERENCE_CHECK_FOR_CHILDREN = "checkForChildren"; //$NON-NLS-1$
 
+    public static final String PREFERENCE_REFINE_SEARCHES_LOCALLY = "refineSearchesLocally"; //$NON-NLS-1$
+
     public static final String PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER = "formatCsvAttributeDelimiter"; //$NON-NLS-1$
 
     public static final String PREFERENCE_FORMAT_CSV_VALUEDELIMITER = "formatCsvValueDelimiter"; //$NON-NLS-1$
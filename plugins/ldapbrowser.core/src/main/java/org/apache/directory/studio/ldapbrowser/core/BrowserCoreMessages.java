@@ -83,6 +83,8 @@ public class BrowserCoreMessages extends NLS
 
     public static String jobs__copy_entries_source_and_target_are_equal;
 
+    public static String jobs__save_browser_connections_name;
+
     public static String model__empty_connection;
 
     public static String model__empty_entry;
@@ -130,6 +132,7 @@ public class BrowserCoreMessages extends NLS
     public static String model__move_between_different_connections_not_supported;
 
     public static String model__copied_n_entries;
+    public static String model__copied_n_entries_per_second;
 
     public static String model__deleted_n_entries;
 
@@ -419,6 +422,18 @@ public class BrowserCoreMessages extends NLS
 
     public static String jobs__search_error_n;
 
+    public static String jobs__load_test_name;
+
+    public static String jobs__load_test_task;
+
+    public static String jobs__load_test_error;
+
+    public static String jobs__revalidate_dit_snapshot_name;
+
+    public static String jobs__revalidate_dit_snapshot_task;
+
+    public static String jobs__revalidate_dit_snapshot_error;
+
     public static String jobs__extended_operation_name;
 
     public static String jobs__extended_operation_error;
@@ -89,6 +89,12 @@ public class BrowserCorePlugin extends Plugin
      */
     public void stop( BundleContext context ) throws Exception
     {
+        if ( connectionManager != null )
+        {
+            // write pending search and bookmark updates
+            connectionManager.flush();
+        }
+
         super.stop( context );
 
         if ( eventRunner != null )
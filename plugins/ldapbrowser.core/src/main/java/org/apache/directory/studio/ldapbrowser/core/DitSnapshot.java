@@ -0,0 +1,1210 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.Rdn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeChildrenRunnable;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.IRootDSE;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.BaseDNEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DirectoryMetadataEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Entry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Value;
+import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
+
+
+/**
+ * The DitSnapshot keeps the structure of the directory tree and the attributes of
+ * recently viewed entries of a browser connection on disk, so that browsing can
+ * continue without re-reading the tree when the connection is opened again.
+ * <p>
+ * The snapshot file is a sequence of checksummed records, a record replaces an
+ * earlier record of the same type and entry. Saving only appends the records that
+ * changed since the last save. On open the file is memory-mapped and the record
+ * positions are indexed, indexing stops at the first corrupt record. A record is
+ * decoded when its entry is browsed for the first time. Each record is used only
+ * once, a later refresh of the entry asks the server.
+ * <p>
+ * A mapped file can't be truncated or replaced on all platforms. If the file must be
+ * rewritten, because it is mostly outdated or ends with a corrupt record, the new
+ * content is written to a replacement file that replaces the snapshot file on the
+ * next {@link #open()}.
+ * <p>
+ * The attributes of an entry are only kept if they contain the entryCSN or
+ * modifyTimestamp of the entry, the restored entries are revalidated with these
+ * values in background, see {@link #revalidateChildren(Dn, Map, List)}. The attributes
+ * of an entry with a userPassword or an attribute that is masked in the modification
+ * logs are not kept, they are read from the server again.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DitSnapshot
+{
+    /** The magic number at the start of the file, "DITS" */
+    private static final int MAGIC = 0x44495453;
+
+    /** The version of the file format */
+    private static final int VERSION = 3;
+
+    /** The length of the file header: magic and version */
+    private static final int HEADER_LENGTH = 8;
+
+    /** The length of a record header: type, payload length and payload checksum */
+    private static final int RECORD_HEADER_LENGTH = 9;
+
+    /** The record type with the number of the session that wrote the following records */
+    private static final byte GENERATION = 0;
+
+    /** The record type with the children of an entry */
+    private static final byte CHILDREN = 1;
+
+    /** The record type with the attributes of an entry */
+    private static final byte ATTRIBUTES = 2;
+
+    /** The record type that removes an earlier record */
+    private static final byte REMOVED = 3;
+
+    /** The record type with the last session that kept the attributes of an entry */
+    private static final byte VIEWED = 4;
+
+    /** The number of sessions the attributes of an entry are kept without viewing the entry */
+    private static final int MAX_ATTRIBUTES_AGE = 10;
+
+    /** The minimum file length before the file is compacted */
+    private static final int MIN_COMPACT_LENGTH = 1024 * 1024;
+
+    private static final byte HAS_CHILDREN_FLAG = 1 << 0;
+
+    private static final byte IS_ALIAS_FLAG = 1 << 1;
+
+    private static final byte IS_REFERRAL_FLAG = 1 << 2;
+
+    private static final byte IS_SUBENTRY_FLAG = 1 << 3;
+
+    /** The browser connection */
+    private IBrowserConnection browserConnection;
+
+    /** The snapshot file */
+    private File file;
+
+    /** The memory-mapped content of the file, null if the file doesn't exist */
+    private ByteBuffer buffer;
+
+    /** The length of the valid part of the file, an interrupted append leaves an incomplete record */
+    private int length;
+
+    /** The flag indicating that the content is in the replacement file, not in the snapshot file */
+    private boolean replaced;
+
+    /** The number of the current session */
+    private int generation;
+
+    /** The children records in the file, by normalized Dn */
+    private Map<String, Record> childrenRecords = new HashMap<String, Record>();
+
+    /** The attributes records in the file, by normalized Dn */
+    private Map<String, Record> attributesRecords = new HashMap<String, Record>();
+
+    /** The viewed records of the attributes records, by normalized Dn */
+    private Map<String, Record> viewedRecords = new HashMap<String, Record>();
+
+    /** The children records not yet restored in this session */
+    private Set<String> pendingChildren = new HashSet<String>();
+
+    /** The attributes records not yet restored in this session */
+    private Set<String> pendingAttributes = new HashSet<String>();
+
+    /** The entries whose children were restored from this snapshot */
+    private Set<String> restoredChildren = new HashSet<String>();
+
+    /** The entries whose attributes were restored from this snapshot */
+    private Set<String> restoredAttributes = new HashSet<String>();
+
+
+    /**
+     * Creates a new instance of DitSnapshot.
+     * 
+     * @param browserConnection the browser connection
+     * @param file the snapshot file
+     */
+    public DitSnapshot( IBrowserConnection browserConnection, File file )
+    {
+        this.browserConnection = browserConnection;
+        this.file = file;
+    }
+
+
+    /**
+     * Maps the snapshot file and indexes its records. A missing, foreign or
+     * unreadable file is treated as an empty snapshot and replaced on save,
+     * the records after a corrupt record are ignored.
+     * 
+     * @throws IOException if the file can't be read
+     */
+    public synchronized void open() throws IOException
+    {
+        buffer = null;
+        length = 0;
+        replaced = false;
+        generation = 1;
+        childrenRecords.clear();
+        attributesRecords.clear();
+        viewedRecords.clear();
+
+        File replacementFile = getReplacementFile( file );
+        if ( replacementFile.exists() )
+        {
+            try
+            {
+                Files.move( replacementFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+            }
+            catch ( IOException e )
+            {
+                // the snapshot file is still mapped, keep it
+                replacementFile.delete();
+            }
+        }
+
+        if ( file.exists() && file.length() >= HEADER_LENGTH && file.length() <= Integer.MAX_VALUE )
+        {
+            try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+            {
+                // only snapshot files are mapped, a foreign file is overwritten on save
+                ByteBuffer header = ByteBuffer.allocate( HEADER_LENGTH );
+                while ( header.hasRemaining() && channel.read( header, header.position() ) > 0 )
+                {
+                    // read the complete header
+                }
+                if ( !header.hasRemaining() && header.getInt( 0 ) == MAGIC && header.getInt( 4 ) == VERSION )
+                {
+                    buffer = channel.map( MapMode.READ_ONLY, 0, channel.size() );
+                }
+            }
+
+            if ( buffer != null )
+            {
+                index();
+            }
+        }
+
+        pendingChildren.addAll( childrenRecords.keySet() );
+        for ( Map.Entry<String, Record> entry : viewedRecords.entrySet() )
+        {
+            if ( entry.getValue().generation > generation - MAX_ATTRIBUTES_AGE )
+            {
+                pendingAttributes.add( entry.getKey() );
+            }
+        }
+    }
+
+
+    /**
+     * Releases the mapped file.
+     */
+    public synchronized void close()
+    {
+        buffer = null;
+        childrenRecords.clear();
+        attributesRecords.clear();
+        viewedRecords.clear();
+        pendingChildren.clear();
+        pendingAttributes.clear();
+        restoredChildren.clear();
+        restoredAttributes.clear();
+    }
+
+
+    /**
+     * Deletes the snapshot file and a replacement file not yet switched to.
+     * 
+     * @param file the snapshot file
+     */
+    public static void delete( File file )
+    {
+        file.delete();
+        getReplacementFile( file ).delete();
+    }
+
+
+    /**
+     * Indexes the records, up to the first incomplete or corrupt record.
+     */
+    private void index()
+    {
+        int lastGeneration = 0;
+        int position = HEADER_LENGTH;
+
+        while ( position + RECORD_HEADER_LENGTH <= buffer.limit() )
+        {
+            byte type = buffer.get( position );
+            int payloadLength = buffer.getInt( position + 1 );
+            int crc = buffer.getInt( position + 5 );
+            int end = position + RECORD_HEADER_LENGTH + payloadLength;
+            if ( payloadLength < 0 || end > buffer.limit() || end < 0
+                || getCrc( getPayload( position, end ) ) != crc )
+            {
+                // incomplete record of an interrupted append, or corrupt record
+                break;
+            }
+
+            try
+            {
+                ByteBuffer payload = getPayload( position, end );
+                switch ( type )
+                {
+                    case GENERATION:
+                        lastGeneration = payload.getInt();
+                        break;
+
+                    case CHILDREN:
+                        childrenRecords.put( readString( payload ), new Record( position, end, crc, 0 ) );
+                        break;
+
+                    case ATTRIBUTES:
+                        attributesRecords.put( readString( payload ), new Record( position, end, crc, 0 ) );
+                        break;
+
+                    case VIEWED:
+                        String key = readString( payload );
+                        viewedRecords.put( key, new Record( position, end, crc, payload.getInt() ) );
+                        break;
+
+                    case REMOVED:
+                        byte removedType = payload.get();
+                        removeRecord( removedType, readString( payload ) );
+                        break;
+
+                    default:
+                        // unknown record types are skipped
+                }
+            }
+            catch ( RuntimeException e )
+            {
+                // undecodable payload, e.g. a zero-filled tail
+                break;
+            }
+
+            position = end;
+        }
+
+        viewedRecords.keySet().retainAll( attributesRecords.keySet() );
+        length = position;
+        generation = lastGeneration + 1;
+    }
+
+
+    /**
+     * Restores the children of the given entry, if the snapshot contains them and they
+     * were not restored before in this session. The old children are only cleared if
+     * the children are restored.
+     * 
+     * @param parent the parent entry
+     * 
+     * @return true, if the children were restored
+     */
+    public synchronized boolean restoreChildren( IEntry parent )
+    {
+        String key = getKey( parent.getDn() );
+        if ( buffer == null || !pendingChildren.remove( key ) )
+        {
+            return false;
+        }
+
+        Record record = childrenRecords.get( key );
+        Map<Dn, Byte> flags = new LinkedHashMap<Dn, Byte>();
+        Map<Dn, List<String>> objectClasses = new HashMap<Dn, List<String>>();
+        try
+        {
+            ByteBuffer content = getContent( record );
+            readString( content );
+            int count = content.getInt();
+            for ( int i = 0; i < count; i++ )
+            {
+                Dn dn = parent.getDn().add( new Rdn( readString( content ) ) );
+                flags.put( dn, content.get() );
+                List<String> values = new ArrayList<String>();
+                int valueCount = content.getInt();
+                for ( int j = 0; j < valueCount; j++ )
+                {
+                    values.add( readString( content ) );
+                }
+                objectClasses.put( dn, values );
+            }
+        }
+        catch ( LdapInvalidDnException | RuntimeException e )
+        {
+            // corrupt record, read the children from the server
+            return false;
+        }
+
+        InitializeChildrenRunnable.clearCaches( parent, false );
+        for ( Map.Entry<Dn, Byte> child : flags.entrySet() )
+        {
+            IEntry entry = browserConnection.getEntryFromCache( child.getKey() );
+            if ( entry == null )
+            {
+                entry = new Entry( parent, child.getKey().getRdn() );
+                entry.setDirectoryEntry( true );
+                browserConnection.cacheEntry( entry );
+            }
+
+            byte childFlags = child.getValue();
+            entry.setHasChildrenHint( ( childFlags & HAS_CHILDREN_FLAG ) != 0 );
+            entry.setAlias( ( childFlags & IS_ALIAS_FLAG ) != 0 );
+            entry.setReferral( ( childFlags & IS_REFERRAL_FLAG ) != 0 );
+            entry.setSubentry( ( childFlags & IS_SUBENTRY_FLAG ) != 0 );
+
+            List<String> values = objectClasses.get( child.getKey() );
+            if ( !entry.isAttributesInitialized() && !values.isEmpty()
+                && entry.getAttribute( SchemaConstants.OBJECT_CLASS_AT ) == null )
+            {
+                IAttribute ocAttribute = new Attribute( entry, SchemaConstants.OBJECT_CLASS_AT );
+                entry.addAttribute( ocAttribute );
+                for ( String value : values )
+                {
+                    ocAttribute.addValue( new Value( ocAttribute, value ) );
+                }
+            }
+
+            parent.addChild( entry );
+        }
+
+        parent.setHasChildrenHint( !flags.isEmpty() );
+        parent.setHasMoreChildren( false );
+        parent.setChildrenInitialized( true );
+        restoredChildren.add( key );
+        return true;
+    }
+
+
+    /**
+     * Checks if the snapshot contains attributes of the given entry that were not
+     * restored before in this session.
+     * 
+     * @param entry the entry
+     * 
+     * @return true, if the attributes can be restored
+     */
+    public synchronized boolean hasAttributes( IEntry entry )
+    {
+        return buffer != null && pendingAttributes.contains( getKey( entry.getDn() ) );
+    }
+
+
+    /**
+     * Restores the attributes of the given entry, if the snapshot contains them and they
+     * were not restored before in this session.
+     * 
+     * @param entry the entry
+     * 
+     * @return true, if the attributes were restored
+     */
+    public synchronized boolean restoreAttributes( IEntry entry )
+    {
+        String key = getKey( entry.getDn() );
+        if ( buffer == null || !pendingAttributes.remove( key ) )
+        {
+            return false;
+        }
+
+        Record record = attributesRecords.get( key );
+        Map<String, List<Object>> attributes = new LinkedHashMap<String, List<Object>>();
+        try
+        {
+            ByteBuffer content = getContent( record );
+            readString( content );
+            readString( content );
+            int count = content.getInt();
+            for ( int i = 0; i < count; i++ )
+            {
+                List<Object> values = new ArrayList<Object>();
+                attributes.put( readString( content ), values );
+                int valueCount = content.getInt();
+                for ( int j = 0; j < valueCount; j++ )
+                {
+                    boolean isBinary = content.get() != 0;
+                    byte[] bytes = readBytes( content );
+                    values.add( isBinary ? bytes : new String( bytes, StandardCharsets.UTF_8 ) );
+                }
+            }
+        }
+        catch ( RuntimeException e )
+        {
+            // corrupt record, read the attributes from the server
+            return false;
+        }
+
+        IAttribute[] oldAttributes = entry.getAttributes();
+        if ( oldAttributes != null )
+        {
+            for ( IAttribute oldAttribute : oldAttributes )
+            {
+                entry.deleteAttribute( oldAttribute );
+            }
+        }
+
+        for ( Map.Entry<String, List<Object>> attribute : attributes.entrySet() )
+        {
+            IAttribute newAttribute = new Attribute( entry, attribute.getKey() );
+            entry.addAttribute( newAttribute );
+            for ( Object value : attribute.getValue() )
+            {
+                newAttribute.addValue( new Value( newAttribute, value ) );
+            }
+        }
+
+        entry.setAttributesInitialized( true );
+        restoredAttributes.add( key );
+        return true;
+    }
+
+
+    /**
+     * Gets the Dns of the entries whose children are in the snapshot.
+     * 
+     * @return the Dns of the parent entries
+     */
+    public synchronized List<Dn> getParentDns()
+    {
+        return getDns( childrenRecords );
+    }
+
+
+    /**
+     * Gets the Dns of the entries whose attributes are in the snapshot.
+     * 
+     * @return the Dns of the entries
+     */
+    public synchronized List<Dn> getEntryDns()
+    {
+        return getDns( attributesRecords );
+    }
+
+
+    /**
+     * Compares the children in the snapshot with the current children of the entry.
+     * If they differ, the children are removed from the snapshot. The attributes
+     * of the children are checked with {@link #revalidateAttributes(Dn, String)}.
+     * 
+     * @param parentDn the Dn of the parent entry
+     * @param children the current children and their entryCSN or modifyTimestamp,
+     *      null if the children could not be read
+     * @param outdatedAttributes the list to add the cached children whose restored
+     *      attributes are outdated to
+     * 
+     * @return the cached parent entry if its restored children are outdated, null otherwise
+     */
+    public synchronized IEntry revalidateChildren( Dn parentDn, Map<Dn, String> children,
+        List<IEntry> outdatedAttributes )
+    {
+        String key = getKey( parentDn );
+        Record record = childrenRecords.get( key );
+        if ( record == null || buffer == null )
+        {
+            return null;
+        }
+
+        Set<String> snapshotChildren = new HashSet<String>();
+        try
+        {
+            ByteBuffer content = getContent( record );
+            readString( content );
+            int count = content.getInt();
+            for ( int i = 0; i < count; i++ )
+            {
+                Dn childDn = parentDn.add( readString( content ) );
+                byte flags = content.get();
+                int valueCount = content.getInt();
+                for ( int j = 0; j < valueCount; j++ )
+                {
+                    readString( content );
+                }
+
+                // subentries are not returned by the revalidation search
+                if ( ( flags & IS_SUBENTRY_FLAG ) == 0 )
+                {
+                    snapshotChildren.add( getKey( childDn ) );
+                }
+            }
+        }
+        catch ( LdapInvalidDnException | RuntimeException e )
+        {
+            children = null;
+        }
+
+        Set<String> currentChildren = new HashSet<String>();
+        if ( children != null )
+        {
+            for ( Map.Entry<Dn, String> child : children.entrySet() )
+            {
+                currentChildren.add( getKey( child.getKey() ) );
+                IEntry outdatedEntry = revalidateAttributes( child.getKey(), child.getValue() );
+                if ( outdatedEntry != null )
+                {
+                    outdatedAttributes.add( outdatedEntry );
+                }
+            }
+        }
+
+        if ( children == null || !currentChildren.equals( snapshotChildren ) )
+        {
+            // the record is removed on the next save
+            pendingChildren.remove( key );
+            IEntry entry = browserConnection.getEntryFromCache( parentDn );
+            if ( restoredChildren.remove( key ) && entry != null && entry.isChildrenInitialized() )
+            {
+                entry.setChildrenInitialized( false );
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Compares the entryCSN or modifyTimestamp of the attributes in the snapshot with the
+     * current one. If they differ, the attributes are removed from the snapshot.
+     * 
+     * @param dn the Dn of the entry
+     * @param stamp the current entryCSN or modifyTimestamp, null if the entry doesn't exist
+     * 
+     * @return the cached entry if its restored attributes are outdated, null otherwise
+     */
+    public synchronized IEntry revalidateAttributes( Dn dn, String stamp )
+    {
+        String key = getKey( dn );
+        Record record = attributesRecords.get( key );
+        if ( record == null || buffer == null )
+        {
+            return null;
+        }
+
+        String snapshotStamp = null;
+        try
+        {
+            ByteBuffer content = getContent( record );
+            readString( content );
+            snapshotStamp = readString( content );
+        }
+        catch ( RuntimeException e )
+        {
+            // corrupt record, treated as outdated
+        }
+
+        if ( stamp != null && stamp.equals( snapshotStamp ) )
+        {
+            return null;
+        }
+
+        // the record is removed on the next save
+        pendingAttributes.remove( key );
+        IEntry entry = browserConnection.getEntryFromCache( dn );
+        if ( restoredAttributes.remove( key ) && entry != null && entry.isAttributesInitialized() )
+        {
+            entry.setAttributesInitialized( false );
+            return entry;
+        }
+        return null;
+    }
+
+
+    /**
+     * Appends the changed children and attributes of the browsed entries to the
+     * snapshot file. If the file can't be appended to or most of it is outdated,
+     * the replacement file is written.
+     * 
+     * @throws IOException if the file can't be written
+     */
+    public synchronized void save() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        Set<String> secretAttributes = getSecretAttributes();
+        int base = length;
+        if ( buffer == null )
+        {
+            // new file
+            base = 0;
+            childrenRecords.clear();
+            attributesRecords.clear();
+            viewedRecords.clear();
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+        }
+
+        Set<String> liveChildren = new HashSet<String>( pendingChildren );
+        Set<String> liveAttributes = new HashSet<String>( pendingAttributes );
+
+        Deque<IEntry> entries = new ArrayDeque<IEntry>();
+        IEntry[] baseEntries = browserConnection.getRootDSE().getChildren();
+        if ( baseEntries != null )
+        {
+            for ( IEntry baseEntry : baseEntries )
+            {
+                if ( !( baseEntry instanceof DirectoryMetadataEntry ) )
+                {
+                    entries.push( baseEntry );
+                }
+            }
+        }
+
+        while ( !entries.isEmpty() )
+        {
+            IEntry entry = entries.pop();
+            String key = getKey( entry.getDn() );
+
+            byte[] content = encodeChildren( entry );
+            if ( content != null )
+            {
+                liveChildren.add( key );
+                byte[] payload = encodePayload( key, content );
+                Record record = childrenRecords.get( key );
+                if ( record == null || record.crc != getCrc( ByteBuffer.wrap( payload ) ) )
+                {
+                    childrenRecords.put( key, writeRecord( out, base, CHILDREN, payload, 0 ) );
+                }
+                for ( IEntry child : entry.getChildren() )
+                {
+                    entries.push( child );
+                }
+            }
+
+            content = encodeAttributes( entry, secretAttributes );
+            if ( content != null )
+            {
+                liveAttributes.add( key );
+                byte[] payload = encodePayload( key, content );
+                Record record = attributesRecords.get( key );
+                if ( record == null || record.crc != getCrc( ByteBuffer.wrap( payload ) ) )
+                {
+                    attributesRecords.put( key, writeRecord( out, base, ATTRIBUTES, payload, 0 ) );
+                }
+
+                // only the small viewed record is appended for unchanged attributes
+                Record viewed = viewedRecords.get( key );
+                if ( viewed == null || viewed.generation != generation )
+                {
+                    ByteArrayOutputStream viewedPayload = new ByteArrayOutputStream();
+                    DataOutputStream viewedOut = new DataOutputStream( viewedPayload );
+                    writeString( viewedOut, key );
+                    viewedOut.writeInt( generation );
+                    viewedRecords.put( key, writeRecord( out, base, VIEWED, viewedPayload.toByteArray(),
+                        generation ) );
+                }
+            }
+        }
+
+        removeRecords( out, base, CHILDREN, liveChildren );
+        removeRecords( out, base, ATTRIBUTES, liveAttributes );
+
+        ByteBuffer generationPayload = ByteBuffer.allocate( 4 );
+        generationPayload.putInt( generation );
+        writeRecord( out, base, GENERATION, generationPayload.array(), 0 );
+        out.flush();
+
+        File replacementFile = getReplacementFile( file );
+        if ( buffer == null )
+        {
+            try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) )
+            {
+                channel.write( ByteBuffer.wrap( bytes.toByteArray() ) );
+            }
+            Files.deleteIfExists( replacementFile.toPath() );
+            replaced = false;
+            length = bytes.size();
+            remap();
+        }
+        else if ( replaced || file.length() != base )
+        {
+            // the mapped file ends with an incomplete record and can't be truncated
+            byte[] content = new byte[base + bytes.size()];
+            ByteBuffer source = buffer.duplicate();
+            source.position( 0 );
+            source.get( content, 0, base );
+            System.arraycopy( bytes.toByteArray(), 0, content, base, bytes.size() );
+            writeReplacement( content );
+            replaced = true;
+            length = content.length;
+            buffer = ByteBuffer.wrap( content );
+        }
+        else
+        {
+            // an earlier replacement file is outdated by the appended records
+            Files.deleteIfExists( replacementFile.toPath() );
+            try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.WRITE ) )
+            {
+                channel.write( ByteBuffer.wrap( bytes.toByteArray() ), base );
+            }
+            length = base + bytes.size();
+            remap();
+        }
+
+        long liveLength = 0;
+        for ( Map<String, Record> records : Arrays.asList( childrenRecords, attributesRecords, viewedRecords ) )
+        {
+            for ( Record record : records.values() )
+            {
+                liveLength += record.end - record.start;
+            }
+        }
+
+        if ( length > MIN_COMPACT_LENGTH && length - liveLength > liveLength )
+        {
+            compact();
+        }
+    }
+
+
+    /**
+     * Writes the live records into the replacement file. The snapshot file is still
+     * mapped, the records of this session keep their positions in it.
+     */
+    private void compact() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        out.writeInt( MAGIC );
+        out.writeInt( VERSION );
+        copyRecords( out, childrenRecords );
+        copyRecords( out, attributesRecords );
+        copyRecords( out, viewedRecords );
+
+        ByteBuffer generationPayload = ByteBuffer.allocate( 4 );
+        generationPayload.putInt( generation );
+        writeRecord( out, 0, GENERATION, generationPayload.array(), 0 );
+        out.flush();
+
+        writeReplacement( bytes.toByteArray() );
+    }
+
+
+    /**
+     * Writes the replacement file, via a temporary file so that an interrupted
+     * write never replaces the snapshot file.
+     */
+    private void writeReplacement( byte[] content ) throws IOException
+    {
+        File tempFile = new File( file.getPath() + "-temp" ); //$NON-NLS-1$
+        Files.write( tempFile.toPath(), content );
+        Files.move( tempFile.toPath(), getReplacementFile( file ).toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+
+
+    private static File getReplacementFile( File file )
+    {
+        return new File( file.getPath() + "-new" ); //$NON-NLS-1$
+    }
+
+
+    private void copyRecords( DataOutputStream out, Map<String, Record> records ) throws IOException
+    {
+        for ( Record record : records.values() )
+        {
+            byte[] recordBytes = new byte[record.end - record.start];
+            ByteBuffer source = buffer.duplicate();
+            source.position( record.start );
+            source.get( recordBytes );
+            out.write( recordBytes );
+        }
+    }
+
+
+    private void remap() throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+        {
+            buffer = channel.map( MapMode.READ_ONLY, 0, length );
+        }
+    }
+
+
+    /**
+     * Appends REMOVED records for the records of the given type that are not live anymore.
+     */
+    private void removeRecords( DataOutputStream out, int base, byte type, Set<String> liveKeys ) throws IOException
+    {
+        Map<String, Record> records = type == CHILDREN ? childrenRecords : attributesRecords;
+        for ( String key : new ArrayList<String>( records.keySet() ) )
+        {
+            if ( !liveKeys.contains( key ) )
+            {
+                ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                DataOutputStream payloadOut = new DataOutputStream( payload );
+                payloadOut.writeByte( type );
+                writeString( payloadOut, key );
+                writeRecord( out, base, REMOVED, payload.toByteArray(), 0 );
+                removeRecord( type, key );
+            }
+        }
+    }
+
+
+    private void removeRecord( byte type, String key )
+    {
+        if ( type == CHILDREN )
+        {
+            childrenRecords.remove( key );
+        }
+        else
+        {
+            attributesRecords.remove( key );
+            viewedRecords.remove( key );
+        }
+    }
+
+
+    private static byte[] encodePayload( String key, byte[] content ) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        writeString( out, key );
+        out.write( content );
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+
+    private static Record writeRecord( DataOutputStream out, int base, byte type, byte[] payload, int generation )
+        throws IOException
+    {
+        int crc = getCrc( ByteBuffer.wrap( payload ) );
+        int start = base + out.size();
+        out.writeByte( type );
+        out.writeInt( payload.length );
+        out.writeInt( crc );
+        out.write( payload );
+        return new Record( start, base + out.size(), crc, generation );
+    }
+
+
+    /**
+     * Encodes the children of the entry, null if the children are not complete or
+     * were read with special parameters.
+     */
+    private static byte[] encodeChildren( IEntry entry ) throws IOException
+    {
+        if ( !entry.isChildrenInitialized() || entry.hasMoreChildren() || entry.getChildrenFilter() != null
+            || entry.getTopPageChildrenRunnable() != null || entry.getNextPageChildrenRunnable() != null
+            || entry.isFetchAliases() || entry.isFetchReferrals() || entry.isFetchSubentries()
+            || !( entry instanceof Entry || entry instanceof BaseDNEntry ) )
+        {
+            return null;
+        }
+
+        IEntry[] children = entry.getChildren();
+        for ( IEntry child : children )
+        {
+            if ( !( child instanceof Entry ) )
+            {
+                return null;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        writeString( out, entry.getDn().getName() );
+        out.writeInt( children.length );
+        for ( IEntry child : children )
+        {
+            writeString( out, child.getRdn().getName() );
+            int flags = ( child.hasChildren() ? HAS_CHILDREN_FLAG : 0 ) | ( child.isAlias() ? IS_ALIAS_FLAG : 0 )
+                | ( child.isReferral() ? IS_REFERRAL_FLAG : 0 ) | ( child.isSubentry() ? IS_SUBENTRY_FLAG : 0 );
+            out.writeByte( flags );
+
+            IAttribute ocAttribute = child.getAttribute( SchemaConstants.OBJECT_CLASS_AT );
+            String[] objectClasses = ocAttribute != null ? ocAttribute.getStringValues() : new String[0];
+            out.writeInt( objectClasses.length );
+            for ( String objectClass : objectClasses )
+            {
+                writeString( out, objectClass );
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+
+    /**
+     * Encodes the attributes of the entry, null if the attributes are not
+     * initialized, can't be revalidated or contain a secret attribute.
+     */
+    private static byte[] encodeAttributes( IEntry entry, Set<String> secretAttributes ) throws IOException
+    {
+        String stamp = getStamp( entry );
+        if ( !entry.isAttributesInitialized() || stamp == null || entry instanceof IRootDSE
+            || !( entry instanceof Entry || entry instanceof BaseDNEntry )
+            || hasSecretAttribute( entry, secretAttributes ) )
+        {
+            return null;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        writeString( out, entry.getDn().getName() );
+        writeString( out, stamp );
+        IAttribute[] attributes = entry.getAttributes();
+        out.writeInt( attributes.length );
+        for ( IAttribute attribute : attributes )
+        {
+            writeString( out, attribute.getDescription() );
+            IValue[] values = attribute.getValues();
+            out.writeInt( values.length );
+            for ( IValue value : values )
+            {
+                out.writeByte( value.isBinary() ? 1 : 0 );
+                byte[] valueBytes = value.isBinary() ? value.getBinaryValue()
+                    : value.getStringValue().getBytes( StandardCharsets.UTF_8 );
+                out.writeInt( valueBytes.length );
+                out.write( valueBytes );
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+
+    /**
+     * Gets the lower-cased names and OIDs of the attributes that must not be written to
+     * disk: the userPassword and the attributes masked in the modification logs.
+     */
+    private static Set<String> getSecretAttributes()
+    {
+        Set<String> secretAttributes = new HashSet<String>();
+        secretAttributes.add( Strings.toLowerCaseAscii( SchemaConstants.USER_PASSWORD_AT ) );
+        secretAttributes.add( SchemaConstants.USER_PASSWORD_AT_OID );
+
+        String maskedAttributes = ConnectionCorePlugin.getDefault() != null
+            ? ConnectionCorePlugin.getDefault().getMModificationLogsMaskedAttributes()
+            : null;
+        if ( maskedAttributes != null )
+        {
+            for ( String maskedAttribute : maskedAttributes.split( "," ) ) //$NON-NLS-1$
+            {
+                if ( !maskedAttribute.trim().isEmpty() )
+                {
+                    secretAttributes.add( Strings.toLowerCaseAscii( maskedAttribute.trim() ) );
+                }
+            }
+        }
+        return secretAttributes;
+    }
+
+
+    /**
+     * Checks if the entry has one of the given attributes, by any name or OID of its attribute type.
+     */
+    private static boolean hasSecretAttribute( IEntry entry, Set<String> secretAttributes )
+    {
+        IAttribute[] attributes = entry.getAttributes();
+        if ( attributes == null )
+        {
+            return false;
+        }
+
+        for ( IAttribute attribute : attributes )
+        {
+            if ( secretAttributes.contains( Strings.toLowerCaseAscii( attribute.getType() ) ) )
+            {
+                return true;
+            }
+
+            AttributeType attributeType = attribute.getAttributeTypeDescription();
+            if ( attributeType != null )
+            {
+                if ( secretAttributes.contains( attributeType.getOid() ) )
+                {
+                    return true;
+                }
+                for ( String name : attributeType.getNames() )
+                {
+                    if ( secretAttributes.contains( Strings.toLowerCaseAscii( name ) ) )
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Gets the value that changes whenever the entry is modified: the entryCSN
+     * if the server provides it, the modifyTimestamp otherwise.
+     * 
+     * @param entryCsn the entryCSN, may be null
+     * @param modifyTimestamp the modifyTimestamp, may be null
+     * 
+     * @return the stamp, null if both are null
+     */
+    public static String getStamp( String entryCsn, String modifyTimestamp )
+    {
+        return entryCsn != null ? entryCsn : modifyTimestamp;
+    }
+
+
+    private static String getStamp( IEntry entry )
+    {
+        IAttribute entryCsn = entry.getAttribute( SchemaConstants.ENTRY_CSN_AT );
+        IAttribute modifyTimestamp = entry.getAttribute( SchemaConstants.MODIFY_TIMESTAMP_AT );
+        return getStamp( entryCsn != null ? entryCsn.getStringValue() : null,
+            modifyTimestamp != null ? modifyTimestamp.getStringValue() : null );
+    }
+
+
+    private String getKey( Dn dn )
+    {
+        return Utils.getNormalizedOidString( dn, browserConnection.getSchema() );
+    }
+
+
+    private List<Dn> getDns( Map<String, Record> records )
+    {
+        List<Dn> dns = new ArrayList<Dn>();
+        if ( buffer != null )
+        {
+            for ( Record record : records.values() )
+            {
+                try
+                {
+                    dns.add( new Dn( readString( getContent( record ) ) ) );
+                }
+                catch ( LdapInvalidDnException | RuntimeException e )
+                {
+                    // corrupt record, removed on revalidation
+                }
+            }
+        }
+        return dns;
+    }
+
+
+    private ByteBuffer getPayload( int start, int end )
+    {
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit( end );
+        payload.position( start + RECORD_HEADER_LENGTH );
+        return payload.slice();
+    }
+
+
+    /**
+     * Gets the content of the record, after the key.
+     */
+    private ByteBuffer getContent( Record record )
+    {
+        ByteBuffer content = getPayload( record.start, record.end );
+        readString( content );
+        return content;
+    }
+
+
+    private static int getCrc( ByteBuffer payload )
+    {
+        CRC32 crc = new CRC32();
+        crc.update( payload );
+        return ( int ) crc.getValue();
+    }
+
+
+    private static void writeString( DataOutputStream out, String s ) throws IOException
+    {
+        byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+
+    private static byte[] readBytes( ByteBuffer buffer )
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get( bytes );
+        return bytes;
+    }
+
+
+    private static String readString( ByteBuffer buffer )
+    {
+        return new String( readBytes( buffer ), StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * The position of a record in the file.
+     */
+    private static class Record
+    {
+        /** The start of the record, including the record header */
+        private final int start;
+
+        /** The end of the record */
+        private final int end;
+
+        /** The checksum of the record payload */
+        private final int crc;
+
+        /** The session of a viewed record */
+        private final int generation;
+
+
+        private Record( int start, int end, int crc, int generation )
+        {
+            this.start = start;
+            this.end = end;
+            this.crc = crc;
+            this.generation = generation;
+        }
+    }
+}
@@ -24,11 +24,15 @@ package org.apache.directory.studio.ldapbrowser.core;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.apache.directory.studio.ldapbrowser.core.utils.DnIndex;
 import org.eclipse.osgi.util.NLS;
 
 
@@ -49,6 +53,9 @@ public class SearchManager implements Serializable
     /** The connection. */
     private IBrowserConnection connection;
 
+    /** The searches by the Dns of their search results, created on first use. */
+    private transient DnIndex<ISearch> searchResultIndex;
+
 
     /**
      * Creates a new instance of SearchManager.
@@ -118,6 +125,7 @@ public class SearchManager implements Serializable
         }
 
         searchList.add( index, search );
+        indexSearchResults( search, search.getSearchResults(), true );
         EventRegistry.fireSearchUpdated( new SearchUpdateEvent( search, SearchUpdateEvent.EventDetail.SEARCH_ADDED ),
             this );
     }
@@ -167,7 +175,10 @@ public class SearchManager implements Serializable
      */
     public void removeSearch( ISearch search )
     {
-        searchList.remove( search );
+        if ( searchList.remove( search ) )
+        {
+            indexSearchResults( search, search.getSearchResults(), false );
+        }
 
         EventRegistry.fireSearchUpdated( new SearchUpdateEvent( search, SearchUpdateEvent.EventDetail.SEARCH_REMOVED ),
             this );
@@ -209,4 +220,105 @@ public class SearchManager implements Serializable
     {
         return searchList.size();
     }
+
+
+    /**
+     * Gets the Searches that have a search result with the given Dn or a descendant of it.
+     *
+     * @param dn
+     *      the Dn
+     * @return
+     *      the Searches, without the Searches whose results are not initialized
+     */
+    public Set<ISearch> getSearchesContaining( Dn dn )
+    {
+        return getSearchResultIndex().getSubtreeReferences( dn );
+    }
+
+
+    /**
+     * Updates the index of the search results when the results of a Search are replaced.
+     * Searches that are not managed by this SearchManager are ignored.
+     *
+     * @param search
+     *      the Search
+     * @param oldSearchResults
+     *      the previous search results, may be null
+     * @param newSearchResults
+     *      the new search results, may be null
+     */
+    public void searchResultsChanged( ISearch search, ISearchResult[] oldSearchResults,
+        ISearchResult[] newSearchResults )
+    {
+        if ( isManaged( search ) )
+        {
+            indexSearchResults( search, oldSearchResults, false );
+            indexSearchResults( search, newSearchResults, true );
+        }
+    }
+
+
+    /**
+     * Checks if the given Search is managed by this SearchManager. Searches are compared
+     * by identity, a clone of a managed Search is equal to it but not managed.
+     */
+    private boolean isManaged( ISearch search )
+    {
+        for ( ISearch managedSearch : searchList )
+        {
+            if ( managedSearch == search )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    private synchronized DnIndex<ISearch> getSearchResultIndex()
+    {
+        if ( searchResultIndex == null )
+        {
+            searchResultIndex = new DnIndex<ISearch>();
+            for ( ISearch search : searchList )
+            {
+                indexSearchResults( searchResultIndex, search, search.getSearchResults(), true );
+            }
+        }
+
+        return searchResultIndex;
+    }
+
+
+    private void indexSearchResults( ISearch search, ISearchResult[] searchResults, boolean add )
+    {
+        indexSearchResults( getSearchResultIndex(), search, searchResults, add );
+    }
+
+
+    private static void indexSearchResults( DnIndex<ISearch> index, ISearch search, ISearchResult[] searchResults,
+        boolean add )
+    {
+        if ( searchResults == null )
+        {
+            return;
+        }
+
+        for ( ISearchResult searchResult : searchResults )
+        {
+            Dn dn = searchResult.getDn();
+            if ( dn != null )
+            {
+                if ( add )
+                {
+                    index.add( dn, search );
+                }
+                else
+                {
+                    index.remove( dn, search );
+                }
+            }
+        }
+    }
 }
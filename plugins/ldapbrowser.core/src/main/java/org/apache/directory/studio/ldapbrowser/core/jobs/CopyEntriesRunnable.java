@@ -24,10 +24,15 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.naming.directory.SearchControls;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Modification;
@@ -35,6 +40,7 @@ import org.apache.directory.api.ldap.model.exception.LdapEntryAlreadyExistsExcep
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
 import org.apache.directory.api.ldap.model.name.Ava;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.name.Rdn;
@@ -197,13 +203,12 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
 
 
     /**
-     * Copy entry. If scope is SearchControls.SUBTREE_SCOPE the entry is copied
-     * recursively.
+     * Copy entry. If scope is SearchControls.ONELEVEL_SCOPE or SearchControls.SUBTREE_SCOPE
+     * the children respectively the whole subtree are copied too.
      * 
-     * @param browserConnection the browser connection
-     * @param dnToCopy the Dn to copy
-     * @param parentDn the parent Dn
-     * @param newRdn the new Rdn, if null the Rdn of dnToCopy is used
+     * @param entryToCopy the entry to copy
+     * @param parent the parent entry
+     * @param newRdn the new Rdn, if null the Rdn of entryToCopy is used
      * @param scope the copy scope
      * @param numberOfCopiedEntries the number of copied entries
      * @param dialog the dialog to ask for the copy strategy, if null the user won't be
@@ -217,233 +222,530 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
     static int copyEntry( IEntry entryToCopy, IEntry parent, Rdn newRdn, int scope, int numberOfCopiedEntries,
         EntryExistsCopyStrategyDialog dialog, StudioProgressMonitor dummyMonitor, StudioProgressMonitor monitor )
     {
-        SearchControls searchControls = new SearchControls();
-        searchControls.setCountLimit( 1 );
-        searchControls.setReturningAttributes( new String[]
-            { SchemaConstants.ALL_USER_ATTRIBUTES } );
-        searchControls.setSearchScope( SearchControls.OBJECT_SCOPE );
-
-        // handle special entries
-        org.apache.directory.api.ldap.model.message.Control[] controls = null;
+        // In case the parent is the RootDSE: use the parent Dn of the old entry
+        Dn parentDn = parent.getDn();
+        if ( parentDn.isEmpty() )
+        {
+            parentDn = entryToCopy.getDn().getParent();
+        }
+
+        SubtreeCopy subtreeCopy = new SubtreeCopy( entryToCopy.getBrowserConnection(), entryToCopy.getDn(),
+            parent.getBrowserConnection(), parentDn, newRdn, numberOfCopiedEntries, dialog, dummyMonitor, monitor );
+
+        // the entry itself, handle special entries
+        String[] returningAttributes = new String[]
+            { SchemaConstants.ALL_USER_ATTRIBUTES };
+        Control[] controls = null;
         if ( entryToCopy.isReferral() )
         {
-            controls = new org.apache.directory.api.ldap.model.message.Control[]
+            controls = new Control[]
                 { Controls.MANAGEDSAIT_CONTROL };
-            searchControls.setReturningAttributes( new String[]
-                { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.REF_AT } );
+            returningAttributes = new String[]
+                { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.REF_AT };
         }
         if ( entryToCopy.isSubentry() )
         {
-            searchControls.setReturningAttributes( new String[]
-                { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.SUBTREE_SPECIFICATION_AT } );
+            returningAttributes = new String[]
+                { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.SUBTREE_SPECIFICATION_AT };
         }
+        subtreeCopy.copy( SearchControls.OBJECT_SCOPE, returningAttributes, controls );
 
-        StudioSearchResultEnumeration result = entryToCopy
-            .getBrowserConnection()
-            .getConnection()
-            .getConnectionWrapper()
-            .search( entryToCopy.getDn().getName(), ISearch.FILTER_TRUE, searchControls,
-                AliasDereferencingMethod.NEVER, ReferralHandlingMethod.IGNORE, controls, monitor, null );
+        // create the entry itself right away, so its descendants can be created while they are streamed
+        subtreeCopy.createReadyEntries();
 
-        // In case the parent is the RootDSE: use the parent Dn of the old entry
-        Dn parentDn = parent.getDn();
-        if ( parentDn.isEmpty() )
+        // the children or the whole subtree, with one search
+        if ( ( scope == SearchControls.ONELEVEL_SCOPE || scope == SearchControls.SUBTREE_SCOPE )
+            && subtreeCopy.isCopied( entryToCopy.getDn() ) )
         {
-            parentDn = entryToCopy.getDn().getParent();
+            subtreeCopy.copy( scope, new String[]
+                { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.REF_AT }, null );
         }
-        numberOfCopiedEntries = copyEntryRecursive( entryToCopy.getBrowserConnection(), result,
-            parent.getBrowserConnection(), parentDn, newRdn, scope, numberOfCopiedEntries, dialog, dummyMonitor,
-            monitor );
 
-        return numberOfCopiedEntries;
+        subtreeCopy.finish();
+
+        return subtreeCopy.numberOfCopiedEntries;
+    }
+
+
+    private static void applyNewRdn( Entry entry, Rdn oldRdn, Rdn newRdn ) throws LdapException
+    {
+        // remove old Rdn attributes and values
+        for ( Ava atav : oldRdn )
+        {
+            entry.remove( atav.getType(), atav.getValue() );
+        }
+
+        // add new Rdn attributes and values
+        for ( Ava atav : newRdn )
+        {
+            entry.add( atav.getType(), atav.getValue() );
+        }
     }
 
 
     /**
-     * Copy the entries. If scope is SearchControls.SUBTREE_SCOPE the entries are copied
-     * recursively.
+     * Copies a subtree from a source connection to a target connection.
      * 
-     * @param sourceBrowserConnection the source browser connection
-     * @param entries the source entries to copy
-     * @param targetBrowserConnection the target browser connection
-     * @param parentDn the target parent Dn
-     * @param newRdn the new Rdn, if null the original Rdn of each entry is used
-     * @param scope the copy scope
-     * @param numberOfCopiedEntries the number of copied entries
-     * @param dialog the dialog to ask for the copy strategy, if null the user won't be
-     *        asked instead the NameAlreadyBoundException it reported to the monitor
-     * @param dummyMonitor the dummy monitor, used for I/O that causes exceptions that 
-     *        should be handled
-     * @param monitor the real monitor
+     * The source entries are streamed from one (paged) search. The target entries are 
+     * created in batches of up to {@link #BATCH_SIZE} entries with pipelined add requests,
+     * while the search is still running. An entry is only added to a batch after its parent
+     * was created, so the entries of one batch don't depend on each other, and the search 
+     * results need not be ordered parent before child.
      * 
-     * @return the number of copied entries
+     * If an entry can't be created the error is reported and its subtree is skipped, the
+     * other entries are still copied. Only if the source subtree can't be read or the add
+     * requests can't be sent at all the copy stops.
+     *
+     * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
      */
-    static int copyEntryRecursive( IBrowserConnection sourceBrowserConnection, StudioSearchResultEnumeration entries,
-        IBrowserConnection targetBrowserConnection, Dn parentDn, Rdn forceNewRdn, int scope,
-        int numberOfCopiedEntries, EntryExistsCopyStrategyDialog dialog, StudioProgressMonitor dummyMonitor,
-        StudioProgressMonitor monitor )
+    private static class SubtreeCopy
     {
-        try
+        /** The page size used to read the source subtree, if paged search is supported. */
+        private static final int PAGE_SIZE = 1000;
+
+        /** The maximum number of entries created in one batch. */
+        private static final int BATCH_SIZE = 1000;
+
+        /** The maximum number of outstanding add requests. */
+        private static final int WINDOW = 32;
+
+        private IBrowserConnection sourceBrowserConnection;
+        private Dn sourceDn;
+        private IBrowserConnection targetBrowserConnection;
+        private Dn targetParentDn;
+        private Rdn forceNewRdn;
+        private EntryExistsCopyStrategyDialog dialog;
+        private StudioProgressMonitor dummyMonitor;
+        private StudioProgressMonitor monitor;
+
+        private int numberOfCopiedEntries;
+        private int numberOfCopiedEntriesAtStart;
+        private long startTime;
+        private boolean failed;
+
+        /** The target Dns of the copied entries, by source Dn. */
+        private Map<Dn, Dn> targetDns = new HashMap<>();
+
+        /** Entries whose parent isn't copied yet, by source parent Dn. */
+        private Map<Dn, List<Entry>> waitingEntries = new HashMap<>();
+
+        /** The number of entries in waitingEntries. */
+        private int numberOfWaitingEntries;
+
+        /** The source Dns of the entries that couldn't be copied, their subtrees are skipped. */
+        private Set<Dn> skippedDns = new HashSet<>();
+
+        /** The source Dns of the entries for the next batch. */
+        private List<Dn> readySourceDns = new ArrayList<>();
+
+        /** The entries for the next batch, with target Dn and Rdn applied. */
+        private List<Entry> readyEntries = new ArrayList<>();
+
+
+        SubtreeCopy( IBrowserConnection sourceBrowserConnection, Dn sourceDn,
+            IBrowserConnection targetBrowserConnection, Dn targetParentDn, Rdn forceNewRdn,
+            int numberOfCopiedEntries, EntryExistsCopyStrategyDialog dialog, StudioProgressMonitor dummyMonitor,
+            StudioProgressMonitor monitor )
         {
-            while ( !monitor.isCanceled() && entries.hasMore() )
-            {
-                // get next entry to copy
-                Entry entry = entries.next().getEntry();
-                Dn oldLdapDn = entry.getDn();
-                Rdn oldRdn = oldLdapDn.getRdn();
+            this.sourceBrowserConnection = sourceBrowserConnection;
+            this.sourceDn = sourceDn;
+            this.targetBrowserConnection = targetBrowserConnection;
+            this.targetParentDn = targetParentDn;
+            this.forceNewRdn = forceNewRdn;
+            this.numberOfCopiedEntries = numberOfCopiedEntries;
+            this.numberOfCopiedEntriesAtStart = numberOfCopiedEntries;
+            this.dialog = dialog;
+            this.dummyMonitor = dummyMonitor;
+            this.monitor = monitor;
+            this.startTime = System.currentTimeMillis();
+        }
 
-                // compose new Dn
-                Rdn newRdn = oldLdapDn.getRdn();
-                if ( forceNewRdn != null )
+
+        /**
+         * Streams the source entries of the given scope and copies them.
+         */
+        void copy( int scope, String[] returningAttributes, Control[] controls )
+        {
+            SearchControls searchControls = new SearchControls();
+            searchControls.setCountLimit( 0 );
+            searchControls.setReturningAttributes( returningAttributes );
+            searchControls.setSearchScope( scope );
+
+            boolean paged = scope != SearchControls.OBJECT_SCOPE && sourceBrowserConnection.getRootDSE() != null
+                && sourceBrowserConnection.getRootDSE().isControlSupported( PagedResults.OID );
+            byte[] cookie = null;
+            do
+            {
+                List<Control> requestControls = new ArrayList<>();
+                if ( controls != null )
                 {
-                    newRdn = forceNewRdn;
+                    requestControls.addAll( Arrays.asList( controls ) );
                 }
-                Dn newLdapDn = parentDn.add( newRdn );
-                entry.setDn( newLdapDn );
-
-                // apply new Rdn to the attributes
-                applyNewRdn( entry, oldRdn, newRdn );
+                if ( paged )
+                {
+                    requestControls.add( Controls.newPagedResultsControl( PAGE_SIZE, cookie ) );
+                }
+                cookie = null;
 
-                // ManageDsaIT control
-                Control[] controls = null;
-                if ( entry.hasObjectClass( SchemaConstants.REFERRAL_OC ) )
+                if ( isStopped() )
                 {
-                    controls = new Control[]
-                        { Controls.MANAGEDSAIT_CONTROL };
+                    return;
                 }
 
-                // create entry
-                targetBrowserConnection.getConnection().getConnectionWrapper()
-                    .createEntry( entry, controls, dummyMonitor, null );
+                StudioSearchResultEnumeration result = sourceBrowserConnection
+                    .getConnection()
+                    .getConnectionWrapper()
+                    .search( sourceDn.getName(), ISearch.FILTER_TRUE, searchControls,
+                        AliasDereferencingMethod.NEVER, ReferralHandlingMethod.IGNORE,
+                        requestControls.toArray( new Control[requestControls.size()] ), monitor, null );
+                if ( result == null )
+                {
+                    failed = true;
+                    return;
+                }
 
-                while ( dummyMonitor.errorsReported() )
+                try
                 {
-                    if ( dialog != null
-                        && StudioLdapException.isEntryAlreadyExistsException( dummyMonitor.getException() ) )
+                    while ( !isStopped() && result.hasMore() )
                     {
-                        // open dialog
-                        dialog.setExistingEntry( targetBrowserConnection, newLdapDn );
-                        dialog.open();
-                        EntryExistsCopyStrategy strategy = dialog.getStrategy();
+                        Entry entry = result.next().getEntry();
+                        if ( scope == SearchControls.OBJECT_SCOPE || !sourceDn.equals( entry.getDn() ) )
+                        {
+                            offer( entry );
+                        }
 
-                        if ( strategy != null )
+                        // create a batch as soon as enough entries are ready, or too many wait for
+                        // their parents, which may be part of the ready entries
+                        if ( readyEntries.size() >= BATCH_SIZE
+                            || ( numberOfWaitingEntries >= BATCH_SIZE && !readyEntries.isEmpty() ) )
                         {
-                            dummyMonitor.reset();
+                            createReadyEntries();
+                        }
+                    }
 
-                            switch ( strategy )
-                            {
-                                case BREAK:
-                                    monitor.setCanceled( true );
-                                    break;
+                    for ( Control responseControl : result.getResponseControls() )
+                    {
+                        if ( responseControl instanceof PagedResults
+                            && ArrayUtils.isNotEmpty( ( ( PagedResults ) responseControl ).getCookie() ) )
+                        {
+                            cookie = ( ( PagedResults ) responseControl ).getCookie();
+                        }
+                    }
+                }
+                catch ( Exception e )
+                {
+                    monitor.reportError( e );
+                    failed = true;
+                }
+            }
+            while ( cookie != null );
+        }
 
-                                case IGNORE_AND_CONTINUE:
-                                    break;
 
-                                case OVERWRITE_AND_CONTINUE:
-                                    // create modifications
-                                    Collection<Modification> modifications = ModelConverter
-                                        .toReplaceModifications( entry );
+        /**
+         * Creates the remaining entries.
+         */
+        void finish()
+        {
+            while ( !isStopped() && !readyEntries.isEmpty() )
+            {
+                createReadyEntries();
+            }
+        }
 
-                                    // modify entry
-                                    targetBrowserConnection
-                                        .getConnection()
-                                        .getConnectionWrapper()
-                                        .modifyEntry( newLdapDn, modifications, null, dummyMonitor, null );
 
-                                    // force reload of attributes
-                                    IEntry newEntry = targetBrowserConnection.getEntryFromCache( newLdapDn );
-                                    if ( newEntry != null )
-                                    {
-                                        newEntry.setAttributesInitialized( false );
-                                    }
+        /**
+         * Checks if the source entry with the given Dn was copied.
+         */
+        boolean isCopied( Dn entrySourceDn )
+        {
+            return targetDns.containsKey( entrySourceDn );
+        }
 
-                                    break;
 
-                                case RENAME_AND_CONTINUE:
-                                    Rdn renamedRdn = dialog.getRdn();
+        private boolean isStopped()
+        {
+            return failed || monitor.isCanceled();
+        }
 
-                                    // apply renamed Rdn to the attributes
-                                    applyNewRdn( entry, newRdn, renamedRdn );
 
-                                    // compose new Dn
-                                    newLdapDn = parentDn.add( renamedRdn );
-                                    entry.setDn( newLdapDn );
+        /**
+         * Adds the source entry to the next batch if its parent was already copied,
+         * otherwise it waits for its parent.
+         */
+        private void offer( Entry entry )
+        {
+            Dn entrySourceDn = entry.getDn();
+            if ( entrySourceDn.equals( sourceDn ) )
+            {
+                prepare( entry, targetParentDn, forceNewRdn != null ? forceNewRdn : entrySourceDn.getRdn() );
+            }
+            else
+            {
+                Dn sourceParentDn = entrySourceDn.getParent();
+                Dn parentDn = targetDns.get( sourceParentDn );
+                if ( parentDn != null )
+                {
+                    prepare( entry, parentDn, entrySourceDn.getRdn() );
+                }
+                else if ( skippedDns.contains( sourceParentDn ) )
+                {
+                    skip( entrySourceDn );
+                }
+                else
+                {
+                    waitingEntries.computeIfAbsent( sourceParentDn, k -> new ArrayList<>() ).add( entry );
+                    numberOfWaitingEntries++;
+                }
+            }
+        }
 
-                                    // create entry
-                                    targetBrowserConnection.getConnection().getConnectionWrapper()
-                                        .createEntry( entry, null, dummyMonitor, null );
 
-                                    break;
-                            }
-                        }
-                        else
-                        {
-                            monitor.reportError( dummyMonitor.getException() );
-                            break;
-                        }
+        private void prepare( Entry entry, Dn parentDn, Rdn newRdn )
+        {
+            Dn entrySourceDn = entry.getDn();
+            Rdn oldRdn = entrySourceDn.getRdn();
+
+            try
+            {
+                // compose new Dn
+                entry.setDn( parentDn.add( newRdn ) );
+
+                // apply new Rdn to the attributes
+                if ( !oldRdn.equals( newRdn ) )
+                {
+                    applyNewRdn( entry, oldRdn, newRdn );
+                }
+            }
+            catch ( LdapException e )
+            {
+                monitor.reportError( e );
+                skip( entrySourceDn );
+                return;
+            }
+
+            readySourceDns.add( entrySourceDn );
+            readyEntries.add( entry );
+        }
+
+
+        /**
+         * Creates the entries of the next batch, at most {@link #BATCH_SIZE} of the ready 
+         * entries, pipelined. Referrals are created separately with the ManageDsaIT control.
+         */
+        void createReadyEntries()
+        {
+            int size = Math.min( BATCH_SIZE, readyEntries.size() );
+            List<Dn> sourceDns = new ArrayList<>( readySourceDns.subList( 0, size ) );
+            List<Entry> entries = new ArrayList<>( readyEntries.subList( 0, size ) );
+            readySourceDns.subList( 0, size ).clear();
+            readyEntries.subList( 0, size ).clear();
+
+            List<Integer> referralIndices = new ArrayList<>();
+            List<Entry> referrals = new ArrayList<>();
+            List<Integer> otherIndices = new ArrayList<>();
+            List<Entry> others = new ArrayList<>();
+            for ( int i = 0; i < entries.size(); i++ )
+            {
+                if ( entries.get( i ).hasObjectClass( SchemaConstants.REFERRAL_OC ) )
+                {
+                    referralIndices.add( i );
+                    referrals.add( entries.get( i ) );
+                }
+                else
+                {
+                    otherIndices.add( i );
+                    others.add( entries.get( i ) );
+                }
+            }
+
+            createEntries( sourceDns, entries, otherIndices, others, null );
+            createEntries( sourceDns, entries, referralIndices, referrals, new Control[]
+                { Controls.MANAGEDSAIT_CONTROL } );
+
+            reportProgress();
+        }
+
+
+        private void createEntries( List<Dn> sourceDns, List<Entry> entries, List<Integer> indices,
+            List<Entry> entriesToCreate, Control[] controls )
+        {
+            if ( entriesToCreate.isEmpty() || isStopped() )
+            {
+                return;
+            }
+
+            Exception[] errors = targetBrowserConnection.getConnection().getConnectionWrapper()
+                .createEntries( entriesToCreate, controls, WINDOW, monitor );
+            if ( errors == null )
+            {
+                // the requests couldn't be sent at all, the error is already reported
+                failed = true;
+                return;
+            }
+
+            for ( int i = 0; i < errors.length && !isStopped(); i++ )
+            {
+                int index = indices.get( i );
+                if ( errors[i] == null )
+                {
+                    copied( sourceDns.get( index ), entries.get( index ).getDn() );
+                }
+                else
+                {
+                    try
+                    {
+                        handleError( sourceDns.get( index ), entries.get( index ), errors[i] );
                     }
-                    else
+                    catch ( LdapException e )
                     {
-                        monitor.reportError( dummyMonitor.getException() );
-                        break;
+                        monitor.reportError( e );
+                        skip( sourceDns.get( index ) );
                     }
                 }
+            }
+        }
 
-                if ( !monitor.isCanceled() && !monitor.errorsReported() )
-                {
-                    numberOfCopiedEntries++;
 
-                    monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__copied_n_entries,
-                        new String[]
-                            { Integer.toString( numberOfCopiedEntries ) } ) ); //$NON-NLS-1$
+        /**
+         * Handles a failed add request, asks for the copy strategy if the entry already exists.
+         */
+        private void handleError( Dn entrySourceDn, Entry entry, Exception error ) throws LdapException
+        {
+            dummyMonitor.reset();
+            dummyMonitor.reportError( error );
 
-                    // copy recursively
-                    if ( scope == SearchControls.ONELEVEL_SCOPE || scope == SearchControls.SUBTREE_SCOPE )
+            Dn newLdapDn = entry.getDn();
+            while ( dummyMonitor.errorsReported() )
+            {
+                if ( dialog != null
+                    && StudioLdapException.isEntryAlreadyExistsException( dummyMonitor.getException() ) )
+                {
+                    // open dialog
+                    dialog.setExistingEntry( targetBrowserConnection, newLdapDn );
+                    dialog.open();
+                    EntryExistsCopyStrategy strategy = dialog.getStrategy();
+
+                    if ( strategy != null )
                     {
-                        SearchControls searchControls = new SearchControls();
-                        searchControls.setCountLimit( 0 );
-                        searchControls.setReturningAttributes( new String[]
-                            { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.REF_AT } );
-                        searchControls.setSearchScope( SearchControls.ONELEVEL_SCOPE );
-                        StudioSearchResultEnumeration childEntries = sourceBrowserConnection
-                            .getConnection()
-                            .getConnectionWrapper()
-                            .search( oldLdapDn.getName(), ISearch.FILTER_TRUE, searchControls,
-                                AliasDereferencingMethod.NEVER, ReferralHandlingMethod.IGNORE, null, monitor, null );
-
-                        if ( scope == SearchControls.ONELEVEL_SCOPE )
+                        dummyMonitor.reset();
+
+                        switch ( strategy )
                         {
-                            scope = SearchControls.OBJECT_SCOPE;
-                        }
+                            case BREAK:
+                                monitor.setCanceled( true );
+                                break;
+
+                            case IGNORE_AND_CONTINUE:
+                                break;
+
+                            case OVERWRITE_AND_CONTINUE:
+                                // create modifications
+                                Collection<Modification> modifications = ModelConverter
+                                    .toReplaceModifications( entry );
+
+                                // modify entry
+                                targetBrowserConnection
+                                    .getConnection()
+                                    .getConnectionWrapper()
+                                    .modifyEntry( newLdapDn, modifications, null, dummyMonitor, null );
+
+                                // force reload of attributes
+                                IEntry newEntry = targetBrowserConnection.getEntryFromCache( newLdapDn );
+                                if ( newEntry != null )
+                                {
+                                    newEntry.setAttributesInitialized( false );
+                                }
+
+                                break;
+
+                            case RENAME_AND_CONTINUE:
+                                Rdn renamedRdn = dialog.getRdn();
+
+                                // apply renamed Rdn to the attributes
+                                applyNewRdn( entry, newLdapDn.getRdn(), renamedRdn );
 
-                        numberOfCopiedEntries = copyEntryRecursive( sourceBrowserConnection, childEntries,
-                            targetBrowserConnection, newLdapDn, null, scope, numberOfCopiedEntries, dialog,
-                            dummyMonitor, monitor );
+                                // compose new Dn
+                                newLdapDn = newLdapDn.getParent().add( renamedRdn );
+                                entry.setDn( newLdapDn );
+
+                                // create entry
+                                targetBrowserConnection.getConnection().getConnectionWrapper()
+                                    .createEntry( entry, null, dummyMonitor, null );
+
+                                break;
+                        }
+                    }
+                    else
+                    {
+                        monitor.reportError( dummyMonitor.getException() );
+                        skip( entrySourceDn );
+                        return;
                     }
                 }
+                else
+                {
+                    monitor.reportError( dummyMonitor.getException() );
+                    skip( entrySourceDn );
+                    return;
+                }
+            }
+
+            if ( !monitor.isCanceled() )
+            {
+                copied( entrySourceDn, newLdapDn );
             }
         }
-        catch ( Exception e )
+
+
+        /**
+         * Remembers the target Dn of the copied entry and releases its waiting children.
+         */
+        private void copied( Dn entrySourceDn, Dn entryTargetDn )
         {
-            monitor.reportError( e );
-        }
+            numberOfCopiedEntries++;
+            targetDns.put( entrySourceDn, entryTargetDn );
 
-        return numberOfCopiedEntries;
-    }
+            List<Entry> children = waitingEntries.remove( entrySourceDn );
+            if ( children != null )
+            {
+                numberOfWaitingEntries -= children.size();
+                for ( Entry child : children )
+                {
+                    prepare( child, entryTargetDn, child.getDn().getRdn() );
+                }
+            }
+        }
 
 
-    private static void applyNewRdn( Entry entry, Rdn oldRdn, Rdn newRdn ) throws LdapException
-    {
-        // remove old Rdn attributes and values
-        for ( Ava atav : oldRdn )
+        /**
+         * Remembers that the source entry couldn't be copied and drops its waiting 
+         * descendants, descendants that are read later are dropped in {@link #offer}.
+         */
+        private void skip( Dn entrySourceDn )
         {
-            entry.remove( atav.getType(), atav.getValue() );
+            skippedDns.add( entrySourceDn );
+
+            List<Entry> children = waitingEntries.remove( entrySourceDn );
+            if ( children != null )
+            {
+                numberOfWaitingEntries -= children.size();
+                for ( Entry child : children )
+                {
+                    skip( child.getDn() );
+                }
+            }
         }
 
-        // add new Rdn attributes and values
-        for ( Ava atav : newRdn )
+
+        private void reportProgress()
         {
-            entry.add( atav.getType(), atav.getValue() );
+            long duration = System.currentTimeMillis() - startTime;
+            long entriesPerSecond = duration > 0
+                ? ( numberOfCopiedEntries - numberOfCopiedEntriesAtStart ) * 1000L / duration : 0;
+            monitor.reportProgress( BrowserCoreMessages.bind(
+                BrowserCoreMessages.model__copied_n_entries_per_second, new String[]
+                    { Integer.toString( numberOfCopiedEntries ), Long.toString( entriesPerSecond ) } ) );
         }
     }
 }
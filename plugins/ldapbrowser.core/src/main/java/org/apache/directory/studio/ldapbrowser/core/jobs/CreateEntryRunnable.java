@@ -30,6 +30,7 @@ import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryAddedEvent;
@@ -118,9 +119,10 @@ public class CreateEntryRunnable implements StudioConnectionBulkRunnableWithProg
         monitor.reportProgress( " " ); //$NON-NLS-1$
         monitor.worked( 1 );
 
+        PostReadControl postReadControl = ReadEntryRunnable.createPostReadControl( entryToCreate );
         try
         {
-            createEntry( browserConnection, entryToCreate, monitor );
+            createEntry( browserConnection, entryToCreate, postReadControl, monitor );
         }
         catch ( LdapException e )
         {
@@ -139,9 +141,14 @@ public class CreateEntryRunnable implements StudioConnectionBulkRunnableWithProg
             // In some cases that doesn't work:
             // - if there was a referral and the entry was created on another (master) server and not yet sync'ed to the current server
             // So we use a dummy monitor to no bother the user with an error message.
+            // The entry returned within the Post-Read response control is used if available.
             StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
-            createdEntry = ReadEntryRunnable
-                .getEntry( browserConnection, entryToCreate.getDn(), controls, dummyMonitor );
+            createdEntry = ReadEntryRunnable.getEntry( browserConnection, postReadControl, dummyMonitor );
+            if ( createdEntry == null )
+            {
+                createdEntry = ReadEntryRunnable
+                    .getEntry( browserConnection, entryToCreate.getDn(), controls, dummyMonitor );
+            }
             dummyMonitor.done();
             if ( createdEntry != null )
             {
@@ -188,19 +195,25 @@ public class CreateEntryRunnable implements StudioConnectionBulkRunnableWithProg
      * 
      * @param browserConnection the browser connection
      * @param entryToCreate the entry to create
+     * @param postReadControl the Post-Read control, may be null
      * @param monitor the monitor
      */
-    static void createEntry( IBrowserConnection browserConnection, IEntry entryToCreate, StudioProgressMonitor monitor ) throws LdapException
+    static void createEntry( IBrowserConnection browserConnection, IEntry entryToCreate,
+        PostReadControl postReadControl, StudioProgressMonitor monitor ) throws LdapException
     {
         Entry entry = ModelConverter.toLdapApiEntry( entryToCreate );
 
-        // ManageDsaIT control
-        Control[] controls = null;
+        // ManageDsaIT and Post-Read controls
+        List<Control> controlList = new ArrayList<>();
         if ( entryToCreate.isReferral() )
         {
-            controls = new Control[]
-                { Controls.MANAGEDSAIT_CONTROL };
+            controlList.add( Controls.MANAGEDSAIT_CONTROL );
+        }
+        if ( postReadControl != null )
+        {
+            controlList.add( postReadControl );
         }
+        Control[] controls = controlList.isEmpty() ? null : controlList.toArray( new Control[controlList.size()] );
 
         browserConnection.getConnection().getConnectionWrapper()
             .createEntry( entry, controls, monitor, null );
@@ -22,16 +22,24 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import javax.naming.directory.SearchControls;
 
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
@@ -39,10 +47,12 @@ import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.StudioControl;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.SearchManager;
 import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent;
@@ -56,11 +66,13 @@ import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 /**
  * Runnable to delete entries.
  * 
- * Deletes the entry recursively in a optimistic way:
+ * Deletes the entry recursively:
  * <ol>
  * <li>Delete the entry
- * <li>If that fails with error code 66 then perform a one-level search
- *     and start from 1. for each entry. 
+ * <li>If that fails with error code 66 then enumerate the whole subtree with one
+ *     (paged) subtree search and delete the entries level by level, deepest first.
+ *     The deletes of one level are pipelined on the connection.
+ * <li>Delete the entry again
  * </ol>
  *
  * TODO: delete subentries?
@@ -69,6 +81,15 @@ import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
  */
 public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithProgress
 {
+    /** The page size used to enumerate the subtree, if paged search is supported. */
+    private static final int ENUMERATION_PAGE_SIZE = 1000;
+
+    /** The number of deletes passed to the connection at once, progress is reported after each batch. */
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    /** The maximum number of outstanding delete requests. */
+    private static final int DELETE_WINDOW = 32;
+
     /** The entries to delete. */
     private Collection<IEntry> entriesToDelete;
 
@@ -158,6 +179,9 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
         monitor.reportProgress( " " ); //$NON-NLS-1$
         monitor.worked( 1 );
 
+        // the deleted Dns, per connection, used to prune the searches in one pass
+        Map<IBrowserConnection, Set<Dn>> deletedDnsMap = new HashMap<IBrowserConnection, Set<Dn>>();
+
         int num = 0;
         StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
         for ( Iterator<IEntry> iterator = entriesToDelete.iterator(); !monitor.isCanceled()
@@ -168,7 +192,7 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
 
             // delete from directory
             int errorStatusSize1 = monitor.getErrorStatus( "" ).getChildren().length; //$NON-NLS-1$
-            num = optimisticDeleteEntryRecursive( browserConnection, entryToDelete.getDn(), entryToDelete.isReferral(),
+            num = deleteEntryRecursive( browserConnection, entryToDelete.getDn(), entryToDelete.isReferral(),
                 useTreeDeleteControl, num, dummyMonitor, monitor );
             int errorStatusSize2 = monitor.getErrorStatus( "" ).getChildren().length; //$NON-NLS-1$
 
@@ -184,31 +208,9 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
                     entryToDelete.getParententry().setChildrenInitialized( false );
                     entryToDelete.getParententry().deleteChild( entryToDelete );
 
-                    // delete from searches
-                    List<ISearch> searches = browserConnection.getSearchManager().getSearches();
-                    for ( ISearch search : searches )
-                    {
-                        if ( search.getSearchResults() != null )
-                        {
-                            ISearchResult[] searchResults = search.getSearchResults();
-                            List<ISearchResult> searchResultList = new ArrayList<ISearchResult>();
-                            searchResultList.addAll( Arrays.asList( searchResults ) );
-                            for ( Iterator<ISearchResult> it = searchResultList.iterator(); it.hasNext(); )
-                            {
-                                ISearchResult result = it.next();
-                                if ( entryToDelete.equals( result.getEntry() ) )
-                                {
-                                    it.remove();
-                                    searchesToUpdateSet.add( search );
-                                }
-                            }
-                            if ( searchesToUpdateSet.contains( search ) )
-                            {
-                                search.setSearchResults( searchResultList.toArray( new ISearchResult[searchResultList
-                                    .size()] ) );
-                            }
-                        }
-                    }
+                    // remember for the searches
+                    deletedDnsMap.computeIfAbsent( browserConnection, k -> new HashSet<Dn>() )
+                        .add( entryToDelete.getDn() );
 
                     // delete from cache
                     browserConnection.uncacheEntryRecursive( entryToDelete );
@@ -221,6 +223,71 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
 
             monitor.worked( 1 );
         }
+
+        // delete from searches
+        for ( Map.Entry<IBrowserConnection, Set<Dn>> deletedDns : deletedDnsMap.entrySet() )
+        {
+            pruneSearches( deletedDns.getKey(), deletedDns.getValue() );
+        }
+    }
+
+
+    /**
+     * Removes the search results of the deleted entries and their descendants from the
+     * searches of the browser connection. Only the searches that contain a deleted entry
+     * are scanned, each search result list only once.
+     *
+     * @param browserConnection the browser connection
+     * @param deletedDns the Dns of the deleted subtrees
+     */
+    private void pruneSearches( IBrowserConnection browserConnection, Set<Dn> deletedDns )
+    {
+        SearchManager searchManager = browserConnection.getSearchManager();
+        Set<ISearch> affectedSearches = Collections.newSetFromMap( new IdentityHashMap<ISearch, Boolean>() );
+        for ( Dn deletedDn : deletedDns )
+        {
+            affectedSearches.addAll( searchManager.getSearchesContaining( deletedDn ) );
+        }
+
+        for ( ISearch search : affectedSearches )
+        {
+            ISearchResult[] searchResults = search.getSearchResults();
+            if ( searchResults == null )
+            {
+                continue;
+            }
+
+            List<ISearchResult> searchResultList = new ArrayList<ISearchResult>( searchResults.length );
+            for ( ISearchResult result : searchResults )
+            {
+                if ( !isDeleted( result.getDn(), deletedDns ) )
+                {
+                    searchResultList.add( result );
+                }
+            }
+
+            if ( searchResultList.size() < searchResults.length )
+            {
+                search.setSearchResults( searchResultList.toArray( new ISearchResult[searchResultList.size()] ) );
+                searchesToUpdateSet.add( search );
+            }
+        }
+    }
+
+
+    /**
+     * Checks if the given Dn or one of its ancestors is contained in the deleted Dns.
+     */
+    private static boolean isDeleted( Dn dn, Set<Dn> deletedDns )
+    {
+        for ( Dn ancestor = dn; ancestor != null && !ancestor.isEmpty(); ancestor = ancestor.getParent() )
+        {
+            if ( deletedDns.contains( ancestor ) )
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
 
@@ -244,11 +311,11 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
 
 
     /**
-     * Deletes the entry recursively in a optimistic way:
+     * Deletes the entry recursively:
      * <ol>
      * <li>Deletes the entry
-     * <li>If that fails then perform a one-level search and call the 
-     * method for each found entry
+     * <li>If that fails with error code 66 then enumerates the subtree and deletes
+     * the entries deepest first, see {@link #deleteSubtree}
      * </ol>
      * 
      * @param browserConnection the browser connection
@@ -261,9 +328,9 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
      * 
      * @return the cumulative number of deleted entries
      */
-    static int optimisticDeleteEntryRecursive( IBrowserConnection browserConnection, Dn dn,
-        boolean useManageDsaItControl, boolean useTreeDeleteControl, int numberOfDeletedEntries,
-        StudioProgressMonitor dummyMonitor, StudioProgressMonitor monitor )
+    static int deleteEntryRecursive( IBrowserConnection browserConnection, Dn dn, boolean useManageDsaItControl,
+        boolean useTreeDeleteControl, int numberOfDeletedEntries, StudioProgressMonitor dummyMonitor,
+        StudioProgressMonitor monitor )
     {
         // try to delete entry
         dummyMonitor.reset();
@@ -272,88 +339,224 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
         if ( !dummyMonitor.errorsReported() )
         {
             numberOfDeletedEntries++;
-            monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__deleted_n_entries,
-                new String[]
-                    { "" + numberOfDeletedEntries } ) ); //$NON-NLS-1$
+            reportProgress( numberOfDeletedEntries, monitor );
         }
         else if ( StudioLdapException.isContextNotEmptyException( dummyMonitor.getException() ) )
         {
-            // do not follow referrals or dereference aliases when deleting entries
-            AliasDereferencingMethod aliasDereferencingMethod = AliasDereferencingMethod.NEVER;
-            ReferralHandlingMethod referralsHandlingMethod = ReferralHandlingMethod.IGNORE;
+            numberOfDeletedEntries = deleteSubtree( browserConnection, dn, numberOfDeletedEntries, dummyMonitor,
+                monitor );
+        }
+        else
+        {
+            reportError( dummyMonitor, monitor );
+        }
+
+        return numberOfDeletedEntries;
+    }
+
+
+    /**
+     * Deletes the subtree below the given entry and the entry itself. 
+     * <ol>
+     * <li>Enumerates the subtree with one subtree search, paged if supported, 
+     *     that doesn't return any attributes 
+     * <li>Deletes the entries level by level, deepest level first. The deletes of
+     *     one level are independent and are pipelined on the connection.
+     * <li>Deletes the entry
+     * </ol>
+     * If the entry still has children, e.g. because the enumeration was limited by 
+     * the server, another round is started as long as entries could be deleted.
+     * 
+     * @param browserConnection the browser connection
+     * @param dn the Dn of the subtree to delete
+     * @param numberOfDeletedEntries the number of deleted entries
+     * @param dummyMonitor the dummy monitor
+     * @param monitor the progress monitor
+     * 
+     * @return the cumulative number of deleted entries
+     */
+    private static int deleteSubtree( IBrowserConnection browserConnection, Dn dn, int numberOfDeletedEntries,
+        StudioProgressMonitor dummyMonitor, StudioProgressMonitor monitor )
+    {
+        ConnectionWrapper connectionWrapper = browserConnection.getConnection().getConnectionWrapper();
+        Control[] controls = new Control[0];
+
+        boolean deletedAny;
+        do
+        {
+            deletedAny = false;
 
-            // perform one-level search and delete recursively
-            int numberInBatch;
+            // enumerate the subtree
             dummyMonitor.reset();
-            do
+            SortedMap<Integer, List<Dn>> levels = enumerateSubtree( browserConnection, dn, dummyMonitor );
+            if ( dummyMonitor.errorsReported() )
             {
-                numberInBatch = 0;
-
-                SearchControls searchControls = new SearchControls();
-                searchControls.setCountLimit( 1000 );
-                searchControls.setReturningAttributes( new String[0] );
-                searchControls.setSearchScope( SearchControls.ONELEVEL_SCOPE );
-                StudioSearchResultEnumeration result = browserConnection
-                    .getConnection()
-                    .getConnectionWrapper()
-                    .search( dn.getName(), ISearch.FILTER_TRUE, searchControls, aliasDereferencingMethod,
-                        referralsHandlingMethod, null, dummyMonitor, null );
-
-                try
+                reportError( dummyMonitor, monitor );
+                return numberOfDeletedEntries;
+            }
+
+            // delete deepest first, a level is finished before its parent level is started
+            for ( List<Dn> level : levels.values() )
+            {
+                for ( int from = 0; from < level.size(); from += DELETE_BATCH_SIZE )
                 {
-                    // delete all child entries
-                    while ( !dummyMonitor.isCanceled() && !dummyMonitor.errorsReported() && result.hasMore() )
+                    if ( monitor.isCanceled() )
                     {
-                        Dn childDn = result.next().getDn();
-
-                        numberOfDeletedEntries = optimisticDeleteEntryRecursive( browserConnection, childDn, false,
-                            false, numberOfDeletedEntries, dummyMonitor, monitor );
-                        numberInBatch++;
+                        return numberOfDeletedEntries;
                     }
-                }
-                catch ( Exception e )
-                {
-                    int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
-                    if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
+
+                    List<Dn> batch = level.subList( from, Math.min( level.size(), from + DELETE_BATCH_SIZE ) );
+                    dummyMonitor.reset();
+                    Exception[] errors = connectionWrapper.deleteEntries( batch, controls, DELETE_WINDOW,
+                        dummyMonitor );
+                    if ( errors == null )
                     {
-                        // continue with search
+                        reportError( dummyMonitor, monitor );
+                        return numberOfDeletedEntries;
                     }
-                    else
+
+                    for ( Exception error : errors )
                     {
-                        dummyMonitor.reportError( e );
-                        break;
+                        if ( error == null )
+                        {
+                            numberOfDeletedEntries++;
+                            deletedAny = true;
+                        }
+                        else if ( !StudioLdapException.isContextNotEmptyException( error ) )
+                        {
+                            dummyMonitor.reportError( error );
+                            reportError( dummyMonitor, monitor );
+                            return numberOfDeletedEntries;
+                        }
+                        // else: children missed by the enumeration, try again in the next round 
                     }
+                    reportProgress( numberOfDeletedEntries, monitor );
                 }
             }
-            while ( numberInBatch > 0 && !monitor.isCanceled() && !dummyMonitor.errorsReported() );
 
-            // try to delete the entry again 
+            // try to delete the entry again
+            dummyMonitor.reset();
+            deleteEntry( browserConnection, dn, false, false, dummyMonitor );
             if ( !dummyMonitor.errorsReported() )
             {
-                deleteEntry( browserConnection, dn, false, false, dummyMonitor );
+                numberOfDeletedEntries++;
+                reportProgress( numberOfDeletedEntries, monitor );
+                return numberOfDeletedEntries;
             }
-            if ( !dummyMonitor.errorsReported() )
+            else if ( !StudioLdapException.isContextNotEmptyException( dummyMonitor.getException() ) )
             {
-                numberOfDeletedEntries++;
-                monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__deleted_n_entries,
-                    new String[]
-                        { "" + numberOfDeletedEntries } ) ); //$NON-NLS-1$
+                break;
             }
         }
-        else
+        while ( deletedAny && !monitor.isCanceled() );
+
+        if ( !monitor.isCanceled() )
         {
-            Exception exception = dummyMonitor.getException();
-            // we have another exception
-            // report it to the dummy monitor if we are in the recursion
-            dummyMonitor.reportError( exception );
-            // also report it to the real monitor
-            monitor.reportError( exception );
+            reportError( dummyMonitor, monitor );
         }
 
         return numberOfDeletedEntries;
     }
 
 
+    /**
+     * Enumerates the subtree below the given Dn, without the Dn itself.
+     * 
+     * @param browserConnection the browser connection
+     * @param dn the Dn of the subtree
+     * @param monitor the progress monitor
+     * 
+     * @return the Dns grouped by their number of RDNs, the deepest level first
+     */
+    private static SortedMap<Integer, List<Dn>> enumerateSubtree( IBrowserConnection browserConnection, Dn dn,
+        StudioProgressMonitor monitor )
+    {
+        SortedMap<Integer, List<Dn>> levels = new TreeMap<Integer, List<Dn>>( Collections.reverseOrder() );
+
+        // do not follow referrals or dereference aliases when deleting entries
+        AliasDereferencingMethod aliasDereferencingMethod = AliasDereferencingMethod.NEVER;
+        ReferralHandlingMethod referralsHandlingMethod = ReferralHandlingMethod.IGNORE;
+
+        SearchControls searchControls = new SearchControls();
+        searchControls.setReturningAttributes( new String[]
+            { SchemaConstants.NO_ATTRIBUTE } );
+        searchControls.setSearchScope( SearchControls.SUBTREE_SCOPE );
+
+        boolean paged = browserConnection.getRootDSE() != null
+            && browserConnection.getRootDSE().isControlSupported( PagedResults.OID );
+        byte[] cookie = null;
+        do
+        {
+            Control[] controls = paged ? new Control[]
+                { Controls.newPagedResultsControl( ENUMERATION_PAGE_SIZE, cookie ) } : null;
+            cookie = null;
+
+            StudioSearchResultEnumeration result = browserConnection.getConnection().getConnectionWrapper()
+                .search( dn.getName(), ISearch.FILTER_TRUE, searchControls, aliasDereferencingMethod,
+                    referralsHandlingMethod, controls, monitor, null );
+            if ( result == null )
+            {
+                break;
+            }
+
+            try
+            {
+                while ( !monitor.isCanceled() && result.hasMore() )
+                {
+                    Dn childDn = result.next().getDn();
+                    if ( childDn.size() > dn.size() )
+                    {
+                        levels.computeIfAbsent( childDn.size(), k -> new ArrayList<Dn>() ).add( childDn );
+                    }
+                }
+
+                for ( Control responseControl : result.getResponseControls() )
+                {
+                    if ( responseControl instanceof PagedResults
+                        && ArrayUtils.isNotEmpty( ( ( PagedResults ) responseControl ).getCookie() ) )
+                    {
+                        cookie = ( ( PagedResults ) responseControl ).getCookie();
+                    }
+                }
+            }
+            catch ( Exception e )
+            {
+                int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
+                if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
+                {
+                    // continue with the entries enumerated so far
+                }
+                else
+                {
+                    monitor.reportError( e );
+                }
+                break;
+            }
+        }
+        while ( cookie != null && !monitor.isCanceled() );
+
+        return levels;
+    }
+
+
+    private static void reportProgress( int numberOfDeletedEntries, StudioProgressMonitor monitor )
+    {
+        monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__deleted_n_entries,
+            new String[]
+                { "" + numberOfDeletedEntries } ) ); //$NON-NLS-1$
+    }
+
+
+    private static void reportError( StudioProgressMonitor dummyMonitor, StudioProgressMonitor monitor )
+    {
+        Exception exception = dummyMonitor.getException();
+        // report it to the dummy monitor, the callers check it
+        dummyMonitor.reportError( exception );
+        // also report it to the real monitor
+        monitor.reportError( exception );
+    }
+
+
     static void deleteEntry( IBrowserConnection browserConnection, Dn dn, boolean useManageDsaItControl,
         boolean useTreeDeleteControl, StudioProgressMonitor monitor )
     {
@@ -21,8 +21,6 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
-import java.io.Reader;
-import java.io.StringReader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,13 +28,14 @@ import java.util.List;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
-import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
-import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifEnumeration;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
 
 
 /**
@@ -126,17 +125,31 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
 
     public static void executeLdif( IBrowserConnection browserConnection, String ldif, boolean updateIfEntryExists,
         boolean continueOnError, StudioProgressMonitor monitor )
+    {
+        executeLdif( browserConnection, ldif, updateIfEntryExists, continueOnError, null, monitor );
+    }
+
+
+    /**
+     * Executes the LDIF and adds the given Post-Read control to all add, modify and modify DN records.
+     * 
+     * @param browserConnection the browser connection
+     * @param ldif the LDIF to execute
+     * @param updateIfEntryExists the update if entry exists flag
+     * @param continueOnError the continue on error flag
+     * @param postReadControl the Post-Read control, may be null
+     * @param monitor the progress monitor
+     */
+    static void executeLdif( IBrowserConnection browserConnection, String ldif, boolean updateIfEntryExists,
+        boolean continueOnError, PostReadControl postReadControl, StudioProgressMonitor monitor )
     {
         monitor.beginTask( BrowserCoreMessages.jobs__execute_ldif_task, 2 );
         monitor.reportProgress( " " ); //$NON-NLS-1$
         monitor.worked( 1 );
 
-        try
+        // closing the enumeration stops the parser threads also if the execution fails
+        try ( ParallelLdifEnumeration enumeration = new ParallelLdifParser().parse( ldif ) )
         {
-            Reader ldifReader = new StringReader( ldif );
-            LdifParser parser = new LdifParser();
-            LdifEnumeration enumeration = parser.parse( ldifReader );
-
             Writer logWriter = new Writer()
             {
                 public void close()
@@ -155,10 +168,9 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
             };
 
             ImportLdifRunnable.importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists,
-                continueOnError, monitor );
+                continueOnError, postReadControl, monitor );
 
             logWriter.close();
-            ldifReader.close();
         }
         catch ( Exception e )
         {
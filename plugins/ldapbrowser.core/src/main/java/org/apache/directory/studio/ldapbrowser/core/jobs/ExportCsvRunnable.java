@@ -39,9 +39,9 @@ import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnable
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
-import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 import org.apache.directory.studio.ldifparser.LdifUtils;
@@ -286,8 +286,8 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
         {
 
             String attributeName = attributes[i];
-            AttributeDescription ad = new AttributeDescription( attributeName );
-            String oidString = ad.toOidString( browserConnection.getSchema() );
+            Schema schema = browserConnection.getSchema();
+            String oidString = schema.getAttributeDescription( attributeName ).toOidString( schema );
             if ( attributeMap.containsKey( oidString ) )
             {
                 String value = attributeMap.get( oidString );
@@ -352,8 +352,8 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
             if ( browserConnection != null )
             {
                 // convert attributeName to oid
-                AttributeDescription ad = new AttributeDescription( attributeName );
-                attributeName = ad.toOidString( browserConnection.getSchema() );
+                Schema schema = browserConnection.getSchema();
+                attributeName = schema.getAttributeDescription( attributeName ).toOidString( schema );
             }
             String value = lines[i].getValueAsString();
             if ( !Charset.forName( encoding ).newEncoder().canEncode( value ) )
@@ -51,14 +51,12 @@ import org.apache.directory.studio.ldapbrowser.core.utils.AttributeComparator;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
-import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.LdifStreamWriter;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifVersionLine;
 
 
 /**
@@ -169,52 +167,45 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     {
         try
         {
-            LdifEnumeration enumeration = search( browserConnection, searchParameter, monitor );
-            LdifFormatParameters ldifFormatParameters = Utils.getLdifFormatParameters();
+            DefaultLdifEnumeration enumeration = search( browserConnection, searchParameter, monitor );
+            LdifStreamWriter ldifWriter = new LdifStreamWriter( bufferedWriter, Utils.getLdifFormatParameters() );
 
             // add version spec
             if ( BrowserCorePlugin.getDefault().getPluginPreferences()
                 .getBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE ) )
             {
-                LdifVersionLine ldifVersionLine = LdifVersionLine.create();
-                String ldifVersionLineString = ldifVersionLine.toFormattedString( ldifFormatParameters );
-                bufferedWriter.write( ldifVersionLineString );
-                LdifSepLine ldifSepLine = LdifSepLine.create();
-                String ldifSepLineString = ldifSepLine.toFormattedString( ldifFormatParameters );
-                bufferedWriter.write( ldifSepLineString );
+                ldifWriter.writeVersion();
+                ldifWriter.writeSeparator();
             }
 
-            // add the records
+            // add the records, sorted and written directly to the file
             while ( !monitor.isCanceled() && !monitor.errorsReported() && enumeration.hasNext() )
             {
-                LdifContainer container = enumeration.next();
+                Entry searchResultEntry = enumeration.nextEntry();
+                DummyEntry entry = ModelConverter.searchResultEntryToEntry( searchResultEntry, browserConnection );
 
-                if ( container instanceof LdifContentRecord )
+                ldifWriter.writeDn( searchResultEntry.getDn().getName() );
+                for ( IValue value : AttributeComparator.toSortedValues( entry ) )
                 {
-                    LdifContentRecord record = ( LdifContentRecord ) container;
-                    LdifDnLine dnLine = record.getDnLine();
-                    LdifSepLine sepLine = record.getSepLine();
-
-                    // sort and format
-                    DummyEntry entry = ModelConverter.ldifContentRecordToEntry( record, browserConnection );
-                    List<IValue> sortedValues = AttributeComparator.toSortedValues( entry );
-                    LdifContentRecord newRecord = new LdifContentRecord( dnLine );
-                    for ( IValue value : sortedValues )
+                    String description = value.getAttribute().getDescription();
+                    if ( value.isString() )
                     {
-                        newRecord.addAttrVal( ModelConverter.valueToLdifAttrValLine( value ) );
+                        ldifWriter.writeAttrVal( description, value.getStringValue() );
+                    }
+                    else
+                    {
+                        ldifWriter.writeAttrVal( description, value.getBinaryValue() );
                     }
-                    newRecord.finish( sepLine );
-                    String s = newRecord.toFormattedString( ldifFormatParameters );
-
-                    // String s = record.toFormattedString();
-                    bufferedWriter.write( s );
-
-                    count++;
-                    monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
-                        new String[]
-                            { Integer.toString( count ) } ) );
                 }
+                ldifWriter.writeSeparator();
+
+                count++;
+                monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
+                    new String[]
+                        { Integer.toString( count ) } ) );
             }
+
+            ldifWriter.flush();
         }
         catch ( LdapException loe )
         {
@@ -231,7 +222,7 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
-    static LdifEnumeration search( IBrowserConnection browserConnection, SearchParameter parameter,
+    static DefaultLdifEnumeration search( IBrowserConnection browserConnection, SearchParameter parameter,
         StudioProgressMonitor monitor )
     {
         StudioSearchResultEnumeration result = SearchRunnable.search( browserConnection, parameter, monitor );
@@ -296,9 +287,21 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
         }
 
 
+        /**
+         * Returns the next search result entry without converting it to LDIF.
+         *
+         * @return the next entry
+         * @throws LdapException if the entry could not be read
+         */
+        public Entry nextEntry() throws LdapException
+        {
+            return enumeration.next().getEntry();
+        }
+
+
         public LdifContainer next() throws LdapException
         {
-            Entry entry = enumeration.next().getEntry();
+            Entry entry = nextEntry();
             Dn dn = entry.getDn();
             LdifContentRecord record = LdifContentRecord.create( dn.getName() );
 
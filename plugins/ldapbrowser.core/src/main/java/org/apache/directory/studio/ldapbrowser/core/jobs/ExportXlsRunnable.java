@@ -24,6 +24,7 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -40,6 +41,7 @@ import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
+import org.apache.directory.studio.ldapbrowser.core.utils.XlsxStreamWriter;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
@@ -53,7 +55,12 @@ import org.eclipse.core.runtime.Preferences;
 
 
 /**
- * Runnable to export directory content to an XLS file.
+ * Runnable to export directory content to an Excel file.
+ * <p>
+ * Files ending with .xls are written in the legacy binary format, which is built
+ * in memory and limited to {@link #MAX_COUNT_LIMIT} entries. All other files are
+ * written in the Office Open XML format (.xlsx), which is streamed to disk and
+ * limited to {@link #MAX_XLSX_COUNT_LIMIT} entries.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -62,6 +69,15 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
     /** The maximum count limit */
     public static final int MAX_COUNT_LIMIT = 65000;
 
+    /** The maximum count limit of the .xlsx format, one row is used by the header */
+    public static final int MAX_XLSX_COUNT_LIMIT = XlsxStreamWriter.MAX_ROW_COUNT - 1;
+
+    /** The legacy binary file extension */
+    private static final String XLS_EXTENSION = ".xls"; //$NON-NLS-1$
+
+    /** The name of the exported sheet */
+    private static final String SHEET_NAME = "Export"; //$NON-NLS-1$
+
     /** The filename of the XLS file. */
     private String exportXlsFilename;
 
@@ -144,8 +160,66 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
         String valueDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_XLS_VALUEDELIMITER );
         int binaryEncoding = coreStore.getInt( BrowserCoreConstants.PREFERENCE_FORMAT_XLS_BINARYENCODING );
 
+        if ( exportXlsFilename.toLowerCase( Locale.ROOT ).endsWith( XLS_EXTENSION ) )
+        {
+            exportToHssf( monitor, valueDelimiter, binaryEncoding );
+        }
+        else
+        {
+            exportToXlsx( monitor, valueDelimiter, binaryEncoding );
+        }
+    }
+
+
+    /**
+     * Exports to a streamed .xlsx file.
+     *
+     * @param monitor the monitor
+     * @param valueDelimiter the value delimiter
+     * @param binaryEncoding the binary encoding
+     */
+    private void exportToXlsx( StudioProgressMonitor monitor, String valueDelimiter, int binaryEncoding )
+    {
+        // max export
+        if ( searchParameter.getCountLimit() < 1 || searchParameter.getCountLimit() > MAX_XLSX_COUNT_LIMIT )
+        {
+            searchParameter.setCountLimit( MAX_XLSX_COUNT_LIMIT );
+        }
+
+        try ( FileOutputStream out = new FileOutputStream( exportXlsFilename );
+            XlsxStreamWriter writer = new XlsxStreamWriter( out, SHEET_NAME ) )
+        {
+            // header, further columns are added when attributes are discovered
+            Map<String, Integer> attributeNameMap = new LinkedHashMap<String, Integer>();
+            if ( this.exportDn )
+            {
+                attributeNameMap.put( "dn", writer.addColumn( "dn" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+
+            exportRecords( browserConnection, searchParameter, monitor,
+                record -> recordToXlsxRow( browserConnection, record, writer, attributeNameMap, valueDelimiter,
+                    binaryEncoding, exportDn ) );
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
+    }
+
+
+    /**
+     * Exports to a legacy .xls file, the whole workbook is kept in memory.
+     *
+     * @param monitor the monitor
+     * @param valueDelimiter the value delimiter
+     * @param binaryEncoding the binary encoding
+     */
+    private void exportToHssf( StudioProgressMonitor monitor, String valueDelimiter, int binaryEncoding )
+    {
         HSSFWorkbook wb = new HSSFWorkbook();
-        HSSFSheet sheet = wb.createSheet( "Export" ); //$NON-NLS-1$
+        HSSFSheet sheet = wb.createSheet( SHEET_NAME );
+        CellStyle wrapStyle = wb.createCellStyle();
+        wrapStyle.setWrapText( true );
 
         // header
         HSSFRow headerRow = sheet.createRow( 0 );
@@ -166,9 +240,9 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
         // export
         try
         {
-            int count = 0;
-            exportToXls( browserConnection, searchParameter, sheet, headerRow, count, monitor, attributeNameMap,
-                valueDelimiter, binaryEncoding, this.exportDn );
+            exportRecords( browserConnection, searchParameter, monitor,
+                record -> recordToHSSFRow( browserConnection, record, sheet, headerRow, wrapStyle, attributeNameMap,
+                    valueDelimiter, binaryEncoding, exportDn ) );
         }
         catch ( Exception e )
         {
@@ -208,28 +282,21 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
 
 
     /**
-     * Exports to XLS.
+     * Searches the directory and passes each content record to the given handler.
      * 
      * @param browserConnection the browser connection
      * @param searchParameter the search parameter
-     * @param sheet the sheet
-     * @param headerRow the header row
-     * @param count the count
      * @param monitor the monitor
-     * @param attributeNameMap the attribute name map
-     * @param valueDelimiter the value delimiter
-     * @param binaryEncoding the binary encoding
-     * @param exportDn the export dn
+     * @param handler the record handler
      * 
      * @throws IOException Signals that an I/O exception has occurred.
      */
-    private static void exportToXls( IBrowserConnection browserConnection, SearchParameter searchParameter,
-        HSSFSheet sheet, HSSFRow headerRow, int count, StudioProgressMonitor monitor,
-        LinkedHashMap<String, Integer> attributeNameMap, String valueDelimiter, int binaryEncoding, boolean exportDn )
-        throws IOException
+    private static void exportRecords( IBrowserConnection browserConnection, SearchParameter searchParameter,
+        StudioProgressMonitor monitor, RecordHandler handler ) throws IOException
     {
         try
         {
+            int count = 0;
             LdifEnumeration enumeration = ExportLdifRunnable.search( browserConnection, searchParameter, monitor );
             while ( !monitor.isCanceled() && !monitor.errorsReported() && enumeration.hasNext() )
             {
@@ -238,8 +305,7 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
                 if ( container instanceof LdifContentRecord )
                 {
                     LdifContentRecord record = ( LdifContentRecord ) container;
-                    recordToHSSFRow( browserConnection, record, sheet, headerRow, attributeNameMap, valueDelimiter,
-                        binaryEncoding, exportDn );
+                    handler.handle( record );
 
                     count++;
                     monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
@@ -264,6 +330,58 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
+    /**
+     * Transforms an LDIF record to a row of the streamed spreadsheet.
+     * New attributes are appended as header columns.
+     * 
+     * @param browserConnection the browser connection
+     * @param record the record
+     * @param writer the spreadsheet writer
+     * @param headerRowAttributeNameMap the header row attribute name map
+     * @param valueDelimiter the value delimiter
+     * @param binaryEncoding the binary encoding
+     * @param exportDn the export dn
+     * 
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void recordToXlsxRow( IBrowserConnection browserConnection, LdifContentRecord record,
+        XlsxStreamWriter writer, Map<String, Integer> headerRowAttributeNameMap, String valueDelimiter,
+        int binaryEncoding, boolean exportDn ) throws IOException
+    {
+        // group multi-valued attributes
+        Map<String, String> attributeMap = ExportCsvRunnable.getAttributeMap( null, record, valueDelimiter, "UTF-16", //$NON-NLS-1$
+            binaryEncoding );
+
+        // output attributes
+        if ( exportDn )
+        {
+            writer.setCell( 0, record.getDnLine().getValueAsString(), false );
+        }
+        for ( Map.Entry<String, String> entry : attributeMap.entrySet() )
+        {
+            String attributeName = entry.getKey();
+            String value = entry.getValue();
+
+            Integer column = headerRowAttributeNameMap.get( attributeName );
+            if ( column == null )
+            {
+                column = writer.addColumn( attributeName );
+                headerRowAttributeNameMap.put( attributeName, column );
+            }
+
+            boolean wrapText = false;
+            AttributeType type = browserConnection.getSchema().getAttributeTypeDescription( attributeName );
+            if ( SchemaConstants.POSTAL_ADDRESS_SYNTAX.equals( type.getSyntaxOid() ) )
+            {
+                value = Utils.decodePostalAddress( value, "\n" ); //$NON-NLS-1$
+                wrapText = true;
+            }
+            writer.setCell( column, value, wrapText );
+        }
+        writer.endRow();
+    }
+
+
     /**
      * Transforms an LDIF record to an HSSF row.
      * 
@@ -271,22 +389,20 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
      * @param record the record
      * @param sheet the sheet
      * @param headerRow the header row
+     * @param wrapStyle the shared cell style for wrapped text
      * @param headerRowAttributeNameMap the header row attribute name map
      * @param valueDelimiter the value delimiter
      * @param binaryEncoding the binary encoding
      * @param exportDn the export dn
      */
     private static void recordToHSSFRow( IBrowserConnection browserConnection, LdifContentRecord record,
-        HSSFSheet sheet, HSSFRow headerRow, Map<String, Integer> headerRowAttributeNameMap, String valueDelimiter,
-        int binaryEncoding, boolean exportDn )
+        HSSFSheet sheet, HSSFRow headerRow, CellStyle wrapStyle, Map<String, Integer> headerRowAttributeNameMap,
+        String valueDelimiter, int binaryEncoding, boolean exportDn )
     {
         // group multi-valued attributes
         Map<String, String> attributeMap = ExportCsvRunnable.getAttributeMap( null, record, valueDelimiter, "UTF-16", //$NON-NLS-1$
             binaryEncoding );
 
-        CellStyle wrapStyle = sheet.getWorkbook().createCellStyle();
-        wrapStyle.setWrapText( true );
-
         // output attributes
         HSSFRow row = sheet.createRow( sheet.getLastRowNum() + 1 );
         if ( exportDn )
@@ -331,4 +447,13 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
         return cell;
     }
 
+
+    /**
+     * Handles the records returned by the export search.
+     */
+    private interface RecordHandler
+    {
+        void handle( LdifContentRecord record ) throws IOException;
+    }
+
 }
@@ -21,17 +21,16 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -51,6 +50,7 @@ import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.ConnectionCoreConstants;
 import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
@@ -75,7 +75,8 @@ import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifControlLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifModSpecTypeLine;
-import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifEnumeration;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
 
 
 /**
@@ -184,12 +185,11 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
         monitor.reportProgress( " " ); //$NON-NLS-1$
         monitor.worked( 1 );
 
-        try
+        // records are parsed on other threads while this thread imports them,
+        // closing the enumeration stops them also if the import fails
+        try ( ParallelLdifEnumeration enumeration = new ParallelLdifParser().parse( this.ldifFile,
+            Charset.defaultCharset() ) )
         {
-            Reader ldifReader = new BufferedReader( new FileReader( this.ldifFile ) );
-            LdifParser parser = new LdifParser();
-            LdifEnumeration enumeration = parser.parse( ldifReader );
-
             Writer logWriter;
             if ( this.logFile != null )
             {
@@ -215,10 +215,15 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
                 };
             }
 
-            importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists, continueOnError, monitor );
-
-            logWriter.close();
-            ldifReader.close();
+            try
+            {
+                importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists, continueOnError,
+                    monitor );
+            }
+            finally
+            {
+                logWriter.close();
+            }
         }
         catch ( Exception e )
         {
@@ -248,6 +253,25 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
      */
     static void importLdif( IBrowserConnection browserConnection, LdifEnumeration enumeration, Writer logWriter,
         boolean updateIfEntryExists, boolean continueOnError, StudioProgressMonitor monitor )
+    {
+        importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists, continueOnError, null, monitor );
+    }
+
+
+    /**
+     * Imports the LDIF enumeration
+     * 
+     * @param browserConnection the browser connection
+     * @param enumeration the LDIF enumeration
+     * @param logWriter the log writer
+     * @param updateIfEntryExists the update if entry exists flag
+     * @param continueOnError the continue on error flag
+     * @param postReadControl the Post-Read control to add to add, modify and modify DN records, may be null
+     * @param monitor the progress monitor
+     */
+    static void importLdif( IBrowserConnection browserConnection, LdifEnumeration enumeration, Writer logWriter,
+        boolean updateIfEntryExists, boolean continueOnError, PostReadControl postReadControl,
+        StudioProgressMonitor monitor )
     {
         if ( browserConnection == null )
         {
@@ -269,7 +293,8 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
                     try
                     {
                         dummyMonitor.reset();
-                        importLdifRecord( browserConnection, record, updateIfEntryExists, dummyMonitor );
+                        importLdifRecord( browserConnection, record, updateIfEntryExists, postReadControl,
+                            dummyMonitor );
                         if ( dummyMonitor.errorsReported() )
                         {
                             errorCount++;
@@ -396,11 +421,12 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
      * @param browserConnection the browser connection
      * @param record the LDIF record
      * @param updateIfEntryExists the update if entry exists flag
+     * @param postReadControl the Post-Read control to add to add, modify and modify DN records, may be null
      * @param monitor the progress monitor
      * @throws LdapInvalidDnException
      */
     static void importLdifRecord( IBrowserConnection browserConnection, LdifRecord record, boolean updateIfEntryExists,
-        StudioProgressMonitor monitor ) throws LdapException
+        PostReadControl postReadControl, StudioProgressMonitor monitor ) throws LdapException
     {
         if ( !record.isValid() )
         {
@@ -442,7 +468,7 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
 
             Entry entry = ModelConverter.toLdapApiEntry( dummyEntry );
             browserConnection.getConnection().getConnectionWrapper()
-                .createEntry( entry, getControls( record ), monitor, null );
+                .createEntry( entry, getControls( record, postReadControl ), monitor, null );
 
             if ( monitor.errorsReported() && updateIfEntryExists
                 && StudioLdapException.isEntryAlreadyExistsException( monitor.getException() ) )
@@ -452,7 +478,8 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
 
                 Collection<Modification> modifications = ModelConverter.toReplaceModifications( entry );
                 browserConnection.getConnection().getConnectionWrapper()
-                    .modifyEntry( new Dn( dn ), modifications, getControls( record ), monitor, null );
+                    .modifyEntry( new Dn( dn ), modifications, getControls( record, postReadControl ), monitor,
+                        null );
             }
         }
         else if ( record instanceof LdifChangeDeleteRecord )
@@ -500,7 +527,8 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
             }
 
             browserConnection.getConnection().getConnectionWrapper()
-                .modifyEntry( new Dn( dn ), modifications, getControls( modifyRecord ), monitor, null );
+                .modifyEntry( new Dn( dn ), modifications, getControls( modifyRecord, postReadControl ), monitor,
+                    null );
         }
         else if ( record instanceof LdifChangeModDnRecord )
         {
@@ -523,12 +551,42 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
                 }
 
                 browserConnection.getConnection().getConnectionWrapper()
-                    .renameEntry( new Dn( dn ), newDn, deleteOldRdn, getControls( modDnRecord ), monitor, null );
+                    .renameEntry( new Dn( dn ), newDn, deleteOldRdn, getControls( modDnRecord, postReadControl ),
+                        monitor, null );
             }
         }
     }
 
 
+    /**
+     * Gets the controls of the record, followed by the given Post-Read control.
+     * 
+     * @param record the LDIF record
+     * @param postReadControl the Post-Read control, may be null
+     * 
+     * @return the controls
+     */
+    private static Control[] getControls( LdifRecord record, PostReadControl postReadControl )
+    {
+        Control[] controls = getControls( record );
+        if ( postReadControl == null )
+        {
+            return controls;
+        }
+        else if ( controls == null )
+        {
+            return new Control[]
+                { postReadControl };
+        }
+        else
+        {
+            Control[] allControls = Arrays.copyOf( controls, controls.length + 1 );
+            allControls[controls.length] = postReadControl;
+            return allControls;
+        }
+    }
+
+
     /**
      * Gets the controls.
      * 
@@ -22,28 +22,44 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Ava;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.Rdn;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.DitSnapshot;
 import org.apache.directory.studio.ldapbrowser.core.events.AttributesInitializedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.IRootDSE;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
+import org.apache.directory.studio.ldapbrowser.core.utils.LdapFilterUtils;
 
 
 /**
@@ -53,6 +69,12 @@ import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
  */
 public class InitializeAttributesRunnable implements StudioConnectionBulkRunnableWithProgress
 {
+    /** Shares concurrent loads of the same attributes of an entry */
+    private static final SingleFlight<IEntry> LOADS = new SingleFlight<IEntry>();
+
+    /** The maximum number of entries combined into the filter of one prefetch search */
+    private static final int MAX_ENTRIES_PER_PREFETCH = 100;
+
     /** The entries. */
     private IEntry[] entries;
 
@@ -134,6 +156,19 @@ public class InitializeAttributesRunnable implements StudioConnectionBulkRunnabl
         monitor.beginTask( " ", entries.length + 2 ); //$NON-NLS-1$
         monitor.reportProgress( " " ); //$NON-NLS-1$
 
+        Set<IEntry> restoredEntries = restoreAttributes( entries, monitor );
+        List<IEntry> remainingEntries = new ArrayList<IEntry>();
+        for ( IEntry entry : entries )
+        {
+            if ( !restoredEntries.contains( entry ) )
+            {
+                remainingEntries.add( entry );
+            }
+        }
+
+        Set<IEntry> prefetchedEntries = prefetchAttributes( remainingEntries.toArray( new IEntry[0] ), monitor );
+        prefetchedEntries.addAll( restoredEntries );
+
         for ( IEntry entry : entries )
         {
             if ( monitor.isCanceled() )
@@ -141,7 +176,7 @@ public class InitializeAttributesRunnable implements StudioConnectionBulkRunnabl
                 break;
             }
             
-            if ( entry != null )
+            if ( entry != null && !prefetchedEntries.contains( entry ) )
             {
                 monitor.setTaskName( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__init_entries_task,
                     new String[]
@@ -178,13 +213,304 @@ public class InitializeAttributesRunnable implements StudioConnectionBulkRunnabl
     }
 
 
+    /**
+     * Restores the attributes of entries from the directory tree snapshot of their
+     * connection, if they were not restored before in this session.
+     * 
+     * The restore runs under the same single-flight as the server load of the entry's
+     * attributes, a concurrent load of the entry is joined. If the snapshot record
+     * turns out to be corrupt, the attributes are loaded from the server instead.
+     * 
+     * @param entries the entries
+     * @param monitor the progress monitor
+     * @return the entries whose attributes were restored or loaded
+     */
+    private static Set<IEntry> restoreAttributes( IEntry[] entries, final StudioProgressMonitor monitor )
+    {
+        Set<IEntry> restoredEntries = new HashSet<IEntry>();
+
+        for ( final IEntry entry : entries )
+        {
+            if ( entry != null && entry.getBrowserConnection() != null && !( entry instanceof IRootDSE ) )
+            {
+                final DitSnapshot ditSnapshot = BrowserCorePlugin.getDefault().getConnectionManager()
+                    .getDitSnapshot( entry.getBrowserConnection() );
+                if ( ditSnapshot != null && ditSnapshot.hasAttributes( entry ) )
+                {
+                    final String[] attributes = getReturningAttributes( entry );
+                    LOADS.run( entry, getRequest( attributes, true ), new SingleFlight.Load()
+                    {
+                        public void run( StudioProgressMonitor flightMonitor )
+                        {
+                            if ( !ditSnapshot.restoreAttributes( entry ) )
+                            {
+                                loadAttributes( entry, attributes, true, flightMonitor );
+                            }
+                        }
+                    }, monitor );
+                    restoredEntries.add( entry );
+                }
+            }
+        }
+
+        return restoredEntries;
+    }
+
+
+    /**
+     * Prefetches the attributes of entries that share a parent. The entries of each parent
+     * are read with one-level searches whose filter combines their RDNs, instead of one
+     * base-scope search per entry, and all these searches are sent at once.
+     * 
+     * Root DSE, alias, referral and subentry entries are not prefetched because they need
+     * special search parameters, and neither are entries without siblings in the given entries.
+     * 
+     * Each returned entry is updated under the same single-flight as
+     * {@link #initializeAttributes(IEntry, String[], boolean, StudioProgressMonitor)}, so it
+     * doesn't interfere with a concurrent load of the same entry. Errors are not reported to
+     * the given monitor, the entries that were not prefetched are left to the caller.
+     * 
+     * @param entries the entries
+     * @param monitor the progress monitor
+     * @return the entries whose attributes were initialized
+     */
+    public static Set<IEntry> prefetchAttributes( IEntry[] entries, StudioProgressMonitor monitor )
+    {
+        Set<IEntry> prefetchedEntries = new HashSet<IEntry>();
+
+        // group the entries by connection, parent and returning attributes
+        Map<List<Object>, List<IEntry>> groups = new LinkedHashMap<List<Object>, List<IEntry>>();
+
+        for ( IEntry entry : entries )
+        {
+            if ( isPrefetchable( entry ) )
+            {
+                List<Object> groupKey = Arrays.asList( entry.getBrowserConnection(), entry.getDn().getParent(),
+                    Arrays.asList( getReturningAttributes( entry ) ) );
+                groups.computeIfAbsent( groupKey, k -> new ArrayList<IEntry>() ).add( entry );
+            }
+        }
+
+        // create the searches, grouped by connection to send them at once
+        Map<IBrowserConnection, List<ISearch>> searchesByConnection =
+            new LinkedHashMap<IBrowserConnection, List<ISearch>>();
+        Map<ISearch, List<IEntry>> entriesBySearch = new LinkedHashMap<ISearch, List<IEntry>>();
+
+        for ( List<IEntry> group : groups.values() )
+        {
+            if ( group.size() < 2 )
+            {
+                continue;
+            }
+
+            for ( int i = 0; i < group.size(); i += MAX_ENTRIES_PER_PREFETCH )
+            {
+                List<IEntry> chunk = group.subList( i, Math.min( group.size(), i + MAX_ENTRIES_PER_PREFETCH ) );
+                IEntry first = chunk.get( 0 );
+                IBrowserConnection browserConnection = first.getBrowserConnection();
+                List<Rdn> rdns = new ArrayList<Rdn>();
+                for ( IEntry entry : chunk )
+                {
+                    rdns.add( entry.getRdn() );
+                }
+
+                ISearch search = new Search( null, browserConnection, first.getDn().getParent(),
+                    getRdnFilter( rdns ), getReturningAttributes( first ), SearchScope.ONELEVEL, 0, 0,
+                    AliasDereferencingMethod.NEVER, browserConnection.getReferralsHandlingMethod(), false, null,
+                    false );
+
+                searchesByConnection.computeIfAbsent( browserConnection, k -> new ArrayList<ISearch>() ).add( search );
+                entriesBySearch.put( search, chunk );
+            }
+        }
+
+        // errors are only collected here, the entries that were not prefetched are loaded one by one
+        StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
+
+        for ( Map.Entry<IBrowserConnection, List<ISearch>> connectionSearches : searchesByConnection.entrySet() )
+        {
+            if ( monitor.isCanceled() )
+            {
+                break;
+            }
+
+            IBrowserConnection browserConnection = connectionSearches.getKey();
+            List<ISearch> searches = connectionSearches.getValue();
+
+            // send all requests
+            List<StudioSearchResultEnumeration> enumerations = new ArrayList<StudioSearchResultEnumeration>();
+            for ( ISearch search : searches )
+            {
+                dummyMonitor.reset();
+                enumerations.add( SearchRunnable.search( browserConnection, search.getSearchParameter(),
+                    dummyMonitor ) );
+            }
+
+            // read the responses
+            for ( int i = 0; i < searches.size() && !monitor.isCanceled(); i++ )
+            {
+                if ( enumerations.get( i ) != null )
+                {
+                    prefetchedEntries.addAll( updatePrefetchedEntries( searches.get( i ), enumerations.get( i ),
+                        entriesBySearch.get( searches.get( i ) ), dummyMonitor ) );
+                }
+            }
+        }
+
+        monitor.worked( prefetchedEntries.size() );
+
+        return prefetchedEntries;
+    }
+
+
+    /**
+     * Updates the entries returned by a prefetch search. Each entry is cleared and filled under
+     * the single-flight of its attribute loads, if an equal load is running the entry is left
+     * to that load.
+     * 
+     * @param search the prefetch search
+     * @param enumeration the search result enumeration
+     * @param entries the entries the search was sent for
+     * @param monitor the monitor errors are reported to
+     * @return the entries whose attributes were initialized
+     */
+    private static Set<IEntry> updatePrefetchedEntries( ISearch search, StudioSearchResultEnumeration enumeration,
+        List<IEntry> entries, StudioProgressMonitor monitor )
+    {
+        Set<IEntry> updatedEntries = new HashSet<IEntry>();
+
+        Map<Dn, IEntry> entriesByDn = new HashMap<Dn, IEntry>();
+        for ( IEntry entry : entries )
+        {
+            entriesByDn.put( entry.getDn(), entry );
+        }
+
+        SearchParameter searchParameter = search.getSearchParameter();
+        Object request = getRequest( searchParameter.getReturningAttributes(), true );
+
+        try
+        {
+            while ( !monitor.isCanceled() && enumeration.hasMore() )
+            {
+                StudioSearchResult sr = enumeration.next();
+                IEntry entry = entriesByDn.get( sr.getDn() );
+                if ( entry == null || sr.isContinuedSearchResult() || sr.getSearchContinuationUrl() != null )
+                {
+                    continue;
+                }
+
+                monitor.reset();
+                LOADS.run( entry, request, new SingleFlight.Load()
+                {
+                    public void run( StudioProgressMonitor flightMonitor )
+                    {
+                        // clear all old attributes, like loadAttributes() does
+                        IAttribute[] oldAttributes = entry.getAttributes();
+
+                        if ( oldAttributes != null )
+                        {
+                            for ( IAttribute oldAttribute : oldAttributes )
+                            {
+                                entry.deleteAttribute( oldAttribute );
+                            }
+                        }
+
+                        SearchRunnable.updateModel( entry, sr, searchParameter );
+                        entry.setAttributesInitialized( true );
+                    }
+                }, monitor );
+
+                if ( !monitor.errorsReported() && entry.isAttributesInitialized() )
+                {
+                    updatedEntries.add( entry );
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            // the remaining entries are loaded one by one
+        }
+
+        return updatedEntries;
+    }
+
+
+    private static boolean isPrefetchable( IEntry entry )
+    {
+        if ( entry == null || entry.getBrowserConnection() == null || entry instanceof IRootDSE
+            || entry.isAlias() || entry.isReferral() || entry.isSubentry() || entry.getDn().getParent() == null
+            || entry.getDn().getParent().isEmpty() )
+        {
+            return false;
+        }
+
+        for ( Ava ava : entry.getRdn() )
+        {
+            if ( !ava.getValue().isHumanReadable() )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Gets a filter that matches the given RDNs, e.g. (|(cn=a)(&(cn=b)(uid=c))).
+     * 
+     * @param rdns the RDNs, their values must be human readable
+     * @return the filter
+     */
+    static String getRdnFilter( List<Rdn> rdns )
+    {
+        StringBuilder filter = new StringBuilder( "(|" ); //$NON-NLS-1$
+
+        for ( Rdn rdn : rdns )
+        {
+            boolean multiValued = rdn.size() > 1;
+
+            if ( multiValued )
+            {
+                filter.append( "(&" ); //$NON-NLS-1$
+            }
+
+            for ( Ava ava : rdn )
+            {
+                filter.append( '(' ).append( ava.getType() ).append( '=' )
+                    .append( LdapFilterUtils.getEncodedValue( ava.getValue().getString() ) ).append( ')' );
+            }
+
+            if ( multiValued )
+            {
+                filter.append( ')' );
+            }
+        }
+
+        return filter.append( ')' ).toString();
+    }
+
+
     /**
      * Initializes the attributes.
      * 
      * @param entry the entry
      * @param monitor the progress monitor
      */
-    public static synchronized void initializeAttributes( IEntry entry, StudioProgressMonitor monitor )
+    public static void initializeAttributes( IEntry entry, StudioProgressMonitor monitor )
+    {
+        initializeAttributes( entry, getReturningAttributes( entry ), true, monitor );
+    }
+
+
+    /**
+     * Gets the attributes to request for an entry: the user attributes, the operational
+     * attributes if they should be fetched, and the ref attribute of referral entries.
+     * 
+     * @param entry the entry
+     * @return the returning attributes
+     */
+    static String[] getReturningAttributes( IEntry entry )
     {
         // get user attributes or both user and operational attributes
         String[] returningAttributes = null;
@@ -216,20 +542,43 @@ public class InitializeAttributesRunnable implements StudioConnectionBulkRunnabl
         
         returningAttributes = ( String[] ) raSet.toArray( new String[raSet.size()] );
 
-        initializeAttributes( entry, returningAttributes, true, monitor );
+        return returningAttributes;
     }
 
 
     /**
-     * Initializes the attributes.
+     * Initializes the attributes. Concurrent calls for the same entry and attributes
+     * share one search, calls for other entries and connections run in parallel.
      * 
      * @param entry the entry
      * @param attributes the returning attributes
      * @param clearAllAttributes true to clear all old attributes before searching
      * @param monitor the progress monitor
      */
-    public static synchronized void initializeAttributes( IEntry entry, String[] attributes,
-        boolean clearAllAttributes, StudioProgressMonitor monitor )
+    public static void initializeAttributes( final IEntry entry, final String[] attributes,
+        final boolean clearAllAttributes, final StudioProgressMonitor monitor )
+    {
+        LOADS.run( entry, getRequest( attributes, clearAllAttributes ), new SingleFlight.Load()
+        {
+            public void run( StudioProgressMonitor flightMonitor )
+            {
+                loadAttributes( entry, attributes, clearAllAttributes, flightMonitor );
+            }
+        }, monitor );
+    }
+
+
+    /**
+     * Gets the single-flight request of an attribute load, equal loads of an entry are shared.
+     */
+    private static Object getRequest( String[] attributes, boolean clearAllAttributes )
+    {
+        return Arrays.asList( attributes != null ? Arrays.asList( attributes ) : null, clearAllAttributes );
+    }
+
+
+    private static void loadAttributes( IEntry entry, String[] attributes, boolean clearAllAttributes,
+        StudioProgressMonitor monitor )
     {
         monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__init_entries_progress_att,
             new String[]
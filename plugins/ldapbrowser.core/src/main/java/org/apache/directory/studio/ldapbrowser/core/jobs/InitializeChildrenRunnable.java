@@ -38,6 +38,7 @@ import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunn
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.DitSnapshot;
 import org.apache.directory.studio.ldapbrowser.core.events.ChildrenInitializedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
@@ -57,6 +58,9 @@ import org.apache.directory.studio.ldapbrowser.core.model.impl.SearchContinuatio
  */
 public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableWithProgress
 {
+    /** Shares concurrent loads of the children of an entry */
+    private static final SingleFlight<IEntry> LOADS = new SingleFlight<IEntry>();
+
     /** The entries. */
     private IEntry[] entries;
 
@@ -140,18 +144,21 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
     /**
      * {@inheritDoc}
      */
-    public void run( StudioProgressMonitor monitor )
+    public void run( final StudioProgressMonitor monitor )
     {
         monitor.beginTask( " ", entries.length + 2 ); //$NON-NLS-1$
         monitor.reportProgress( " " ); //$NON-NLS-1$
 
-        for ( IEntry entry : entries )
+        // paging through children and refreshing always asks the server
+        boolean useDitSnapshot = pagedSearchControl == null && !purgeAllCaches;
+
+        for ( final IEntry entry : entries )
         {
             monitor.setTaskName( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__init_entries_task, new String[]
                 { entry.getDn().getName() } ) );
             monitor.worked( 1 );
 
-            IBrowserConnection browserConnection = entry.getBrowserConnection();
+            final IBrowserConnection browserConnection = entry.getBrowserConnection();
             if ( browserConnection != null )
             {
                 if ( entry instanceof IRootDSE )
@@ -161,12 +168,28 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
                     continue;
                 }
 
-                if ( pagedSearchControl == null && browserConnection.isPagedSearch() )
+                final DitSnapshot ditSnapshot = useDitSnapshot ? BrowserCorePlugin.getDefault()
+                    .getConnectionManager().getDitSnapshot( browserConnection ) : null;
+
+                // the restore and the server load of an entry's children don't interleave
+                LOADS.run( entry, Arrays.asList( purgeAllCaches, pagedSearchControl ), new SingleFlight.Load()
                 {
-                    pagedSearchControl = Controls.newPagedResultsControl( browserConnection.getPagedSearchSize() );
-                }
+                    public void run( StudioProgressMonitor flightMonitor )
+                    {
+                        if ( ditSnapshot != null && ditSnapshot.restoreChildren( entry ) )
+                        {
+                            return;
+                        }
 
-                initializeChildren( entry, monitor, pagedSearchControl );
+                        if ( pagedSearchControl == null && browserConnection.isPagedSearch() )
+                        {
+                            pagedSearchControl = Controls.newPagedResultsControl( browserConnection
+                                .getPagedSearchSize() );
+                        }
+
+                        initializeChildren( entry, flightMonitor, pagedSearchControl );
+                    }
+                }, monitor );
             }
         }
     }
@@ -426,7 +449,13 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
     }
 
 
-    static void clearCaches( IEntry entry, boolean purgeAllCaches )
+    /**
+     * Clears the children of the entry, recursively.
+     * 
+     * @param entry the entry
+     * @param purgeAllCaches true to also reset the attributes and flags of the entries
+     */
+    public static void clearCaches( IEntry entry, boolean purgeAllCaches )
     {
         // clear the parent-child relationship, recursively
         IEntry[] children = entry.getChildren();
@@ -23,6 +23,7 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -75,6 +76,9 @@ public class InitializeRootDSERunnable implements StudioConnectionBulkRunnableWi
             SchemaConstants.VENDOR_VERSION_AT,
             SchemaConstants.ALL_OPERATIONAL_ATTRIBUTES };
 
+    /** Shares concurrent loads of the Root DSE of a connection */
+    private static final SingleFlight<IBrowserConnection> LOADS = new SingleFlight<IBrowserConnection>();
+
     private IRootDSE rootDSE;
 
 
@@ -157,14 +161,26 @@ public class InitializeRootDSERunnable implements StudioConnectionBulkRunnableWi
 
 
     /**
-     * Loads the Root DSE.
+     * Loads the Root DSE. Concurrent calls for the same connection share one load.
      * 
      * @param browserConnection the browser connection
      * @param monitor the progress monitor
      * 
      * @throws Exception the exception
      */
-    public static synchronized void loadRootDSE( IBrowserConnection browserConnection, StudioProgressMonitor monitor )
+    public static void loadRootDSE( final IBrowserConnection browserConnection, final StudioProgressMonitor monitor )
+    {
+        LOADS.run( browserConnection, ROOT_DSE_ATTRIBUTES, new SingleFlight.Load()
+        {
+            public void run( StudioProgressMonitor flightMonitor )
+            {
+                doLoadRootDSE( browserConnection, flightMonitor );
+            }
+        }, monitor );
+    }
+
+
+    private static void doLoadRootDSE( IBrowserConnection browserConnection, StudioProgressMonitor monitor )
     {
         // clear old children
         InitializeChildrenRunnable.clearCaches( browserConnection.getRootDSE(), true );
@@ -181,18 +197,18 @@ public class InitializeRootDSERunnable implements StudioConnectionBulkRunnableWi
         }
 
         // load well-known Root DSE attributes and operational attributes
-        ISearch search = new Search( null, browserConnection, Dn.EMPTY_DN, ISearch.FILTER_TRUE,
+        ISearch operationalSearch = new Search( null, browserConnection, Dn.EMPTY_DN, ISearch.FILTER_TRUE,
             ROOT_DSE_ATTRIBUTES, SearchScope.OBJECT, 0, 0, Connection.AliasDereferencingMethod.NEVER,
             Connection.ReferralHandlingMethod.IGNORE, false, null, false );
-        SearchRunnable.searchAndUpdateModel( browserConnection, search, monitor );
 
         // Load all user attributes. This is done because the BEA "LDAP server" (so called) is stupid
         // enough not to accept searches where "+" and "*" are provided on the list of parameters.
-        // We have to do two searches...
-        search = new Search( null, browserConnection, Dn.EMPTY_DN, ISearch.FILTER_TRUE, new String[]
+        // We have to do two searches, but both are sent at once.
+        ISearch userSearch = new Search( null, browserConnection, Dn.EMPTY_DN, ISearch.FILTER_TRUE, new String[]
             { SchemaConstants.ALL_USER_ATTRIBUTES }, SearchScope.OBJECT, 0, 0,
             Connection.AliasDereferencingMethod.NEVER, Connection.ReferralHandlingMethod.IGNORE, false, null, false );
-        SearchRunnable.searchAndUpdateModel( browserConnection, search, monitor );
+        SearchRunnable.searchAndUpdateModel( browserConnection, new ISearch[]
+            { operationalSearch, userSearch }, monitor );
 
         // the list of entries under the Root DSE
         Map<Dn, IEntry> rootDseEntries = new HashMap<Dn, IEntry>();
@@ -304,11 +320,7 @@ public class InitializeRootDSERunnable implements StudioConnectionBulkRunnableWi
 
         // try to init entries
         StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
-        
-        for ( IEntry entry : rootDseEntries.values() )
-        {
-            initBaseEntry( entry, dummyMonitor );
-        }
+        initBaseEntries( browserConnection, rootDseEntries.values(), dummyMonitor );
 
         // set flags
         browserConnection.getRootDSE().setHasMoreChildren( false );
@@ -367,31 +379,44 @@ public class InitializeRootDSERunnable implements StudioConnectionBulkRunnableWi
     }
 
 
-    private static void initBaseEntry( IEntry entry, StudioProgressMonitor monitor )
+    /**
+     * Initializes the base entries. The searches for all base entries are sent
+     * at once, so initializing many naming contexts costs about one round trip.
+     */
+    private static void initBaseEntries( IBrowserConnection browserConnection, Collection<IEntry> entries,
+        StudioProgressMonitor monitor )
     {
-        IBrowserConnection browserConnection = entry.getBrowserConnection();
-        Dn dn = entry.getDn();
+        IEntry[] baseEntries = entries.toArray( new IEntry[entries.size()] );
+        ISearch[] searches = new ISearch[baseEntries.length];
 
-        // search the entry
+        // search the entries
         AliasDereferencingMethod derefAliasMethod = browserConnection.getAliasesDereferencingMethod();
         ReferralHandlingMethod handleReferralsMethod = browserConnection.getReferralsHandlingMethod();
-        ISearch search = new Search( null, browserConnection, dn, ISearch.FILTER_TRUE, ISearch.NO_ATTRIBUTES,
-            SearchScope.OBJECT, 1, 0, derefAliasMethod, handleReferralsMethod, true, null, false );
-        SearchRunnable.searchAndUpdateModel( browserConnection, search, monitor );
 
-        ISearchResult[] results = search.getSearchResults();
-        
-        if ( results != null && results.length == 1 )
+        for ( int i = 0; i < baseEntries.length; i++ )
         {
-            // add entry to Root DSE
-            ISearchResult result = results[0];
-            entry = result.getEntry();
-            browserConnection.getRootDSE().addChild( entry );
+            searches[i] = new Search( null, browserConnection, baseEntries[i].getDn(), ISearch.FILTER_TRUE,
+                ISearch.NO_ATTRIBUTES, SearchScope.OBJECT, 1, 0, derefAliasMethod, handleReferralsMethod, true, null,
+                false );
         }
-        else
+
+        SearchRunnable.searchAndUpdateModel( browserConnection, searches, monitor );
+
+        for ( int i = 0; i < baseEntries.length; i++ )
         {
-            // Dn exists in the Root DSE, but doesn't exist in directory
-            browserConnection.uncacheEntryRecursive( entry );
+            ISearchResult[] results = searches[i].getSearchResults();
+
+            if ( results != null && results.length == 1 )
+            {
+                // add entry to Root DSE
+                ISearchResult result = results[0];
+                browserConnection.getRootDSE().addChild( result.getEntry() );
+            }
+            else
+            {
+                // Dn exists in the Root DSE, but doesn't exist in directory
+                browserConnection.uncacheEntryRecursive( baseEntries[i] );
+            }
         }
     }
 
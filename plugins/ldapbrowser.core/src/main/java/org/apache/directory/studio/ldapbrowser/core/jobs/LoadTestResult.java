@@ -0,0 +1,129 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.directory.studio.connection.core.io.api.OperationStatistics;
+
+
+/**
+ * An immutable summary of a load test run: the latencies and errors of each workload
+ * item and of all operations, the throughput and the number of received entries.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LoadTestResult
+{
+    private final long durationMillis;
+
+    private final OperationStatistics total;
+
+    private final List<OperationStatistics> items;
+
+    private final long entries;
+
+
+    /**
+     * Creates a new instance of LoadTestResult.
+     *
+     * @param durationMillis the duration of the run in milliseconds
+     * @param total the statistics of all operations
+     * @param items the statistics of each workload item, in workload order
+     * @param entries the number of received entries
+     */
+    public LoadTestResult( long durationMillis, OperationStatistics total, List<OperationStatistics> items,
+        long entries )
+    {
+        this.durationMillis = durationMillis;
+        this.total = total;
+        this.items = Collections.unmodifiableList( items );
+        this.entries = entries;
+    }
+
+
+    /**
+     * Gets the duration of the run.
+     *
+     * @return the duration of the run in milliseconds
+     */
+    public long getDurationMillis()
+    {
+        return durationMillis;
+    }
+
+
+    /**
+     * Gets the statistics of all operations.
+     *
+     * @return the statistics of all operations
+     */
+    public OperationStatistics getTotal()
+    {
+        return total;
+    }
+
+
+    /**
+     * Gets the statistics of each workload item, the operation name is the name of the item.
+     *
+     * @return the statistics of each workload item, in workload order
+     */
+    public List<OperationStatistics> getItems()
+    {
+        return items;
+    }
+
+
+    /**
+     * Gets the number of received entries.
+     *
+     * @return the number of received entries
+     */
+    public long getEntries()
+    {
+        return entries;
+    }
+
+
+    /**
+     * Gets the throughput.
+     *
+     * @return the number of completed operations per second
+     */
+    public double getOperationsPerSecond()
+    {
+        return durationMillis == 0 ? 0d : total.getCount() * 1000d / durationMillis;
+    }
+
+
+    /**
+     * Gets the error rate.
+     *
+     * @return the ratio of failed operations, between 0 and 1
+     */
+    public double getErrorRate()
+    {
+        return total.getCount() == 0 ? 0d : ( double ) total.getErrors() / total.getCount();
+    }
+}
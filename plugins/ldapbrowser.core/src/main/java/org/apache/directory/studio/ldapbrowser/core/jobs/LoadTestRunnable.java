@@ -0,0 +1,484 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.exception.LdapOperationException;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.io.api.ConnectionMetrics;
+import org.apache.directory.studio.connection.core.io.api.LatencyHistogram;
+import org.apache.directory.studio.connection.core.io.api.OperationStatistics;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnableWithProgress;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.model.IBookmark;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.osgi.util.NLS;
+
+
+/**
+ * Runnable to run a load test against a connection.
+ * <p>
+ * The workload is a mix of saved searches and bookmarks, a bookmark is read with an
+ * object level search. Each item has a weight, the items are executed round-robin in
+ * proportion to their weights. The operations are executed by a number of concurrent
+ * workers, optionally limited to a target rate, until the duration or the maximum
+ * number of operations is reached.
+ * <p>
+ * With a target rate, the latency of an operation is measured from the time it was
+ * scheduled to start, so a server that falls behind the rate is not hidden by the
+ * workers waiting for it.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LoadTestRunnable implements StudioConnectionRunnableWithProgress
+{
+    /** The operation name of the statistics of all operations */
+    public static final String TOTAL = "TOTAL"; //$NON-NLS-1$
+
+    /** The browser connection */
+    private final IBrowserConnection browserConnection;
+
+    /** The number of concurrent workers */
+    private final int concurrency;
+
+    /** The target rate in operations per second, 0 for no limit */
+    private final double targetRate;
+
+    /** The duration in milliseconds */
+    private final long durationMillis;
+
+    /** The maximum number of operations, 0 for no limit */
+    private long maxOperations;
+
+    /** The workload items */
+    private final List<WorkloadItem> workload = new ArrayList<WorkloadItem>();
+
+    /** The result of the last run */
+    private LoadTestResult result;
+
+
+    /**
+     * Creates a new instance of LoadTestRunnable.
+     *
+     * @param browserConnection the browser connection
+     * @param concurrency the number of concurrent workers
+     * @param targetRate the target rate in operations per second, 0 for no limit
+     * @param durationMillis the duration in milliseconds
+     */
+    public LoadTestRunnable( IBrowserConnection browserConnection, int concurrency, double targetRate,
+        long durationMillis )
+    {
+        if ( concurrency < 1 )
+        {
+            throw new IllegalArgumentException( "concurrency < 1" ); //$NON-NLS-1$
+        }
+
+        this.browserConnection = browserConnection;
+        this.concurrency = concurrency;
+        this.targetRate = targetRate;
+        this.durationMillis = durationMillis;
+    }
+
+
+    /**
+     * Sets the maximum number of operations.
+     *
+     * @param maxOperations the maximum number of operations, 0 for no limit
+     */
+    public void setMaxOperations( long maxOperations )
+    {
+        this.maxOperations = maxOperations;
+    }
+
+
+    /**
+     * Adds a saved search to the workload.
+     *
+     * @param search the search
+     * @param weight the weight of the search in the workload mix
+     */
+    public void addSearch( ISearch search, int weight )
+    {
+        addItem( search.getName(), search.getSearchParameter(), weight );
+    }
+
+
+    /**
+     * Adds a bookmark to the workload, the bookmarked entry is read with an object level search.
+     *
+     * @param bookmark the bookmark
+     * @param weight the weight of the bookmark in the workload mix
+     */
+    public void addBookmark( IBookmark bookmark, int weight )
+    {
+        SearchParameter searchParameter = new SearchParameter();
+        searchParameter.setSearchBase( bookmark.getDn() );
+        searchParameter.setScope( SearchScope.OBJECT );
+        searchParameter.setReturningAttributes( new String[]
+            { SchemaConstants.ALL_USER_ATTRIBUTES } );
+        searchParameter.setAliasesDereferencingMethod( AliasDereferencingMethod.NEVER );
+        searchParameter.setReferralsHandlingMethod( ReferralHandlingMethod.IGNORE );
+
+        addItem( bookmark.getName(), searchParameter, weight );
+    }
+
+
+    /**
+     * Adds all saved searches and bookmarks of the browser connection to the workload,
+     * each with weight 1.
+     */
+    public void addSearchesAndBookmarks()
+    {
+        for ( ISearch search : browserConnection.getSearchManager().getSearches() )
+        {
+            addSearch( search, 1 );
+        }
+        for ( IBookmark bookmark : browserConnection.getBookmarkManager().getBookmarks() )
+        {
+            addBookmark( bookmark, 1 );
+        }
+    }
+
+
+    private void addItem( String name, SearchParameter searchParameter, int weight )
+    {
+        if ( weight < 1 )
+        {
+            throw new IllegalArgumentException( "weight < 1" ); //$NON-NLS-1$
+        }
+
+        workload.add( new WorkloadItem( name, ( SearchParameter ) searchParameter.clone(), weight ) );
+    }
+
+
+    /**
+     * Gets the result of the last run.
+     *
+     * @return the result of the last run, null if the load test was not run
+     */
+    public LoadTestResult getResult()
+    {
+        return result;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Connection[] getConnections()
+    {
+        return new Connection[]
+            { browserConnection.getConnection() };
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName()
+    {
+        return BrowserCoreMessages.jobs__load_test_name;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object[] getLockedObjects()
+    {
+        return new Object[]
+            { browserConnection };
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getErrorMessage()
+    {
+        return BrowserCoreMessages.jobs__load_test_error;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run( final StudioProgressMonitor monitor )
+    {
+        monitor.beginTask( " ", 1 ); //$NON-NLS-1$
+        monitor.reportProgress( " " ); //$NON-NLS-1$
+
+        if ( workload.isEmpty() || browserConnection.getConnection() == null )
+        {
+            result = null;
+            return;
+        }
+
+        // the schedule distributes the items according to their weights
+        int scheduleLength = 0;
+        for ( WorkloadItem item : workload )
+        {
+            item.reset();
+            scheduleLength += item.weight;
+        }
+        final WorkloadItem[] schedule = new WorkloadItem[scheduleLength];
+        for ( int i = 0, remaining = scheduleLength; remaining > 0; )
+        {
+            for ( WorkloadItem item : workload )
+            {
+                if ( item.scheduled < item.weight )
+                {
+                    schedule[i++] = item;
+                    item.scheduled++;
+                    remaining--;
+                }
+            }
+        }
+
+        final ItemMetrics total = new ItemMetrics();
+        final LongAdder entries = new LongAdder();
+        final AtomicLong sequence = new AtomicLong();
+        final long intervalNanos = targetRate > 0d ? ( long ) ( 1000000000d / targetRate ) : 0L;
+        final long startNanos = System.nanoTime();
+        final long endNanos = startNanos + TimeUnit.MILLISECONDS.toNanos( durationMillis );
+
+        ExecutorService executor = Executors.newFixedThreadPool( concurrency, runnable -> {
+            Thread thread = new Thread( runnable, "LoadTest" ); //$NON-NLS-1$
+            thread.setDaemon( true );
+            return thread;
+        } );
+        try
+        {
+            List<Future<?>> workers = new ArrayList<Future<?>>();
+            for ( int i = 0; i < concurrency; i++ )
+            {
+                workers.add( executor.submit( () -> {
+                    while ( !monitor.isCanceled() )
+                    {
+                        long n = sequence.getAndIncrement();
+                        if ( maxOperations > 0 && n >= maxOperations )
+                        {
+                            return;
+                        }
+
+                        long scheduledNanos = intervalNanos > 0 ? startNanos + n * intervalNanos : System.nanoTime();
+                        if ( scheduledNanos >= endNanos )
+                        {
+                            return;
+                        }
+                        long waitNanos;
+                        while ( ( waitNanos = scheduledNanos - System.nanoTime() ) > 0 )
+                        {
+                            LockSupport.parkNanos( waitNanos );
+                        }
+
+                        WorkloadItem item = schedule[( int ) ( n % schedule.length )];
+                        Exception error = null;
+                        try
+                        {
+                            entries.add( execute( item.searchParameter ) );
+                        }
+                        catch ( Exception e )
+                        {
+                            error = e;
+                        }
+
+                        long latencyNanos = System.nanoTime() - scheduledNanos;
+                        item.metrics.record( latencyNanos, error );
+                        total.record( latencyNanos, error );
+                    }
+                } ) );
+            }
+
+            for ( Future<?> worker : workers )
+            {
+                worker.get();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            monitor.setCanceled( true );
+        }
+        catch ( ExecutionException e )
+        {
+            monitor.reportError( e.getCause() instanceof Exception ? ( Exception ) e.getCause() : e );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startNanos );
+        List<OperationStatistics> items = new ArrayList<OperationStatistics>();
+        for ( WorkloadItem item : workload )
+        {
+            items.add( item.metrics.getStatistics( item.name ) );
+        }
+        result = new LoadTestResult( elapsedMillis, total.getStatistics( TOTAL ), items, entries.sum() );
+
+        monitor.worked( 1 );
+    }
+
+
+    /**
+     * Executes one search and reads all its results.
+     *
+     * @param searchParameter the search parameter
+     * @return the number of received entries
+     * @throws Exception if the search failed
+     */
+    private long execute( SearchParameter searchParameter ) throws Exception
+    {
+        // each operation gets its own monitor to collect its error
+        StudioProgressMonitor operationMonitor = new StudioProgressMonitor( new NullProgressMonitor() );
+        StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, searchParameter,
+            operationMonitor );
+
+        long count = 0;
+        if ( enumeration != null )
+        {
+            try
+            {
+                while ( enumeration.hasMore() )
+                {
+                    enumeration.next();
+                    count++;
+                }
+            }
+            finally
+            {
+                enumeration.close();
+            }
+        }
+
+        if ( operationMonitor.getException() != null )
+        {
+            throw operationMonitor.getException();
+        }
+
+        return count;
+    }
+
+    /**
+     * An item of the workload.
+     */
+    private static class WorkloadItem
+    {
+        private final String name;
+
+        private final SearchParameter searchParameter;
+
+        private final int weight;
+
+        private int scheduled;
+
+        private ItemMetrics metrics;
+
+
+        private WorkloadItem( String name, SearchParameter searchParameter, int weight )
+        {
+            this.name = name;
+            this.searchParameter = searchParameter;
+            this.weight = weight;
+        }
+
+
+        private void reset()
+        {
+            scheduled = 0;
+            metrics = new ItemMetrics();
+        }
+    }
+
+    /**
+     * The latencies and errors of a workload item.
+     */
+    private static class ItemMetrics
+    {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final Map<Integer, LongAdder> errorCodes = new ConcurrentHashMap<Integer, LongAdder>();
+
+
+        private void record( long latencyNanos, Exception error )
+        {
+            histogram.record( latencyNanos );
+
+            if ( error != null )
+            {
+                errors.increment();
+                errorCodes.computeIfAbsent( getResultCode( error ), k -> new LongAdder() ).increment();
+            }
+        }
+
+
+        private OperationStatistics getStatistics( String name )
+        {
+            Map<Integer, Long> codes = new HashMap<Integer, Long>();
+            for ( Map.Entry<Integer, LongAdder> entry : errorCodes.entrySet() )
+            {
+                codes.put( entry.getKey(), entry.getValue().sum() );
+            }
+
+            return new OperationStatistics( name, histogram, errors.sum(), codes );
+        }
+
+
+        private static int getResultCode( Throwable error )
+        {
+            for ( Throwable t = error; t != null; t = t.getCause() )
+            {
+                if ( t instanceof LdapOperationException )
+                {
+                    return ( ( LdapOperationException ) t ).getResultCode().getResultCode();
+                }
+            }
+
+            return ConnectionMetrics.NO_RESULT_CODE;
+        }
+    }
+}
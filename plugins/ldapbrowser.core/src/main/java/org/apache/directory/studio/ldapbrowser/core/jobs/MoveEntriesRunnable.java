@@ -35,6 +35,7 @@ import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
@@ -44,7 +45,6 @@ import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
-import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 
 
 /**
@@ -176,7 +176,8 @@ public class MoveEntriesRunnable implements StudioConnectionBulkRunnableWithProg
             }
 
             // try to move entry
-            RenameEntryRunnable.renameEntry( browserConnection, oldEntry, newDn, dummyMonitor );
+            PostReadControl postReadControl = ReadEntryRunnable.createPostReadControl( oldEntry );
+            RenameEntryRunnable.renameEntry( browserConnection, oldEntry, newDn, postReadControl, dummyMonitor );
 
             // do a simulated rename, if renaming of a non-leaf entry is not supported.
             if ( dummyMonitor.errorsReported() )
@@ -203,7 +204,7 @@ public class MoveEntriesRunnable implements StudioConnectionBulkRunnableWithProg
                         if ( !dummyMonitor.errorsReported() )
                         {
                             dummyMonitor.reset();
-                            numDel = DeleteEntriesRunnable.optimisticDeleteEntryRecursive( browserConnection, oldDn,
+                            numDel = DeleteEntriesRunnable.deleteEntryRecursive( browserConnection, oldDn,
                                 oldEntry.isReferral(), false, numDel, dummyMonitor, monitor );
                         }
                     }
@@ -240,28 +241,20 @@ public class MoveEntriesRunnable implements StudioConnectionBulkRunnableWithProg
                 {
                     controls.add( Controls.MANAGEDSAIT_CONTROL );
                 }
-                IEntry newEntry = ReadEntryRunnable.getEntry( browserConnection, newDn, controls, monitor );
+                IEntry newEntry = ReadEntryRunnable.getEntry( browserConnection, postReadControl, monitor );
+                if ( newEntry == null )
+                {
+                    newEntry = ReadEntryRunnable.getEntry( browserConnection, newDn, controls, monitor );
+                }
                 newEntries[i] = newEntry;
                 newParent.addChild( newEntry );
                 newParent.setHasMoreChildren( hasMoreChildren );
 
-                // reset searches, if the moved entry is a result of a search
-                List<ISearch> searches = browserConnection.getSearchManager().getSearches();
-                for ( ISearch search : searches )
+                // reset searches, if the moved entry or one of its descendants is a result of a search
+                for ( ISearch search : browserConnection.getSearchManager().getSearchesContaining( oldEntry.getDn() ) )
                 {
-                    if ( search.getSearchResults() != null )
-                    {
-                        ISearchResult[] searchResults = search.getSearchResults();
-                        for ( ISearchResult result : searchResults )
-                        {
-                            if ( oldEntry.equals( result.getEntry() ) )
-                            {
-                                search.setSearchResults( null );
-                                searchesToUpdateSet.add( search );
-                                break;
-                            }
-                        }
-                    }
+                    search.setSearchResults( null );
+                    searchesToUpdateSet.add( search );
                 }
             }
         }
@@ -30,10 +30,13 @@ import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.IRootDSE;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
@@ -179,6 +182,66 @@ public class ReadEntryRunnable implements StudioConnectionBulkRunnableWithProgre
     }
 
 
+    /**
+     * Creates a Post-Read control that requests the attributes read to initialize the
+     * given entry. Passing it to an add, modify or modify DN operation avoids reading
+     * the entry again afterwards.
+     * 
+     * @param entry the entry, or a template of the entry to create
+     * 
+     * @return the Post-Read control, null if the server doesn't support it
+     */
+    static PostReadControl createPostReadControl( IEntry entry )
+    {
+        IRootDSE rootDSE = entry.getBrowserConnection().getRootDSE();
+        if ( rootDSE == null || !rootDSE.isControlSupported( PostReadControl.OID ) )
+        {
+            return null;
+        }
+
+        return new PostReadControl( InitializeAttributesRunnable.getReturningAttributes( entry ) );
+    }
+
+
+    /**
+     * Gets the entry returned by the server within the Post-Read response control
+     * and updates the model with it.
+     * 
+     * @param browserConnection the browser connection
+     * @param postReadControl the Post-Read control passed to the operation, may be null
+     * @param monitor the progress monitor
+     * 
+     * @return the entry, null if the server didn't return it
+     */
+    static IEntry getEntry( IBrowserConnection browserConnection, PostReadControl postReadControl,
+        StudioProgressMonitor monitor )
+    {
+        if ( postReadControl == null || postReadControl.getResponseEntry() == null )
+        {
+            return null;
+        }
+
+        // clear all attributes of a cached entry, like a re-read of all attributes does
+        IEntry cachedEntry = browserConnection.getEntryFromCache( postReadControl.getResponseEntry().getDn() );
+        if ( cachedEntry != null && cachedEntry.getAttributes() != null )
+        {
+            for ( IAttribute oldAttribute : cachedEntry.getAttributes() )
+            {
+                cachedEntry.deleteAttribute( oldAttribute );
+            }
+        }
+
+        IEntry entry = SearchRunnable.updateModel( browserConnection, postReadControl.getResponseEntry(),
+            postReadControl.getAttributes(), monitor );
+        if ( entry != null )
+        {
+            // we received all attributes, set initialized state
+            entry.setAttributesInitialized( true );
+        }
+        return entry;
+    }
+
+
     /**
      * Gets the read entry.
      * 
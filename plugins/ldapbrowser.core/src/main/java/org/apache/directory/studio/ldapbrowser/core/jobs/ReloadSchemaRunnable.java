@@ -131,6 +131,11 @@ public class ReloadSchemaRunnable implements StudioConnectionBulkRunnableWithPro
 
     /**
      * Reloads the schema.
+     * <p>
+     * The schema location and, if a cached schema exists, the timestamps of the
+     * cached schema's subschema subentry are requested at once. The subschema
+     * subentry rarely moves, so in the common case the check whether the schema
+     * must be reloaded costs a single round trip.
      * 
      * @param forceReload true to force the reload of the schema, otherwise it would only be reloaded
      *                    if the server-side schema is newer than the cached schema.
@@ -140,17 +145,41 @@ public class ReloadSchemaRunnable implements StudioConnectionBulkRunnableWithPro
     public static void reloadSchema( boolean forceReload, IBrowserConnection browserConnection,
         StudioProgressMonitor monitor )
     {
-        Dn schemaLocation = getSchemaLocation( browserConnection, monitor );
+        Schema schema = browserConnection.getSchema();
+        boolean mustReload = forceReload || ( schema == Schema.DEFAULT_SCHEMA );
+
+        // send the schema location request and the speculative timestamp request
+        StudioSearchResultEnumeration locationEnumeration = SearchRunnable.search( browserConnection,
+            getSchemaLocationParameter(), monitor );
+        StudioSearchResultEnumeration timestampEnumeration = null;
+        Dn cachedSchemaLocation = schema.getDn();
+
+        if ( !mustReload && cachedSchemaLocation != null )
+        {
+            timestampEnumeration = SearchRunnable.search( browserConnection,
+                getTimestampParameter( cachedSchemaLocation ), monitor );
+        }
+
+        Dn schemaLocation = getSchemaLocation( locationEnumeration, monitor );
         if ( schemaLocation == null )
         {
+            close( timestampEnumeration );
             monitor.reportError( BrowserCoreMessages.model__missing_schema_location );
             return;
         }
 
-        Schema schema = browserConnection.getSchema();
+        if ( !mustReload )
+        {
+            if ( !schemaLocation.equals( cachedSchemaLocation ) )
+            {
+                // the schema has moved, check the timestamps of the new location
+                close( timestampEnumeration );
+                timestampEnumeration = SearchRunnable.search( browserConnection,
+                    getTimestampParameter( schemaLocation ), monitor );
+            }
 
-        boolean mustReload = forceReload || ( schema == Schema.DEFAULT_SCHEMA )
-            || mustReload( schemaLocation, browserConnection, monitor );
+            mustReload = mustReload( timestampEnumeration, browserConnection, monitor );
+        }
 
         if ( mustReload )
         {
@@ -193,23 +222,17 @@ public class ReloadSchemaRunnable implements StudioConnectionBulkRunnableWithPro
     /**
      * Checks if the schema must be reloaded
      * 
+     * @param enumeration the enumeration of the timestamp search
      * @param browserConnection the browser connection
      * @param monitor the progress monitor
      */
-    private static boolean mustReload( Dn schemaLocation, IBrowserConnection browserConnection,
-        StudioProgressMonitor monitor )
+    private static boolean mustReload( StudioSearchResultEnumeration enumeration,
+        IBrowserConnection browserConnection, StudioProgressMonitor monitor )
     {
         Schema schema = browserConnection.getSchema();
 
         try
         {
-            SearchParameter sp = new SearchParameter();
-            sp.setSearchBase( schemaLocation );
-            sp.setFilter( Schema.SCHEMA_FILTER );
-            sp.setScope( SearchScope.OBJECT );
-            sp.setReturningAttributes( new String[]
-                { SchemaConstants.CREATE_TIMESTAMP_AT, SchemaConstants.MODIFY_TIMESTAMP_AT } );
-            StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, sp, monitor );
             while ( enumeration != null && enumeration.hasMore() )
             {
                 String createTimestamp = null;
@@ -231,6 +254,7 @@ public class ReloadSchemaRunnable implements StudioConnectionBulkRunnableWithPro
                 if ( cacheTimestamp != null && schemaTimestamp != null
                     && schemaTimestamp.compareTo( cacheTimestamp ) > 0 )
                 {
+                    close( enumeration );
                     return true;
                 }
             }
@@ -245,16 +269,33 @@ public class ReloadSchemaRunnable implements StudioConnectionBulkRunnableWithPro
     }
 
 
-    private static Dn getSchemaLocation( IBrowserConnection browserConnection, StudioProgressMonitor monitor )
+    private static SearchParameter getTimestampParameter( Dn schemaLocation )
+    {
+        SearchParameter sp = new SearchParameter();
+        sp.setSearchBase( schemaLocation );
+        sp.setFilter( Schema.SCHEMA_FILTER );
+        sp.setScope( SearchScope.OBJECT );
+        sp.setReturningAttributes( new String[]
+            { SchemaConstants.CREATE_TIMESTAMP_AT, SchemaConstants.MODIFY_TIMESTAMP_AT } );
+        return sp;
+    }
+
+
+    private static SearchParameter getSchemaLocationParameter()
+    {
+        SearchParameter sp = new SearchParameter();
+        sp.setSearchBase( new Dn() );
+        sp.setScope( SearchScope.OBJECT );
+        sp.setReturningAttributes( new String[]
+            { SchemaConstants.SUBSCHEMA_SUBENTRY_AT } );
+        return sp;
+    }
+
+
+    private static Dn getSchemaLocation( StudioSearchResultEnumeration enumeration, StudioProgressMonitor monitor )
     {
         try
         {
-            SearchParameter sp = new SearchParameter();
-            sp.setSearchBase( new Dn() );
-            sp.setScope( SearchScope.OBJECT );
-            sp.setReturningAttributes( new String[]
-                { SchemaConstants.SUBSCHEMA_SUBENTRY_AT } );
-            StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, sp, monitor );
             while ( enumeration != null && enumeration.hasMore() )
             {
                 Entry entry = enumeration.next().getEntry();
@@ -264,6 +305,7 @@ public class ReloadSchemaRunnable implements StudioConnectionBulkRunnableWithPro
                     if ( Dn.isValid( value ) )
                     {
                         Dn dn = new Dn( value );
+                        close( enumeration );
                         return dn;
                     }
                 }
@@ -278,4 +320,23 @@ public class ReloadSchemaRunnable implements StudioConnectionBulkRunnableWithPro
         return null;
     }
 
+
+    /**
+     * Closes the enumeration of a search whose remaining results are not needed.
+     */
+    private static void close( StudioSearchResultEnumeration enumeration )
+    {
+        if ( enumeration != null )
+        {
+            try
+            {
+                enumeration.close();
+            }
+            catch ( Exception e )
+            {
+                // ignore
+            }
+        }
+    }
+
 }
@@ -35,6 +35,7 @@ import org.apache.directory.api.ldap.model.name.Rdn;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
@@ -44,7 +45,6 @@ import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
-import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 
 
 /**
@@ -161,7 +161,8 @@ public class RenameEntryRunnable implements StudioConnectionBulkRunnableWithProg
         StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
 
         // try to rename entry
-        renameEntry( browserConnection, oldEntry, newDn, dummyMonitor );
+        PostReadControl postReadControl = ReadEntryRunnable.createPostReadControl( oldEntry );
+        renameEntry( browserConnection, oldEntry, newDn, postReadControl, dummyMonitor );
 
         // do a simulated rename, if renaming of a non-leaf entry is not supported.
         if ( dummyMonitor.errorsReported() && !monitor.isCanceled() )
@@ -183,7 +184,7 @@ public class RenameEntryRunnable implements StudioConnectionBulkRunnableWithProg
                     if ( !dummyMonitor.errorsReported() )
                     {
                         dummyMonitor.reset();
-                        DeleteEntriesRunnable.optimisticDeleteEntryRecursive( browserConnection, oldDn,
+                        DeleteEntriesRunnable.deleteEntryRecursive( browserConnection, oldDn,
                             oldEntry.isReferral(), false, 0, dummyMonitor, monitor );
                     }
                 }
@@ -227,8 +228,13 @@ public class RenameEntryRunnable implements StudioConnectionBulkRunnableWithProg
                 // In some cases this don't work:
                 // - if there was a referral and the entry was created on another (master) server and not yet sync'ed to the current server
                 // So we use a dummy monitor to no bother the user with an error message.
+                // The entry returned within the Post-Read response control is used if available.
                 dummyMonitor.reset();
-                newEntry = ReadEntryRunnable.getEntry( browserConnection, newDn, controls, dummyMonitor );
+                newEntry = ReadEntryRunnable.getEntry( browserConnection, postReadControl, dummyMonitor );
+                if ( newEntry == null )
+                {
+                    newEntry = ReadEntryRunnable.getEntry( browserConnection, newDn, controls, dummyMonitor );
+                }
                 dummyMonitor.done();
                 if ( newEntry != null )
                 {
@@ -236,23 +242,11 @@ public class RenameEntryRunnable implements StudioConnectionBulkRunnableWithProg
                 }
                 parent.setHasMoreChildren( hasMoreChildren );
 
-                // reset searches, if the renamed entry is a result of a search
-                List<ISearch> searches = browserConnection.getSearchManager().getSearches();
-                for ( ISearch search : searches )
+                // reset searches, if the renamed entry or one of its descendants is a result of a search
+                for ( ISearch search : browserConnection.getSearchManager().getSearchesContaining( oldEntry.getDn() ) )
                 {
-                    if ( search.getSearchResults() != null )
-                    {
-                        ISearchResult[] searchResults = search.getSearchResults();
-                        for ( ISearchResult result : searchResults )
-                        {
-                            if ( oldEntry.equals( result.getEntry() ) )
-                            {
-                                search.setSearchResults( null );
-                                searchesToUpdateSet.add( search );
-                                break;
-                            }
-                        }
-                    }
+                    search.setSearchResults( null );
+                    searchesToUpdateSet.add( search );
                 }
             }
         }
@@ -283,18 +277,23 @@ public class RenameEntryRunnable implements StudioConnectionBulkRunnableWithProg
      * @param browserConnection the browser connection
      * @param entry the entry to move/rename
      * @param newDn the new Dn
+     * @param postReadControl the Post-Read control, may be null
      * @param monitor the progress monitor
      */
     static void renameEntry( IBrowserConnection browserConnection, IEntry entry, Dn newDn,
-        StudioProgressMonitor monitor )
+        PostReadControl postReadControl, StudioProgressMonitor monitor )
     {
-        // ManageDsaIT control
-        Control[] controls = null;
+        // ManageDsaIT and Post-Read controls
+        List<Control> controlList = new ArrayList<>();
         if ( entry.isReferral() )
         {
-            controls = new Control[]
-                { Controls.MANAGEDSAIT_CONTROL };
+            controlList.add( Controls.MANAGEDSAIT_CONTROL );
+        }
+        if ( postReadControl != null )
+        {
+            controlList.add( postReadControl );
         }
+        Control[] controls = controlList.isEmpty() ? null : controlList.toArray( new Control[controlList.size()] );
 
         if ( browserConnection.getConnection() != null )
         {
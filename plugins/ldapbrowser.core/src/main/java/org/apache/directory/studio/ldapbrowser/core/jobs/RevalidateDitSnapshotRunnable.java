@@ -0,0 +1,273 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.DitSnapshot;
+import org.apache.directory.studio.ldapbrowser.core.events.AttributesInitializedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.ChildrenInitializedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+
+/**
+ * Runnable to check the directory tree snapshot of a browser connection against the directory.
+ * The children of each entry in the snapshot are listed with their entryCSN and modifyTimestamp,
+ * outdated children and attributes are removed from the snapshot. Entries that were already
+ * restored from outdated parts of the snapshot are reloaded when they are displayed again.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class RevalidateDitSnapshotRunnable implements StudioConnectionBulkRunnableWithProgress
+{
+    /** The attributes that change whenever an entry is modified */
+    private static final String[] STAMP_ATTRIBUTES = new String[]
+        { SchemaConstants.ENTRY_CSN_AT, SchemaConstants.MODIFY_TIMESTAMP_AT };
+
+    /** The browser connection */
+    private IBrowserConnection browserConnection;
+
+    /** The entries whose children are outdated */
+    private List<IEntry> outdatedChildren;
+
+    /** The entries whose attributes are outdated */
+    private List<IEntry> outdatedAttributes;
+
+
+    /**
+     * Creates a new instance of RevalidateDitSnapshotRunnable.
+     * 
+     * @param browserConnection the browser connection
+     */
+    public RevalidateDitSnapshotRunnable( IBrowserConnection browserConnection )
+    {
+        this.browserConnection = browserConnection;
+        this.outdatedChildren = new ArrayList<IEntry>();
+        this.outdatedAttributes = new ArrayList<IEntry>();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Connection[] getConnections()
+    {
+        return null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName()
+    {
+        return BrowserCoreMessages.jobs__revalidate_dit_snapshot_name;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object[] getLockedObjects()
+    {
+        return new Object[]
+            { browserConnection };
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getErrorMessage()
+    {
+        return BrowserCoreMessages.jobs__revalidate_dit_snapshot_error;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run( StudioProgressMonitor monitor )
+    {
+        DitSnapshot ditSnapshot = BrowserCorePlugin.getDefault().getConnectionManager()
+            .getDitSnapshot( browserConnection );
+        if ( ditSnapshot == null )
+        {
+            return;
+        }
+
+        List<Dn> parentDns = ditSnapshot.getParentDns();
+        List<Dn> entryDns = ditSnapshot.getEntryDns();
+        monitor.beginTask( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__revalidate_dit_snapshot_task,
+            new String[]
+                { browserConnection.getConnection().getName() } ), parentDns.size() + entryDns.size() + 2 );
+        monitor.reportProgress( " " ); //$NON-NLS-1$
+        monitor.worked( 1 );
+
+        // the attributes of listed children are checked together with their parent
+        Set<Dn> checkedDns = new HashSet<Dn>();
+        for ( Dn parentDn : parentDns )
+        {
+            if ( monitor.isCanceled() )
+            {
+                return;
+            }
+
+            Map<Dn, String> children = search( parentDn, SearchScope.ONELEVEL );
+            if ( children != null )
+            {
+                checkedDns.addAll( children.keySet() );
+            }
+            IEntry outdatedEntry = ditSnapshot.revalidateChildren( parentDn, children, outdatedAttributes );
+            if ( outdatedEntry != null )
+            {
+                outdatedChildren.add( outdatedEntry );
+            }
+            monitor.worked( 1 );
+        }
+
+        for ( Dn entryDn : entryDns )
+        {
+            if ( monitor.isCanceled() )
+            {
+                return;
+            }
+
+            if ( !checkedDns.contains( entryDn ) )
+            {
+                Map<Dn, String> entries = search( entryDn, SearchScope.OBJECT );
+                String stamp = entries != null ? entries.get( entryDn ) : null;
+                IEntry outdatedEntry = ditSnapshot.revalidateAttributes( entryDn, stamp );
+                if ( outdatedEntry != null )
+                {
+                    outdatedAttributes.add( outdatedEntry );
+                }
+            }
+            monitor.worked( 1 );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runNotification( StudioProgressMonitor monitor )
+    {
+        for ( IEntry entry : outdatedChildren )
+        {
+            EventRegistry.fireEntryUpdated( new ChildrenInitializedEvent( entry ), this );
+        }
+        for ( IEntry entry : outdatedAttributes )
+        {
+            EventRegistry.fireEntryUpdated( new AttributesInitializedEvent( entry ), this );
+        }
+    }
+
+
+    /**
+     * Reads the entryCSN and modifyTimestamp of the entries in the given scope.
+     * 
+     * @param dn the search base
+     * @param scope the search scope
+     * @return the entries and their stamps, null if the complete result could not be read
+     */
+    private Map<Dn, String> search( Dn dn, SearchScope scope )
+    {
+        SearchParameter searchParameter = new SearchParameter();
+        searchParameter.setSearchBase( dn );
+        searchParameter.setScope( scope );
+        searchParameter.setReturningAttributes( STAMP_ATTRIBUTES );
+        searchParameter.setCountLimit( browserConnection.getCountLimit() );
+        searchParameter.setAliasesDereferencingMethod( browserConnection.getAliasesDereferencingMethod() );
+        searchParameter.setReferralsHandlingMethod( browserConnection.getReferralsHandlingMethod() );
+
+        // each search gets its own monitor, a failed search only marks its part of the snapshot as outdated
+        StudioProgressMonitor searchMonitor = new StudioProgressMonitor( new NullProgressMonitor() );
+        StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, searchParameter,
+            searchMonitor );
+        if ( enumeration == null )
+        {
+            return null;
+        }
+
+        Map<Dn, String> entries = new LinkedHashMap<Dn, String>();
+        try
+        {
+            while ( enumeration.hasMore() )
+            {
+                StudioSearchResult searchResult = enumeration.next();
+                if ( searchResult.isContinuedSearchResult() )
+                {
+                    return null;
+                }
+
+                Entry entry = searchResult.getEntry();
+                entries.put( searchResult.getDn(), DitSnapshot.getStamp( getValue( entry,
+                    SchemaConstants.ENTRY_CSN_AT ), getValue( entry, SchemaConstants.MODIFY_TIMESTAMP_AT ) ) );
+            }
+        }
+        catch ( LdapException e )
+        {
+            return null;
+        }
+        finally
+        {
+            try
+            {
+                enumeration.close();
+            }
+            catch ( LdapException e )
+            {
+            }
+        }
+
+        return searchMonitor.errorsReported() ? null : entries;
+    }
+
+
+    private static String getValue( Entry entry, String attributeName )
+    {
+        Attribute attribute = entry.get( attributeName );
+        return attribute != null && attribute.get() != null ? attribute.get().getString() : null;
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchContinuation;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.LdapAndFilterComponent;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.LdapFilter;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.LdapFilterEvaluator;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.LdapFilterItemComponent;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.parser.LdapFilterParser;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.ContinuedSearchResultEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.SearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
+
+
+/**
+ * Answers a search from the results of another completed search of the same connection,
+ * if the search provably returns a subset of these results: the search base and scope
+ * lie within the completed search, the filter contains all AND terms of the completed
+ * search's filter, and the completed search returned all attributes used by the filter
+ * and requested by the search. The filter is then evaluated locally with the
+ * {@link LdapFilterEvaluator}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class SearchRefinement
+{
+    /** The filters that request subentries, see RFC 3672 */
+    private static final String[] SUBENTRY_FILTERS =
+        { "(objectClass=subentry)", "(objectClass=ldapSubEntry)" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+    private SearchRefinement()
+    {
+    }
+
+
+    /**
+     * Tries to answer the given search from the results of a completed search.
+     * 
+     * @param search the search
+     * @param monitor the progress monitor
+     * 
+     * @return true, if the search results were set, false if the server must be asked
+     */
+    static boolean searchLocally( ISearch search, StudioProgressMonitor monitor )
+    {
+        IBrowserConnection browserConnection = search.getBrowserConnection();
+        if ( browserConnection == null || browserConnection.getSearchManager() == null
+            || !BrowserCorePlugin.getDefault().getPluginPreferences()
+                .getBoolean( BrowserCoreConstants.PREFERENCE_REFINE_SEARCHES_LOCALLY )
+            || !hasOnlyPagedResultsControl( search ) )
+        {
+            return false;
+        }
+
+        // subentries and other hidden entries are only returned if explicitly requested
+        Schema schema = browserConnection.getSchema();
+        LdapFilter filter = parse( search.getFilter() );
+        if ( filter == null || schema == null || requestsSubentries( filter, schema ) )
+        {
+            return false;
+        }
+
+        LdapFilterEvaluator evaluator = LdapFilterEvaluator.compile( filter, schema );
+        if ( evaluator == null )
+        {
+            return false;
+        }
+
+        for ( ISearch completedSearch : browserConnection.getSearchManager().getSearches() )
+        {
+            if ( completedSearch != search && isSuperset( completedSearch, search, evaluator, schema ) )
+            {
+                List<ISearchResult> results = new ArrayList<ISearchResult>();
+                boolean countLimitExceeded = false;
+                for ( ISearchResult completedResult : completedSearch.getSearchResults() )
+                {
+                    IEntry entry = completedResult.getEntry();
+                    if ( isInScope( entry.getDn(), search, completedSearch ) && evaluator.matches( entry ) )
+                    {
+                        if ( search.getCountLimit() > 0 && results.size() >= search.getCountLimit() )
+                        {
+                            countLimitExceeded = true;
+                            break;
+                        }
+                        results.add( new SearchResult( entry, search ) );
+                    }
+                }
+
+                search.setCountLimitExceeded( countLimitExceeded );
+                search.setSearchResults( results.toArray( new ISearchResult[results.size()] ) );
+                search.setSearchContinuations( new SearchContinuation[0] );
+                monitor.reportProgress( results.size() == 1 ? BrowserCoreMessages.model__retrieved_1_entry
+                    : BrowserCoreMessages.bind( BrowserCoreMessages.model__retrieved_n_entries, new String[]
+                        { Integer.toString( results.size() ) } ) );
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Checks if the completed search is complete and returns all entries the search would return.
+     */
+    private static boolean isSuperset( ISearch completedSearch, ISearch search, LdapFilterEvaluator evaluator,
+        Schema schema )
+    {
+        ISearchResult[] completedResults = completedSearch.getSearchResults();
+        if ( completedResults == null || completedSearch.isCountLimitExceeded()
+            || completedSearch.getNextSearchRunnable() != null
+            || ( completedSearch.getSearchContinuations() != null
+                && completedSearch.getSearchContinuations().length > 0 )
+            || completedSearch.getBrowserConnection() != search.getBrowserConnection()
+            || completedSearch.getAliasesDereferencingMethod() != search.getAliasesDereferencingMethod()
+            || completedSearch.getReferralsHandlingMethod() != search.getReferralsHandlingMethod()
+            || ( search.isInitHasChildrenFlag() && !completedSearch.isInitHasChildrenFlag() )
+            || !hasOnlyPagedResultsControl( completedSearch ) )
+        {
+            return false;
+        }
+
+        for ( ISearchResult completedResult : completedResults )
+        {
+            if ( completedResult.getEntry() instanceof ContinuedSearchResultEntry )
+            {
+                return false;
+            }
+        }
+
+        return isScopeWithin( search, completedSearch ) && isFilterImplied( search, completedSearch, schema )
+            && areAttributesReturned( search, completedSearch, evaluator, schema );
+    }
+
+
+    private static boolean hasOnlyPagedResultsControl( ISearch search )
+    {
+        for ( Control control : search.getControls() )
+        {
+            if ( !( control instanceof PagedResults ) || search.isPagedSearchScrollMode() )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Checks if the base and scope of the search lie within the base and scope of the completed search.
+     * <p>
+     * If aliases are dereferenced, the server returns entries whose Dns lie outside the search base,
+     * and answers a search whose base is an alias from the subtree of the alias target. The results
+     * of a narrower search are then no provable subset, only a search with the same base and scope is
+     * answered locally.
+     */
+    static boolean isScopeWithin( ISearch search, ISearch completedSearch )
+    {
+        Dn base = search.getSearchBase();
+        Dn completedBase = completedSearch.getSearchBase();
+        if ( base == null || completedBase == null )
+        {
+            return false;
+        }
+
+        if ( hasSameScope( search, completedSearch ) )
+        {
+            return true;
+        }
+
+        if ( search.getAliasesDereferencingMethod() != AliasDereferencingMethod.NEVER
+            || completedSearch.getAliasesDereferencingMethod() != AliasDereferencingMethod.NEVER )
+        {
+            return false;
+        }
+
+        switch ( completedSearch.getScope() )
+        {
+            case SUBTREE:
+                return base.equals( completedBase ) || base.isDescendantOf( completedBase );
+
+            case ONELEVEL:
+                return ( base.equals( completedBase ) && search.getScope() == SearchScope.ONELEVEL )
+                    || ( completedBase.equals( base.getParent() ) && search.getScope() == SearchScope.OBJECT );
+
+            default:
+                return base.equals( completedBase ) && search.getScope() == SearchScope.OBJECT;
+        }
+    }
+
+
+    private static boolean hasSameScope( ISearch search, ISearch completedSearch )
+    {
+        return search.getSearchBase().equals( completedSearch.getSearchBase() )
+            && search.getScope() == completedSearch.getScope();
+    }
+
+
+    private static boolean isInScope( Dn dn, ISearch search, ISearch completedSearch )
+    {
+        // with the same base and scope all results are in scope, also dereferenced aliases outside the base
+        if ( hasSameScope( search, completedSearch ) )
+        {
+            return true;
+        }
+
+        Dn base = search.getSearchBase();
+        switch ( search.getScope() )
+        {
+            case SUBTREE:
+                return dn.equals( base ) || dn.isDescendantOf( base );
+
+            case ONELEVEL:
+                return base.equals( dn.getParent() );
+
+            default:
+                return dn.equals( base );
+        }
+    }
+
+
+    /**
+     * Checks if the filter contains an objectClass item that requests subentries.
+     */
+    static boolean requestsSubentries( LdapFilter filter, Schema schema )
+    {
+        if ( filter.getFilterComponent() instanceof LdapFilterItemComponent )
+        {
+            Object key = LdapFilterEvaluator.getNormalizedKey( filter, schema );
+            for ( String subentryFilter : SUBENTRY_FILTERS )
+            {
+                if ( key.equals( LdapFilterEvaluator.getNormalizedKey( parse( subentryFilter ), schema ) ) )
+                {
+                    return true;
+                }
+            }
+        }
+        else if ( filter.getFilterComponent() != null )
+        {
+            for ( LdapFilter child : filter.getFilterComponent().getFilters() )
+            {
+                if ( requestsSubentries( child, schema ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Checks if the filter of the search implies the filter of the completed search:
+     * either the completed search matches all entries, or each of its AND terms is
+     * also an AND term of the search's filter. The terms are compared by attribute
+     * type and by the values normalized with the matching rules of the schema.
+     */
+    static boolean isFilterImplied( ISearch search, ISearch completedSearch, Schema schema )
+    {
+        Set<Object> completedTerms = getAndTerms( completedSearch.getFilter(), schema );
+        Set<Object> terms = getAndTerms( search.getFilter(), schema );
+        if ( completedTerms == null || terms == null )
+        {
+            return false;
+        }
+
+        completedTerms.remove( LdapFilterEvaluator.getNormalizedKey( parse( ISearch.FILTER_TRUE ), schema ) );
+        return terms.containsAll( completedTerms );
+    }
+
+
+    private static Set<Object> getAndTerms( String filter, Schema schema )
+    {
+        LdapFilter model = parse( filter );
+        if ( model == null )
+        {
+            return null;
+        }
+
+        Set<Object> terms = new HashSet<Object>();
+        addAndTerms( model, terms, schema );
+        return terms;
+    }
+
+
+    private static void addAndTerms( LdapFilter filter, Set<Object> terms, Schema schema )
+    {
+        if ( filter.getFilterComponent() instanceof LdapAndFilterComponent )
+        {
+            for ( LdapFilter child : filter.getFilterComponent().getFilters() )
+            {
+                addAndTerms( child, terms, schema );
+            }
+        }
+        else
+        {
+            terms.add( LdapFilterEvaluator.getNormalizedKey( filter, schema ) );
+        }
+    }
+
+
+    /**
+     * Parses the filter, a null filter matches all entries.
+     * 
+     * @return the parsed filter, null if the filter is invalid
+     */
+    private static LdapFilter parse( String filter )
+    {
+        LdapFilterParser parser = new LdapFilterParser();
+        parser.parse( filter != null ? filter : ISearch.FILTER_TRUE );
+        LdapFilter model = parser.getModel();
+        return model.isValid() ? model : null;
+    }
+
+
+    /**
+     * Checks if the completed search returned all attributes the search needs: the
+     * attributes used in the filter and the requested attributes.
+     */
+    static boolean areAttributesReturned( ISearch search, ISearch completedSearch,
+        LdapFilterEvaluator evaluator, Schema schema )
+    {
+        String[] returned = completedSearch.getReturningAttributes();
+        if ( returned == null )
+        {
+            returned = new String[]
+                { SchemaConstants.ALL_USER_ATTRIBUTES };
+        }
+
+        List<String> needed = new ArrayList<String>( evaluator.getAttributeDescriptions() );
+        if ( search.getReturningAttributes() == null )
+        {
+            needed.add( SchemaConstants.ALL_USER_ATTRIBUTES );
+        }
+        else
+        {
+            needed.addAll( Arrays.asList( search.getReturningAttributes() ) );
+        }
+
+        for ( String attribute : needed )
+        {
+            if ( SchemaConstants.NO_ATTRIBUTE.equals( attribute ) )
+            {
+                continue;
+            }
+            if ( SchemaConstants.ALL_USER_ATTRIBUTES.equals( attribute )
+                || SchemaConstants.ALL_OPERATIONAL_ATTRIBUTES.equals( attribute ) )
+            {
+                if ( !Arrays.asList( returned ).contains( attribute ) )
+                {
+                    return false;
+                }
+            }
+            else if ( !isReturned( attribute, returned, schema ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static boolean isReturned( String attributeDescription, String[] returned, Schema schema )
+    {
+        String type = attributeDescription.split( ";" )[0]; //$NON-NLS-1$
+        if ( SchemaConstants.OBJECT_CLASS_AT.equalsIgnoreCase( type ) )
+        {
+            // the object class is always requested
+            return true;
+        }
+        if ( !schema.hasAttributeTypeDescription( type ) )
+        {
+            return false;
+        }
+
+        String oid = schema.getAttributeTypeDescription( type ).getOid();
+        boolean isOperational = SchemaUtils.isOperational( schema.getAttributeTypeDescription( type ) );
+        for ( String attribute : returned )
+        {
+            if ( ( SchemaConstants.ALL_USER_ATTRIBUTES.equals( attribute ) && !isOperational )
+                || ( SchemaConstants.ALL_OPERATIONAL_ATTRIBUTES.equals( attribute ) && isOperational )
+                || ( schema.hasAttributeTypeDescription( attribute )
+                    && oid.equals( schema.getAttributeTypeDescription( attribute ).getOid() ) ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
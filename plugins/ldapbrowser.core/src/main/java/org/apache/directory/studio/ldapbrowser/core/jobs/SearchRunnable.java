@@ -36,6 +36,8 @@ import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.entry.Attribute;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntryImpl;
 import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.api.ldap.model.message.controls.PagedResults;
 import org.apache.directory.api.ldap.model.name.Dn;
@@ -174,6 +176,14 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
 
             if ( search.getBrowserConnection() != null )
             {
+                // a search that was never performed may be answered from the results of a completed search,
+                // a refresh always goes to the server
+                if ( search == searchToPerform && search.getSearchResults() == null
+                    && SearchRefinement.searchLocally( search, monitor ) )
+                {
+                    continue;
+                }
+
                 // reset search results
                 search.setSearchResults( new ISearchResult[0] );
                 search.getResponseControls().clear();
@@ -294,26 +304,146 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
      */
     public static void searchAndUpdateModel( IBrowserConnection browserConnection, ISearch search,
         StudioProgressMonitor monitor )
+    {
+        searchAndUpdateModel( browserConnection, new ISearch[]
+            { search }, monitor );
+    }
+
+
+    /**
+     * Searches the directory and updates the browser model.
+     * <p>
+     * All search requests are sent before the first response is read. The responses
+     * are queued by the connection, so independent searches cost about a single
+     * round trip instead of one round trip per search. The results are processed
+     * in the order of the given searches.
+     * 
+     * @param browserConnection the browser connection
+     * @param searches the searches
+     * @param monitor the progress monitor
+     */
+    public static void searchAndUpdateModel( IBrowserConnection browserConnection, ISearch[] searches,
+        StudioProgressMonitor monitor )
     {
         if ( browserConnection.getConnection() == null )
         {
             return;
         }
 
+        SearchParameter[] searchParameters = new SearchParameter[searches.length];
+        StudioSearchResultEnumeration[] enumerations = new StudioSearchResultEnumeration[searches.length];
+        Exception[] searchExceptions = new Exception[searches.length];
+
+        // send all requests
+        for ( int i = 0; i < searches.length && !monitor.isCanceled(); i++ )
+        {
+            // add returning attributes for children and alias detection
+            searchParameters[i] = getSearchParameter( searches[i] );
+
+            try
+            {
+                enumerations[i] = search( browserConnection, searchParameters[i], monitor );
+            }
+            catch ( Exception e )
+            {
+                searchExceptions[i] = e;
+            }
+        }
+
+        // read the responses
+        for ( int i = 0; i < searches.length; i++ )
+        {
+            if ( searchParameters[i] != null )
+            {
+                updateModel( browserConnection, searches[i], searchParameters[i], enumerations[i],
+                    searchExceptions[i], monitor );
+            }
+        }
+    }
+
+
+    /**
+     * Updates the browser model with an entry the server returned outside of a search,
+     * e.g. within a Post-Read response control. The attributes are filled as if the entry
+     * was read with a base object search requesting the given returning attributes.
+     * 
+     * @param browserConnection the browser connection
+     * @param ldapEntry the entry returned by the server
+     * @param returningAttributes the attributes requested from the server
+     * @param monitor the progress monitor
+     * 
+     * @return the updated entry, null if it couldn't be created in the model
+     */
+    static IEntry updateModel( IBrowserConnection browserConnection,
+        org.apache.directory.api.ldap.model.entry.Entry ldapEntry, String[] returningAttributes,
+        StudioProgressMonitor monitor )
+    {
+        Dn dn = ldapEntry.getDn();
+
+        SearchParameter searchParameter = new SearchParameter();
+        searchParameter.setSearchBase( dn );
+        searchParameter.setReturningAttributes( returningAttributes );
+        searchParameter.setScope( SearchScope.OBJECT );
+        searchParameter.setInitHasChildrenFlag( true );
+
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl();
+        searchResultEntry.setEntry( ldapEntry );
+        StudioSearchResult sr = new StudioSearchResult( searchResultEntry, browserConnection.getConnection(), false,
+            null );
+
+        // get entry from cache or create it
+        IEntry entry = browserConnection.getEntryFromCache( dn );
+        if ( entry == null )
+        {
+            entry = createAndCacheEntry( browserConnection, dn, monitor );
+            if ( entry == null )
+            {
+                return null;
+            }
+        }
+
+        initFlags( entry, sr, searchParameter );
+        fillAttributes( entry, sr, searchParameter );
+
+        return entry;
+    }
+
+
+    /**
+     * Updates the given entry with a search result, e.g. one read by a search that
+     * was sent for several entries.
+     * 
+     * @param entry the entry to update
+     * @param sr the search result of the entry
+     * @param searchParameter the parameters of the search that returned the result
+     */
+    static void updateModel( IEntry entry, StudioSearchResult sr, SearchParameter searchParameter )
+    {
+        initFlags( entry, sr, searchParameter );
+        fillAttributes( entry, sr, searchParameter );
+    }
+
+
+    /**
+     * Reads the search results from the given enumeration and updates the browser model.
+     */
+    private static void updateModel( IBrowserConnection browserConnection, ISearch search,
+        SearchParameter searchParameter, StudioSearchResultEnumeration enumeration, Exception searchException,
+        StudioProgressMonitor monitor )
+    {
         try
         {
             if ( !monitor.isCanceled() )
             {
-                // add returning attributes for children and alias detection
-                SearchParameter searchParameter = getSearchParameter( search );
                 ArrayList<ISearchResult> searchResultList = new ArrayList<ISearchResult>();
                 ArrayList<SearchContinuation> searchContinuationList = new ArrayList<SearchContinuation>();
 
-                StudioSearchResultEnumeration enumeration = null;
-                // search
                 try
                 {
-                    enumeration = search( browserConnection, searchParameter, monitor );
+                    if ( searchException != null )
+                    {
+                        throw searchException;
+                    }
 
                     // iterate through the search result
                     while ( !monitor.isCanceled() && enumeration != null && enumeration.hasMore() )
@@ -0,0 +1,253 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+
+
+/**
+ * Coordinates loads so that at most one load per key is in flight.
+ * 
+ * A caller that requests a load while an equal request for the same key is running
+ * waits for that load and shares its outcome instead of sending its own request.
+ * A different request for the same key waits until the running load is finished and
+ * then starts its own. Loads for different keys run in parallel.
+ *
+ * @param <K> the type of the keys
+ * 
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SingleFlight<K>
+{
+    /** The interval to check the progress monitor for cancellation while waiting */
+    private static final long CANCEL_CHECK_INTERVAL_MILLIS = 100L;
+
+    /** The running loads by key */
+    private final Map<K, Flight> flights = new ConcurrentHashMap<K, Flight>();
+
+
+    /**
+     * Runs the given load, or joins an equal load that is already running for the key.
+     * 
+     * The load reports its errors to its own monitor, they are passed on to the given monitor.
+     * So a load counts as failed only if it reported an error itself, also if earlier loads
+     * failed on the same monitor. If the joined load failed, its error is reported to the
+     * given monitor too. If the joined load was canceled, the load is run again for this caller.
+     *
+     * @param key the key, e.g. the entry to load
+     * @param request the request, loads for the same key are only shared if their requests are equal
+     * @param load the load
+     * @param monitor the progress monitor
+     */
+    public void run( K key, Object request, Load load, StudioProgressMonitor monitor )
+    {
+        while ( !monitor.isCanceled() )
+        {
+            Flight flight = new Flight( request );
+            Flight running = flights.putIfAbsent( key, flight );
+
+            if ( running == null )
+            {
+                runFlight( key, flight, load, monitor );
+                return;
+            }
+
+            if ( running.thread == Thread.currentThread() )
+            {
+                // nested load of the same key, e.g. from within the load itself
+                load.run( monitor );
+                return;
+            }
+
+            waiting( key );
+            if ( !running.await( monitor ) )
+            {
+                return;
+            }
+
+            if ( running.request.equals( request ) && !running.canceled )
+            {
+                if ( running.failed )
+                {
+                    monitor.reportError( running.exception );
+                }
+
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Called before the current thread waits for the running load of the given key.
+     * This implementation does nothing, tests use it to know that a caller joined a load.
+     *
+     * @param key the key
+     */
+    void waiting( K key )
+    {
+    }
+
+
+    private void runFlight( K key, Flight flight, Load load, StudioProgressMonitor monitor )
+    {
+        FlightMonitor flightMonitor = new FlightMonitor( monitor );
+
+        try
+        {
+            load.run( flightMonitor );
+        }
+        finally
+        {
+            if ( flightMonitor.errorsReported() )
+            {
+                flight.failed = true;
+                flight.exception = flightMonitor.getException();
+            }
+
+            flight.canceled = flightMonitor.isCanceled();
+            flightMonitor.done();
+            flights.remove( key, flight );
+            flight.done.countDown();
+        }
+    }
+
+    /**
+     * A load run by {@link SingleFlight#run(Object, Object, Load, StudioProgressMonitor)}.
+     */
+    public interface Load
+    {
+        /**
+         * Runs the load.
+         *
+         * @param monitor the progress monitor of this load, errors must be reported to it
+         */
+        void run( StudioProgressMonitor monitor );
+    }
+
+    /**
+     * The progress monitor of one load. It records the errors of the load and passes
+     * progress, cancellation and errors on to the monitor of the caller.
+     */
+    private static class FlightMonitor extends StudioProgressMonitor
+    {
+        private final StudioProgressMonitor callerMonitor;
+
+
+        private FlightMonitor( StudioProgressMonitor callerMonitor )
+        {
+            super( callerMonitor );
+            this.callerMonitor = callerMonitor;
+        }
+
+
+        @Override
+        public void reportError( String message, Exception exception )
+        {
+            super.reportError( message, exception );
+            callerMonitor.reportError( message, exception );
+        }
+
+
+        @Override
+        public void addCancelListener( CancelListener listener )
+        {
+            // cancel listeners are notified when the caller is canceled
+            callerMonitor.addCancelListener( listener );
+        }
+
+
+        @Override
+        public void removeCancelListener( CancelListener listener )
+        {
+            callerMonitor.removeCancelListener( listener );
+        }
+
+
+        @Override
+        public void done()
+        {
+            // the caller's monitor is done when the caller is done
+            synchronized ( this )
+            {
+                isDone = true;
+            }
+        }
+    }
+
+    /**
+     * A running load.
+     */
+    private static class Flight
+    {
+        private final Object request;
+
+        private final Thread thread = Thread.currentThread();
+
+        private final CountDownLatch done = new CountDownLatch( 1 );
+
+        private volatile boolean failed;
+
+        private volatile Exception exception;
+
+        private volatile boolean canceled;
+
+
+        private Flight( Object request )
+        {
+            this.request = request;
+        }
+
+
+        /**
+         * Waits until the load is finished.
+         *
+         * @param monitor the progress monitor of the waiting caller
+         * @return true if the load is finished, false if the waiting caller was canceled
+         */
+        private boolean await( StudioProgressMonitor monitor )
+        {
+            try
+            {
+                while ( !done.await( CANCEL_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS ) )
+                {
+                    if ( monitor.isCanceled() )
+                    {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -22,8 +22,10 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 
 
@@ -37,6 +39,9 @@ public class UpdateEntryRunnable extends ExecuteLdifRunnable
     /** The entry */
     private IEntry entry;
 
+    /** The LDIF to execute */
+    private String ldif;
+
 
     /**
      * Creates a new instance of UpdateEntryRunnable.
@@ -48,6 +53,7 @@ public class UpdateEntryRunnable extends ExecuteLdifRunnable
     {
         super( entry.getBrowserConnection(), ldif, false, false );
         this.entry = entry;
+        this.ldif = ldif;
     }
 
 
@@ -56,13 +62,22 @@ public class UpdateEntryRunnable extends ExecuteLdifRunnable
      */
     public void run( StudioProgressMonitor monitor )
     {
-        super.run( monitor );
+        IBrowserConnection browserConnection = entry.getBrowserConnection();
+        PostReadControl postReadControl = ReadEntryRunnable.createPostReadControl( entry );
+        executeLdif( browserConnection, ldif, false, false, postReadControl, monitor );
         if ( monitor.isCanceled() )
         {
             // update attributes in any case, because the attributes are not initialized
             monitor.setCanceled( false );
         }
-        InitializeAttributesRunnable.initializeAttributes( entry, monitor );
+
+        // use the entry returned within the Post-Read response control if available, otherwise read it
+        if ( monitor.errorsReported() || postReadControl == null || postReadControl.getResponseEntry() == null
+            || !entry.getDn().equals( postReadControl.getResponseEntry().getDn() )
+            || ReadEntryRunnable.getEntry( browserConnection, postReadControl, monitor ) == null )
+        {
+            InitializeAttributesRunnable.initializeAttributes( entry, monitor );
+        }
     }
 
 
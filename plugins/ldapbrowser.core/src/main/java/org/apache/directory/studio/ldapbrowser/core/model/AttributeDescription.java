@@ -32,6 +32,7 @@ import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.AttributeTypeInfo;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
 
@@ -79,6 +80,15 @@ public class AttributeDescription implements Serializable
     /** The parsed option list, except the language tags. */
     private List<String> parsedOptionList;
 
+    /** The schema this description is bound to, null if not interned. */
+    private transient Schema schema;
+
+    /** The resolved attribute type info within the bound schema. */
+    private transient AttributeTypeInfo attributeTypeInfo;
+
+    /** The OID string within the bound schema. */
+    private transient String oidString;
+
 
     /**
      * Creates a new instance of AttributeDescription.
@@ -108,6 +118,24 @@ public class AttributeDescription implements Serializable
     }
 
 
+    /**
+     * Creates a new instance of AttributeDescription bound to the given schema.
+     * The attribute type info and the OID string are resolved immediately.
+     * Use {@link Schema#getAttributeDescription(String)} to get interned instances.
+     * 
+     * @param description the user provided description
+     * @param schema the schema
+     */
+    public AttributeDescription( String description, Schema schema )
+    {
+        this( description );
+
+        this.schema = schema;
+        this.attributeTypeInfo = schema.getAttributeTypeInfo( parsedAttributeType );
+        this.oidString = buildOidString( attributeTypeInfo.getNumericOid() );
+    }
+
+
     /**
      * Gets the user provided description.
      * 
@@ -152,6 +180,19 @@ public class AttributeDescription implements Serializable
     }
 
 
+    /**
+     * Gets the resolved attribute type info, only available for
+     * descriptions bound to a schema.
+     * 
+     * @return the attribute type info, null if not bound to a schema
+     * @see Schema#getAttributeDescription(String)
+     */
+    public AttributeTypeInfo getAttributeTypeInfo()
+    {
+        return attributeTypeInfo;
+    }
+
+
     /**
      * Returns the attribute description with the numeric OID
      * instead of the descriptive attribute type.
@@ -167,19 +208,36 @@ public class AttributeDescription implements Serializable
             return description;
         }
 
+        if ( schema == this.schema )
+        {
+            return oidString;
+        }
+
         AttributeType atd = schema.getAttributeTypeDescription( parsedAttributeType );
-        String oidString = atd.getOid();
+        return buildOidString( atd.getOid() );
+    }
+
+
+    private String buildOidString( String numericOid )
+    {
+        if ( parsedLangList.isEmpty() && parsedOptionList.isEmpty() )
+        {
+            return numericOid;
+        }
+
+        StringBuilder sb = new StringBuilder( numericOid );
+        sb.append( IAttribute.OPTION_DELIMITER );
 
         if ( !parsedLangList.isEmpty() )
         {
             for ( Iterator<String> it = parsedLangList.iterator(); it.hasNext(); )
             {
                 String element = it.next();
-                oidString += element;
+                sb.append( element );
 
                 if ( it.hasNext() || !parsedOptionList.isEmpty() )
                 {
-                    oidString += IAttribute.OPTION_DELIMITER;
+                    sb.append( IAttribute.OPTION_DELIMITER );
                 }
             }
         }
@@ -188,16 +246,16 @@ public class AttributeDescription implements Serializable
             for ( Iterator<String> it = parsedOptionList.iterator(); it.hasNext(); )
             {
                 String element = it.next();
-                oidString += element;
+                sb.append( element );
 
                 if ( it.hasNext() )
                 {
-                    oidString += IAttribute.OPTION_DELIMITER;
+                    sb.append( IAttribute.OPTION_DELIMITER );
                 }
             }
         }
 
-        return oidString;
+        return sb.toString();
     }
 
 
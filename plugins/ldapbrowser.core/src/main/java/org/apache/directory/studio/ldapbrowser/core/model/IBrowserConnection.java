@@ -203,6 +203,9 @@ public interface IBrowserConnection extends Serializable, IAdaptable, Connection
     /** The key for the connection parameter "Use ManageDsaIT Control" */
     String CONNECTION_PARAMETER_MANAGE_DSA_IT = "ldapbrowser.manageDsaIT"; //$NON-NLS-1$
 
+    /** The key for the connection parameter "Keep snapshot of the directory tree" */
+    String CONNECTION_PARAMETER_DIT_SNAPSHOT = "ldapbrowser.ditSnapshot"; //$NON-NLS-1$
+
     /**
      * Gets the URL of this connection.
      * 
@@ -359,6 +362,22 @@ public interface IBrowserConnection extends Serializable, IAdaptable, Connection
     void setFetchOperationalAttributes( boolean fetchOperationalAttributes );
 
 
+    /**
+     * Checks if a snapshot of the browsed directory tree should be kept on disk.
+     * 
+     * @return true if a snapshot of the directory tree should be kept
+     */
+    boolean isDitSnapshot();
+
+
+    /**
+     * Sets if a snapshot of the browsed directory tree should be kept on disk.
+     * 
+     * @param ditSnapshot true to keep a snapshot of the directory tree
+     */
+    void setDitSnapshot( boolean ditSnapshot );
+
+
     /**
      * Checks if paged search should be used.
      * 
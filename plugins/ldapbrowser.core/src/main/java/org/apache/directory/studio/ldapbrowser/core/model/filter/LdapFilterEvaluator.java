@@ -0,0 +1,883 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.filter;
+
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.name.Ava;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.Rdn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.MatchingRule;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.util.GeneralizedTime;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.parser.LdapFilterParser;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.parser.LdapFilterToken;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
+
+
+/**
+ * The LdapFilterEvaluator evaluates an LDAP filter against the attributes of an entry
+ * of the browser model, without asking the server.
+ * <p>
+ * The filter is compiled once, using the equality, ordering and substring matching rules
+ * of the schema. Only filters whose result is certain are compiled: approximate and
+ * extensible matches, unknown attribute types and unknown matching rules can't be
+ * evaluated locally, {@link #compile(LdapFilter, Schema)} returns null for them.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapFilterEvaluator
+{
+    /** The matching rules that can be evaluated locally, by lower case name and OID */
+    private static final Map<String, Matching> MATCHING_RULES = new HashMap<String, Matching>();
+
+    static
+    {
+        register( Matching.OBJECT_IDENTIFIER, "2.5.13.0", "objectIdentifierMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.DISTINGUISHED_NAME, "2.5.13.1", "distinguishedNameMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_IGNORE, "2.5.13.2", "caseIgnoreMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_IGNORE, "2.5.13.3", "caseIgnoreOrderingMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_IGNORE, "2.5.13.4", "caseIgnoreSubstringsMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_EXACT, "2.5.13.5", "caseExactMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_EXACT, "2.5.13.6", "caseExactOrderingMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_EXACT, "2.5.13.7", "caseExactSubstringsMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.NUMERIC_STRING, "2.5.13.8", "numericStringMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.NUMERIC_STRING, "2.5.13.9", "numericStringOrderingMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.NUMERIC_STRING, "2.5.13.10", "numericStringSubstringsMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.BOOLEAN, "2.5.13.13", "booleanMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.INTEGER, "2.5.13.14", "integerMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.INTEGER, "2.5.13.15", "integerOrderingMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.OCTET_STRING, "2.5.13.17", "octetStringMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.OCTET_STRING, "2.5.13.18", "octetStringOrderingMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.TELEPHONE_NUMBER, "2.5.13.20", "telephoneNumberMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.TELEPHONE_NUMBER, "2.5.13.21", "telephoneNumberSubstringsMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.GENERALIZED_TIME, "2.5.13.27", "generalizedTimeMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.GENERALIZED_TIME, "2.5.13.28", "generalizedTimeOrderingMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_EXACT, "1.3.6.1.4.1.1466.109.114.1", "caseExactIA5Match" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_IGNORE, "1.3.6.1.4.1.1466.109.114.2", "caseIgnoreIA5Match" ); //$NON-NLS-1$ //$NON-NLS-2$
+        register( Matching.CASE_IGNORE, "1.3.6.1.4.1.1466.109.114.3", "caseIgnoreIA5SubstringsMatch" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /** The compiled filter */
+    private final Node root;
+
+    /** The attribute descriptions used in the filter */
+    private final Set<String> attributeDescriptions;
+
+
+    private LdapFilterEvaluator( Node root, Set<String> attributeDescriptions )
+    {
+        this.root = root;
+        this.attributeDescriptions = Collections.unmodifiableSet( attributeDescriptions );
+    }
+
+
+    /**
+     * Parses and compiles the given filter.
+     * 
+     * @param filter the filter string
+     * @param schema the schema
+     * 
+     * @return the evaluator, null if the filter is invalid or can't be evaluated locally
+     */
+    public static LdapFilterEvaluator compile( String filter, Schema schema )
+    {
+        if ( filter == null )
+        {
+            return null;
+        }
+
+        LdapFilterParser parser = new LdapFilterParser();
+        parser.parse( filter );
+        return compile( parser.getModel(), schema );
+    }
+
+
+    /**
+     * Compiles the given filter.
+     * 
+     * @param filter the parsed filter
+     * @param schema the schema
+     * 
+     * @return the evaluator, null if the filter is invalid or can't be evaluated locally
+     */
+    public static LdapFilterEvaluator compile( LdapFilter filter, Schema schema )
+    {
+        if ( filter == null || schema == null || !filter.isValid() )
+        {
+            return null;
+        }
+
+        Set<String> attributeDescriptions = new LinkedHashSet<String>();
+        Node root = compileFilter( filter, schema, attributeDescriptions );
+        return root != null ? new LdapFilterEvaluator( root, attributeDescriptions ) : null;
+    }
+
+
+    /**
+     * Checks if the given entry matches the filter. Filter items that evaluate
+     * to Undefined don't match, as specified in RFC 4511.
+     * 
+     * @param entry the entry
+     * 
+     * @return true, if the entry matches the filter
+     */
+    public boolean matches( IEntry entry )
+    {
+        return root.evaluate( entry ) == Boolean.TRUE;
+    }
+
+
+    /**
+     * Gets the attribute descriptions used in the filter. The attributes must be
+     * present in the entries to get the same result as the server.
+     * 
+     * @return the attribute descriptions, in lower case
+     */
+    public Set<String> getAttributeDescriptions()
+    {
+        return attributeDescriptions;
+    }
+
+
+    /**
+     * Gets a key of the given filter that is equal for filter items that are equal
+     * under the matching rules of the schema, e.g. for (cn=Foo) and (CN=foo), but not
+     * for (memberUid=Foo) and (memberUid=foo) as memberUid is case exact. Filters that
+     * can't be normalized are compared by their filter string.
+     *
+     * @param filter the parsed filter
+     * @param schema the schema
+     *
+     * @return the key
+     */
+    public static Object getNormalizedKey( LdapFilter filter, Schema schema )
+    {
+        if ( !( filter.getFilterComponent() instanceof LdapFilterItemComponent ) )
+        {
+            return filter.toString();
+        }
+
+        LdapFilterItemComponent item = ( LdapFilterItemComponent ) filter.getFilterComponent();
+        String[] attributeDescription = item.getAttributeToken().getValue().split( ";", 2 ); //$NON-NLS-1$
+        if ( !schema.hasAttributeTypeDescription( attributeDescription[0] ) )
+        {
+            return filter.toString();
+        }
+        AttributeType atd = schema.getAttributeTypeDescription( attributeDescription[0] );
+        String options = attributeDescription.length > 1 ? Strings.toLowerCase( attributeDescription[1] ) : ""; //$NON-NLS-1$
+
+        int filterType = item.getFilterToken().getType();
+        List<Object> key = new ArrayList<Object>( Arrays.asList( filterType, atd.getOid(), options ) );
+        if ( filterType == LdapFilterToken.PRESENT )
+        {
+            return key;
+        }
+        if ( item.getValueToken() == null )
+        {
+            return filter.toString();
+        }
+        String assertion = item.getValueToken().getValue();
+
+        Object value = null;
+        switch ( filterType )
+        {
+            case LdapFilterToken.EQUAL:
+                byte[] assertionBytes = unescape( assertion );
+                if ( SchemaConstants.OBJECT_CLASS_AT_OID.equals( atd.getOid() ) && options.isEmpty()
+                    && assertionBytes != null )
+                {
+                    value = Matching.toOid( new String( assertionBytes, StandardCharsets.UTF_8 ).trim(), schema );
+                }
+                else
+                {
+                    value = normalizeAssertion( assertion, getMatching(
+                        SchemaUtils.getEqualityMatchingRuleNameOrNumericOidTransitive( atd, schema ), schema ),
+                        schema );
+                }
+                break;
+
+            case LdapFilterToken.GREATER:
+            case LdapFilterToken.LESS:
+                value = normalizeAssertion( assertion, getMatching(
+                    SchemaUtils.getOrderingMatchingRuleNameOrNumericOidTransitive( atd, schema ), schema ), schema );
+                break;
+
+            case LdapFilterToken.SUBSTRING:
+                Matching matching = getMatching(
+                    SchemaUtils.getSubstringMatchingRuleNameOrNumericOidTransitive( atd, schema ), schema );
+                if ( matching != null && matching.hasSubstrings() )
+                {
+                    List<String> components = new ArrayList<String>();
+                    for ( String part : assertion.split( "\\*", -1 ) ) //$NON-NLS-1$
+                    {
+                        byte[] bytes = unescape( part );
+                        if ( bytes == null )
+                        {
+                            return filter.toString();
+                        }
+                        components.add( matching.normalizeSubstring( new String( bytes, StandardCharsets.UTF_8 ),
+                            false ) );
+                    }
+                    value = components;
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        if ( value == null )
+        {
+            return filter.toString();
+        }
+        key.add( value );
+        return key;
+    }
+
+
+    /**
+     * Normalizes the assertion value with the given matching.
+     *
+     * @return the normalized value, null if the value can't be normalized
+     */
+    private static Object normalizeAssertion( String assertion, Matching matching, Schema schema )
+    {
+        byte[] assertionBytes = unescape( assertion );
+        if ( matching == null || assertionBytes == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return matching.normalize( assertionBytes, schema );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return null;
+        }
+    }
+
+
+    private static void register( Matching matching, String oid, String name )
+    {
+        MATCHING_RULES.put( oid, matching );
+        MATCHING_RULES.put( Strings.toLowerCase( name ), matching );
+    }
+
+
+    private static Node compileFilter( LdapFilter filter, Schema schema, Set<String> attributeDescriptions )
+    {
+        LdapFilterComponent component = filter.getFilterComponent();
+        if ( component instanceof LdapAndFilterComponent || component instanceof LdapOrFilterComponent )
+        {
+            final List<Node> children = new ArrayList<Node>();
+            for ( LdapFilter child : component.getFilters() )
+            {
+                Node node = compileFilter( child, schema, attributeDescriptions );
+                if ( node == null )
+                {
+                    return null;
+                }
+                children.add( node );
+            }
+
+            // AND is FALSE if any child is FALSE, OR is TRUE if any child is TRUE
+            final Boolean decisive = component instanceof LdapAndFilterComponent ? Boolean.FALSE : Boolean.TRUE;
+            return new Node()
+            {
+                public Boolean evaluate( IEntry entry )
+                {
+                    boolean undefined = false;
+                    for ( Node child : children )
+                    {
+                        Boolean result = child.evaluate( entry );
+                        if ( result == decisive )
+                        {
+                            return decisive;
+                        }
+                        undefined |= result == null;
+                    }
+                    return undefined ? null : !decisive;
+                }
+            };
+        }
+        else if ( component instanceof LdapNotFilterComponent )
+        {
+            final Node child = compileFilter( component.getFilters()[0], schema, attributeDescriptions );
+            if ( child == null )
+            {
+                return null;
+            }
+
+            return new Node()
+            {
+                public Boolean evaluate( IEntry entry )
+                {
+                    Boolean result = child.evaluate( entry );
+                    return result == null ? null : !result;
+                }
+            };
+        }
+        else if ( component instanceof LdapFilterItemComponent )
+        {
+            return compileItem( ( LdapFilterItemComponent ) component, schema, attributeDescriptions );
+        }
+        else
+        {
+            // extensible match
+            return null;
+        }
+    }
+
+
+    private static Node compileItem( LdapFilterItemComponent item, Schema schema, Set<String> attributeDescriptions )
+    {
+        final String attributeDescription = item.getAttributeToken().getValue();
+        String attributeType = attributeDescription.split( ";" )[0]; //$NON-NLS-1$
+        attributeDescriptions.add( Strings.toLowerCase( attributeDescription ) );
+
+        int filterType = item.getFilterToken().getType();
+        if ( filterType == LdapFilterToken.PRESENT )
+        {
+            return new Node()
+            {
+                public Boolean evaluate( IEntry entry )
+                {
+                    return !getValues( entry, attributeDescription ).isEmpty();
+                }
+            };
+        }
+
+        if ( !schema.hasAttributeTypeDescription( attributeType ) || item.getValueToken() == null )
+        {
+            return null;
+        }
+        AttributeType atd = schema.getAttributeTypeDescription( attributeType );
+        String assertion = item.getValueToken().getValue();
+
+        switch ( filterType )
+        {
+            case LdapFilterToken.EQUAL:
+                if ( SchemaConstants.OBJECT_CLASS_AT_OID.equals( atd.getOid() ) && attributeDescription.indexOf( ';' ) < 0 )
+                {
+                    return compileObjectClass( assertion, schema );
+                }
+                return compileComparison( attributeDescription, assertion, getMatching(
+                    SchemaUtils.getEqualityMatchingRuleNameOrNumericOidTransitive( atd, schema ), schema ), 0,
+                    schema );
+
+            case LdapFilterToken.GREATER:
+                return compileComparison( attributeDescription, assertion, getMatching(
+                    SchemaUtils.getOrderingMatchingRuleNameOrNumericOidTransitive( atd, schema ), schema ), 1,
+                    schema );
+
+            case LdapFilterToken.LESS:
+                return compileComparison( attributeDescription, assertion, getMatching(
+                    SchemaUtils.getOrderingMatchingRuleNameOrNumericOidTransitive( atd, schema ), schema ), -1,
+                    schema );
+
+            case LdapFilterToken.SUBSTRING:
+                return compileSubstring( attributeDescription, assertion, getMatching(
+                    SchemaUtils.getSubstringMatchingRuleNameOrNumericOidTransitive( atd, schema ), schema ),
+                    schema );
+
+            default:
+                // approximate match is server specific
+                return null;
+        }
+    }
+
+
+    /**
+     * Compiles an equality (direction 0), greater or equal (direction 1) or
+     * less or equal (direction -1) filter item.
+     */
+    private static Node compileComparison( final String attributeDescription, String assertion,
+        final Matching matching, final int direction, final Schema schema )
+    {
+        byte[] assertionBytes = unescape( assertion );
+        if ( matching == null || assertionBytes == null || ( direction != 0 && !matching.isOrdered() ) )
+        {
+            return null;
+        }
+
+        final Comparable<Object> assertionValue;
+        try
+        {
+            assertionValue = matching.normalize( assertionBytes, schema );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // invalid assertion value, the filter item is Undefined
+            return UNDEFINED;
+        }
+
+        return new Node()
+        {
+            public Boolean evaluate( IEntry entry )
+            {
+                boolean undefined = false;
+                for ( IValue value : getValues( entry, attributeDescription ) )
+                {
+                    try
+                    {
+                        int comparison = matching.normalize( value, schema ).compareTo( assertionValue );
+                        if ( direction == 0 ? comparison == 0 : comparison * direction >= 0 )
+                        {
+                            return Boolean.TRUE;
+                        }
+                    }
+                    catch ( IllegalArgumentException | ClassCastException e )
+                    {
+                        undefined = true;
+                    }
+                }
+                return undefined ? null : Boolean.FALSE;
+            }
+        };
+    }
+
+
+    /**
+     * Compiles an objectClass equality filter item. Like the server, an entry
+     * also matches the superior classes of its object classes.
+     */
+    private static Node compileObjectClass( String assertion, final Schema schema )
+    {
+        byte[] assertionBytes = unescape( assertion );
+        if ( assertionBytes == null )
+        {
+            return null;
+        }
+        String objectClass = new String( assertionBytes, StandardCharsets.UTF_8 ).trim();
+        if ( !schema.hasObjectClassDescription( objectClass ) )
+        {
+            return null;
+        }
+        final String assertionOid = schema.getObjectClassDescription( objectClass ).getOid();
+
+        return new Node()
+        {
+            public Boolean evaluate( IEntry entry )
+            {
+                Set<String> visited = new HashSet<String>();
+                List<String> objectClasses = new ArrayList<String>();
+                for ( IValue value : getValues( entry, SchemaConstants.OBJECT_CLASS_AT ) )
+                {
+                    objectClasses.add( value.getStringValue().trim() );
+                }
+                while ( !objectClasses.isEmpty() )
+                {
+                    String name = objectClasses.remove( objectClasses.size() - 1 );
+                    if ( !schema.hasObjectClassDescription( name ) )
+                    {
+                        continue;
+                    }
+                    ObjectClass ocd = schema.getObjectClassDescription( name );
+                    if ( assertionOid.equals( ocd.getOid() ) )
+                    {
+                        return Boolean.TRUE;
+                    }
+                    if ( visited.add( ocd.getOid() ) )
+                    {
+                        objectClasses.addAll( ocd.getSuperiorOids() );
+                    }
+                }
+                return Boolean.FALSE;
+            }
+        };
+    }
+
+
+    private static Node compileSubstring( final String attributeDescription, String assertion,
+        final Matching matching, final Schema schema )
+    {
+        if ( matching == null || !matching.hasSubstrings() )
+        {
+            return null;
+        }
+
+        // split at the unescaped asterisks, escaped asterisks are \2a
+        String[] parts = assertion.split( "\\*", -1 ); //$NON-NLS-1$
+        final String[] components = new String[parts.length];
+        for ( int i = 0; i < parts.length; i++ )
+        {
+            byte[] bytes = unescape( parts[i] );
+            if ( bytes == null )
+            {
+                return null;
+            }
+            components[i] = matching.normalizeSubstring( new String( bytes, StandardCharsets.UTF_8 ), false );
+        }
+
+        return new Node()
+        {
+            public Boolean evaluate( IEntry entry )
+            {
+                boolean undefined = false;
+                for ( IValue value : getValues( entry, attributeDescription ) )
+                {
+                    if ( value.isBinary() )
+                    {
+                        undefined = true;
+                    }
+                    else if ( matchesSubstring( matching.normalizeSubstring( value.getStringValue(), true ),
+                        components ) )
+                    {
+                        return Boolean.TRUE;
+                    }
+                }
+                return undefined ? null : Boolean.FALSE;
+            }
+        };
+    }
+
+
+    /**
+     * Matches the value against the initial, any and final components.
+     * The first and the last component may be empty.
+     */
+    static boolean matchesSubstring( String value, String[] components )
+    {
+        String initial = components[0];
+        String last = components[components.length - 1];
+        if ( !value.startsWith( initial ) )
+        {
+            return false;
+        }
+
+        int pos = initial.length();
+        for ( int i = 1; i < components.length - 1; i++ )
+        {
+            int index = value.indexOf( components[i], pos );
+            if ( index < 0 )
+            {
+                return false;
+            }
+            pos = index + components[i].length();
+        }
+
+        return value.length() - last.length() >= pos && value.endsWith( last );
+    }
+
+
+    /**
+     * Resolves the matching rule name or OID to a locally evaluable matching.
+     */
+    private static Matching getMatching( String nameOrOid, Schema schema )
+    {
+        if ( nameOrOid == null )
+        {
+            return null;
+        }
+
+        Matching matching = MATCHING_RULES.get( Strings.toLowerCase( nameOrOid ) );
+        if ( matching == null && schema.hasMatchingRuleDescription( nameOrOid ) )
+        {
+            MatchingRule mrd = schema.getMatchingRuleDescription( nameOrOid );
+            matching = MATCHING_RULES.get( mrd.getOid() );
+            for ( int i = 0; matching == null && mrd.getNames() != null && i < mrd.getNames().size(); i++ )
+            {
+                matching = MATCHING_RULES.get( Strings.toLowerCase( mrd.getNames().get( i ) ) );
+            }
+        }
+        return matching;
+    }
+
+
+    /**
+     * Gets the non-empty values of the attribute and its subtypes.
+     */
+    private static List<IValue> getValues( IEntry entry, String attributeDescription )
+    {
+        List<IValue> values = new ArrayList<IValue>();
+        AttributeHierarchy ah = entry.getAttributeWithSubtypes( attributeDescription );
+        if ( ah != null )
+        {
+            for ( IAttribute attribute : ah )
+            {
+                for ( IValue value : attribute.getValues() )
+                {
+                    if ( !value.isEmpty() )
+                    {
+                        values.add( value );
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+
+    /**
+     * Unescapes the \XX hex sequences of an assertion value, see RFC 4515.
+     * 
+     * @return the bytes of the value, null if the value contains an invalid escape sequence
+     */
+    static byte[] unescape( String value )
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            if ( bytes[i] == '\\' )
+            {
+                if ( i + 2 >= bytes.length )
+                {
+                    return null;
+                }
+                int high = Character.digit( bytes[i + 1], 16 );
+                int low = Character.digit( bytes[i + 2], 16 );
+                if ( high < 0 || low < 0 )
+                {
+                    return null;
+                }
+                out.write( ( high << 4 ) | low );
+                i += 2;
+            }
+            else
+            {
+                out.write( bytes[i] );
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A compiled filter or filter item. The result is TRUE, FALSE or null for Undefined.
+     */
+    private interface Node
+    {
+        Boolean evaluate( IEntry entry );
+    }
+
+    /** A filter item that is always Undefined */
+    private static final Node UNDEFINED = new Node()
+    {
+        public Boolean evaluate( IEntry entry )
+        {
+            return null;
+        }
+    };
+
+    /**
+     * The matching rules that can be evaluated locally, with their normalization.
+     * Values that are equal after normalization match, ordered matchings compare
+     * the normalized values.
+     */
+    private enum Matching
+    {
+        CASE_IGNORE, CASE_EXACT, NUMERIC_STRING, TELEPHONE_NUMBER, INTEGER, BOOLEAN, OCTET_STRING,
+        GENERALIZED_TIME, OBJECT_IDENTIFIER, DISTINGUISHED_NAME;
+
+        boolean isOrdered()
+        {
+            return this != BOOLEAN && this != OBJECT_IDENTIFIER && this != DISTINGUISHED_NAME
+                && this != TELEPHONE_NUMBER;
+        }
+
+
+        boolean hasSubstrings()
+        {
+            return this == CASE_IGNORE || this == CASE_EXACT || this == NUMERIC_STRING || this == TELEPHONE_NUMBER;
+        }
+
+
+        Comparable<Object> normalize( IValue value, Schema schema )
+        {
+            if ( this == OCTET_STRING )
+            {
+                return normalize( value.isBinary() ? value.getBinaryValue()
+                    : value.getStringValue().getBytes( StandardCharsets.UTF_8 ), schema );
+            }
+            else if ( value.isBinary() )
+            {
+                throw new IllegalArgumentException();
+            }
+            return normalize( value.getStringValue(), schema );
+        }
+
+
+        Comparable<Object> normalize( byte[] value, Schema schema )
+        {
+            if ( this == OCTET_STRING )
+            {
+                return cast( ByteBuffer.wrap( value ) );
+            }
+            return normalize( new String( value, StandardCharsets.UTF_8 ), schema );
+        }
+
+
+        private Comparable<Object> normalize( String value, Schema schema )
+        {
+            switch ( this )
+            {
+                case CASE_IGNORE:
+                    return cast( Strings.toLowerCase( collapseSpaces( value ).trim() ) );
+
+                case CASE_EXACT:
+                    return cast( collapseSpaces( value ).trim() );
+
+                case NUMERIC_STRING:
+                case TELEPHONE_NUMBER:
+                    return cast( normalizeSubstring( value, true ) );
+
+                case INTEGER:
+                    return cast( new BigInteger( value.trim() ) );
+
+                case BOOLEAN:
+                    String b = value.trim().toUpperCase( Locale.ROOT );
+                    if ( !"TRUE".equals( b ) && !"FALSE".equals( b ) ) //$NON-NLS-1$ //$NON-NLS-2$
+                    {
+                        throw new IllegalArgumentException( value );
+                    }
+                    return cast( b );
+
+                case GENERALIZED_TIME:
+                    try
+                    {
+                        return cast( new GeneralizedTime( value.trim() ).getDate().getTime() );
+                    }
+                    catch ( ParseException e )
+                    {
+                        throw new IllegalArgumentException( value );
+                    }
+
+                case OBJECT_IDENTIFIER:
+                    return cast( toOid( value.trim(), schema ) );
+
+                case DISTINGUISHED_NAME:
+                    return cast( normalizeDn( value, schema ) );
+
+                default:
+                    throw new IllegalArgumentException( value );
+            }
+        }
+
+
+        /**
+         * Normalizes a substring component, or the attribute value to match substrings against.
+         */
+        String normalizeSubstring( String value, boolean isAttributeValue )
+        {
+            switch ( this )
+            {
+                case NUMERIC_STRING:
+                    return value.replace( " ", "" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+                case TELEPHONE_NUMBER:
+                    return Strings.toLowerCase( value.replace( " ", "" ).replace( "-", "" ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+                case CASE_IGNORE:
+                    value = Strings.toLowerCase( value );
+                    // fall through
+
+                default:
+                    value = collapseSpaces( value );
+                    return isAttributeValue ? value.trim() : value;
+            }
+        }
+
+
+        @SuppressWarnings("unchecked")
+        private static Comparable<Object> cast( Comparable<?> comparable )
+        {
+            return ( Comparable<Object> ) comparable;
+        }
+
+
+        private static String collapseSpaces( String value )
+        {
+            return value.replaceAll( "\\s+", " " ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+
+        private static String toOid( String nameOrOid, Schema schema )
+        {
+            if ( schema.hasObjectClassDescription( nameOrOid ) )
+            {
+                return schema.getObjectClassDescription( nameOrOid ).getOid();
+            }
+            if ( schema.hasAttributeTypeDescription( nameOrOid ) )
+            {
+                return schema.getAttributeTypeDescription( nameOrOid ).getOid();
+            }
+            return Strings.toLowerCase( nameOrOid );
+        }
+
+
+        /**
+         * Normalizes the attribute types and values of a Dn, the AVAs of a multi-valued Rdn are sorted.
+         */
+        private static String normalizeDn( String value, Schema schema )
+        {
+            try
+            {
+                StringBuilder sb = new StringBuilder();
+                for ( Rdn rdn : new Dn( value ) )
+                {
+                    Set<String> avas = new TreeSet<String>();
+                    for ( Ava ava : rdn )
+                    {
+                        avas.add( toOid( ava.getType(), schema ) + '='
+                            + Strings.toLowerCase( collapseSpaces( ava.getValue().getString() ).trim() ) );
+                    }
+                    if ( sb.length() > 0 )
+                    {
+                        sb.append( ',' );
+                    }
+                    sb.append( String.join( "+", avas ) ); //$NON-NLS-1$
+                }
+                return sb.toString();
+            }
+            catch ( LdapInvalidDnException e )
+            {
+                throw new IllegalArgumentException( value, e );
+            }
+        }
+    }
+}
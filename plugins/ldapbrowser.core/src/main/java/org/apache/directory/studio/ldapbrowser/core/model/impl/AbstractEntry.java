@@ -555,8 +555,8 @@ public abstract class AbstractEntry implements IEntry, ICompareableEntry
      */
     public IAttribute getAttribute( String attributeDescription )
     {
-        AttributeDescription ad = new AttributeDescription( attributeDescription );
-        String oidString = ad.toOidString( getBrowserConnection().getSchema() );
+        Schema schema = getBrowserConnection().getSchema();
+        String oidString = schema.getAttributeDescription( attributeDescription ).toOidString( schema );
         if ( oidString.equals( SchemaConstants.OBJECT_CLASS_AT_OID )
             || ( SchemaConstants.OBJECT_CLASS_AT.equalsIgnoreCase( attributeDescription ) ) )
         {
@@ -590,7 +590,7 @@ public abstract class AbstractEntry implements IEntry, ICompareableEntry
             attributeList.add( myAttribute );
         }
 
-        AttributeDescription ad = new AttributeDescription( attributeDescription );
+        AttributeDescription ad = getBrowserConnection().getSchema().getAttributeDescription( attributeDescription );
         IAttribute[] allAttributes = getAttributes();
         for ( IAttribute attribute : allAttributes )
         {
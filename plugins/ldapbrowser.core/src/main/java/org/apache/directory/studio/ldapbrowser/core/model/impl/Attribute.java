@@ -83,7 +83,14 @@ public class Attribute implements IAttribute
         assert description != null;
 
         this.entry = entry;
-        this.attributeDescription = new AttributeDescription( description );
+        if ( entry.getBrowserConnection() != null )
+        {
+            this.attributeDescription = entry.getBrowserConnection().getSchema().getAttributeDescription( description );
+        }
+        else
+        {
+            this.attributeDescription = new AttributeDescription( description );
+        }
         this.valueList = new ArrayList<IValue>();
 
     }
@@ -178,7 +185,7 @@ public class Attribute implements IAttribute
      */
     public boolean isBinary()
     {
-        return SchemaUtils.isBinary( getAttributeTypeDescription(), getEntry().getBrowserConnection().getSchema() );
+        return getEntry().getBrowserConnection().getSchema().getAttributeTypeInfo( getDescription() ).isBinary();
     }
 
 
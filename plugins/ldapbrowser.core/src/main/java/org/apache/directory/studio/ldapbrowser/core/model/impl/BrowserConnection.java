@@ -375,6 +375,25 @@ public class BrowserConnection implements IBrowserConnection, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isDitSnapshot()
+    {
+        return connection.getConnectionParameter().getExtendedBoolProperty( CONNECTION_PARAMETER_DIT_SNAPSHOT );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setDitSnapshot( boolean ditSnapshot )
+    {
+        connection.getConnectionParameter().setExtendedBoolProperty( CONNECTION_PARAMETER_DIT_SNAPSHOT, ditSnapshot );
+        ConnectionEventRegistry.fireConnectionUpdated( connection, this );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -285,6 +285,23 @@ public class DummyConnection implements IBrowserConnection
     }
 
 
+    /** 
+     * {@inheritDoc}
+     */
+    public boolean isDitSnapshot()
+    {
+        return false;
+    }
+
+
+    /** 
+     * {@inheritDoc}
+     */
+    public void setDitSnapshot( boolean ditSnapshot )
+    {
+    }
+
+
     /** 
      * {@inheritDoc}
      */
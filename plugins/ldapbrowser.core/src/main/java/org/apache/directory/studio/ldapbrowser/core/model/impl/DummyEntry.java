@@ -146,8 +146,8 @@ public class DummyEntry implements IEntry, ICompareableEntry
      */
     public IAttribute getAttribute( String attributeDescription )
     {
-        AttributeDescription ad = new AttributeDescription( attributeDescription );
-        String oidString = ad.toOidString( getBrowserConnection().getSchema() );
+        Schema schema = getBrowserConnection().getSchema();
+        String oidString = schema.getAttributeDescription( attributeDescription ).toOidString( schema );
         return attributeMap.get( Strings.toLowerCase( oidString ) );
     }
 
@@ -165,7 +165,7 @@ public class DummyEntry implements IEntry, ICompareableEntry
             attributeList.add( myAttribute );
         }
 
-        AttributeDescription ad = new AttributeDescription( attributeDescription );
+        AttributeDescription ad = getBrowserConnection().getSchema().getAttributeDescription( attributeDescription );
         for ( IAttribute attribute : attributeMap.values() )
         {
             AttributeDescription other = attribute.getAttributeDescription();
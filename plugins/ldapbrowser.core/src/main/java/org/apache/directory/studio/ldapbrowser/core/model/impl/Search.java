@@ -415,7 +415,12 @@ public class Search implements ISearch
      */
     public void setSearchResults( ISearchResult[] searchResults )
     {
+        ISearchResult[] oldSearchResults = this.searchResults;
         this.searchResults = searchResults;
+        if ( connection != null && connection.getSearchManager() != null )
+        {
+            connection.getSearchManager().searchResultsChanged( this, oldSearchResults, searchResults );
+        }
         if ( searchResults != null && getName() != null )
         {
             fireSearchUpdated( SearchUpdateEvent.EventDetail.SEARCH_PERFORMED );
@@ -0,0 +1,320 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.schema;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.LdapSyntax;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+
+
+/**
+ * The resolved facts about an attribute type that are needed on hot paths,
+ * like rendering values or looking up attributes of an entry. The superior
+ * chain is walked once when the info is created by {@link Schema#getAttributeTypeInfo(String)}.
+ * <p>
+ * Facts that depend on preferences, the binary flags and the value editor,
+ * are computed lazily and recomputed when the preferences have changed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class AttributeTypeInfo
+{
+    /** The attribute type description */
+    private final AttributeType attributeType;
+
+    /** The numeric OID of the attribute type, or its name if the OID is unknown */
+    private final String numericOid;
+
+    /** The lower-cased numeric OID and names */
+    private final List<String> lowerCaseIdentifiers;
+
+    /** The numeric OID of the syntax of the attribute type or of its superiors, may be null */
+    private final String syntaxNumericOid;
+
+    /** The syntax description */
+    private final LdapSyntax syntax;
+
+    /** Whether the syntax is defined in the schema */
+    private final boolean syntaxDefined;
+
+    /** The equality matching rule of the attribute type or of its superiors, may be null */
+    private final String equalityMatchingRule;
+
+    /** The ordering matching rule of the attribute type or of its superiors, may be null */
+    private final String orderingMatchingRule;
+
+    /** The substring matching rule of the attribute type or of its superiors, may be null */
+    private final String substringMatchingRule;
+
+    /** The binary flags, with the preferences they were computed from */
+    private volatile BinaryFlags binaryFlags;
+
+    /** The value editor, with the preferences it was resolved from */
+    private volatile ValueEditorResolution valueEditorResolution;
+
+
+    /**
+     * Creates a new instance of AttributeTypeInfo.
+     *
+     * @param atd the attribute type description
+     * @param schema the schema
+     */
+    AttributeTypeInfo( AttributeType atd, Schema schema )
+    {
+        this.attributeType = atd;
+        this.numericOid = atd.getOid();
+
+        List<String> identifiers = new ArrayList<String>();
+        if ( atd.getOid() != null )
+        {
+            identifiers.add( Strings.toLowerCase( atd.getOid() ) );
+        }
+        for ( String name : atd.getNames() )
+        {
+            identifiers.add( Strings.toLowerCase( name ) );
+        }
+        this.lowerCaseIdentifiers = Collections.unmodifiableList( identifiers );
+
+        this.syntaxNumericOid = SchemaUtils.getSyntaxNumericOidTransitive( atd, schema );
+        this.syntax = schema.getLdapSyntaxDescription( syntaxNumericOid );
+        this.syntaxDefined = syntaxNumericOid != null && schema.hasLdapSyntaxDescription( syntaxNumericOid );
+        this.equalityMatchingRule = SchemaUtils.getEqualityMatchingRuleNameOrNumericOidTransitive( atd, schema );
+        this.orderingMatchingRule = SchemaUtils.getOrderingMatchingRuleNameOrNumericOidTransitive( atd, schema );
+        this.substringMatchingRule = SchemaUtils.getSubstringMatchingRuleNameOrNumericOidTransitive( atd, schema );
+    }
+
+
+    /**
+     * Gets the attribute type description.
+     *
+     * @return the attribute type description
+     */
+    public AttributeType getAttributeType()
+    {
+        return attributeType;
+    }
+
+
+    /**
+     * Gets the canonical numeric OID of the attribute type.
+     *
+     * @return the numeric OID
+     */
+    public String getNumericOid()
+    {
+        return numericOid;
+    }
+
+
+    /**
+     * Gets the lower-cased numeric OID and names of the attribute type,
+     * the OID first.
+     *
+     * @return the lower-cased numeric OID and names
+     */
+    public List<String> getLowerCaseIdentifiers()
+    {
+        return lowerCaseIdentifiers;
+    }
+
+
+    /**
+     * Gets the numeric OID of the effective syntax, inherited from the
+     * superior attribute types if needed.
+     *
+     * @return the syntax numeric OID, may be null
+     */
+    public String getSyntaxNumericOid()
+    {
+        return syntaxNumericOid;
+    }
+
+
+    /**
+     * Gets the effective equality matching rule.
+     *
+     * @return the equality matching rule name or OID, may be null
+     */
+    public String getEqualityMatchingRule()
+    {
+        return equalityMatchingRule;
+    }
+
+
+    /**
+     * Gets the effective ordering matching rule.
+     *
+     * @return the ordering matching rule name or OID, may be null
+     */
+    public String getOrderingMatchingRule()
+    {
+        return orderingMatchingRule;
+    }
+
+
+    /**
+     * Gets the effective substring matching rule.
+     *
+     * @return the substring matching rule name or OID, may be null
+     */
+    public String getSubstringMatchingRule()
+    {
+        return substringMatchingRule;
+    }
+
+
+    /**
+     * Checks if the attribute type is binary, either because the attribute
+     * type itself or its syntax is defined as binary in the preferences.
+     *
+     * @return true if the attribute type is binary
+     * @see SchemaUtils#isBinary(AttributeType, Schema)
+     */
+    public boolean isBinary()
+    {
+        return getBinaryFlags().binary;
+    }
+
+
+    /**
+     * Checks if the syntax of the attribute type is defined as binary
+     * in the preferences.
+     *
+     * @return true if the syntax is binary
+     * @see SchemaUtils#isBinary(LdapSyntax)
+     */
+    public boolean isBinarySyntax()
+    {
+        return getBinaryFlags().binarySyntax;
+    }
+
+
+    /**
+     * Resolves the value editor configured for the attribute type or for its
+     * syntax. The result is kept as long as the same maps are passed in, the
+     * preference caches create new maps when they are changed.
+     *
+     * @param attributeValueEditorMap the value editors by lower-cased attribute OID or name
+     * @param syntaxValueEditorMap the value editors by lower-cased syntax OID
+     * @return the value editor class name, null if none is configured
+     */
+    public String getValueEditorClassName( Map<String, String> attributeValueEditorMap,
+        Map<String, String> syntaxValueEditorMap )
+    {
+        ValueEditorResolution resolution = valueEditorResolution;
+        if ( resolution == null || resolution.attributeValueEditorMap != attributeValueEditorMap
+            || resolution.syntaxValueEditorMap != syntaxValueEditorMap )
+        {
+            String className = null;
+            for ( String identifier : lowerCaseIdentifiers )
+            {
+                className = attributeValueEditorMap.get( identifier );
+                if ( className != null )
+                {
+                    break;
+                }
+            }
+            if ( className == null && syntaxNumericOid != null )
+            {
+                className = syntaxValueEditorMap.get( Strings.toLowerCase( syntaxNumericOid ) );
+            }
+
+            resolution = new ValueEditorResolution( attributeValueEditorMap, syntaxValueEditorMap, className );
+            valueEditorResolution = resolution;
+        }
+
+        return resolution.className;
+    }
+
+
+    private BinaryFlags getBinaryFlags()
+    {
+        Set<String> binaryAttributes = BrowserCorePlugin.getDefault().getCorePreferences()
+            .getUpperCasedBinaryAttributeOidsAndNames();
+        Set<String> binarySyntaxes = BrowserCorePlugin.getDefault().getCorePreferences()
+            .getUpperCasedBinarySyntaxOids();
+
+        BinaryFlags flags = binaryFlags;
+        if ( flags == null || flags.binaryAttributes != binaryAttributes || flags.binarySyntaxes != binarySyntaxes )
+        {
+            boolean binarySyntax = binarySyntaxes.contains( syntax.getOid().toUpperCase() );
+            boolean binary = binarySyntax && syntaxDefined;
+            for ( int i = 0; !binary && i < lowerCaseIdentifiers.size(); i++ )
+            {
+                binary = binaryAttributes.contains( lowerCaseIdentifiers.get( i ).toUpperCase() );
+            }
+
+            flags = new BinaryFlags( binaryAttributes, binarySyntaxes, binary, binarySyntax );
+            binaryFlags = flags;
+        }
+
+        return flags;
+    }
+
+
+    /**
+     * The binary flags and the preference sets they were computed from.
+     */
+    private static final class BinaryFlags
+    {
+        private final Set<String> binaryAttributes;
+        private final Set<String> binarySyntaxes;
+        private final boolean binary;
+        private final boolean binarySyntax;
+
+
+        private BinaryFlags( Set<String> binaryAttributes, Set<String> binarySyntaxes, boolean binary,
+            boolean binarySyntax )
+        {
+            this.binaryAttributes = binaryAttributes;
+            this.binarySyntaxes = binarySyntaxes;
+            this.binary = binary;
+            this.binarySyntax = binarySyntax;
+        }
+    }
+
+
+    /**
+     * The resolved value editor and the preference maps it was resolved from.
+     */
+    private static final class ValueEditorResolution
+    {
+        private final Map<String, String> attributeValueEditorMap;
+        private final Map<String, String> syntaxValueEditorMap;
+        private final String className;
+
+
+        private ValueEditorResolution( Map<String, String> attributeValueEditorMap,
+            Map<String, String> syntaxValueEditorMap, String className )
+        {
+            this.attributeValueEditorMap = attributeValueEditorMap;
+            this.syntaxValueEditorMap = syntaxValueEditorMap;
+            this.className = className;
+        }
+    }
+}
@@ -26,13 +26,16 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URL;
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
@@ -42,15 +45,13 @@ import org.apache.directory.api.ldap.model.schema.LdapSyntax;
 import org.apache.directory.api.ldap.model.schema.MatchingRule;
 import org.apache.directory.api.ldap.model.schema.MatchingRuleUse;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
 import org.apache.directory.api.ldap.model.schema.UsageEnum;
-import org.apache.directory.api.ldap.model.schema.parsers.AttributeTypeDescriptionSchemaParser;
-import org.apache.directory.api.ldap.model.schema.parsers.LdapSyntaxDescriptionSchemaParser;
-import org.apache.directory.api.ldap.model.schema.parsers.MatchingRuleDescriptionSchemaParser;
-import org.apache.directory.api.ldap.model.schema.parsers.MatchingRuleUseDescriptionSchemaParser;
-import org.apache.directory.api.ldap.model.schema.parsers.ObjectClassDescriptionSchemaParser;
 import org.apache.directory.api.util.Strings;
 import org.apache.directory.studio.connection.core.Utils;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaDescriptionParsers.Result;
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
@@ -137,6 +138,15 @@ public class Schema
 
     private Map<String, MatchingRuleUse> mrudMapByNameOrNumericOid;
 
+    /** The resolved attribute type infos, by attribute description as requested */
+    private Map<String, AttributeTypeInfo> atiMapByDescription;
+
+    /** The resolved attribute type infos, by attribute type description */
+    private Map<AttributeType, AttributeTypeInfo> atiMapByAttributeType;
+
+    /** The interned attribute descriptions */
+    private Map<String, AttributeDescription> adMapByDescription;
+
 
     /**
      * Creates a new instance of Schema.
@@ -152,6 +162,9 @@ public class Schema
         this.lsdMapByNumericOid = new HashMap<String, LdapSyntax>();
         this.mrdMapByNameOrNumericOid = new HashMap<String, MatchingRule>();
         this.mrudMapByNameOrNumericOid = new HashMap<String, MatchingRuleUse>();
+        this.atiMapByDescription = new ConcurrentHashMap<String, AttributeTypeInfo>();
+        this.atiMapByAttributeType = new ConcurrentHashMap<AttributeType, AttributeTypeInfo>();
+        this.adMapByDescription = new ConcurrentHashMap<String, AttributeDescription>();
     }
 
 
@@ -235,77 +248,51 @@ public class Schema
         setSchemaRecord( schemaRecord );
         setDn( new Dn( schemaRecord.getDnLine().getValueAsString() ) );
 
-        ObjectClassDescriptionSchemaParser ocdPparser = new ObjectClassDescriptionSchemaParser();
-        ocdPparser.setQuirksMode( true );
-        AttributeTypeDescriptionSchemaParser atdParser = new AttributeTypeDescriptionSchemaParser();
-        atdParser.setQuirksMode( true );
-        LdapSyntaxDescriptionSchemaParser lsdParser = new LdapSyntaxDescriptionSchemaParser();
-        lsdParser.setQuirksMode( true );
-        MatchingRuleDescriptionSchemaParser mrdParser = new MatchingRuleDescriptionSchemaParser();
-        mrdParser.setQuirksMode( true );
-        MatchingRuleUseDescriptionSchemaParser mrudParser = new MatchingRuleUseDescriptionSchemaParser();
-        mrudParser.setQuirksMode( true );
-
+        // parse the descriptions in parallel, then merge them in the order of the record
         LdifAttrValLine[] lines = schemaRecord.getAttrVals();
+        List<Result<SchemaObject>> results = SchemaDescriptionParsers.parse( Arrays.asList( lines ),
+            new SchemaLineParser() );
+
         for ( int i = 0; i < lines.length; i++ )
         {
             LdifAttrValLine line = lines[i];
             String attributeName = line.getUnfoldedAttributeDescription();
             String value = line.getValueAsString();
-            List<String> ldifValues = new ArrayList<String>( 1 );
-            ldifValues.add( value );
+            Result<SchemaObject> result = results.get( i );
 
-            try
-            {
-                if ( attributeName.equalsIgnoreCase( SchemaConstants.OBJECT_CLASSES_AT ) )
-                {
-                    ObjectClass ocd = ocdPparser.parse( value );
-                    ocd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addObjectClass( ocd );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.ATTRIBUTE_TYPES_AT ) )
-                {
-                    AttributeType atd = atdParser.parse( value );
-                    atd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addAttributeType( atd );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.LDAP_SYNTAXES_AT ) )
-                {
-                    LdapSyntax lsd = lsdParser.parse( value );
-                    if ( StringUtils.isEmpty( lsd.getDescription() )
-                        && Utils.getOidDescription( lsd.getOid() ) != null )
-                    {
-                        lsd.setDescription( Utils.getOidDescription( lsd.getOid() ) );
-                    }
-                    lsd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addLdapSyntax( lsd );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.MATCHING_RULES_AT ) )
-                {
-                    MatchingRule mrd = mrdParser.parse( value );
-                    mrd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addMatchingRule( mrd );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.MATCHING_RULE_USE_AT ) )
-                {
-                    MatchingRuleUse mrud = mrudParser.parse( value );
-                    mrud.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addMatchingRuleUse( mrud );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.CREATE_TIMESTAMP_AT ) )
-                {
-                    setCreateTimestamp( value );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.MODIFY_TIMESTAMP_AT ) )
-                {
-                    setModifyTimestamp( value );
-                }
-            }
-            catch ( Exception e )
+            if ( result.getException() != null )
             {
                 // TODO: exception handling
                 System.out.println( "Error reading schema: " + attributeName + " = " + value ); //$NON-NLS-1$ //$NON-NLS-2$
-                System.out.println( e.getMessage() );
+                System.out.println( result.getException().getMessage() );
+            }
+            else if ( result.getValue() instanceof ObjectClass )
+            {
+                addObjectClass( ( ObjectClass ) result.getValue() );
+            }
+            else if ( result.getValue() instanceof AttributeType )
+            {
+                addAttributeType( ( AttributeType ) result.getValue() );
+            }
+            else if ( result.getValue() instanceof LdapSyntax )
+            {
+                addLdapSyntax( ( LdapSyntax ) result.getValue() );
+            }
+            else if ( result.getValue() instanceof MatchingRule )
+            {
+                addMatchingRule( ( MatchingRule ) result.getValue() );
+            }
+            else if ( result.getValue() instanceof MatchingRuleUse )
+            {
+                addMatchingRuleUse( ( MatchingRuleUse ) result.getValue() );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.CREATE_TIMESTAMP_AT ) )
+            {
+                setCreateTimestamp( value );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.MODIFY_TIMESTAMP_AT ) )
+            {
+                setModifyTimestamp( value );
             }
         }
 
@@ -333,6 +320,11 @@ public class Schema
         Collection<String> atdNames = SchemaUtils.getNames( userAtds );
         List<String> atdNames2 = new ArrayList<String>( atdNames );
         extensibleObjectOcd.setMayAttributeTypeOids( atdNames2 );
+
+        // the resolved infos may be outdated
+        atiMapByDescription.clear();
+        atiMapByAttributeType.clear();
+        adMapByDescription.clear();
     }
 
 
@@ -590,8 +582,8 @@ public class Schema
      */
     public AttributeType getAttributeTypeDescription( String nameOrOid )
     {
-        AttributeDescription ad = new AttributeDescription( nameOrOid );
-        String attributeType = ad.getParsedAttributeType();
+        int optionsIndex = nameOrOid.indexOf( IAttribute.OPTION_DELIMITER );
+        String attributeType = optionsIndex < 0 ? nameOrOid : nameOrOid.substring( 0, optionsIndex );
 
         if ( atdMapByNameOrNumericOid.containsKey( Strings.toLowerCase( attributeType ) ) )
         {
@@ -616,6 +608,71 @@ public class Schema
     }
 
 
+    /**
+     * Returns the resolved info of the attribute type of the given attribute
+     * description. The info is created once per attribute type and then
+     * looked up by the given attribute description.
+     * 
+     * @param attributeDescription the attribute description, a name or numeric OID
+     *        of the attribute type with optional options
+     * 
+     * @return the resolved attribute type info
+     */
+    public AttributeTypeInfo getAttributeTypeInfo( String attributeDescription )
+    {
+        AttributeTypeInfo info = atiMapByDescription.get( attributeDescription );
+
+        if ( info == null )
+        {
+            AttributeType atd = getAttributeTypeDescription( attributeDescription );
+            info = atiMapByAttributeType.get( atd );
+
+            if ( info == null )
+            {
+                info = new AttributeTypeInfo( atd, this );
+                AttributeTypeInfo existing = atiMapByAttributeType.putIfAbsent( atd, info );
+
+                if ( existing != null )
+                {
+                    info = existing;
+                }
+            }
+
+            atiMapByDescription.put( attributeDescription, info );
+        }
+
+        return info;
+    }
+
+
+    /**
+     * Returns the interned attribute description of the given description.
+     * It is bound to this schema, its attribute type info and its OID string
+     * are resolved only once.
+     * 
+     * @param description the attribute description
+     * 
+     * @return the interned attribute description
+     */
+    public AttributeDescription getAttributeDescription( String description )
+    {
+        AttributeDescription ad = adMapByDescription.get( description );
+
+        if ( ad == null )
+        {
+            ad = new AttributeDescription( description, this );
+            AttributeDescription existing = adMapByDescription.putIfAbsent( description, ad );
+
+            if ( existing != null )
+            {
+                ad = existing;
+            }
+        }
+
+        return ad;
+    }
+
+
     //////////////////////// LDAP Syntax Description ////////////////////////
 
     /**
@@ -860,4 +917,61 @@ public class Schema
         }
     }
 
+
+    /**
+     * Parses one line of the schema record, called concurrently for all lines.
+     * Returns null if the line doesn't contain a schema description.
+     *
+     * This is a separate class because the default schema is parsed while this class
+     * is initialized, the worker threads must not call static methods of this class.
+     */
+    private static class SchemaLineParser implements SchemaDescriptionParsers.Parser<LdifAttrValLine, SchemaObject>
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public SchemaObject parse( SchemaDescriptionParsers parsers, LdifAttrValLine line ) throws ParseException
+        {
+            String attributeName = line.getUnfoldedAttributeDescription();
+            String value = line.getValueAsString();
+            SchemaObject schemaObject;
+
+            if ( attributeName.equalsIgnoreCase( SchemaConstants.OBJECT_CLASSES_AT ) )
+            {
+                schemaObject = parsers.parseObjectClass( value );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.ATTRIBUTE_TYPES_AT ) )
+            {
+                schemaObject = parsers.parseAttributeType( value );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.LDAP_SYNTAXES_AT ) )
+            {
+                LdapSyntax lsd = parsers.parseLdapSyntax( value );
+                if ( StringUtils.isEmpty( lsd.getDescription() )
+                    && Utils.getOidDescription( lsd.getOid() ) != null )
+                {
+                    lsd.setDescription( Utils.getOidDescription( lsd.getOid() ) );
+                }
+                schemaObject = lsd;
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.MATCHING_RULES_AT ) )
+            {
+                schemaObject = parsers.parseMatchingRule( value );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.MATCHING_RULE_USE_AT ) )
+            {
+                schemaObject = parsers.parseMatchingRuleUse( value );
+            }
+            else
+            {
+                return null;
+            }
+
+            List<String> ldifValues = new ArrayList<String>( 1 );
+            ldifValues.add( value );
+            schemaObject.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
+
+            return schemaObject;
+        }
+    }
 }
@@ -0,0 +1,240 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model.schema;
+
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.LdapSyntax;
+import org.apache.directory.api.ldap.model.schema.MatchingRule;
+import org.apache.directory.api.ldap.model.schema.MatchingRuleUse;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.parsers.AttributeTypeDescriptionSchemaParser;
+import org.apache.directory.api.ldap.model.schema.parsers.LdapSyntaxDescriptionSchemaParser;
+import org.apache.directory.api.ldap.model.schema.parsers.MatchingRuleDescriptionSchemaParser;
+import org.apache.directory.api.ldap.model.schema.parsers.MatchingRuleUseDescriptionSchemaParser;
+import org.apache.directory.api.ldap.model.schema.parsers.ObjectClassDescriptionSchemaParser;
+
+
+/**
+ * Parses schema descriptions in parallel.
+ *
+ * The Directory API parsers keep state while parsing, so each thread gets its own
+ * set of parsers in quirks mode that is reused for all descriptions parsed by that thread.
+ * The results are always returned in the order of the input, so merging them into a
+ * schema is deterministic.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class SchemaDescriptionParsers
+{
+    /** Below this number of items the parsing is done on the calling thread */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    private static final ThreadLocal<SchemaDescriptionParsers> PARSERS = ThreadLocal
+        .withInitial( SchemaDescriptionParsers::new );
+
+    private final ObjectClassDescriptionSchemaParser objectClassParser = new ObjectClassDescriptionSchemaParser();
+
+    private final AttributeTypeDescriptionSchemaParser attributeTypeParser = new AttributeTypeDescriptionSchemaParser();
+
+    private final LdapSyntaxDescriptionSchemaParser ldapSyntaxParser = new LdapSyntaxDescriptionSchemaParser();
+
+    private final MatchingRuleDescriptionSchemaParser matchingRuleParser = new MatchingRuleDescriptionSchemaParser();
+
+    private final MatchingRuleUseDescriptionSchemaParser matchingRuleUseParser = new MatchingRuleUseDescriptionSchemaParser();
+
+
+    private SchemaDescriptionParsers()
+    {
+        objectClassParser.setQuirksMode( true );
+        attributeTypeParser.setQuirksMode( true );
+        ldapSyntaxParser.setQuirksMode( true );
+        matchingRuleParser.setQuirksMode( true );
+        matchingRuleUseParser.setQuirksMode( true );
+    }
+
+
+    /**
+     * Gets the parsers of the current thread.
+     *
+     * @return the parsers of the current thread
+     */
+    public static SchemaDescriptionParsers get()
+    {
+        return PARSERS.get();
+    }
+
+
+    /**
+     * Parses an object class description.
+     *
+     * @param description the object class description
+     * @return the object class
+     * @throws ParseException if the description can't be parsed
+     */
+    public ObjectClass parseObjectClass( String description ) throws ParseException
+    {
+        return objectClassParser.parse( description );
+    }
+
+
+    /**
+     * Parses an attribute type description.
+     *
+     * @param description the attribute type description
+     * @return the attribute type
+     * @throws ParseException if the description can't be parsed
+     */
+    public AttributeType parseAttributeType( String description ) throws ParseException
+    {
+        return attributeTypeParser.parse( description );
+    }
+
+
+    /**
+     * Parses a LDAP syntax description.
+     *
+     * @param description the LDAP syntax description
+     * @return the LDAP syntax
+     * @throws ParseException if the description can't be parsed
+     */
+    public LdapSyntax parseLdapSyntax( String description ) throws ParseException
+    {
+        return ldapSyntaxParser.parse( description );
+    }
+
+
+    /**
+     * Parses a matching rule description.
+     *
+     * @param description the matching rule description
+     * @return the matching rule
+     * @throws ParseException if the description can't be parsed
+     */
+    public MatchingRule parseMatchingRule( String description ) throws ParseException
+    {
+        return matchingRuleParser.parse( description );
+    }
+
+
+    /**
+     * Parses a matching rule use description.
+     *
+     * @param description the matching rule use description
+     * @return the matching rule use
+     * @throws ParseException if the description can't be parsed
+     */
+    public MatchingRuleUse parseMatchingRuleUse( String description ) throws ParseException
+    {
+        return matchingRuleUseParser.parse( description );
+    }
+
+
+    /**
+     * Parses all the given items, using all available cores when there are many of them.
+     *
+     * A failure doesn't stop the parsing of the other items, it is returned
+     * as result of the failed item.
+     *
+     * @param items the items to parse, e.g. description strings or schema entries
+     * @param parser the parser, called with the parsers of the current thread
+     * @return the results, in the order of the items
+     */
+    public static <E, T> List<Result<T>> parse( List<E> items, Parser<E, T> parser )
+    {
+        Stream<E> stream = items.size() < PARALLEL_THRESHOLD ? items.stream() : items.parallelStream();
+        return stream.map( item -> parse( item, parser ) ).collect( Collectors.toList() );
+    }
+
+
+    private static <E, T> Result<T> parse( E item, Parser<E, T> parser )
+    {
+        try
+        {
+            return new Result<T>( parser.parse( get(), item ), null );
+        }
+        catch ( Exception e )
+        {
+            return new Result<T>( null, e );
+        }
+    }
+
+    /**
+     * Parses one item.
+     */
+    @FunctionalInterface
+    public interface Parser<E, T>
+    {
+        /**
+         * Parses the given item.
+         *
+         * @param parsers the parsers of the current thread
+         * @param item the item to parse
+         * @return the parsed object, may be null
+         * @throws Exception if the item can't be parsed
+         */
+        T parse( SchemaDescriptionParsers parsers, E item ) throws Exception;
+    }
+
+    /**
+     * The result of parsing one item, either the parsed object or the exception.
+     */
+    public static final class Result<T>
+    {
+        private final T value;
+
+        private final Exception exception;
+
+
+        private Result( T value, Exception exception )
+        {
+            this.value = value;
+            this.exception = exception;
+        }
+
+
+        /**
+         * Gets the parsed object.
+         *
+         * @return the parsed object, null if parsing failed
+         */
+        public T getValue()
+        {
+            return value;
+        }
+
+
+        /**
+         * Gets the exception thrown while parsing.
+         *
+         * @return the exception, null if parsing succeeded
+         */
+        public Exception getException()
+        {
+            return exception;
+        }
+    }
+}
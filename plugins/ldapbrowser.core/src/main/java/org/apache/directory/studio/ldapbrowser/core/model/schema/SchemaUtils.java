@@ -613,9 +613,9 @@ public class SchemaUtils
             return atd.getSubstringOid();
         }
 
-        if ( atd.getSuperiorOid() != null && schema.hasAttributeTypeDescription( atd.getSubstringOid() ) )
+        if ( atd.getSuperiorOid() != null && schema.hasAttributeTypeDescription( atd.getSuperiorOid() ) )
         {
-            AttributeType superior = schema.getAttributeTypeDescription( atd.getSubstringOid() );
+            AttributeType superior = schema.getAttributeTypeDescription( atd.getSuperiorOid() );
             return getSubstringMatchingRuleNameOrNumericOidTransitive( superior, schema );
         }
 
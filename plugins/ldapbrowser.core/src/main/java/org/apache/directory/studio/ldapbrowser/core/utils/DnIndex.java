@@ -0,0 +1,189 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+
+
+/**
+ * A reverse index from Dns to the objects that reference them.
+ * <p>
+ * The indexed Dns are kept in a tree, so the objects referencing a Dn or
+ * any of its descendants are found without scanning unrelated Dns. Objects
+ * are compared by identity.
+ * <p>
+ * All methods are synchronized.
+ *
+ * @param <T> the type of the referencing objects
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DnIndex<T>
+{
+    /** The referencing objects by Dn */
+    private final Map<Dn, Set<T>> referencesByDn = new HashMap<Dn, Set<T>>();
+
+    /** The child Dns of each Dn that is indexed or an ancestor of an indexed Dn */
+    private final Map<Dn, Set<Dn>> childrenByDn = new HashMap<Dn, Set<Dn>>();
+
+
+    /**
+     * Adds a reference.
+     *
+     * @param dn the Dn
+     * @param reference the object referencing the Dn
+     */
+    public synchronized void add( Dn dn, T reference )
+    {
+        Set<T> references = referencesByDn.get( dn );
+        if ( references == null )
+        {
+            references = Collections.newSetFromMap( new IdentityHashMap<T, Boolean>() );
+            referencesByDn.put( dn, references );
+            link( dn );
+        }
+        references.add( reference );
+    }
+
+
+    /**
+     * Removes a reference.
+     *
+     * @param dn the Dn
+     * @param reference the object referencing the Dn
+     */
+    public synchronized void remove( Dn dn, T reference )
+    {
+        Set<T> references = referencesByDn.get( dn );
+        if ( references != null && references.remove( reference ) && references.isEmpty() )
+        {
+            referencesByDn.remove( dn );
+            unlink( dn );
+        }
+    }
+
+
+    /**
+     * Gets the objects referencing the given Dn or one of its descendants.
+     *
+     * @param dn the Dn
+     * @return the referencing objects, a new set compared by identity
+     */
+    public synchronized Set<T> getSubtreeReferences( Dn dn )
+    {
+        Set<T> result = Collections.newSetFromMap( new IdentityHashMap<T, Boolean>() );
+
+        Deque<Dn> dns = new ArrayDeque<Dn>();
+        dns.push( dn );
+        while ( !dns.isEmpty() )
+        {
+            Dn current = dns.pop();
+
+            Set<T> references = referencesByDn.get( current );
+            if ( references != null )
+            {
+                result.addAll( references );
+            }
+
+            Set<Dn> children = childrenByDn.get( current );
+            if ( children != null )
+            {
+                for ( Dn child : children )
+                {
+                    dns.push( child );
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Removes all references.
+     */
+    public synchronized void clear()
+    {
+        referencesByDn.clear();
+        childrenByDn.clear();
+    }
+
+
+    /**
+     * Links a newly indexed Dn to its ancestors.
+     */
+    private void link( Dn dn )
+    {
+        for ( Dn child = dn; child != null && !child.isEmpty(); child = child.getParent() )
+        {
+            Dn parent = child.getParent();
+            Set<Dn> siblings = childrenByDn.get( parent );
+            if ( siblings == null )
+            {
+                siblings = new HashSet<Dn>();
+                childrenByDn.put( parent, siblings );
+            }
+            if ( !siblings.add( child ) )
+            {
+                // the ancestors are already linked
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Unlinks a Dn that is no longer indexed, and its ancestors that have no more indexed descendants.
+     */
+    private void unlink( Dn dn )
+    {
+        for ( Dn child = dn; child != null && !child.isEmpty(); child = child.getParent() )
+        {
+            if ( referencesByDn.containsKey( child ) || childrenByDn.containsKey( child ) )
+            {
+                return;
+            }
+
+            Dn parent = child.getParent();
+            Set<Dn> siblings = childrenByDn.get( parent );
+            if ( siblings == null )
+            {
+                return;
+            }
+            siblings.remove( child );
+            if ( !siblings.isEmpty() )
+            {
+                return;
+            }
+            childrenByDn.remove( parent );
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.api.dsmlv2.DsmlDecorator;
+import org.apache.directory.api.dsmlv2.ParserUtils;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.Namespace;
+import org.dom4j.io.OutputFormat;
+import org.dom4j.io.XMLWriter;
+import org.xml.sax.SAXException;
+
+
+/**
+ * Writes a DSML batch request or batch response to a stream, one request or
+ * response at a time. Unlike BatchRequestDsml.toDsml() and BatchResponseDsml.toDsml()
+ * the whole document is never kept in memory.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DsmlStreamWriter implements Closeable
+{
+    private static final String BATCH_REQUEST_TAG = "batchRequest"; //$NON-NLS-1$
+    private static final String BATCH_RESPONSE_TAG = "batchResponse"; //$NON-NLS-1$
+    private static final String SEARCH_RESPONSE_TAG = "searchResponse"; //$NON-NLS-1$
+
+    /** The XML writer */
+    private FragmentWriter writer;
+
+    /** The batch element, its children are written and detached one by one */
+    private Element batchElement;
+
+    /** The currently open search response element, null if none */
+    private Element searchResponseElement;
+
+
+    /**
+     * Creates a new instance of DsmlStreamWriter.
+     *
+     * @param stream the output stream
+     * @param batchElement the batch element
+     * @throws IOException if an I/O error occurs
+     */
+    private DsmlStreamWriter( OutputStream stream, Element batchElement ) throws IOException
+    {
+        this.batchElement = batchElement;
+
+        OutputFormat outformat = OutputFormat.createPrettyPrint();
+        outformat.setEncoding( "UTF-8" ); //$NON-NLS-1$
+        writer = new FragmentWriter( stream, outformat );
+
+        try
+        {
+            writer.startDocument();
+        }
+        catch ( SAXException e )
+        {
+            throw new IOException( e );
+        }
+
+        // the namespaces declared here are not repeated in the request or response elements
+        writer.writeOpen( batchElement );
+    }
+
+
+    /**
+     * Creates a writer for a DSML batch request.
+     *
+     * @param stream the output stream
+     * @return the writer
+     * @throws IOException if an I/O error occurs
+     */
+    public static DsmlStreamWriter createBatchRequestWriter( OutputStream stream ) throws IOException
+    {
+        Element batchElement = DocumentHelper.createDocument().addElement( BATCH_REQUEST_TAG );
+
+        return new DsmlStreamWriter( stream, batchElement );
+    }
+
+
+    /**
+     * Creates a writer for a DSML batch response.
+     *
+     * @param stream the output stream
+     * @return the writer
+     * @throws IOException if an I/O error occurs
+     */
+    public static DsmlStreamWriter createBatchResponseWriter( OutputStream stream ) throws IOException
+    {
+        Element batchElement = DocumentHelper.createDocument().addElement( BATCH_RESPONSE_TAG );
+        batchElement.add( ParserUtils.DSML_NAMESPACE );
+        batchElement.add( ParserUtils.XSD_NAMESPACE );
+        batchElement.add( ParserUtils.XSI_NAMESPACE );
+
+        return new DsmlStreamWriter( stream, batchElement );
+    }
+
+
+    /**
+     * Opens a search response, the following responses are written into it
+     * until {@link #endSearchResponse()} is called.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void startSearchResponse() throws IOException
+    {
+        searchResponseElement = batchElement.addElement( SEARCH_RESPONSE_TAG );
+        writer.println();
+        writer.writeOpen( searchResponseElement );
+    }
+
+
+    /**
+     * Closes the currently open search response.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void endSearchResponse() throws IOException
+    {
+        if ( searchResponseElement != null )
+        {
+            writer.println();
+            writer.writeClose( searchResponseElement );
+            searchResponseElement.detach();
+            searchResponseElement = null;
+        }
+    }
+
+
+    /**
+     * Writes the given request or response. If a search response is open
+     * it is written into the search response.
+     *
+     * @param decorator the DSML request or response
+     * @throws IOException if an I/O error occurs
+     */
+    public void write( DsmlDecorator<?> decorator ) throws IOException
+    {
+        Element parent = searchResponseElement != null ? searchResponseElement : batchElement;
+        decorator.toDsml( parent );
+
+        // write and release the created elements, the parent itself is already written
+        List<Element> elements = new ArrayList<Element>( parent.elements() );
+        for ( Element element : elements )
+        {
+            writer.write( element );
+            element.detach();
+        }
+    }
+
+
+    /**
+     * Closes an open search response and the batch element, and closes the stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void close() throws IOException
+    {
+        endSearchResponse();
+        writer.println();
+        writer.writeClose( batchElement );
+        writer.println();
+        writer.close();
+    }
+
+
+    /**
+     * A XML writer for the request and response elements. These elements are created
+     * without namespace by the DSML decorators and written as children of the batch
+     * element, so they must not reset the default namespace declared by the batch element.
+     */
+    private static class FragmentWriter extends XMLWriter
+    {
+        private FragmentWriter( OutputStream out, OutputFormat format ) throws IOException
+        {
+            super( out, format );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        protected boolean isNamespaceDeclaration( Namespace ns )
+        {
+            if ( ( ns != null ) && ns.getPrefix().isEmpty() && ns.getURI().isEmpty() )
+            {
+                return false;
+            }
+
+            return super.isNamespaceDeclaration( ns );
+        }
+    }
+}
@@ -77,6 +77,66 @@ public class ModelConverter
     }
 
 
+    /**
+     * Converts the given search result {@link Entry} to an {@link DummyEntry}.
+     *
+     * The result is the same as converting the entry to an {@link LdifContentRecord}
+     * and calling {@link #ldifContentRecordToEntry(LdifContentRecord, IBrowserConnection)},
+     * without creating the intermediate LDIF lines.
+     *
+     * @param searchResultEntry the search result entry to convert
+     * @param connection the connection
+     *
+     * @return the resulting dummy entry
+     *
+     * @throws org.apache.directory.api.ldap.model.exception.LdapInvalidDnException
+     */
+    public static DummyEntry searchResultEntryToEntry( Entry searchResultEntry, IBrowserConnection connection )
+        throws LdapInvalidDnException
+    {
+        EventRegistry.suspendEventFiringInCurrentThread();
+
+        try
+        {
+            DummyEntry entry = new DummyEntry( new Dn( searchResultEntry.getDn().getName() ), connection );
+
+            for ( org.apache.directory.api.ldap.model.entry.Attribute apiAttribute : searchResultEntry )
+            {
+                String attributeName = apiAttribute.getUpId();
+
+                for ( org.apache.directory.api.ldap.model.entry.Value apiValue : apiAttribute )
+                {
+                    IAttribute attribute = entry.getAttribute( attributeName );
+                    if ( attribute == null )
+                    {
+                        attribute = new Attribute( entry, attributeName );
+                        entry.addAttribute( attribute );
+                    }
+
+                    // values that must be base64 encoded in LDIF are read back as binary values
+                    Object value;
+                    if ( apiValue.isHumanReadable() )
+                    {
+                        String s = apiValue.getString();
+                        value = LdifUtils.mustEncode( s ) ? LdifUtils.utf8encode( s ) : s;
+                    }
+                    else
+                    {
+                        value = apiValue.getBytes();
+                    }
+                    attribute.addValue( new Value( attribute, value ) );
+                }
+            }
+
+            return entry;
+        }
+        finally
+        {
+            EventRegistry.resumeEventFiringInCurrentThread();
+        }
+    }
+
+
     /**
      * Converts the given {@link LdifChangeAddRecord} to an {@link DummyEntry}.
      *
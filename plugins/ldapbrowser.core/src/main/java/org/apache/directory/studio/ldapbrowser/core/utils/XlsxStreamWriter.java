@@ -0,0 +1,439 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+/**
+ * Writes a single sheet Office Open XML spreadsheet (.xlsx) with a bounded
+ * memory footprint. Rows are spooled to a temporary file as soon as they are
+ * complete, only the current row, the header names and the column widths are
+ * kept in memory. The header row is written when the writer is closed, so
+ * columns may still be added after the first rows have been written.
+ * <p>
+ * All cells are inline strings and share one of two cell styles declared
+ * once in the style sheet: the default style and a style that wraps text.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class XlsxStreamWriter implements Closeable
+{
+    /** The maximum number of rows of a sheet, including the header row */
+    public static final int MAX_ROW_COUNT = 1048576;
+
+    /** The maximum number of columns of a sheet */
+    public static final int MAX_COLUMN_COUNT = 16384;
+
+    /** The maximum number of characters of a cell */
+    public static final int MAX_CELL_LENGTH = 32767;
+
+    /** The maximum column width, in characters */
+    private static final int MAX_COLUMN_WIDTH = 255;
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"; //$NON-NLS-1$
+
+    private static final String CONTENT_TYPES = XML_DECLARATION
+        + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" //$NON-NLS-1$
+        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" //$NON-NLS-1$
+        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" //$NON-NLS-1$
+        + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" //$NON-NLS-1$
+        + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" //$NON-NLS-1$
+        + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>" //$NON-NLS-1$
+        + "</Types>"; //$NON-NLS-1$
+
+    private static final String PACKAGE_RELATIONSHIPS = XML_DECLARATION
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" //$NON-NLS-1$
+        + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>" //$NON-NLS-1$
+        + "</Relationships>"; //$NON-NLS-1$
+
+    private static final String WORKBOOK_RELATIONSHIPS = XML_DECLARATION
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" //$NON-NLS-1$
+        + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>" //$NON-NLS-1$
+        + "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>" //$NON-NLS-1$
+        + "</Relationships>"; //$NON-NLS-1$
+
+    private static final String STYLES = XML_DECLARATION
+        + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">" //$NON-NLS-1$
+        + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>" //$NON-NLS-1$
+        + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>" //$NON-NLS-1$
+        + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>" //$NON-NLS-1$
+        + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>" //$NON-NLS-1$
+        + "<cellXfs count=\"2\">" //$NON-NLS-1$
+        + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>" //$NON-NLS-1$
+        + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyAlignment=\"1\"><alignment wrapText=\"1\"/></xf>" //$NON-NLS-1$
+        + "</cellXfs>" //$NON-NLS-1$
+        + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>" //$NON-NLS-1$
+        + "</styleSheet>"; //$NON-NLS-1$
+
+    private static final String WORKSHEET_START = XML_DECLARATION
+        + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"; //$NON-NLS-1$
+
+    private static final String WORKSHEET_END = "</sheetData></worksheet>"; //$NON-NLS-1$
+
+    /** The index of the text wrapping cell style in the style sheet */
+    private static final int WRAP_STYLE = 1;
+
+    /** The target stream */
+    private OutputStream out;
+
+    /** The name of the sheet */
+    private String sheetName;
+
+    /** The temporary file the rows are spooled to */
+    private File rowsFile;
+
+    /** The writer of the temporary file */
+    private Writer rowsWriter;
+
+    /** The header names, by column index */
+    private List<String> columnNames = new ArrayList<String>();
+
+    /** The column widths in characters, by column index */
+    private List<Integer> columnWidths = new ArrayList<Integer>();
+
+    /** The cells of the current row, sorted by column index */
+    private Map<Integer, Cell> currentRow = new TreeMap<Integer, Cell>();
+
+    /** The number of rows written, excluding the header row */
+    private int rowCount;
+
+
+    /**
+     * Creates a new instance of XlsxStreamWriter.
+     *
+     * @param out the stream to write the spreadsheet to, closed when this writer is closed
+     * @param sheetName the name of the sheet
+     * @throws IOException if the temporary file can't be created
+     */
+    public XlsxStreamWriter( OutputStream out, String sheetName ) throws IOException
+    {
+        this.out = out;
+        this.sheetName = sheetName;
+        this.rowsFile = File.createTempFile( "studio-xlsx-", ".tmp" ); //$NON-NLS-1$ //$NON-NLS-2$
+        this.rowsWriter = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( rowsFile ),
+            StandardCharsets.UTF_8 ) );
+    }
+
+
+    /**
+     * Adds a header column.
+     *
+     * @param name the header name
+     * @return the index of the new column
+     */
+    public int addColumn( String name )
+    {
+        int column = columnNames.size();
+        if ( column >= MAX_COLUMN_COUNT )
+        {
+            throw new IllegalStateException( "Too many columns" ); //$NON-NLS-1$
+        }
+        columnNames.add( name );
+        columnWidths.add( 0 );
+        updateColumnWidth( column, name );
+        return column;
+    }
+
+
+    /**
+     * Gets the number of header columns.
+     *
+     * @return the number of header columns
+     */
+    public int getColumnCount()
+    {
+        return columnNames.size();
+    }
+
+
+    /**
+     * Gets the number of rows written so far, excluding the header row.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+
+    /**
+     * Sets a cell of the current row. Cells may be set in any order.
+     *
+     * @param column the column index, as returned by {@link #addColumn(String)}
+     * @param value the cell value
+     * @param wrapText true to wrap the text of the cell
+     */
+    public void setCell( int column, String value, boolean wrapText )
+    {
+        if ( column < 0 || column >= columnNames.size() )
+        {
+            throw new IndexOutOfBoundsException( "Unknown column " + column ); //$NON-NLS-1$
+        }
+        currentRow.put( column, new Cell( value, wrapText ) );
+        updateColumnWidth( column, value );
+    }
+
+
+    /**
+     * Completes the current row and spools it to the temporary file.
+     *
+     * @throws IOException if the row can't be written
+     */
+    public void endRow() throws IOException
+    {
+        if ( rowCount + 1 >= MAX_ROW_COUNT )
+        {
+            throw new IllegalStateException( "Too many rows" ); //$NON-NLS-1$
+        }
+        rowCount++;
+        writeRow( rowsWriter, rowCount + 1, currentRow );
+        currentRow.clear();
+    }
+
+
+    /**
+     * Writes the spreadsheet package to the target stream, closes it and
+     * deletes the temporary file.
+     *
+     * @throws IOException if the spreadsheet can't be written
+     */
+    public void close() throws IOException
+    {
+        try
+        {
+            rowsWriter.close();
+
+            try ( ZipOutputStream zip = new ZipOutputStream( new BufferedOutputStream( out ) ) )
+            {
+                writeEntry( zip, "[Content_Types].xml", CONTENT_TYPES ); //$NON-NLS-1$
+                writeEntry( zip, "_rels/.rels", PACKAGE_RELATIONSHIPS ); //$NON-NLS-1$
+                writeEntry( zip, "xl/workbook.xml", XML_DECLARATION //$NON-NLS-1$
+                    + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"" //$NON-NLS-1$
+                    + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" //$NON-NLS-1$
+                    + "<sheets><sheet name=\"" + escape( sheetName ) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>" //$NON-NLS-1$ //$NON-NLS-2$
+                    + "</workbook>" ); //$NON-NLS-1$
+                writeEntry( zip, "xl/_rels/workbook.xml.rels", WORKBOOK_RELATIONSHIPS ); //$NON-NLS-1$
+                writeEntry( zip, "xl/styles.xml", STYLES ); //$NON-NLS-1$
+
+                zip.putNextEntry( new ZipEntry( "xl/worksheets/sheet1.xml" ) ); //$NON-NLS-1$
+                Writer sheetWriter = new BufferedWriter( new OutputStreamWriter( zip, StandardCharsets.UTF_8 ) );
+                sheetWriter.write( WORKSHEET_START );
+                writeColumns( sheetWriter );
+                sheetWriter.write( "<sheetData>" ); //$NON-NLS-1$
+                Map<Integer, Cell> headerRow = new TreeMap<Integer, Cell>();
+                for ( int i = 0; i < columnNames.size(); i++ )
+                {
+                    headerRow.put( i, new Cell( columnNames.get( i ), false ) );
+                }
+                writeRow( sheetWriter, 1, headerRow );
+                sheetWriter.flush();
+
+                try ( InputStream in = new FileInputStream( rowsFile ) )
+                {
+                    byte[] buffer = new byte[8192];
+                    int length;
+                    while ( ( length = in.read( buffer ) ) != -1 )
+                    {
+                        zip.write( buffer, 0, length );
+                    }
+                }
+
+                sheetWriter.write( WORKSHEET_END );
+                sheetWriter.flush();
+                zip.closeEntry();
+            }
+        }
+        finally
+        {
+            rowsFile.delete();
+        }
+    }
+
+
+    private void updateColumnWidth( int column, String value )
+    {
+        if ( value != null )
+        {
+            // the longest line, plus some space, like the former HSSF export
+            int width = 0;
+            for ( String line : value.split( "\n" ) ) //$NON-NLS-1$
+            {
+                width = Math.max( width, ( int ) Math.ceil( line.length() * 1.1 ) );
+            }
+            width = Math.min( width, MAX_COLUMN_WIDTH );
+            if ( width > columnWidths.get( column ) )
+            {
+                columnWidths.set( column, width );
+            }
+        }
+    }
+
+
+    private void writeColumns( Writer writer ) throws IOException
+    {
+        if ( columnWidths.isEmpty() )
+        {
+            return;
+        }
+
+        writer.write( "<cols>" ); //$NON-NLS-1$
+        for ( int i = 0; i < columnWidths.size(); i++ )
+        {
+            int width = Math.max( columnWidths.get( i ), 8 );
+            writer.write( "<col min=\"" + ( i + 1 ) + "\" max=\"" + ( i + 1 ) + "\" width=\"" + width //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                + "\" customWidth=\"1\"/>" ); //$NON-NLS-1$
+        }
+        writer.write( "</cols>" ); //$NON-NLS-1$
+    }
+
+
+    private static void writeRow( Writer writer, int rowNum, Map<Integer, Cell> cells ) throws IOException
+    {
+        writer.write( "<row r=\"" ); //$NON-NLS-1$
+        writer.write( Integer.toString( rowNum ) );
+        writer.write( "\">" ); //$NON-NLS-1$
+        for ( Map.Entry<Integer, Cell> entry : cells.entrySet() )
+        {
+            Cell cell = entry.getValue();
+            writer.write( "<c r=\"" ); //$NON-NLS-1$
+            writer.write( getColumnName( entry.getKey() ) );
+            writer.write( Integer.toString( rowNum ) );
+            writer.write( cell.wrapText ? "\" s=\"" + WRAP_STYLE + "\"" : "\"" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            writer.write( " t=\"inlineStr\"><is><t xml:space=\"preserve\">" ); //$NON-NLS-1$
+            String value = cell.value == null ? "" : cell.value; //$NON-NLS-1$
+            if ( value.length() > MAX_CELL_LENGTH )
+            {
+                // don't split a surrogate pair
+                int end = Character.isHighSurrogate( value.charAt( MAX_CELL_LENGTH - 1 ) ) ? MAX_CELL_LENGTH - 1
+                    : MAX_CELL_LENGTH;
+                value = value.substring( 0, end );
+            }
+            writer.write( escape( value ) );
+            writer.write( "</t></is></c>" ); //$NON-NLS-1$
+        }
+        writer.write( "</row>\n" ); //$NON-NLS-1$
+    }
+
+
+    private static void writeEntry( ZipOutputStream zip, String name, String content ) throws IOException
+    {
+        zip.putNextEntry( new ZipEntry( name ) );
+        zip.write( content.getBytes( StandardCharsets.UTF_8 ) );
+        zip.closeEntry();
+    }
+
+
+    /**
+     * Gets the spreadsheet name of a column, A for 0, Z for 25, AA for 26 and so on.
+     *
+     * @param column the column index
+     * @return the column name
+     */
+    static String getColumnName( int column )
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = column + 1; i > 0; i = ( i - 1 ) / 26 )
+        {
+            sb.insert( 0, ( char ) ( 'A' + ( i - 1 ) % 26 ) );
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Escapes a string for use as XML text or attribute value. Characters
+     * that are not allowed in XML 1.0 are dropped.
+     *
+     * @param s the string
+     * @return the escaped string
+     */
+    private static String escape( String s )
+    {
+        StringBuilder sb = new StringBuilder( s.length() );
+        for ( int i = 0; i < s.length(); i++ )
+        {
+            char c = s.charAt( i );
+            switch ( c )
+            {
+                case '&':
+                    sb.append( "&amp;" ); //$NON-NLS-1$
+                    break;
+                case '<':
+                    sb.append( "&lt;" ); //$NON-NLS-1$
+                    break;
+                case '>':
+                    sb.append( "&gt;" ); //$NON-NLS-1$
+                    break;
+                case '"':
+                    sb.append( "&quot;" ); //$NON-NLS-1$
+                    break;
+                case '\r':
+                    sb.append( "&#13;" ); //$NON-NLS-1$
+                    break;
+                default:
+                    if ( c >= 0x20 || c == '\t' || c == '\n' )
+                    {
+                        if ( c != 0xFFFE && c != 0xFFFF )
+                        {
+                            sb.append( c );
+                        }
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * A cell of the current row.
+     */
+    private static class Cell
+    {
+        private String value;
+        private boolean wrapText;
+
+
+        private Cell( String value, boolean wrapText )
+        {
+            this.value = value;
+            this.wrapText = wrapText;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.name.Rdn;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.parser.LdapFilterParser;
+import org.junit.jupiter.api.Test;
+
+
+public class InitializeAttributesRunnableTest
+{
+    @Test
+    public void testRdnFilter() throws Exception
+    {
+        assertRdnFilter( "(|(cn=foo))", "cn=foo" );
+        assertRdnFilter( "(|(cn=foo)(uid=bar))", "cn=foo", "uid=bar" );
+    }
+
+
+    @Test
+    public void testRdnFilterSpecialCharacters() throws Exception
+    {
+        // the filter special characters are escaped
+        assertRdnFilter( "(|(cn=a\\2ab\\28c\\29\\5cd))", "cn=a*b(c)\\\\d" );
+
+        // the DN special characters are not escaped in the filter
+        assertRdnFilter( "(|(cn=Doe, John)(cn=a+b=c))", "cn=Doe\\, John", "cn=a\\+b\\=c" );
+        assertRdnFilter( "(|(cn=\"#foo\"))", "cn=\\\"\\#foo\\\"" );
+    }
+
+
+    @Test
+    public void testRdnFilterMultiValuedRdns() throws Exception
+    {
+        assertRdnFilter( "(|(&(cn=foo)(uid=bar)))", "cn=foo+uid=bar" );
+        assertRdnFilter( "(|(cn=a)(&(cn=b)(uid=c))(&(cn=d\\2a)(sn=e, f)(uid=g)))", "cn=a", "cn=b+uid=c",
+            "cn=d*+sn=e\\, f+uid=g" );
+    }
+
+
+    private static void assertRdnFilter( String expected, String... rdns ) throws Exception
+    {
+        List<Rdn> rdnList = new ArrayList<Rdn>();
+        for ( String rdn : rdns )
+        {
+            rdnList.add( new Rdn( rdn ) );
+        }
+
+        String filter = InitializeAttributesRunnable.getRdnFilter( rdnList );
+        assertEquals( expected, filter );
+
+        LdapFilterParser parser = new LdapFilterParser();
+        parser.parse( filter );
+        assertTrue( parser.getModel().isValid(), filter );
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.LdapFilterEvaluator;
+import org.apache.directory.studio.ldapbrowser.core.model.filter.parser.LdapFilterParser;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.junit.jupiter.api.Test;
+
+
+public class SearchRefinementTest
+{
+    private static final Schema SCHEMA = Schema.DEFAULT_SCHEMA;
+
+
+    @Test
+    public void testScopeWithin() throws Exception
+    {
+        ISearch subtree = search( "dc=example,dc=com", SearchScope.SUBTREE, null );
+        assertTrue( SearchRefinement.isScopeWithin( subtree, subtree ) );
+        assertTrue( SearchRefinement.isScopeWithin( search( "ou=users,dc=example,dc=com", SearchScope.ONELEVEL,
+            null ), subtree ) );
+        assertFalse( SearchRefinement.isScopeWithin( search( "dc=com", SearchScope.SUBTREE, null ), subtree ) );
+        assertFalse( SearchRefinement.isScopeWithin( search( "dc=example,dc=org", SearchScope.OBJECT, null ),
+            subtree ) );
+
+        ISearch oneLevel = search( "dc=example,dc=com", SearchScope.ONELEVEL, null );
+        assertTrue( SearchRefinement.isScopeWithin( search( "ou=users,dc=example,dc=com", SearchScope.OBJECT,
+            null ), oneLevel ) );
+        assertFalse( SearchRefinement.isScopeWithin( search( "ou=users,dc=example,dc=com", SearchScope.ONELEVEL,
+            null ), oneLevel ) );
+        assertFalse( SearchRefinement.isScopeWithin( search( "dc=example,dc=com", SearchScope.SUBTREE, null ),
+            oneLevel ) );
+
+        ISearch object = search( "dc=example,dc=com", SearchScope.OBJECT, null );
+        assertTrue( SearchRefinement.isScopeWithin( object, object ) );
+        assertFalse( SearchRefinement.isScopeWithin( oneLevel, object ) );
+    }
+
+
+    @Test
+    public void testScopeWithinDereferencingAliases() throws Exception
+    {
+        for ( AliasDereferencingMethod method : new AliasDereferencingMethod[]
+            { AliasDereferencingMethod.ALWAYS, AliasDereferencingMethod.FINDING, AliasDereferencingMethod.SEARCH } )
+        {
+            // the results may lie outside the base, and a narrower base may be an alias
+            ISearch subtree = search( "dc=example,dc=com", SearchScope.SUBTREE, method, null );
+            assertTrue( SearchRefinement.isScopeWithin( subtree, subtree ) );
+            assertFalse( SearchRefinement.isScopeWithin( search( "ou=users,dc=example,dc=com", SearchScope.SUBTREE,
+                method, null ), subtree ) );
+            assertFalse( SearchRefinement.isScopeWithin( search( "ou=users,dc=example,dc=com", SearchScope.OBJECT,
+                method, null ), subtree ) );
+            assertFalse( SearchRefinement.isScopeWithin( search( "dc=example,dc=com", SearchScope.ONELEVEL,
+                method, null ), subtree ) );
+
+            ISearch oneLevel = search( "dc=example,dc=com", SearchScope.ONELEVEL, method, null );
+            assertFalse( SearchRefinement.isScopeWithin( search( "ou=users,dc=example,dc=com", SearchScope.OBJECT,
+                method, null ), oneLevel ) );
+
+            // the completed search didn't dereference aliases, but the search does
+            assertFalse( SearchRefinement.isScopeWithin( search( "ou=users,dc=example,dc=com", SearchScope.SUBTREE,
+                method, null ), search( "dc=example,dc=com", SearchScope.SUBTREE, null ) ) );
+        }
+    }
+
+
+    @Test
+    public void testFilterImplied() throws Exception
+    {
+        assertTrue( isFilterImplied( "(&(objectClass=person)(cn=Foo))", null ) );
+        assertTrue( isFilterImplied( "(&(objectClass=person)(cn=Foo))", "(objectClass=*)" ) );
+        assertTrue( isFilterImplied( "(&(objectClass=person)(cn=Foo))", "(OBJECTCLASS=Person)" ) );
+        assertTrue( isFilterImplied( "(&(objectClass=person)(cn=Foo))", "(objectClass=2.5.6.6)" ) );
+        assertTrue( isFilterImplied( "(&(objectClass=person)(sn=Bar)(cn=Foo))", "(&(CN=foo)(sn=bar))" ) );
+        assertTrue( isFilterImplied( "(&(cn=Foo)(|(sn=A)(sn=B)))", "(|(sn=A)(sn=B))" ) );
+        assertTrue( isFilterImplied( "(&(cn=Foo)(uid=fb*))", "(userid=FB*)" ) );
+
+        assertFalse( isFilterImplied( "(cn=Foo)", "(sn=Foo)" ) );
+        assertFalse( isFilterImplied( "(cn=Foo)", "(&(cn=Foo)(sn=Bar))" ) );
+        assertFalse( isFilterImplied( "(|(cn=Foo)(sn=Bar))", "(cn=Foo)" ) );
+        assertFalse( isFilterImplied( "(cn=Foo)", "(cn=Foo*)" ) );
+        assertFalse( isFilterImplied( "(cn=Foo)", "(cn=" ) );
+    }
+
+
+    @Test
+    public void testFilterImpliedCaseExact() throws Exception
+    {
+        assertTrue( isFilterImplied( "(&(objectClass=posixGroup)(memberUid=foo))", "(memberUid=foo)" ) );
+        assertTrue( isFilterImplied( "(&(objectClass=posixGroup)(memberUid=foo))", "(MEMBERUID=foo)" ) );
+        assertFalse( isFilterImplied( "(&(objectClass=posixGroup)(memberUid=foo))", "(memberUid=Foo)" ) );
+        assertFalse( isFilterImplied( "(memberUid=FOO)", "(memberUid=foo)" ) );
+    }
+
+
+    @Test
+    public void testAttributesReturned() throws Exception
+    {
+        assertTrue( areAttributesReturned( "(cn=Foo)", new String[]
+            { "sn" }, new String[]
+            { "cn", "sn" } ) );
+        assertTrue( areAttributesReturned( "(userid=fbar)", new String[]
+            { "1.1" }, new String[]
+            { "uid" } ) );
+        assertTrue( areAttributesReturned( "(cn=Foo)", new String[]
+            { "createTimestamp" }, new String[]
+            { "*", "+" } ) );
+        assertTrue( areAttributesReturned( "(objectClass=person)", new String[]
+            { "cn" }, new String[]
+            { "cn" } ) );
+
+        assertFalse( areAttributesReturned( "(cn=Foo)", new String[]
+            { "mail" }, new String[]
+            { "cn", "sn" } ) );
+        assertFalse( areAttributesReturned( "(mail=*)", new String[]
+            { "cn" }, new String[]
+            { "cn", "sn" } ) );
+        assertFalse( areAttributesReturned( "(cn=Foo)", new String[]
+            { "createTimestamp" }, new String[]
+            { "*" } ) );
+        assertFalse( areAttributesReturned( "(cn=Foo)", new String[]
+            { "*" }, new String[]
+            { "cn", "sn" } ) );
+    }
+
+
+    @Test
+    public void testRequestsSubentries() throws Exception
+    {
+        assertTrue( requestsSubentries( "(objectClass=subentry)" ) );
+        assertTrue( requestsSubentries( "(OBJECTCLASS=SubEntry)" ) );
+        assertTrue( requestsSubentries( "(&(cn=Foo)(objectClass=2.5.17.0))" ) );
+        assertTrue( requestsSubentries( "(|(cn=Foo)(!(objectClass=ldapSubEntry)))" ) );
+
+        assertFalse( requestsSubentries( "(objectClass=*)" ) );
+        assertFalse( requestsSubentries( "(cn=subentry)" ) );
+        assertFalse( requestsSubentries( "(description=ldapSubEntry)" ) );
+    }
+
+
+    private static boolean isFilterImplied( String filter, String completedFilter ) throws Exception
+    {
+        return SearchRefinement.isFilterImplied( search( "dc=example,dc=com", SearchScope.SUBTREE, filter ),
+            search( "dc=example,dc=com", SearchScope.SUBTREE, completedFilter ), SCHEMA );
+    }
+
+
+    private static boolean areAttributesReturned( String filter, String[] attributes, String[] completedAttributes )
+        throws Exception
+    {
+        ISearch search = search( "dc=example,dc=com", SearchScope.SUBTREE, filter, attributes );
+        ISearch completedSearch = search( "dc=example,dc=com", SearchScope.SUBTREE, null, completedAttributes );
+        return SearchRefinement.areAttributesReturned( search, completedSearch,
+            LdapFilterEvaluator.compile( filter, SCHEMA ), SCHEMA );
+    }
+
+
+    private static boolean requestsSubentries( String filter )
+    {
+        LdapFilterParser parser = new LdapFilterParser();
+        parser.parse( filter );
+        return SearchRefinement.requestsSubentries( parser.getModel(), SCHEMA );
+    }
+
+
+    private static ISearch search( String base, SearchScope scope, String filter, String... attributes )
+        throws Exception
+    {
+        return search( base, scope, AliasDereferencingMethod.NEVER, filter, attributes );
+    }
+
+
+    private static ISearch search( String base, SearchScope scope, AliasDereferencingMethod aliasesDereferencingMethod,
+        String filter, String... attributes ) throws Exception
+    {
+        return new Search( "search", null, new Dn( base ), filter, attributes, scope, 0, 0,
+            aliasesDereferencingMethod, ReferralHandlingMethod.FOLLOW, false, null, false );
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.Test;
+
+
+public class SingleFlightTest
+{
+    /** Counted down when a caller waits for a running load */
+    private final CountDownLatch joined = new CountDownLatch( 1 );
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<String>()
+    {
+        @Override
+        void waiting( String key )
+        {
+            joined.countDown();
+        }
+    };
+
+
+    @Test
+    public void testEqualRequestsShareOneLoad() throws Exception
+    {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        Thread leader = new Thread( () -> singleFlight.run( "entry", "request", m -> {
+            loads.incrementAndGet();
+            started.countDown();
+            await( release );
+        }, newMonitor() ) );
+        leader.start();
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+        StudioProgressMonitor monitor = newMonitor();
+        Thread follower = new Thread( () -> singleFlight.run( "entry", "request", m -> loads.incrementAndGet(),
+            monitor ) );
+        follower.start();
+        assertTrue( joined.await( 10, TimeUnit.SECONDS ) );
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals( 1, loads.get() );
+    }
+
+
+    @Test
+    public void testDifferentKeysLoadInParallel() throws Exception
+    {
+        CountDownLatch bothRunning = new CountDownLatch( 2 );
+
+        Thread first = new Thread( () -> singleFlight.run( "entry1", "request", m -> {
+            bothRunning.countDown();
+            await( bothRunning );
+        }, newMonitor() ) );
+        Thread second = new Thread( () -> singleFlight.run( "entry2", "request", m -> {
+            bothRunning.countDown();
+            await( bothRunning );
+        }, newMonitor() ) );
+        first.start();
+        second.start();
+        first.join( 10000 );
+        second.join( 10000 );
+
+        assertEquals( 0, bothRunning.getCount() );
+    }
+
+
+    @Test
+    public void testDifferentRequestsForSameKeyRunOneAfterAnother() throws Exception
+    {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        Thread leader = new Thread( () -> singleFlight.run( "entry", "request1", m -> {
+            started.countDown();
+            await( release );
+            loads.incrementAndGet();
+        }, newMonitor() ) );
+        leader.start();
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+        AtomicInteger loadsSeenBySecond = new AtomicInteger( -1 );
+        Thread second = new Thread( () -> singleFlight.run( "entry", "request2", m -> {
+            loadsSeenBySecond.set( loads.getAndIncrement() );
+        }, newMonitor() ) );
+        second.start();
+        assertTrue( joined.await( 10, TimeUnit.SECONDS ) );
+        release.countDown();
+        leader.join();
+        second.join();
+
+        assertEquals( 2, loads.get() );
+        assertEquals( 1, loadsSeenBySecond.get() );
+    }
+
+
+    @Test
+    public void testErrorIsSharedWithWaitingCaller() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        Exception error = new Exception( "failed" );
+
+        StudioProgressMonitor leaderMonitor = newMonitor();
+        Thread leader = new Thread( () -> singleFlight.run( "entry", "request", m -> {
+            started.countDown();
+            await( release );
+            m.reportError( error );
+        }, leaderMonitor ) );
+        leader.start();
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+        StudioProgressMonitor followerMonitor = newMonitor();
+        Thread follower = new Thread( () -> singleFlight.run( "entry", "request", m -> {
+        }, followerMonitor ) );
+        follower.start();
+        assertTrue( joined.await( 10, TimeUnit.SECONDS ) );
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals( error, leaderMonitor.getException() );
+        assertTrue( followerMonitor.errorsReported() );
+        assertEquals( error, followerMonitor.getException() );
+    }
+
+
+    @Test
+    public void testConsecutiveFailuresOnOneMonitor() throws Exception
+    {
+        StudioProgressMonitor leaderMonitor = newMonitor();
+        Exception error1 = new Exception( "failed 1" );
+        Exception error2 = new Exception( "failed 2" );
+
+        // the first load fails on the shared monitor
+        singleFlight.run( "entry1", "request", m -> m.reportError( error1 ), leaderMonitor );
+        assertEquals( error1, leaderMonitor.getException() );
+
+        // the second load fails on the same monitor, its follower must see the error
+        StudioProgressMonitor followerMonitor = joinLoad( "entry2", leaderMonitor, error2 );
+        assertTrue( followerMonitor.errorsReported() );
+        assertEquals( error2, followerMonitor.getException() );
+        assertEquals( error1, leaderMonitor.getException() );
+    }
+
+
+    @Test
+    public void testSuccessAfterFailureOnOneMonitor() throws Exception
+    {
+        StudioProgressMonitor leaderMonitor = newMonitor();
+        singleFlight.run( "entry1", "request", m -> m.reportError( new Exception( "failed" ) ), leaderMonitor );
+
+        // the second load succeeds, the earlier error on the shared monitor isn't passed on
+        StudioProgressMonitor followerMonitor = joinLoad( "entry2", leaderMonitor, null );
+        assertFalse( followerMonitor.errorsReported() );
+    }
+
+
+    /**
+     * Runs a load of the key with the given leader monitor and lets another caller join it.
+     *
+     * @return the monitor of the joining caller
+     */
+    private StudioProgressMonitor joinLoad( String key, StudioProgressMonitor leaderMonitor, Exception error )
+        throws Exception
+    {
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        Thread leader = new Thread( () -> singleFlight.run( key, "request", m -> {
+            started.countDown();
+            await( release );
+            if ( error != null )
+            {
+                m.reportError( error );
+            }
+        }, leaderMonitor ) );
+        leader.start();
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+        StudioProgressMonitor followerMonitor = newMonitor();
+        Thread follower = new Thread( () -> singleFlight.run( key, "request", m -> {
+        }, followerMonitor ) );
+        follower.start();
+        assertTrue( joined.await( 10, TimeUnit.SECONDS ) );
+        release.countDown();
+        leader.join();
+        follower.join();
+        return followerMonitor;
+    }
+
+
+    private static StudioProgressMonitor newMonitor()
+    {
+        return new StudioProgressMonitor( new NullProgressMonitor() );
+    }
+
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 10, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
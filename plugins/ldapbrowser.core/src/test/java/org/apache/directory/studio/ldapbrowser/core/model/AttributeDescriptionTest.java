@@ -0,0 +1,67 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.model;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.apache.directory.studio.ldapbrowser.core.model.schema.AttributeTypeInfo;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.junit.jupiter.api.Test;
+
+
+public class AttributeDescriptionTest
+{
+    @Test
+    public void testToOidString()
+    {
+        Schema schema = Schema.DEFAULT_SCHEMA;
+
+        assertEquals( "2.5.4.3", new AttributeDescription( "cn" ).toOidString( schema ) );
+        assertEquals( "2.5.4.3;lang-de;binary", new AttributeDescription( "CN;binary;lang-de" ).toOidString( schema ) );
+        assertEquals( "cn;lang-de", new AttributeDescription( "cn;lang-de" ).toOidString( null ) );
+    }
+
+
+    @Test
+    public void testInternedAttributeDescription()
+    {
+        Schema schema = Schema.DEFAULT_SCHEMA;
+
+        AttributeDescription ad = schema.getAttributeDescription( "givenName;lang-de" );
+        assertSame( ad, schema.getAttributeDescription( "givenName;lang-de" ) );
+        assertNotSame( ad, schema.getAttributeDescription( "givenname;lang-de" ) );
+        assertEquals( "2.5.4.42;lang-de", ad.toOidString( schema ) );
+        assertEquals( new AttributeDescription( "givenName;lang-de" ).toOidString( schema ), ad.toOidString( schema ) );
+
+        // the info is shared by all descriptions of the same attribute type
+        AttributeTypeInfo info = ad.getAttributeTypeInfo();
+        assertSame( info, schema.getAttributeTypeInfo( "2.5.4.42" ) );
+        assertSame( info, schema.getAttributeDescription( "GN" ).getAttributeTypeInfo() );
+        assertEquals( "2.5.4.42", info.getNumericOid() );
+
+        // the syntax and matching rules are inherited from name
+        assertEquals( "1.3.6.1.4.1.1466.115.121.1.15", info.getSyntaxNumericOid() );
+        assertEquals( "caseIgnoreMatch", info.getEqualityMatchingRule() );
+        assertEquals( "caseIgnoreSubstringsMatch", info.getSubstringMatchingRule() );
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.filter;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
+import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class LdapFilterEvaluatorTest
+{
+    private IEntry entry;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        DummyConnection connection = new DummyConnection( Schema.DEFAULT_SCHEMA );
+
+        LdifContentRecord record = new LdifContentRecord( LdifDnLine.create( "cn=Foo Bar,ou=users,dc=example,dc=com" ) );
+        record.addAttrVal( LdifAttrValLine.create( "objectClass", "top" ) );
+        record.addAttrVal( LdifAttrValLine.create( "objectClass", "inetOrgPerson" ) );
+        record.addAttrVal( LdifAttrValLine.create( "cn", "Foo Bar" ) );
+        record.addAttrVal( LdifAttrValLine.create( "sn", "Bar" ) );
+        record.addAttrVal( LdifAttrValLine.create( "givenName", "Foo" ) );
+        record.addAttrVal( LdifAttrValLine.create( "uid", "fbar" ) );
+        record.addAttrVal( LdifAttrValLine.create( "employeeNumber", "42" ) );
+        entry = ModelConverter.ldifContentRecordToEntry( record, connection );
+    }
+
+
+    @Test
+    public void testPresenceAndEquality()
+    {
+        assertTrue( matches( "(objectClass=*)" ) );
+        assertTrue( matches( "(objectClass=INETORGPERSON)" ) );
+        assertTrue( matches( "(cn=foo   bar)" ) );
+        assertTrue( matches( "(uid=FBAR)" ) );
+        assertFalse( matches( "(mail=*)" ) );
+        assertFalse( matches( "(cn=foo)" ) );
+    }
+
+
+    @Test
+    public void testSubtypes()
+    {
+        // cn, sn and givenName are subtypes of name
+        assertTrue( matches( "(name=foo)" ) );
+        assertTrue( matches( "(name=bar)" ) );
+        assertFalse( matches( "(name=fbar)" ) );
+    }
+
+
+    @Test
+    public void testSubstrings()
+    {
+        assertTrue( matches( "(cn=foo*)" ) );
+        assertTrue( matches( "(cn=*BAR)" ) );
+        assertTrue( matches( "(cn=f*o*r)" ) );
+        assertFalse( matches( "(cn=bar*)" ) );
+    }
+
+
+    @Test
+    public void testBooleanOperators()
+    {
+        assertTrue( matches( "(&(objectClass=person)(sn=bar))" ) );
+        assertTrue( matches( "(|(sn=foo)(givenName=foo))" ) );
+        assertTrue( matches( "(!(uid=foo))" ) );
+        assertFalse( matches( "(&(objectClass=person)(!(sn=bar)))" ) );
+    }
+
+
+    @Test
+    public void testObjectClassHierarchy()
+    {
+        // person and top are superior classes of inetOrgPerson
+        assertTrue( matches( "(objectClass=person)" ) );
+        assertTrue( matches( "(objectClass=organizationalPerson)" ) );
+        assertFalse( matches( "(objectClass=groupOfNames)" ) );
+    }
+
+
+    @Test
+    public void testNotLocallyEvaluable()
+    {
+        assertNull( LdapFilterEvaluator.compile( "(cn~=foo)", Schema.DEFAULT_SCHEMA ) );
+        assertNull( LdapFilterEvaluator.compile( "(cn:caseExactMatch:=Foo Bar)", Schema.DEFAULT_SCHEMA ) );
+        assertNull( LdapFilterEvaluator.compile( "(cn=foo", Schema.DEFAULT_SCHEMA ) );
+        assertNull( LdapFilterEvaluator.compile( "(unknownAttribute=foo)", Schema.DEFAULT_SCHEMA ) );
+    }
+
+
+    @Test
+    public void testAttributeDescriptions()
+    {
+        LdapFilterEvaluator evaluator = LdapFilterEvaluator.compile( "(&(CN=foo)(|(sn=bar)(givenName=*)))",
+            Schema.DEFAULT_SCHEMA );
+        assertNotNull( evaluator );
+        assertEquals( 3, evaluator.getAttributeDescriptions().size() );
+        assertTrue( evaluator.getAttributeDescriptions().contains( "cn" ) );
+        assertTrue( evaluator.getAttributeDescriptions().contains( "givenname" ) );
+    }
+
+
+    @Test
+    public void testMatchesSubstring()
+    {
+        assertTrue( LdapFilterEvaluator.matchesSubstring( "foobar", new String[]
+            { "foo", "" } ) );
+        assertTrue( LdapFilterEvaluator.matchesSubstring( "foobar", new String[]
+            { "", "o", "a", "" } ) );
+        assertTrue( LdapFilterEvaluator.matchesSubstring( "foobar", new String[]
+            { "", "bar" } ) );
+        assertFalse( LdapFilterEvaluator.matchesSubstring( "foobar", new String[]
+            { "foob", "bar" } ) );
+        assertFalse( LdapFilterEvaluator.matchesSubstring( "foobar", new String[]
+            { "", "a", "o", "" } ) );
+    }
+
+
+    @Test
+    public void testUnescape()
+    {
+        assertArrayEquals( "foo".getBytes( StandardCharsets.UTF_8 ), LdapFilterEvaluator.unescape( "foo" ) );
+        assertArrayEquals( "a*b(c)".getBytes( StandardCharsets.UTF_8 ),
+            LdapFilterEvaluator.unescape( "a\\2ab\\28c\\29" ) );
+        assertArrayEquals( new byte[]
+            { ( byte ) 0xC3, ( byte ) 0xA4 }, LdapFilterEvaluator.unescape( "\\c3\\A4" ) );
+        assertNull( LdapFilterEvaluator.unescape( "foo\\4" ) );
+        assertNull( LdapFilterEvaluator.unescape( "foo\\zz" ) );
+    }
+
+
+    private boolean matches( String filter )
+    {
+        LdapFilterEvaluator evaluator = LdapFilterEvaluator.compile( filter, Schema.DEFAULT_SCHEMA );
+        assertNotNull( evaluator, filter );
+        return evaluator.matches( entry );
+    }
+}
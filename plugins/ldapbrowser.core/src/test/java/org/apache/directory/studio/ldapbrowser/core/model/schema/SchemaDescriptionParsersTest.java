@@ -0,0 +1,68 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.schema;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaDescriptionParsers.Result;
+import org.junit.jupiter.api.Test;
+
+
+public class SchemaDescriptionParsersTest
+{
+    @Test
+    public void testParseKeepsOrder()
+    {
+        List<String> descriptions = new ArrayList<String>();
+        for ( int i = 0; i < SchemaDescriptionParsers.PARALLEL_THRESHOLD * 10; i++ )
+        {
+            descriptions.add( "( 1.2.3." + i + " NAME 'at" + i + "' SYNTAX 1.3.6.1.4.1.1466.115.121.1.15 )" );
+        }
+        descriptions.set( 42, "( 1.2.3.42 NAME " );
+
+        List<Result<AttributeType>> results = SchemaDescriptionParsers.parse( descriptions,
+            ( parsers, description ) -> parsers.parseAttributeType( description ) );
+
+        assertEquals( descriptions.size(), results.size() );
+        for ( int i = 0; i < descriptions.size(); i++ )
+        {
+            Result<AttributeType> result = results.get( i );
+            if ( i == 42 )
+            {
+                assertNull( result.getValue() );
+                assertNotNull( result.getException() );
+            }
+            else
+            {
+                assertNull( result.getException() );
+                assertNotNull( result.getValue() );
+                assertEquals( "1.2.3." + i, result.getValue().getOid() );
+                assertEquals( "at" + i, result.getValue().getName() );
+            }
+        }
+    }
+}
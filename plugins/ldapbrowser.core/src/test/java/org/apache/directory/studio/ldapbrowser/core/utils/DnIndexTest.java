@@ -0,0 +1,111 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.junit.jupiter.api.Test;
+
+
+public class DnIndexTest
+{
+    private static final String SEARCH1 = "search1";
+
+    private static final String SEARCH2 = "search2";
+
+
+    @Test
+    public void testExactAndSubtreeReferences() throws Exception
+    {
+        DnIndex<String> index = new DnIndex<String>();
+        index.add( new Dn( "uid=user.1,ou=users,dc=example,dc=com" ), SEARCH1 );
+        index.add( new Dn( "uid=user.2,ou=users,dc=example,dc=com" ), SEARCH2 );
+        index.add( new Dn( "ou=groups,dc=example,dc=com" ), SEARCH2 );
+
+        assertEquals( set( SEARCH1 ), index.getSubtreeReferences( new Dn( "uid=user.1,ou=users,dc=example,dc=com" ) ) );
+        assertEquals( set( SEARCH1, SEARCH2 ), index.getSubtreeReferences( new Dn( "ou=users,dc=example,dc=com" ) ) );
+        assertEquals( set( SEARCH2 ), index.getSubtreeReferences( new Dn( "ou=groups,dc=example,dc=com" ) ) );
+        assertEquals( set( SEARCH1, SEARCH2 ), index.getSubtreeReferences( new Dn( "dc=com" ) ) );
+        assertTrue( index.getSubtreeReferences( new Dn( "ou=other,dc=example,dc=com" ) ).isEmpty() );
+        assertTrue( index.getSubtreeReferences( new Dn( "dc=org" ) ).isEmpty() );
+    }
+
+
+    @Test
+    public void testRemove() throws Exception
+    {
+        DnIndex<String> index = new DnIndex<String>();
+        Dn user1 = new Dn( "uid=user.1,ou=users,dc=example,dc=com" );
+        Dn users = new Dn( "ou=users,dc=example,dc=com" );
+        index.add( user1, SEARCH1 );
+        index.add( user1, SEARCH2 );
+        index.add( users, SEARCH1 );
+
+        index.remove( user1, SEARCH1 );
+        assertEquals( set( SEARCH2 ), index.getSubtreeReferences( user1 ) );
+        assertEquals( set( SEARCH1, SEARCH2 ), index.getSubtreeReferences( users ) );
+
+        index.remove( user1, SEARCH2 );
+        assertTrue( index.getSubtreeReferences( user1 ).isEmpty() );
+        assertEquals( set( SEARCH1 ), index.getSubtreeReferences( users ) );
+
+        index.remove( users, SEARCH1 );
+        assertTrue( index.getSubtreeReferences( new Dn( "dc=com" ) ).isEmpty() );
+
+        // re-adding after the tree was pruned
+        index.add( user1, SEARCH1 );
+        assertEquals( set( SEARCH1 ), index.getSubtreeReferences( new Dn( "dc=com" ) ) );
+
+        index.clear();
+        assertTrue( index.getSubtreeReferences( new Dn( "dc=com" ) ).isEmpty() );
+    }
+
+
+    @Test
+    public void testReferencesAreComparedByIdentity() throws Exception
+    {
+        DnIndex<String> index = new DnIndex<String>();
+        Dn dn = new Dn( "ou=users,dc=example,dc=com" );
+        String reference1 = new String( SEARCH1 );
+        String reference2 = new String( SEARCH1 );
+        index.add( dn, reference1 );
+        index.add( dn, reference2 );
+
+        assertEquals( 2, index.getSubtreeReferences( dn ).size() );
+
+        index.remove( dn, reference1 );
+        Set<String> references = index.getSubtreeReferences( dn );
+        assertEquals( 1, references.size() );
+        assertTrue( references.iterator().next() == reference2 );
+    }
+
+
+    private static Set<String> set( String... values )
+    {
+        return new HashSet<String>( Arrays.asList( values ) );
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.directory.api.dsmlv2.DsmlDecorator;
+import org.apache.directory.api.dsmlv2.Dsmlv2Parser;
+import org.apache.directory.api.dsmlv2.request.AddRequestDsml;
+import org.apache.directory.api.dsmlv2.response.AddResponseDsml;
+import org.apache.directory.api.dsmlv2.response.SearchResultDoneDsml;
+import org.apache.directory.api.dsmlv2.response.SearchResultEntryDsml;
+import org.apache.directory.api.ldap.codec.api.LdapApiService;
+import org.apache.directory.api.ldap.codec.api.LdapApiServiceFactory;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.message.Request;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.SearchResultDoneImpl;
+import org.junit.jupiter.api.Test;
+
+
+public class DsmlStreamWriterTest
+{
+    private LdapApiService codec = LdapApiServiceFactory.getSingleton();
+
+
+    @Test
+    public void testBatchRequest() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( DsmlStreamWriter writer = DsmlStreamWriter.createBatchRequestWriter( out ) )
+        {
+            for ( int i = 0; i < 3; i++ )
+            {
+                AddRequestDsml addRequest = new AddRequestDsml( codec );
+                addRequest.setEntry( new DefaultEntry( "cn=user" + i + ",dc=example,dc=com", "objectClass: person",
+                    "cn: user" + i, "sn: user" ) );
+                writer.write( addRequest );
+            }
+        }
+
+        Dsmlv2Parser parser = new Dsmlv2Parser( false );
+        parser.setInput( new ByteArrayInputStream( out.toByteArray() ), "UTF-8" );
+
+        for ( int i = 0; i < 3; i++ )
+        {
+            DsmlDecorator<? extends Request> request = parser.getNextRequest();
+            AddRequestDsml addRequest = ( AddRequestDsml ) request;
+            assertEquals( "cn=user" + i + ",dc=example,dc=com", addRequest.getEntryDn().getName() );
+        }
+        assertNull( parser.getNextRequest() );
+    }
+
+
+    @Test
+    public void testBatchResponse() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( DsmlStreamWriter writer = DsmlStreamWriter.createBatchResponseWriter( out ) )
+        {
+            AddResponseDsml addResponse = new AddResponseDsml( codec );
+            addResponse.getLdapResult().setResultCode( ResultCodeEnum.SUCCESS );
+            writer.write( addResponse );
+
+            writer.startSearchResponse();
+            SearchResultEntryDsml searchResultEntry = new SearchResultEntryDsml( codec );
+            searchResultEntry.setEntry( new DefaultEntry( "cn=user,dc=example,dc=com", "cn: user" ) );
+            writer.write( searchResultEntry );
+            SearchResultDone searchResultDone = new SearchResultDoneImpl();
+            searchResultDone.getLdapResult().setResultCode( ResultCodeEnum.SUCCESS );
+            writer.write( new SearchResultDoneDsml( codec, searchResultDone ) );
+            writer.endSearchResponse();
+        }
+
+        String dsml = new String( out.toByteArray(), StandardCharsets.UTF_8 );
+        assertFalse( dsml.contains( "xmlns=\"\"" ) ); //$NON-NLS-1$
+        assertTrue( dsml.contains( "<searchResponse>" ) ); //$NON-NLS-1$
+        assertTrue( dsml.contains( "<searchResultEntry dn=\"cn=user,dc=example,dc=com\">" ) ); //$NON-NLS-1$
+        assertTrue( dsml.trim().endsWith( "</batchResponse>" ) ); //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+
+
+public class XlsxStreamWriterTest
+{
+    @Test
+    public void testGetColumnName()
+    {
+        assertEquals( "A", XlsxStreamWriter.getColumnName( 0 ) );
+        assertEquals( "Z", XlsxStreamWriter.getColumnName( 25 ) );
+        assertEquals( "AA", XlsxStreamWriter.getColumnName( 26 ) );
+        assertEquals( "AZ", XlsxStreamWriter.getColumnName( 51 ) );
+        assertEquals( "BA", XlsxStreamWriter.getColumnName( 52 ) );
+        assertEquals( "XFD", XlsxStreamWriter.getColumnName( XlsxStreamWriter.MAX_COLUMN_COUNT - 1 ) );
+    }
+
+
+    @Test
+    public void testLateColumns() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( XlsxStreamWriter writer = new XlsxStreamWriter( out, "Export" ) )
+        {
+            int dn = writer.addColumn( "dn" );
+            writer.setCell( dn, "cn=a<b,dc=example", false );
+            writer.endRow();
+
+            // a column discovered after the first row
+            int street = writer.addColumn( "street" );
+            writer.setCell( street, "line1\nline2", true );
+            writer.setCell( dn, "cn=c,dc=example", false );
+            writer.endRow();
+
+            assertEquals( 2, writer.getRowCount() );
+        }
+
+        Map<String, String> entries = readEntries( out.toByteArray() );
+
+        assertTrue( entries.containsKey( "[Content_Types].xml" ) );
+        assertTrue( entries.containsKey( "xl/workbook.xml" ) );
+        assertTrue( entries.containsKey( "xl/styles.xml" ) );
+        String sheet = entries.get( "xl/worksheets/sheet1.xml" );
+        assertTrue( sheet.contains( "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t xml:space=\"preserve\">dn</t></is></c>"
+            + "<c r=\"B1\" t=\"inlineStr\"><is><t xml:space=\"preserve\">street</t></is></c></row>" ) );
+        assertTrue( sheet.contains( "<c r=\"A2\" t=\"inlineStr\"><is><t xml:space=\"preserve\">cn=a&lt;b,dc=example</t>" ) );
+        assertTrue( sheet.contains( "<c r=\"A3\" t=\"inlineStr\"><is><t xml:space=\"preserve\">cn=c,dc=example</t></is></c>"
+            + "<c r=\"B3\" s=\"1\" t=\"inlineStr\">" ) );
+        assertTrue( sheet.endsWith( "</sheetData></worksheet>" ) );
+    }
+
+
+    @Test
+    public void testTruncateLongValue() throws Exception
+    {
+        StringBuilder prefix = new StringBuilder();
+        for ( int i = 0; i < XlsxStreamWriter.MAX_CELL_LENGTH - 1; i++ )
+        {
+            prefix.append( 'a' );
+        }
+
+        // the cut would land between the two chars of U+1F600
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( XlsxStreamWriter writer = new XlsxStreamWriter( out, "Export" ) )
+        {
+            int value = writer.addColumn( "value" );
+            writer.setCell( value, prefix + "\uD83D\uDE00b", false );
+            writer.endRow();
+            writer.setCell( value, prefix + "bc", false );
+            writer.endRow();
+        }
+
+        String sheet = readEntries( out.toByteArray() ).get( "xl/worksheets/sheet1.xml" );
+        assertTrue( sheet.contains( "<c r=\"A2\" t=\"inlineStr\"><is><t xml:space=\"preserve\">" + prefix + "</t>" ) );
+        assertTrue( sheet.contains( "<c r=\"A3\" t=\"inlineStr\"><is><t xml:space=\"preserve\">" + prefix + "b</t>" ) );
+    }
+
+
+    private static Map<String, String> readEntries( byte[] xlsx ) throws Exception
+    {
+        Map<String, String> entries = new HashMap<String, String>();
+        try ( ZipInputStream zip = new ZipInputStream( new ByteArrayInputStream( xlsx ) ) )
+        {
+            ZipEntry entry;
+            while ( ( entry = zip.getNextEntry() ) != null )
+            {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                int length;
+                while ( ( length = zip.read( buffer ) ) != -1 )
+                {
+                    content.write( buffer, 0, length );
+                }
+                entries.put( entry.getName(), new String( content.toByteArray(), StandardCharsets.UTF_8 ) );
+            }
+        }
+        return entries;
+    }
+}
@@ -212,6 +212,8 @@ public final class BrowserUIConstants
         .getString( "View_ModificationLogsView_id" ); //$NON-NLS-1$
     public static final String VIEW_SEARCH_LOGS_VIEW = BrowserUIPlugin.getDefault().getPluginProperties()
         .getString( "View_SearchLogsView_id" ); //$NON-NLS-1$
+    public static final String VIEW_LDAP_METRICS_VIEW = BrowserUIPlugin.getDefault().getPluginProperties()
+        .getString( "View_LdapMetricsView_id" ); //$NON-NLS-1$
 
     public static final String WIZARD_BATCH_OPERATION = BrowserUIPlugin.getDefault().getPluginProperties()
         .getString( "NewWizard_BatchOperationWizard_id" ); //$NON-NLS-1$
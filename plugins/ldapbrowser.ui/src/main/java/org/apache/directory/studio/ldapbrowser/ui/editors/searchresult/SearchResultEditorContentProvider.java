@@ -21,6 +21,7 @@
 package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
 
 
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
@@ -54,6 +55,9 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
     /** The filtered and sorted elements. */
     private Object[] filteredAndSortedElements;
 
+    /** The view model of the elements, created when first filtered or sorted. */
+    private SearchResultEditorViewModel viewModel;
+
 
     /**
      * Creates a new instance of SearchResultEditorContentProvider.
@@ -81,6 +85,7 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
         configuration = null;
         elements = null;
         filteredAndSortedElements = null;
+        viewModel = null;
     }
 
 
@@ -95,8 +100,22 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
 
 
     /**
-     * Filters and sorts the viewer.
+     * Updates the view model after the given entry was modified, so that the next
+     * filtering and sorting uses the new values.
+     * 
+     * @param entry the modified entry, null if any entry may have been modified
      */
+    public void entryUpdated( IEntry entry )
+    {
+        if ( viewModel != null )
+        {
+            viewModel.update( entry );
+        }
+    }
+
+
+    /**
+     * Filters and sorts the viewer.
     private void filterAndSort()
     {
         filteredAndSortedElements = elements;
@@ -116,8 +135,12 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
             else if ( elements.length > 0 && mainWidget.getViewer() != null
                 && !mainWidget.getViewer().getTable().isDisposed() )
             {
-                filteredAndSortedElements = configuration.getFilter().filter( mainWidget.getViewer(), "", elements ); //$NON-NLS-1$
-                configuration.getSorter().sort( mainWidget.getViewer(), filteredAndSortedElements );
+                if ( viewModel == null || viewModel.getElements() != elements )
+                {
+                    viewModel = new SearchResultEditorViewModel( elements );
+                }
+                int[] rows = configuration.getFilter().filter( viewModel, ( ISearch ) input );
+                filteredAndSortedElements = configuration.getSorter().sort( viewModel, rows );
             }
         }
 
@@ -192,6 +215,7 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
     {
         this.input = newInput;
         this.elements = getElements( newInput );
+        this.viewModel = null;
     }
 
 
@@ -120,6 +120,27 @@ public class SearchResultEditorFilter extends ViewerFilter
     }
 
 
+    /**
+     * Filters the rows of the given view model.
+     * 
+     * @param viewModel the view model
+     * @param search the search
+     * 
+     * @return the indices of the rows that pass the filter
+     */
+    public int[] filter( SearchResultEditorViewModel viewModel, ISearch search )
+    {
+        if ( isFiltered() )
+        {
+            return viewModel.filter( quickFilterValue, search.getReturningAttributes(), showDn );
+        }
+        else
+        {
+            return viewModel.getAllRows();
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
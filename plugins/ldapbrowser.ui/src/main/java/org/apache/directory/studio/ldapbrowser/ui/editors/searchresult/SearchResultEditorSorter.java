@@ -254,6 +254,48 @@ public class SearchResultEditorSorter extends ViewerSorter implements SelectionL
     }
 
 
+    /**
+     * Sorts the given rows of the view model.
+     * 
+     * @param viewModel the view model
+     * @param rows the indices of the rows to sort
+     * 
+     * @return the sorted elements
+     */
+    public Object[] sort( SearchResultEditorViewModel viewModel, int[] rows )
+    {
+        if ( search == null || !isSorted() )
+        {
+            return viewModel.getElements( rows );
+        }
+
+        return viewModel.sort( rows, getSortAttributeName(),
+            sortOrder == BrowserCoreConstants.SORT_ORDER_ASCENDING );
+    }
+
+
+    /**
+     * Gets the attribute name of the sort column.
+     * 
+     * @return the attribute name of the sort column, {@link BrowserUIConstants#DN} for the Dn column
+     */
+    private String getSortAttributeName()
+    {
+        if ( showDn && ( sortBy == 0 ) )
+        {
+            return BrowserUIConstants.DN;
+        }
+        else if ( showDn && ( sortBy > 0 ) )
+        {
+            return search.getReturningAttributes()[sortBy - 1];
+        }
+        else
+        {
+            return search.getReturningAttributes()[sortBy];
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -287,20 +329,7 @@ public class SearchResultEditorSorter extends ViewerSorter implements SelectionL
         }
         else
         {
-            String attributeName;
-
-            if ( showDn && ( sortBy == 0 ) )
-            {
-                attributeName = BrowserUIConstants.DN;
-            }
-            else if ( showDn && ( sortBy > 0 ) )
-            {
-                attributeName = search.getReturningAttributes()[sortBy - 1];
-            }
-            else
-            {
-                attributeName = search.getReturningAttributes()[sortBy];
-            }
+            String attributeName = getSortAttributeName();
 
             if ( attributeName == BrowserUIConstants.DN )
             {
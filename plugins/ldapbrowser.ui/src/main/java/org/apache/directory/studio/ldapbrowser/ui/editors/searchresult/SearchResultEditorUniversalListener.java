@@ -24,6 +24,7 @@ package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonConstants;
 import org.apache.directory.studio.ldapbrowser.common.actions.BrowserSelectionUtils;
+import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EmptyValueAddedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryUpdateListener;
@@ -538,6 +539,10 @@ public class SearchResultEditorUniversalListener implements SearchUpdateListener
      */
     public void entryUpdated( EntryModificationEvent event )
     {
+        // keep the sort keys and the quick filter index up to date, a bulk modification may affect any entry
+        editor.getConfiguration().getContentProvider( editor.getMainWidget() ).entryUpdated(
+            event instanceof BulkModificationEvent ? null : event.getModifiedEntry() );
+
         if ( event instanceof EmptyValueAddedEvent && !editor.getActionGroup().isEditorActive() )
         {
             EmptyValueAddedEvent evae = ( EmptyValueAddedEvent ) event;
@@ -0,0 +1,436 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
+
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
+
+
+/**
+ * The view model of the search result editor. It is created once per search result
+ * and holds what is needed to filter and sort the rows without walking the
+ * entries again: the sort keys of each column and a text index for the quick
+ * filter. Both are computed lazily when first needed.
+ * 
+ * The quick filter is incremental: if the new filter value contains the previous
+ * one only the rows that passed the previous filter value are checked.
+ * 
+ * When an entry is modified {@link #update(IEntry)} must be called, otherwise the
+ * rows are filtered and sorted by the old values.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SearchResultEditorViewModel
+{
+
+    /** Above this number of rows the rows are sorted in parallel. */
+    private static final int PARALLEL_SORT_THRESHOLD = 10000;
+
+    /** The separator of the values in the text index, can't be part of a quick filter value. */
+    private static final char TEXT_SEPARATOR = '\u0000';
+
+    /** The elements, unfiltered and unsorted. */
+    private Object[] elements;
+
+    /** The sort keys of each column, by attribute name. */
+    private Map<String, String[]> sortKeysMap = new HashMap<String, String[]>();
+
+    /** The returning attributes the text index was built for. */
+    private String[] textIndexAttributes;
+
+    /** The upper-cased string values of each row. */
+    private String[] textIndex;
+
+    /** The upper-cased Dn of each row. */
+    private String[] dnTextIndex;
+
+    /** The previous quick filter value, upper-cased. */
+    private String previousFilterValue;
+
+    /** The show Dn flag of the previous quick filter. */
+    private boolean previousShowDn;
+
+    /** The rows that passed the previous quick filter. */
+    private int[] previousFilteredRows;
+
+
+    /**
+     * Creates a new instance of SearchResultEditorViewModel.
+     * 
+     * @param elements the elements, unfiltered and unsorted
+     */
+    public SearchResultEditorViewModel( Object[] elements )
+    {
+        this.elements = elements;
+    }
+
+
+    /**
+     * Gets the elements.
+     * 
+     * @return the elements, unfiltered and unsorted
+     */
+    public Object[] getElements()
+    {
+        return elements;
+    }
+
+
+    /**
+     * Gets all rows.
+     * 
+     * @return the indices of all rows
+     */
+    public int[] getAllRows()
+    {
+        int[] rows = new int[elements.length];
+        for ( int i = 0; i < rows.length; i++ )
+        {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+
+    /**
+     * Gets the rows that pass the quick filter: rows with a string value of 
+     * one of the returning attributes containing the quick filter value, ignoring 
+     * case, or with such a Dn if the Dn is shown.
+     * 
+     * @param quickFilterValue the quick filter value
+     * @param returningAttributes the returning attributes
+     * @param showDn the show Dn flag
+     * 
+     * @return the indices of the passing rows, in ascending order
+     */
+    public int[] filter( String quickFilterValue, String[] returningAttributes, boolean showDn )
+    {
+        if ( textIndex == null || !Arrays.equals( textIndexAttributes, returningAttributes ) )
+        {
+            buildTextIndex( returningAttributes );
+        }
+        if ( showDn && dnTextIndex == null )
+        {
+            buildDnTextIndex();
+        }
+
+        String filterValue = quickFilterValue.toUpperCase();
+
+        // narrowing: only check the rows that passed the previous filter value
+        int[] candidates;
+        if ( previousFilteredRows != null && previousShowDn == showDn && filterValue.contains( previousFilterValue ) )
+        {
+            candidates = previousFilteredRows;
+        }
+        else
+        {
+            candidates = getAllRows();
+        }
+
+        int[] rows = new int[candidates.length];
+        int count = 0;
+        for ( int row : candidates )
+        {
+            if ( textIndex[row] == null || textIndex[row].indexOf( filterValue ) > -1
+                || ( showDn && dnTextIndex[row] != null && dnTextIndex[row].indexOf( filterValue ) > -1 ) )
+            {
+                rows[count++] = row;
+            }
+        }
+        rows = Arrays.copyOf( rows, count );
+
+        previousFilterValue = filterValue;
+        previousShowDn = showDn;
+        previousFilteredRows = rows;
+
+        return rows;
+    }
+
+
+    /**
+     * Updates the sort keys and the text index of the rows that show the given entry,
+     * after the entry was modified.
+     * 
+     * @param entry the modified entry, null if any entry may have been modified
+     * 
+     * @return true if the given entry is shown in one of the rows
+     */
+    public boolean update( IEntry entry )
+    {
+        if ( entry == null )
+        {
+            sortKeysMap.clear();
+            textIndex = null;
+            dnTextIndex = null;
+            previousFilteredRows = null;
+            return true;
+        }
+
+        boolean contained = false;
+        StringBuilder sb = new StringBuilder();
+        for ( int row = 0; row < elements.length; row++ )
+        {
+            if ( elements[row] instanceof ISearchResult && ( ( ISearchResult ) elements[row] ).getEntry() == entry )
+            {
+                contained = true;
+                for ( Map.Entry<String, String[]> sortKeys : sortKeysMap.entrySet() )
+                {
+                    sortKeys.getValue()[row] = toSortKey( getSortValue( elements[row], sortKeys.getKey() ) );
+                }
+                if ( textIndex != null )
+                {
+                    textIndex[row] = getText( ( ISearchResult ) elements[row], textIndexAttributes, sb );
+                }
+                if ( dnTextIndex != null )
+                {
+                    dnTextIndex[row] = ( ( ISearchResult ) elements[row] ).getDn().getName().toUpperCase();
+                }
+            }
+        }
+
+        if ( contained )
+        {
+            // the modified rows may pass a narrowed filter value now
+            previousFilteredRows = null;
+        }
+        return contained;
+    }
+
+
+    /**
+     * Sorts the given rows by the given column. The sort is stable, rows without
+     * value are sorted before rows with value.
+     * 
+     * @param rows the indices of the rows to sort
+     * @param attributeName the attribute name of the column, {@link BrowserUIConstants#DN} for the Dn column
+     * @param ascending true to sort ascending, false to sort descending
+     * 
+     * @return the sorted elements
+     */
+    public Object[] sort( int[] rows, String attributeName, boolean ascending )
+    {
+        final String[] sortKeys = getSortKeys( attributeName );
+
+        Integer[] sortedRows = new Integer[rows.length];
+        for ( int i = 0; i < rows.length; i++ )
+        {
+            sortedRows[i] = rows[i];
+        }
+
+        Comparator<Integer> comparator = ( row1, row2 ) -> compareKeys( sortKeys[row1], sortKeys[row2] );
+        if ( !ascending )
+        {
+            comparator = comparator.reversed();
+        }
+
+        if ( sortedRows.length > PARALLEL_SORT_THRESHOLD )
+        {
+            Arrays.parallelSort( sortedRows, comparator );
+        }
+        else
+        {
+            Arrays.sort( sortedRows, comparator );
+        }
+
+        Object[] sortedElements = new Object[sortedRows.length];
+        for ( int i = 0; i < sortedRows.length; i++ )
+        {
+            sortedElements[i] = elements[sortedRows[i]];
+        }
+        return sortedElements;
+    }
+
+
+    /**
+     * Gets the elements of the given rows, in the given order.
+     * 
+     * @param rows the indices of the rows
+     * 
+     * @return the elements
+     */
+    public Object[] getElements( int[] rows )
+    {
+        Object[] rowElements = new Object[rows.length];
+        for ( int i = 0; i < rows.length; i++ )
+        {
+            rowElements[i] = elements[rows[i]];
+        }
+        return rowElements;
+    }
+
+
+    private static int compareKeys( String key1, String key2 )
+    {
+        if ( key1 == null )
+        {
+            return key2 == null ? 0 : -1;
+        }
+        else if ( key2 == null )
+        {
+            return 1;
+        }
+        else
+        {
+            return key1.compareTo( key2 );
+        }
+    }
+
+
+    private String[] getSortKeys( String attributeName )
+    {
+        String[] sortKeys = sortKeysMap.get( attributeName );
+        if ( sortKeys == null )
+        {
+            sortKeys = new String[elements.length];
+            for ( int row = 0; row < elements.length; row++ )
+            {
+                sortKeys[row] = toSortKey( getSortValue( elements[row], attributeName ) );
+            }
+            sortKeysMap.put( attributeName, sortKeys );
+        }
+        return sortKeys;
+    }
+
+
+    /**
+     * Gets the value to sort by: the normalized Dn or the first value of the attribute.
+     * 
+     * @return the value, null if the row has no entry or no such attribute
+     */
+    private static String getSortValue( Object element, String attributeName )
+    {
+        if ( !( element instanceof ISearchResult ) )
+        {
+            return null;
+        }
+        IEntry entry = ( ( ISearchResult ) element ).getEntry();
+        if ( entry == null )
+        {
+            return null;
+        }
+
+        if ( BrowserUIConstants.DN.equals( attributeName ) )
+        {
+            return entry.getDn().getNormName();
+        }
+
+        AttributeHierarchy ah = entry.getAttributeWithSubtypes( attributeName );
+        if ( ah == null )
+        {
+            return null;
+        }
+        IAttribute attribute = ah.getAttribute();
+        return attribute.getValueSize() > 0 ? attribute.getStringValue() : ""; //$NON-NLS-1$
+    }
+
+
+    /**
+     * Converts the value to a key that orders with {@link String#compareTo(String)} 
+     * like the value with {@link String#compareToIgnoreCase(String)}.
+     */
+    static String toSortKey( String value )
+    {
+        if ( value == null )
+        {
+            return null;
+        }
+
+        char[] chars = value.toCharArray();
+        for ( int i = 0; i < chars.length; i++ )
+        {
+            chars[i] = Character.toLowerCase( Character.toUpperCase( chars[i] ) );
+        }
+        return new String( chars );
+    }
+
+
+    private void buildTextIndex( String[] returningAttributes )
+    {
+        String[] index = new String[elements.length];
+        StringBuilder sb = new StringBuilder();
+        for ( int row = 0; row < elements.length; row++ )
+        {
+            if ( !( elements[row] instanceof ISearchResult ) )
+            {
+                // always passes the filter
+                index[row] = null;
+                continue;
+            }
+
+            index[row] = getText( ( ISearchResult ) elements[row], returningAttributes, sb );
+        }
+
+        textIndex = index;
+        textIndexAttributes = returningAttributes.clone();
+        previousFilteredRows = null;
+    }
+
+
+    /**
+     * Gets the upper-cased string values of the given returning attributes.
+     */
+    private static String getText( ISearchResult searchResult, String[] returningAttributes, StringBuilder sb )
+    {
+        sb.setLength( 0 );
+        for ( String ra : returningAttributes )
+        {
+            AttributeHierarchy ah = searchResult.getAttributeWithSubtypes( ra );
+            if ( ah != null )
+            {
+                for ( IAttribute attribute : ah.getAttributes() )
+                {
+                    for ( IValue value : attribute.getValues() )
+                    {
+                        if ( value.isString() )
+                        {
+                            sb.append( value.getStringValue().toUpperCase() ).append( TEXT_SEPARATOR );
+                        }
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+
+    private void buildDnTextIndex()
+    {
+        String[] index = new String[elements.length];
+        for ( int row = 0; row < elements.length; row++ )
+        {
+            if ( elements[row] instanceof ISearchResult )
+            {
+                index[row] = ( ( ISearchResult ) elements[row] ).getDn().getName().toUpperCase();
+            }
+        }
+        dnTextIndex = index;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.views.metrics;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.io.api.LdapMetricsLogger;
+import org.apache.directory.studio.connection.ui.ConnectionUIPlugin;
+import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
+import org.apache.directory.studio.ldapbrowser.ui.BrowserUIPlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.action.Action;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+
+
+/**
+ * Action to export the metrics of all connections to a CSV file.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ExportAction extends Action
+{
+    /** The LDAP metrics view. */
+    private LdapMetricsView view;
+
+
+    /**
+     * Creates a new instance of ExportAction.
+     *
+     * @param view the LDAP metrics view
+     */
+    public ExportAction( LdapMetricsView view )
+    {
+        super( Messages.getString( "ExportAction.Export" ), BrowserUIPlugin.getDefault().getImageDescriptor( //$NON-NLS-1$
+            BrowserUIConstants.IMG_EXPORT ) );
+        setToolTipText( Messages.getString( "ExportAction.ExportToolTip" ) ); //$NON-NLS-1$
+        this.view = view;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run()
+    {
+        LdapMetricsLogger metricsLogger = ConnectionCorePlugin.getDefault().getLdapMetricsLogger();
+        if ( metricsLogger == null )
+        {
+            return;
+        }
+
+        FileDialog fileDialog = new FileDialog( view.getSite().getShell(), SWT.SAVE );
+        fileDialog.setText( Messages.getString( "ExportAction.ExportToolTip" ) ); //$NON-NLS-1$
+        fileDialog.setFilterExtensions( new String[]
+            { "*.csv", "*.*" } ); //$NON-NLS-1$ //$NON-NLS-2$
+        fileDialog.setOverwrite( true );
+        String fileName = fileDialog.open();
+
+        if ( fileName != null )
+        {
+            try ( Writer writer = Files.newBufferedWriter( Paths.get( fileName ), StandardCharsets.UTF_8 ) )
+            {
+                metricsLogger.export( writer );
+            }
+            catch ( IOException e )
+            {
+                ConnectionUIPlugin.getDefault().getExceptionHandler().handleException(
+                    new Status( IStatus.ERROR, BrowserUIConstants.PLUGIN_ID, IStatus.ERROR, Messages
+                        .getString( "ExportAction.ExportError" ), e ) ); //$NON-NLS-1$
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.views.metrics;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.io.api.ConnectionMetrics;
+import org.apache.directory.studio.connection.core.io.api.LdapMetricsLogger;
+import org.apache.directory.studio.connection.core.io.api.OperationStatistics;
+import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.IActionBars;
+import org.eclipse.ui.part.ViewPart;
+
+
+/**
+ * The LdapMetricsView displays the metrics collected by the {@link LdapMetricsLogger}:
+ * the latency percentiles and error codes per connection and operation type,
+ * and a summary of entries, referrals, reconnects and transferred bytes per connection.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapMetricsView extends ViewPart
+{
+    /** The column titles */
+    private static final String[] COLUMNS =
+        {
+            Messages.getString( "LdapMetricsView.Connection" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.Operation" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.Count" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.Errors" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.Mean" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.Median" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.Percentile90" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.Percentile99" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.Max" ), //$NON-NLS-1$
+            Messages.getString( "LdapMetricsView.ErrorCodes" ) //$NON-NLS-1$
+    };
+
+    /** The column widths */
+    private static final int[] COLUMN_WIDTHS =
+        { 150, 140, 70, 60, 80, 80, 80, 80, 80, 120 };
+
+    /** The summary label. */
+    private Label summaryLabel;
+
+    /** The table viewer. */
+    private TableViewer viewer;
+
+
+    /**
+     * Gets the id.
+     * 
+     * @return the id
+     */
+    public static String getId()
+    {
+        return BrowserUIConstants.VIEW_LDAP_METRICS_VIEW;
+    }
+
+
+    /**
+     * Creates a new instance of LdapMetricsView.
+     */
+    public LdapMetricsView()
+    {
+        super();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setFocus()
+    {
+        viewer.getTable().setFocus();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void createPartControl( Composite parent )
+    {
+        Composite composite = new Composite( parent, SWT.NONE );
+        composite.setLayoutData( new GridData( GridData.FILL_BOTH ) );
+        GridLayout layout = new GridLayout();
+        layout.marginWidth = 0;
+        layout.marginHeight = 0;
+        composite.setLayout( layout );
+
+        summaryLabel = new Label( composite, SWT.WRAP );
+        summaryLabel.setLayoutData( new GridData( GridData.FILL_HORIZONTAL ) );
+
+        viewer = new TableViewer( composite, SWT.MULTI | SWT.FULL_SELECTION | SWT.BORDER );
+        Table table = viewer.getTable();
+        table.setLayoutData( new GridData( GridData.FILL_BOTH ) );
+        table.setHeaderVisible( true );
+        table.setLinesVisible( true );
+
+        for ( int i = 0; i < COLUMNS.length; i++ )
+        {
+            TableColumn column = new TableColumn( table, i < 2 ? SWT.LEFT : SWT.RIGHT );
+            column.setText( COLUMNS[i] );
+            column.setWidth( COLUMN_WIDTHS[i] );
+        }
+
+        viewer.setContentProvider( ArrayContentProvider.getInstance() );
+        viewer.setLabelProvider( new MetricsLabelProvider() );
+
+        IActionBars actionBars = getViewSite().getActionBars();
+        actionBars.getToolBarManager().add( new ResetAction( this ) );
+        actionBars.getToolBarManager().add( new RefreshAction( this ) );
+        actionBars.getToolBarManager().add( new ExportAction( this ) );
+
+        refresh();
+    }
+
+
+    /**
+     * Reloads the current metrics of all connections.
+     */
+    public void refresh()
+    {
+        if ( viewer == null || viewer.getTable().isDisposed() )
+        {
+            return;
+        }
+
+        List<MetricsRow> rows = new ArrayList<MetricsRow>();
+        StringJoiner summary = new StringJoiner( "\n" ); //$NON-NLS-1$
+
+        LdapMetricsLogger metricsLogger = ConnectionCorePlugin.getDefault().getLdapMetricsLogger();
+        if ( metricsLogger != null )
+        {
+            for ( ConnectionMetrics connectionMetrics : metricsLogger.getMetrics() )
+            {
+                for ( OperationStatistics statistics : connectionMetrics.getOperations() )
+                {
+                    rows.add( new MetricsRow( connectionMetrics.getConnectionName(), statistics ) );
+                }
+
+                summary.add( NLS.bind( Messages.getString( "LdapMetricsView.Summary" ), new Object[] //$NON-NLS-1$
+                    {
+                        connectionMetrics.getConnectionName(),
+                        connectionMetrics.getEntries(),
+                        String.format( "%.1f", connectionMetrics.getEntriesPerSecond() ), //$NON-NLS-1$
+                        connectionMetrics.getReferrals(),
+                        connectionMetrics.getReconnects(),
+                        connectionMetrics.getBytesRead(),
+                        connectionMetrics.getBytesWritten() } ) );
+            }
+        }
+
+        summaryLabel.setText( rows.isEmpty() ? Messages.getString( "LdapMetricsView.NoMetrics" ) //$NON-NLS-1$
+            : summary.toString() );
+        summaryLabel.getParent().layout();
+        viewer.setInput( rows );
+    }
+
+    /**
+     * One row of the table: the statistics of one operation type of a connection.
+     */
+    private static class MetricsRow
+    {
+        private final String connectionName;
+
+        private final OperationStatistics statistics;
+
+
+        private MetricsRow( String connectionName, OperationStatistics statistics )
+        {
+            this.connectionName = connectionName;
+            this.statistics = statistics;
+        }
+    }
+
+    /**
+     * The label provider of the metrics table.
+     */
+    private static class MetricsLabelProvider extends LabelProvider implements ITableLabelProvider
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public String getColumnText( Object element, int columnIndex )
+        {
+            MetricsRow row = ( MetricsRow ) element;
+            OperationStatistics statistics = row.statistics;
+
+            switch ( columnIndex )
+            {
+                case 0:
+                    return row.connectionName;
+                case 1:
+                    return statistics.getOperation();
+                case 2:
+                    return Long.toString( statistics.getCount() );
+                case 3:
+                    return Long.toString( statistics.getErrors() );
+                case 4:
+                    return formatMillis( statistics.getMeanMillis() );
+                case 5:
+                    return formatMillis( statistics.getMedianMillis() );
+                case 6:
+                    return formatMillis( statistics.getPercentile90Millis() );
+                case 7:
+                    return formatMillis( statistics.getPercentile99Millis() );
+                case 8:
+                    return formatMillis( statistics.getMaxMillis() );
+                case 9:
+                    StringJoiner errorCodes = new StringJoiner( ", " ); //$NON-NLS-1$
+                    for ( Map.Entry<Integer, Long> entry : statistics.getErrorCodes().entrySet() )
+                    {
+                        errorCodes.add( entry.getKey() + " (" + entry.getValue() + ")" ); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    return errorCodes.toString();
+                default:
+                    return ""; //$NON-NLS-1$
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public Image getColumnImage( Object element, int columnIndex )
+        {
+            return null;
+        }
+
+
+        private static String formatMillis( double millis )
+        {
+            return String.format( "%.3f", millis ); //$NON-NLS-1$
+        }
+    }
+}
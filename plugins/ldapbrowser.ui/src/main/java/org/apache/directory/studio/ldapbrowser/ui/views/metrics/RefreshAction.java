@@ -0,0 +1,61 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.views.metrics;
+
+
+import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
+import org.apache.directory.studio.ldapbrowser.ui.BrowserUIPlugin;
+import org.eclipse.jface.action.Action;
+
+
+/**
+ * Action to reload the metrics of the LDAP metrics view.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class RefreshAction extends Action
+{
+    /** The LDAP metrics view. */
+    private LdapMetricsView view;
+
+
+    /**
+     * Creates a new instance of RefreshAction.
+     *
+     * @param view the LDAP metrics view
+     */
+    public RefreshAction( LdapMetricsView view )
+    {
+        super( Messages.getString( "RefreshAction.Refresh" ), BrowserUIPlugin.getDefault().getImageDescriptor( //$NON-NLS-1$
+            BrowserUIConstants.IMG_REFRESH ) );
+        setToolTipText( Messages.getString( "RefreshAction.RefreshToolTip" ) ); //$NON-NLS-1$
+        this.view = view;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run()
+    {
+        view.refresh();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.views.metrics;
+
+
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.io.api.LdapMetricsLogger;
+import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
+import org.apache.directory.studio.ldapbrowser.ui.BrowserUIPlugin;
+import org.eclipse.jface.action.Action;
+
+
+/**
+ * Action to reset the metrics of all connections.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ResetAction extends Action
+{
+    /** The LDAP metrics view. */
+    private LdapMetricsView view;
+
+
+    /**
+     * Creates a new instance of ResetAction.
+     *
+     * @param view the LDAP metrics view
+     */
+    public ResetAction( LdapMetricsView view )
+    {
+        super( Messages.getString( "ResetAction.Reset" ), BrowserUIPlugin.getDefault().getImageDescriptor( //$NON-NLS-1$
+            BrowserUIConstants.IMG_CLEAR ) );
+        setToolTipText( Messages.getString( "ResetAction.ResetToolTip" ) ); //$NON-NLS-1$
+        this.view = view;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run()
+    {
+        LdapMetricsLogger metricsLogger = ConnectionCorePlugin.getDefault().getLdapMetricsLogger();
+        if ( metricsLogger != null )
+        {
+            metricsLogger.reset();
+        }
+
+        view.refresh();
+    }
+}
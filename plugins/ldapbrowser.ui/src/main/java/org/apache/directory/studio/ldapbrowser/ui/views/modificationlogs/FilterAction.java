@@ -0,0 +1,120 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.views.modificationlogs;
+
+
+import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
+import org.apache.directory.studio.ldapbrowser.common.BrowserCommonConstants;
+import org.apache.directory.studio.ldapbrowser.common.actions.BrowserAction;
+import org.eclipse.jface.dialogs.InputDialog;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.window.Window;
+
+
+/**
+ * Action to filter the displayed log records by DN.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class FilterAction extends BrowserAction
+{
+
+    /** The modification logs view. */
+    private ModificationLogsView view;
+
+
+    /**
+     * Creates a new instance of FilterAction.
+     *
+     * @param view the modification logs view
+     */
+    public FilterAction( ModificationLogsView view )
+    {
+        this.view = view;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void dispose()
+    {
+        super.dispose();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run()
+    {
+        ModificationLogsViewInput oldInput = ( ModificationLogsViewInput ) getInput();
+        InputDialog dialog = new InputDialog( view.getSite().getShell(),
+            Messages.getString( "FilterAction.FilterTitle" ), //$NON-NLS-1$
+            Messages.getString( "FilterAction.FilterMessage" ), //$NON-NLS-1$
+            oldInput.getFilter() != null ? oldInput.getFilter() : "", null ); //$NON-NLS-1$
+
+        if ( dialog.open() == Window.OK )
+        {
+            String filter = dialog.getValue().trim();
+            ModificationLogsViewInput newInput = new ModificationLogsViewInput( oldInput.getBrowserConnection(), 0, 0,
+                filter.isEmpty() ? null : filter );
+            view.getUniversalListener().setInput( newInput );
+            view.getUniversalListener().scrollToNewest();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getText()
+    {
+        return Messages.getString( "FilterAction.Filter" ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public ImageDescriptor getImageDescriptor()
+    {
+        return BrowserCommonActivator.getDefault().getImageDescriptor( BrowserCommonConstants.IMG_FILTER );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getCommandId()
+    {
+        return null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEnabled()
+    {
+        return getInput() instanceof ModificationLogsViewInput;
+    }
+}
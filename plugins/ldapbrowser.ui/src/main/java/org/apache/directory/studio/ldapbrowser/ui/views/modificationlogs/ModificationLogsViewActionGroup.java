@@ -57,6 +57,9 @@ public class ModificationLogsViewActionGroup implements ActionHandlerManager, IM
     /** The Constant clearAction. */
     private static final String clearAction = "clearAction"; //$NON-NLS-1$
 
+    /** The Constant filterAction. */
+    private static final String filterAction = "filterAction"; //$NON-NLS-1$
+
     /** The Constant exportAction. */
     private static final String exportAction = "exportAction"; //$NON-NLS-1$
 
@@ -89,6 +92,8 @@ public class ModificationLogsViewActionGroup implements ActionHandlerManager, IM
             new RefreshAction( view ) ) );
         modificationLogsViewActionMap.put( clearAction, new ModificationLogsViewActionProxy( viewer, new ClearAction(
             view ) ) );
+        modificationLogsViewActionMap.put( filterAction, new ModificationLogsViewActionProxy( viewer,
+            new FilterAction( view ) ) );
         modificationLogsViewActionMap.put( exportAction, new ModificationLogsViewActionProxy( viewer,
             new ExportAction() ) );
         enableModificationLogsAction = new EnableModificationLogsAction();
@@ -132,6 +137,7 @@ public class ModificationLogsViewActionGroup implements ActionHandlerManager, IM
         actionBars.getToolBarManager().add( new Separator() );
         actionBars.getToolBarManager().add( modificationLogsViewActionMap.get( olderAction ) );
         actionBars.getToolBarManager().add( modificationLogsViewActionMap.get( newerAction ) );
+        actionBars.getToolBarManager().add( modificationLogsViewActionMap.get( filterAction ) );
         actionBars.getToolBarManager().add( new Separator() );
         actionBars.getToolBarManager().add( modificationLogsViewActionMap.get( exportAction ) );
 
@@ -21,24 +21,45 @@
 package org.apache.directory.studio.ldapbrowser.ui.views.modificationlogs;
 
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.io.api.LdifLogIndex;
+import org.apache.directory.studio.connection.core.io.api.LdifModificationLogger;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 
 
 /**
  * A ModificationLogsViewInput represents the input of the modification logs view.
- * It consists of a connection and the index of the displayed log file.
+ * It consists of a connection, the index of the displayed log file, the
+ * displayed page within the log file and an optional record filter.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class ModificationLogsViewInput
 {
 
+    /** The number of records displayed per page */
+    public static final int PAGE_SIZE = 500;
+
     /** The browser connection. */
     private IBrowserConnection browserConnection;
 
     /** The index of the displayed log file */
     private int index;
 
+    /** The index of the displayed page, counted from the newest page of the log file */
+    private int page;
+
+    /** The filter, may be null */
+    private String filter;
+
+    /** The number of pages of the displayed log file, -1 if not yet counted */
+    private int pageCount = -1;
+
 
     /**
      * Creates a new instance of ModificationLogsViewInput.
@@ -47,9 +68,25 @@ public class ModificationLogsViewInput
      * @param index the index of the displayed log file
      */
     public ModificationLogsViewInput( IBrowserConnection browserConnection, int index )
+    {
+        this( browserConnection, index, 0, null );
+    }
+
+
+    /**
+     * Creates a new instance of ModificationLogsViewInput.
+     * 
+     * @param browserConnection the browser connection
+     * @param index the index of the displayed log file
+     * @param page the index of the displayed page, counted from the newest page
+     * @param filter the filter, may be null
+     */
+    public ModificationLogsViewInput( IBrowserConnection browserConnection, int index, int page, String filter )
     {
         this.browserConnection = browserConnection;
         this.index = index;
+        this.page = page;
+        this.filter = filter;
     }
 
 
@@ -74,4 +111,166 @@ public class ModificationLogsViewInput
         return index;
     }
 
+
+    /**
+     * Gets the index of the displayed page, counted from the newest page of the log file.
+     * 
+     * @return the page
+     */
+    public int getPage()
+    {
+        return page;
+    }
+
+
+    /**
+     * Gets the filter.
+     * 
+     * @return the filter, may be null
+     */
+    public String getFilter()
+    {
+        return filter;
+    }
+
+
+    /**
+     * Gets the log files of the connection.
+     * 
+     * @return the log files, newest first
+     */
+    File[] getFiles()
+    {
+        LdifModificationLogger modificationLogger = ConnectionCorePlugin.getDefault().getLdifModificationLogger();
+        if ( modificationLogger != null && browserConnection != null && browserConnection.getConnection() != null )
+        {
+            return modificationLogger.getFiles( browserConnection.getConnection() );
+        }
+
+        return new File[0];
+    }
+
+
+    /**
+     * Gets the records of the displayed page. Only the index of the
+     * log file is consulted, the log file itself is not read. The
+     * page count of the log file is updated on each call.
+     * 
+     * @return the records of the displayed page, oldest first
+     * @throws IOException if the log file can't be indexed
+     */
+    List<LdifLogIndex.Record> getPageRecords() throws IOException
+    {
+        List<LdifLogIndex.Record> records = getRecords( index );
+        pageCount = countPages( records.size() );
+        int to = records.size() - page * PAGE_SIZE;
+        int from = Math.max( 0, to - PAGE_SIZE );
+
+        if ( to <= 0 )
+        {
+            return Collections.emptyList();
+        }
+
+        return records.subList( from, to );
+    }
+
+
+    /**
+     * Gets the input that displays the previous, older page. This is either
+     * the previous page of the current log file or the newest page of the
+     * next older log file.
+     * 
+     * @return the older input, null if there is no older page
+     */
+    ModificationLogsViewInput getOlderInput()
+    {
+        if ( page + 1 < getPageCount() )
+        {
+            return new ModificationLogsViewInput( browserConnection, index, page + 1, filter );
+        }
+
+        File[] files = getFiles();
+        int i = index + 1;
+
+        if ( 0 <= i && i < files.length && files[i] != null && files[i].exists() && files[i].canRead() )
+        {
+            return new ModificationLogsViewInput( browserConnection, i, 0, filter );
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Gets the input that displays the next, newer page. This is either
+     * the next page of the current log file or the oldest page of the
+     * next newer log file.
+     * 
+     * @return the newer input, null if there is no newer page
+     */
+    ModificationLogsViewInput getNewerInput()
+    {
+        if ( page > 0 )
+        {
+            return new ModificationLogsViewInput( browserConnection, index, page - 1, filter );
+        }
+        else if ( index > 0 )
+        {
+            return new ModificationLogsViewInput( browserConnection, index - 1, getPageCount( index - 1 ) - 1, filter );
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Gets the number of pages of the displayed log file. The count is
+     * cached, it is only updated when the page records are loaded.
+     * 
+     * @return the number of pages
+     */
+    private int getPageCount()
+    {
+        if ( pageCount < 0 )
+        {
+            pageCount = getPageCount( index );
+        }
+
+        return pageCount;
+    }
+
+
+    private int getPageCount( int fileIndex )
+    {
+        try
+        {
+            return countPages( getRecords( fileIndex ).size() );
+        }
+        catch ( IOException e )
+        {
+            return 1;
+        }
+    }
+
+
+    private static int countPages( int size )
+    {
+        return Math.max( 1, ( size + PAGE_SIZE - 1 ) / PAGE_SIZE );
+    }
+
+
+    private List<LdifLogIndex.Record> getRecords( int fileIndex ) throws IOException
+    {
+        File[] files = getFiles();
+
+        if ( 0 <= fileIndex && fileIndex < files.length && files[fileIndex] != null && files[fileIndex].exists()
+            && files[fileIndex].canRead() )
+        {
+            LdifModificationLogger modificationLogger = ConnectionCorePlugin.getDefault().getLdifModificationLogger();
+            return modificationLogger.getIndex().getRecords( files[fileIndex], filter );
+        }
+
+        return Collections.emptyList();
+    }
+
 }
@@ -21,9 +21,6 @@
 package org.apache.directory.studio.ldapbrowser.ui.views.modificationlogs;
 
 
-import java.io.File;
-import java.io.FileReader;
-
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
 import org.apache.directory.studio.connection.core.io.api.LdifModificationLogger;
@@ -76,7 +73,8 @@ public class ModificationLogsViewUniversalListener implements EntryUpdateListene
                     {
                         IBrowserConnection connection = BrowserCorePlugin.getDefault().getConnectionManager()
                             .getBrowserConnectionById( connections[0].getId() );
-                        ModificationLogsViewInput input = new ModificationLogsViewInput( connection, 0 );
+                        ModificationLogsViewInput input = new ModificationLogsViewInput( connection, 0, 0,
+                            getFilter() );
                         setInput( input );
                         scrollToNewest();
                     }
@@ -118,6 +116,17 @@ public class ModificationLogsViewUniversalListener implements EntryUpdateListene
     }
 
 
+    /**
+     * Gets the filter of the current input.
+     *
+     * @return the filter of the current input, may be null
+     */
+    String getFilter()
+    {
+        return input != null ? input.getFilter() : null;
+    }
+
+
     /**
      * Refreshes the input.
      */
@@ -146,28 +155,19 @@ public class ModificationLogsViewUniversalListener implements EntryUpdateListene
             if ( ( input != null ) && ( input.getBrowserConnection() != null )
                 && ( input.getBrowserConnection().getConnection() != null ) && ( modificationLogger != null ) )
             {
-                // load file %u %g
-                StringBuffer sb = new StringBuffer();
-                File[] files = modificationLogger.getFiles( input.getBrowserConnection().getConnection() );
-                int i = input.getIndex();
-                if ( 0 <= i && i < files.length && files[i] != null && files[i].exists() && files[i].canRead() )
+                // load the records of the displayed page only
+                String text;
+                try
                 {
-                    try ( FileReader fr = new FileReader( files[i] ) )
-                    {
-                        char[] cbuf = new char[4096];
-                        for ( int length = fr.read( cbuf ); length > 0; length = fr.read( cbuf ) )
-                        {
-                            sb.append( cbuf, 0, length );
-                        }
-                    }
-                    catch ( Exception e )
-                    {
-                        sb.append( e.getMessage() );
-                    }
+                    text = modificationLogger.getIndex().read( input.getPageRecords() );
+                }
+                catch ( Exception e )
+                {
+                    text = e.getMessage() != null ? e.getMessage() : ""; //$NON-NLS-1$
                 }
 
                 // change input
-                view.getMainWidget().getSourceViewer().getDocument().set( sb.toString() );
+                view.getMainWidget().getSourceViewer().getDocument().set( text );
                 view.getActionGroup().setInput( input );
             }
         }
@@ -28,7 +28,7 @@ import org.eclipse.jface.resource.ImageDescriptor;
 
 
 /**
- * Action to switch to a newer logfile.
+ * Action to switch to a newer page or logfile.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -65,13 +65,15 @@ public class NewerAction extends BrowserAction
     public void run()
     {
         ModificationLogsViewInput oldInput = ( ModificationLogsViewInput ) getInput();
-        ModificationLogsViewInput newInput = new ModificationLogsViewInput( oldInput.getBrowserConnection(), oldInput
-            .getIndex() - 1 );
-        view.getUniversalListener().setInput( newInput );
-        view.getUniversalListener().scrollToOldest();
-
-        // go to top
-        view.getMainWidget().getSourceViewer().setTopIndex( 0 );
+        ModificationLogsViewInput newInput = oldInput.getNewerInput();
+        if ( newInput != null )
+        {
+            view.getUniversalListener().setInput( newInput );
+            view.getUniversalListener().scrollToOldest();
+
+            // go to top
+            view.getMainWidget().getSourceViewer().setTopIndex( 0 );
+        }
     }
 
 
@@ -108,7 +110,8 @@ public class NewerAction extends BrowserAction
     public boolean isEnabled()
     {
         return ( getInput() instanceof ModificationLogsViewInput )
-            && ( ( ModificationLogsViewInput ) getInput() ).getIndex() > 0;
+            && ( ( ( ModificationLogsViewInput ) getInput() ).getPage() > 0
+                || ( ( ModificationLogsViewInput ) getInput() ).getIndex() > 0 );
     }
 
 }
@@ -21,10 +21,6 @@
 package org.apache.directory.studio.ldapbrowser.ui.views.modificationlogs;
 
 
-import java.io.File;
-
-import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
-import org.apache.directory.studio.connection.core.io.api.LdifModificationLogger;
 import org.apache.directory.studio.ldapbrowser.common.actions.BrowserAction;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIPlugin;
@@ -32,7 +28,7 @@ import org.eclipse.jface.resource.ImageDescriptor;
 
 
 /**
- * Action to switch to an older logfile.
+ * Action to switch to an older page or logfile.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -69,10 +65,12 @@ public class OlderAction extends BrowserAction
     public void run()
     {
         ModificationLogsViewInput oldInput = ( ModificationLogsViewInput ) getInput();
-        ModificationLogsViewInput newInput = new ModificationLogsViewInput( oldInput.getBrowserConnection(), oldInput
-            .getIndex() + 1 );
-        view.getUniversalListener().setInput( newInput );
-        view.getUniversalListener().scrollToNewest();
+        ModificationLogsViewInput newInput = oldInput.getOlderInput();
+        if ( newInput != null )
+        {
+            view.getUniversalListener().setInput( newInput );
+            view.getUniversalListener().scrollToNewest();
+        }
     }
 
 
@@ -113,14 +111,7 @@ public class OlderAction extends BrowserAction
             ModificationLogsViewInput input = ( ModificationLogsViewInput ) getInput();
             if ( input.getBrowserConnection().getConnection() != null )
             {
-                LdifModificationLogger modificationLogger = ConnectionCorePlugin.getDefault()
-                    .getLdifModificationLogger();
-                File[] files = modificationLogger.getFiles( input.getBrowserConnection().getConnection() );
-                int i = input.getIndex() + 1;
-                if ( 0 <= i && i < files.length && files[i] != null && files[i].exists() && files[i].canRead() )
-                {
-                    return true;
-                }
+                return input.getOlderInput() != null;
             }
         }
 
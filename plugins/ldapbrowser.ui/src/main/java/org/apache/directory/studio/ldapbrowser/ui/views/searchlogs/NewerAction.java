@@ -28,7 +28,7 @@ import org.eclipse.jface.resource.ImageDescriptor;
 
 
 /**
- * Action to switch to a newer logfile.
+ * Action to switch to a newer page or logfile.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -65,13 +65,15 @@ public class NewerAction extends BrowserAction
     public void run()
     {
         SearchLogsViewInput oldInput = ( SearchLogsViewInput ) getInput();
-        SearchLogsViewInput newInput = new SearchLogsViewInput( oldInput.getBrowserConnection(),
-            oldInput.getIndex() - 1 );
-        view.getUniversalListener().setInput( newInput );
-        view.getUniversalListener().scrollToOldest();
-
-        // go to top
-        view.getMainWidget().getSourceViewer().setTopIndex( 0 );
+        SearchLogsViewInput newInput = oldInput.getNewerInput();
+        if ( newInput != null )
+        {
+            view.getUniversalListener().setInput( newInput );
+            view.getUniversalListener().scrollToOldest();
+
+            // go to top
+            view.getMainWidget().getSourceViewer().setTopIndex( 0 );
+        }
     }
 
 
@@ -108,7 +110,8 @@ public class NewerAction extends BrowserAction
     public boolean isEnabled()
     {
         return ( getInput() instanceof SearchLogsViewInput )
-            && ( ( SearchLogsViewInput ) getInput() ).getIndex() > 0;
+            && ( ( ( SearchLogsViewInput ) getInput() ).getPage() > 0 || ( ( SearchLogsViewInput ) getInput() )
+                .getIndex() > 0 );
     }
 
 }
@@ -21,10 +21,6 @@
 package org.apache.directory.studio.ldapbrowser.ui.views.searchlogs;
 
 
-import java.io.File;
-
-import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
-import org.apache.directory.studio.connection.core.io.api.LdifSearchLogger;
 import org.apache.directory.studio.ldapbrowser.common.actions.BrowserAction;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIPlugin;
@@ -32,7 +28,7 @@ import org.eclipse.jface.resource.ImageDescriptor;
 
 
 /**
- * Action to switch to an older logfile.
+ * Action to switch to an older page or logfile.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -69,10 +65,12 @@ public class OlderAction extends BrowserAction
     public void run()
     {
         SearchLogsViewInput oldInput = ( SearchLogsViewInput ) getInput();
-        SearchLogsViewInput newInput = new SearchLogsViewInput( oldInput.getBrowserConnection(),
-            oldInput.getIndex() + 1 );
-        view.getUniversalListener().setInput( newInput );
-        view.getUniversalListener().scrollToNewest();
+        SearchLogsViewInput newInput = oldInput.getOlderInput();
+        if ( newInput != null )
+        {
+            view.getUniversalListener().setInput( newInput );
+            view.getUniversalListener().scrollToNewest();
+        }
     }
 
 
@@ -113,13 +111,7 @@ public class OlderAction extends BrowserAction
             SearchLogsViewInput input = ( SearchLogsViewInput ) getInput();
             if ( input.getBrowserConnection().getConnection() != null )
             {
-                LdifSearchLogger searchLogger = ConnectionCorePlugin.getDefault().getLdifSearchLogger();
-                File[] files = searchLogger.getFiles( input.getBrowserConnection().getConnection() );
-                int i = input.getIndex() + 1;
-                if ( 0 <= i && i < files.length && files[i] != null && files[i].exists() && files[i].canRead() )
-                {
-                    return true;
-                }
+                return input.getOlderInput() != null;
             }
         }
 
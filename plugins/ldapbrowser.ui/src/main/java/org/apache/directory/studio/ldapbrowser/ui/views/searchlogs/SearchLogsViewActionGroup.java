@@ -57,6 +57,9 @@ public class SearchLogsViewActionGroup implements ActionHandlerManager, IMenuLis
     /** The Constant refreshAction. */
     private static final String clearAction = "clearAction"; //$NON-NLS-1$
 
+    /** The Constant filterAction. */
+    private static final String filterAction = "filterAction"; //$NON-NLS-1$
+
     /** The Constant exportAction. */
     private static final String exportAction = "exportAction"; //$NON-NLS-1$
 
@@ -88,6 +91,7 @@ public class SearchLogsViewActionGroup implements ActionHandlerManager, IMenuLis
         searchLogsViewActionMap.put( newerAction, new SearchLogsViewActionProxy( viewer, new NewerAction( view ) ) );
         searchLogsViewActionMap.put( refreshAction, new SearchLogsViewActionProxy( viewer, new RefreshAction( view ) ) );
         searchLogsViewActionMap.put( clearAction, new SearchLogsViewActionProxy( viewer, new ClearAction( view ) ) );
+        searchLogsViewActionMap.put( filterAction, new SearchLogsViewActionProxy( viewer, new FilterAction( view ) ) );
         searchLogsViewActionMap.put( exportAction, new SearchLogsViewActionProxy( viewer, new ExportAction() ) );
         enableSearchRequestLogsAction = new EnableSearchRequestLogsAction();
         enableSearchResultEntryLogsAction = new EnableSearchResultEntryLogsAction();
@@ -132,6 +136,7 @@ public class SearchLogsViewActionGroup implements ActionHandlerManager, IMenuLis
         actionBars.getToolBarManager().add( new Separator() );
         actionBars.getToolBarManager().add( searchLogsViewActionMap.get( olderAction ) );
         actionBars.getToolBarManager().add( searchLogsViewActionMap.get( newerAction ) );
+        actionBars.getToolBarManager().add( searchLogsViewActionMap.get( filterAction ) );
         actionBars.getToolBarManager().add( new Separator() );
         actionBars.getToolBarManager().add( searchLogsViewActionMap.get( exportAction ) );
 
@@ -0,0 +1,146 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.SearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Value;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
+import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SearchResultEditorViewModelTest
+{
+    private static final String[] RETURNING_ATTRIBUTES = new String[]
+        { "sn" };
+
+    private DummyConnection connection;
+    private IEntry miller;
+    private SearchResult millerResult;
+    private SearchResult adamsResult;
+    private SearchResult bakerResult;
+    private SearchResultEditorViewModel viewModel;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        connection = new DummyConnection( Schema.DEFAULT_SCHEMA );
+
+        miller = createEntry( "cn=a,dc=example,dc=com", "Miller" );
+        millerResult = new SearchResult( miller, null );
+        adamsResult = new SearchResult( createEntry( "cn=b,dc=example,dc=com", "Adams" ), null );
+        bakerResult = new SearchResult( createEntry( "cn=c,dc=example,dc=com", "Baker" ), null );
+
+        viewModel = new SearchResultEditorViewModel( new Object[]
+            { millerResult, adamsResult, bakerResult } );
+    }
+
+
+    @Test
+    public void testSortAfterUpdate() throws Exception
+    {
+        assertArrayEquals( new Object[]
+            { adamsResult, bakerResult, millerResult }, sort() );
+
+        setSn( miller, "Aaron" );
+        assertTrue( viewModel.update( miller ) );
+
+        assertArrayEquals( new Object[]
+            { millerResult, adamsResult, bakerResult }, sort() );
+    }
+
+
+    @Test
+    public void testFilterAfterUpdate() throws Exception
+    {
+        assertArrayEquals( new int[]
+            { 0 }, viewModel.filter( "mill", RETURNING_ATTRIBUTES, false ) );
+
+        setSn( miller, "Smith" );
+        assertTrue( viewModel.update( miller ) );
+
+        assertArrayEquals( new int[0], viewModel.filter( "mill", RETURNING_ATTRIBUTES, false ) );
+        assertArrayEquals( new int[]
+            { 0 }, viewModel.filter( "smi", RETURNING_ATTRIBUTES, false ) );
+    }
+
+
+    @Test
+    public void testNarrowedFilterAfterUpdate() throws Exception
+    {
+        // no row passes, a narrowed filter value must still check the modified row
+        assertArrayEquals( new int[0], viewModel.filter( "aa", RETURNING_ATTRIBUTES, false ) );
+
+        setSn( miller, "Aaron" );
+        assertTrue( viewModel.update( miller ) );
+
+        assertArrayEquals( new int[]
+            { 0 }, viewModel.filter( "aar", RETURNING_ATTRIBUTES, false ) );
+    }
+
+
+    @Test
+    public void testUpdateOtherEntry() throws Exception
+    {
+        IEntry other = createEntry( "cn=d,dc=example,dc=com", "Doe" );
+        assertFalse( viewModel.update( other ) );
+    }
+
+
+    private Object[] sort()
+    {
+        return viewModel.sort( viewModel.getAllRows(), "sn", true );
+    }
+
+
+    private IEntry createEntry( String dn, String sn ) throws Exception
+    {
+        LdifContentRecord record = new LdifContentRecord( LdifDnLine.create( dn ) );
+        record.addAttrVal( LdifAttrValLine.create( "objectClass", "person" ) );
+        record.addAttrVal( LdifAttrValLine.create( "sn", sn ) );
+        return ModelConverter.ldifContentRecordToEntry( record, connection );
+    }
+
+
+    private static void setSn( IEntry entry, String sn )
+    {
+        IAttribute attribute = entry.getAttribute( "sn" );
+        attribute.modifyValue( attribute.getValues()[0], new Value( attribute, sn ) );
+    }
+}
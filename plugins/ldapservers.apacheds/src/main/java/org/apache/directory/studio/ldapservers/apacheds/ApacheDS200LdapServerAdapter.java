@@ -23,6 +23,8 @@ package org.apache.directory.studio.ldapservers.apacheds;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -79,6 +81,8 @@ public class ApacheDS200LdapServerAdapter implements LdapServerAdapter
     private static final String RESOURCES = "resources"; //$NON-NLS-1$
     private static final String LIBS = "libs"; //$NON-NLS-1$
     private static final String CONF = "conf"; //$NON-NLS-1$
+    private static final String TEMPLATE = "template"; //$NON-NLS-1$
+    private static final String TEMPLATE_STAMP = "template.stamp"; //$NON-NLS-1$
 
     /** The array of libraries names */
     private static final String[] libraries = new String[]
@@ -101,23 +105,51 @@ public class ApacheDS200LdapServerAdapter implements LdapServerAdapter
             getServerLibrariesFolder(), libraries, monitor,
             Messages.getString( "ApacheDS200LdapServerAdapter.VerifyingAndCopyingLibraries" ) ); //$NON-NLS-1$
 
-        // Creating server folder structure
+        // Creating server folder structure from the instance template
         monitor.subTask( Messages.getString( "ApacheDS200LdapServerAdapter.CreatingServerFolderStructure" ) ); //$NON-NLS-1$
         File serverFolder = LdapServersManager.getServerFolder( server ).toFile();
-        File confFolder = new File( serverFolder, CONF );
-        confFolder.mkdir();
-        File ldifFolder = new File( serverFolder, "ldif" ); //$NON-NLS-1$
+        File templateFolder = getInstanceTemplate( bundle );
+        if ( templateFolder != null )
+        {
+            LdapServersUtils.copyFolder( templateFolder, serverFolder );
+        }
+        else
+        {
+            createInstance( bundle, serverFolder, monitor );
+        }
+    }
+
+
+    /**
+     * Creates the folder structure and the default configuration of an instance.
+     *
+     * @param bundle
+     *      the bundle
+     * @param instanceFolder
+     *      the instance folder
+     * @param monitor
+     *      the progress monitor
+     * @throws Exception
+     *      if an error occurs when creating the instance
+     */
+    private static void createInstance( Bundle bundle, File instanceFolder, StudioProgressMonitor monitor )
+        throws Exception
+    {
+        File confFolder = new File( instanceFolder, CONF );
+        confFolder.mkdirs();
+        File ldifFolder = new File( instanceFolder, "ldif" ); //$NON-NLS-1$
         ldifFolder.mkdir();
-        File logFolder = new File( serverFolder, "log" ); //$NON-NLS-1$
+        File logFolder = new File( instanceFolder, "log" ); //$NON-NLS-1$
         logFolder.mkdir();
-        File partitionFolder = new File( serverFolder, "partitions" ); //$NON-NLS-1$
+        File partitionFolder = new File( instanceFolder, "partitions" ); //$NON-NLS-1$
         partitionFolder.mkdir();
 
         // Copying configuration files
         monitor.subTask( Messages.getString( "ApacheDS200LdapServerAdapter.CopyingConfigurationFiles" ) ); //$NON-NLS-1$
         IPath resourceConfFolderPath = new Path( RESOURCES ).append( CONF );
-        // call of getServerConfiguration() extracts the default configuration
-        getServerConfiguration( server );
+        // reading the configuration extracts the default configuration
+        LoadConfigurationRunnable.readConfiguration( new File( confFolder,
+            ApacheDS2ConfigurationPluginConstants.OU_CONFIG_LDIF ) );
         LdapServersUtils.copyResource( bundle, resourceConfFolderPath.append( LOG4J_PROPERTIES ), new File( confFolder,
             LOG4J_PROPERTIES ) );
 
@@ -126,6 +158,48 @@ public class ApacheDS200LdapServerAdapter implements LdapServerAdapter
     }
 
 
+    /**
+     * Gets the instance template, a freshly created instance from which new servers are copied.
+     * <p>
+     * The template is created once in the state location of the plugin, and created again
+     * when the bundle is updated. Partitions are not part of the template, as the server
+     * initializes them on its first start.
+     *
+     * @param bundle
+     *      the bundle
+     * @return
+     *      the template folder, or <code>null</code> if the template could not be created
+     */
+    private static synchronized File getInstanceTemplate( Bundle bundle )
+    {
+        IPath stateLocation = ApacheDS200Plugin.getDefault().getStateLocation();
+        File templateFolder = stateLocation.append( TEMPLATE ).toFile();
+        File stampFile = stateLocation.append( TEMPLATE_STAMP ).toFile();
+        String stamp = Long.toString( bundle.getLastModified() );
+
+        try
+        {
+            if ( templateFolder.isDirectory() && stampFile.isFile()
+                && stamp.equals( new String( Files.readAllBytes( stampFile.toPath() ), StandardCharsets.US_ASCII ) ) )
+            {
+                return templateFolder;
+            }
+
+            stampFile.delete();
+            LdapServersUtils.deleteFolder( templateFolder );
+            createInstance( bundle, templateFolder, new StudioProgressMonitor( new NullProgressMonitor() ) );
+            Files.write( stampFile.toPath(), stamp.getBytes( StandardCharsets.US_ASCII ) );
+
+            return templateFolder;
+        }
+        catch ( Exception e )
+        {
+            // The instance will be created in place
+            return null;
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -193,13 +267,7 @@ public class ApacheDS200LdapServerAdapter implements LdapServerAdapter
         startOrRepair( server, monitor, Action.REPAIR );
 
         // Await termination of the repair action
-        long startTime = System.currentTimeMillis();
-        final long watchDog = startTime + ( 1000 * 60 * 3 ); // 3 minutes
-        do
-        {
-            Thread.sleep( 1000 );
-        }
-        while ( ( System.currentTimeMillis() < watchDog ) && ( LdapServerStatus.REPAIRING == server.getStatus() ) );
+        LdapServersUtils.awaitStatusChange( server, LdapServerStatus.REPAIRING, 1000 * 60 * 3 ); // 3 minutes
 
         // stop the console printer thread
         LdapServersUtils.stopConsolePrinterThread( server );
@@ -340,13 +408,7 @@ public class ApacheDS200LdapServerAdapter implements LdapServerAdapter
         launchApacheDS( server, Action.STOP );
 
         // Await termination of the server
-        long startTime = System.currentTimeMillis();
-        final long watchDog = startTime + ( 1000 * 60 * 3 ); // 3 minutes
-        do
-        {
-            Thread.sleep( 1000 );
-        }
-        while ( ( System.currentTimeMillis() < watchDog ) && ( LdapServerStatus.STOPPING == server.getStatus() ) );
+        LdapServersUtils.awaitStatusChange( server, LdapServerStatus.STOPPING, 1000 * 60 * 3 ); // 3 minutes
 
         // Stopping the console printer thread
         LdapServersUtils.stopConsolePrinterThread( server );
@@ -26,7 +26,21 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.input.Tailer;
 import org.apache.commons.io.input.TailerListener;
@@ -34,6 +48,7 @@ import org.apache.commons.io.input.TailerListenerAdapter;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.common.ui.CommonUIUtils;
 import org.apache.directory.studio.ldapservers.model.LdapServer;
+import org.apache.directory.studio.ldapservers.model.LdapServerListener;
 import org.apache.directory.studio.ldapservers.model.LdapServerStatus;
 import org.apache.mina.util.AvailablePortFinder;
 import org.eclipse.core.runtime.FileLocator;
@@ -60,9 +75,31 @@ public class LdapServersUtils
     /** The ID of the console printer custom object */
     public static final String CONSOLE_PRINTER_CUSTOM_OBJECT = "consolePrinter"; //$NON-NLS-1$
 
+    /** The ID of the log activity custom object */
+    private static final String LOG_ACTIVITY_CUSTOM_OBJECT = "logActivity"; //$NON-NLS-1$
+
+    /** The delay between two checks of the server logs file, in milliseconds */
+    private static final long CONSOLE_PRINTER_DELAY = 100L;
+
+    /** The first and the maximum delay between two startup probes, in milliseconds */
+    private static final long MIN_PROBE_DELAY = 10L;
+    private static final long MAX_PROBE_DELAY = 250L;
+
+    /** The timeout of a startup probe connection, in milliseconds */
+    private static final int CONNECT_TIMEOUT = 250;
+
+    /** The libraries that were verified in this session, with the bundle time stamp */
+    private static final Map<File, Long> VERIFIED_LIBRARIES = new ConcurrentHashMap<File, Long>();
+
 
     /**
      * Runs the startup listener watchdog.
+     * <p>
+     * The server is declared as started as soon as a connection to the port can be
+     * established. Connection attempts are retried with an increasing delay, and
+     * immediately when the server writes to its log. Protocols that don't accept
+     * TCP connections are detected by checking once per second if the port is still
+     * available.
      *
      * @param server
      *      the server
@@ -84,33 +121,41 @@ public class LdapServersUtils
         // Calculating the watch dog time
         final long watchDog = startTime + ( 1000 * 60 * 3 ); // 3 minutes
 
+        Semaphore logActivity = getLogActivity( server );
+        long delay = MIN_PROBE_DELAY;
+        long nextAvailabilityCheck = startTime + 1000;
+
         // Looping until the end of the watchdog if the server is still 'starting'
         while ( ( System.currentTimeMillis() < watchDog ) && ( LdapServerStatus.STARTING == server.getStatus() ) )
         {
-            // Trying to see if the port is available
-            if ( AvailablePortFinder.available( port ) )
-            {
-                // The port is still available
+            boolean listening = isListening( port );
 
-                // We just wait one second before starting the test once again
-                try
-                {
-                    Thread.sleep( 1000 );
-                }
-                catch ( InterruptedException e1 )
-                {
-                    // Nothing to do...
-                }
+            if ( !listening && ( System.currentTimeMillis() >= nextAvailabilityCheck ) )
+            {
+                listening = !AvailablePortFinder.available( port );
+                nextAvailabilityCheck = System.currentTimeMillis() + 1000;
             }
-            else
+
+            if ( listening )
             {
                 // We set the state of the server to 'started'...
                 server.setStatus( LdapServerStatus.STARTED );
 
                 // ... and we exit the thread
                 return;
+            }
 
+            // Waiting for the next attempt, or for new log output of the server
+            try
+            {
+                logActivity.tryAcquire( delay, TimeUnit.MILLISECONDS );
+                logActivity.drainPermits();
+            }
+            catch ( InterruptedException e1 )
+            {
+                // Nothing to do...
             }
+            delay = Math.min( delay * 2, MAX_PROBE_DELAY );
         }
 
         // If, at the end of the watch dog, the state of the server is
@@ -122,6 +167,91 @@ public class LdapServersUtils
     }
 
 
+    /**
+     * Indicates if a server accepts connections on the given port of the loopback interface.
+     *
+     * @param port
+     *      the port
+     * @return
+     *      <code>true</code> if a connection could be established
+     */
+    private static boolean isListening( int port )
+    {
+        try ( Socket socket = new Socket() )
+        {
+            socket.connect( new InetSocketAddress( InetAddress.getLoopbackAddress(), port ), CONNECT_TIMEOUT );
+            return true;
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+    }
+
+
+    /**
+     * Gets the semaphore that is released when the server writes to its log.
+     *
+     * @param server
+     *      the server
+     * @return
+     *      the semaphore
+     */
+    private static Semaphore getLogActivity( LdapServer server )
+    {
+        synchronized ( server )
+        {
+            Semaphore logActivity = ( Semaphore ) server.getCustomObject( LOG_ACTIVITY_CUSTOM_OBJECT );
+            if ( logActivity == null )
+            {
+                logActivity = new Semaphore( 0 );
+                server.putCustomObject( LOG_ACTIVITY_CUSTOM_OBJECT, logActivity );
+            }
+
+            return logActivity;
+        }
+    }
+
+
+    /**
+     * Waits until the status of the server is no longer the given status.
+     *
+     * @param server
+     *      the server
+     * @param status
+     *      the status to leave
+     * @param timeout
+     *      the maximum time to wait, in milliseconds
+     * @throws InterruptedException
+     *      if the thread is interrupted while waiting
+     */
+    public static void awaitStatusChange( LdapServer server, LdapServerStatus status, long timeout )
+        throws InterruptedException
+    {
+        CountDownLatch latch = new CountDownLatch( 1 );
+        LdapServerListener listener = event -> {
+            if ( server.getStatus() != status )
+            {
+                latch.countDown();
+            }
+        };
+
+        server.addListener( listener );
+        try
+        {
+            if ( server.getStatus() != status )
+            {
+                return;
+            }
+            latch.await( timeout, TimeUnit.MILLISECONDS );
+        }
+        finally
+        {
+            server.removeListener( listener );
+        }
+    }
+
+
     /**
      * Starting the "terminate" listener thread.
      * 
@@ -199,14 +329,16 @@ public class LdapServersUtils
          * DIRSTUDIO-1148: Tail the log file and update the console.
          * Tail from end only to avoid overwhelming the system in case the log file is large.
          */
+        Semaphore logActivity = getLogActivity( server );
         TailerListener l = new TailerListenerAdapter()
         {
             public void handle( String line )
             {
                 messageStream.println( line );
+                logActivity.release();
             };
         };
-        Tailer tailer = Tailer.create( serverLogsFile, l, 1000L, true );
+        Tailer tailer = Tailer.create( serverLogsFile, l, CONSOLE_PRINTER_DELAY, true );
 
         // Storing the tailer as a custom object in the LDAP Server for later use
         server.putCustomObject( CONSOLE_PRINTER_CUSTOM_OBJECT, tailer );
@@ -262,6 +394,11 @@ public class LdapServersUtils
     /**
      * Verifies that the libraries folder exists and contains the jar files 
      * needed to launch the server.
+     * <p>
+     * The libraries folder is shared by all servers. A library is copied only
+     * if it is missing or older than the bundle, to a temporary file that is then
+     * moved in place, so servers never see a partially copied library. Libraries
+     * are verified once per session.
      *
      * @param bundle
      *      the bundle
@@ -272,26 +409,45 @@ public class LdapServersUtils
      * @param libraries
      *      the names of the libraries
      */
-    private static void verifyAndCopyLibraries( Bundle bundle, IPath sourceLibrariesPath,
+    private static synchronized void verifyAndCopyLibraries( Bundle bundle, IPath sourceLibrariesPath,
         IPath destinationLibrariesPath, String[] libraries )
     {
         // Destination libraries folder
         File destinationLibraries = destinationLibrariesPath.toFile();
         if ( !destinationLibraries.exists() )
         {
-            destinationLibraries.mkdir();
+            destinationLibraries.mkdirs();
         }
 
         // Verifying and copying libraries (if needed)
+        long bundleLastModified = bundle.getLastModified();
         for ( String library : libraries )
         {
             File destinationLibraryFile = destinationLibrariesPath.append( library ).toFile();
-            boolean newerFileExists = (bundle.getLastModified() > destinationLibraryFile.lastModified());
+            Long verified = VERIFIED_LIBRARIES.get( destinationLibraryFile );
+            if ( ( verified != null ) && ( verified.longValue() == bundleLastModified ) )
+            {
+                continue;
+            }
+
+            boolean newerFileExists = ( bundleLastModified > destinationLibraryFile.lastModified() );
             if ( !destinationLibraryFile.exists() || newerFileExists )
             {
                 try
                 {
-                    copyResource( bundle, sourceLibrariesPath.append( library ), destinationLibraryFile );
+                    File temporaryFile = File.createTempFile( library, ".tmp", destinationLibraries ); //$NON-NLS-1$
+                    try
+                    {
+                        copyResource( bundle, sourceLibrariesPath.append( library ), temporaryFile );
+                        destinationLibraryFile.setWritable( true );
+                        Files.move( temporaryFile.toPath(), destinationLibraryFile.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+                        destinationLibraryFile.setReadOnly();
+                    }
+                    finally
+                    {
+                        temporaryFile.delete();
+                    }
                 }
                 catch ( IOException e )
                 {
@@ -299,8 +455,11 @@ public class LdapServersUtils
                         Messages.getString( "LdapServersUtils.ErrorCopyingLibrary" ), //$NON-NLS-1$
                         new String[]
                             { library, destinationLibraryFile.getAbsolutePath(), e.getMessage() } ) );
+                    continue;
                 }
             }
+
+            VERIFIED_LIBRARIES.put( destinationLibraryFile, bundleLastModified );
         }
     }
 
@@ -373,11 +532,83 @@ public class LdapServersUtils
      */
     private static void copyFile( InputStream inputStream, OutputStream outputStream ) throws IOException
     {
-        byte[] buf = new byte[1024];
+        byte[] buf = new byte[65536];
         int i = 0;
         while ( ( i = inputStream.read( buf ) ) != -1 )
         {
             outputStream.write( buf, 0, i );
         }
     }
+
+
+    /**
+     * Copies a folder and all its content.
+     *
+     * @param source
+     *      the source folder
+     * @param destination
+     *      the destination folder, created if needed
+     * @throws IOException
+     *      if an error occurs when copying the folder
+     */
+    public static void copyFolder( File source, File destination ) throws IOException
+    {
+        final Path sourcePath = source.toPath();
+        final Path destinationPath = destination.toPath();
+
+        Files.walkFileTree( sourcePath, new SimpleFileVisitor<Path>()
+        {
+            public FileVisitResult preVisitDirectory( Path dir, BasicFileAttributes attrs ) throws IOException
+            {
+                Files.createDirectories( destinationPath.resolve( sourcePath.relativize( dir ) ) );
+                return FileVisitResult.CONTINUE;
+            }
+
+
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attrs ) throws IOException
+            {
+                Files.copy( file, destinationPath.resolve( sourcePath.relativize( file ) ),
+                    StandardCopyOption.REPLACE_EXISTING );
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
+
+
+    /**
+     * Deletes a folder and all its content.
+     *
+     * @param folder
+     *      the folder, ignored if it does not exist
+     * @throws IOException
+     *      if an error occurs when deleting the folder
+     */
+    public static void deleteFolder( File folder ) throws IOException
+    {
+        if ( !folder.exists() )
+        {
+            return;
+        }
+
+        Files.walkFileTree( folder.toPath(), new SimpleFileVisitor<Path>()
+        {
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attrs ) throws IOException
+            {
+                Files.delete( file );
+                return FileVisitResult.CONTINUE;
+            }
+
+
+            public FileVisitResult postVisitDirectory( Path dir, IOException e ) throws IOException
+            {
+                if ( e != null )
+                {
+                    throw e;
+                }
+
+                Files.delete( dir );
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
 }
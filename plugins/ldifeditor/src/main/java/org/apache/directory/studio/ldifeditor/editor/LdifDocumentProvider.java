@@ -34,6 +34,7 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldifeditor.LdifEditorConstants;
 import org.apache.directory.studio.ldifeditor.editor.text.LdifExternalAnnotationModel;
@@ -41,6 +42,8 @@ import org.apache.directory.studio.ldifparser.model.LdifFile;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
 import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifEnumeration;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -338,8 +341,20 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
         // setup document partitioning
         ldifDocumentSetupParticipant.setup( document );
 
-        // initial parsing of whole document
-        this.ldifModel = this.ldifParser.parse( document.get() );
+        // initial parsing of whole document, large documents are parsed on several threads
+        LdifFile model = new LdifFile();
+        try ( ParallelLdifEnumeration enumeration = new ParallelLdifParser().parse( document.get() ) )
+        {
+            while ( enumeration.hasNext() )
+            {
+                model.addContainer( enumeration.next() );
+            }
+        }
+        catch ( LdapException e )
+        {
+            // the string based parser doesn't throw
+        }
+        this.ldifModel = model;
 
         // add listener for incremental parsing
         document.addDocumentListener( this );
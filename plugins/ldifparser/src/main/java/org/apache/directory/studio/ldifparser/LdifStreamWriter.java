@@ -0,0 +1,401 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser;
+
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifValueLineBase;
+
+
+/**
+ * Writes LDIF lines directly to a {@link Writer}.
+ * 
+ * The output is the same as the <code>toFormattedString()</code> output of the
+ * corresponding LDIF line and record model classes, but lines are assembled and folded
+ * in reusable buffers and base64 is encoded in place, so no line objects and no
+ * intermediate strings are created per value.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifStreamWriter
+{
+    private static final char[] BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/" //$NON-NLS-1$
+        .toCharArray();
+
+    /** The writer */
+    private final Writer writer;
+
+    /** The format parameters */
+    private final LdifFormatParameters formatParameters;
+
+    /** The line that is currently assembled */
+    private final StringBuilder line = new StringBuilder( 256 );
+
+    /** The buffer used to copy the assembled line to the writer */
+    private char[] buffer = new char[256];
+
+
+    /**
+     * Creates a new instance of LdifStreamWriter.
+     *
+     * @param writer the writer
+     * @param formatParameters the format parameters
+     */
+    public LdifStreamWriter( Writer writer, LdifFormatParameters formatParameters )
+    {
+        this.writer = writer;
+        this.formatParameters = formatParameters;
+    }
+
+
+    /**
+     * Writes the version line <code>version: 1</code>.
+     *
+     * @throws IOException if writing fails
+     */
+    public void writeVersion() throws IOException
+    {
+        writeValueLine( "version", ":", "1" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+
+    /**
+     * Writes an empty line that separates records.
+     *
+     * @throws IOException if writing fails
+     */
+    public void writeSeparator() throws IOException
+    {
+        writer.write( formatParameters.getLineSeparator() );
+    }
+
+
+    /**
+     * Writes a comment line, the comment must include the leading <code>#</code>.
+     *
+     * @param comment the comment
+     * @throws IOException if writing fails
+     */
+    public void writeComment( String comment ) throws IOException
+    {
+        if ( containsNewLine( comment ) )
+        {
+            writer.write( LdifCommentLine.create( comment ).toFormattedString( formatParameters ) );
+        }
+        else
+        {
+            writer.write( comment );
+            writer.write( formatParameters.getLineSeparator() );
+        }
+    }
+
+
+    /**
+     * Writes the dn line, base64 encoded if required.
+     *
+     * @param dn the DN
+     * @throws IOException if writing fails
+     */
+    public void writeDn( String dn ) throws IOException
+    {
+        writeStringValueLine( "dn", dn ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Writes an attribute value line, base64 encoded if required.
+     *
+     * @param attributeDescription the attribute description
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public void writeAttrVal( String attributeDescription, String value ) throws IOException
+    {
+        writeStringValueLine( attributeDescription, value );
+    }
+
+
+    /**
+     * Writes a base64 encoded attribute value line.
+     *
+     * @param attributeDescription the attribute description
+     * @param value the binary value
+     * @throws IOException if writing fails
+     */
+    public void writeAttrVal( String attributeDescription, byte[] value ) throws IOException
+    {
+        writeBase64ValueLine( attributeDescription, value );
+    }
+
+
+    /**
+     * Writes a control line.
+     *
+     * @param oid the OID of the control
+     * @param isCritical the criticality
+     * @param controlValue the control value, may be null
+     * @throws IOException if writing fails
+     */
+    public void writeControl( String oid, boolean isCritical, byte[] controlValue ) throws IOException
+    {
+        StringBuilder value = new StringBuilder( oid );
+        value.append( isCritical ? " true" : " false" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        if ( controlValue != null && controlValue.length > 0 )
+        {
+            value.append( "::" ); //$NON-NLS-1$
+            appendBase64( value, controlValue );
+        }
+
+        writeValueLine( "control", ":", value.toString() ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    /**
+     * Writes a changetype line.
+     *
+     * @param changeType the change type, e.g. <code>add</code> or <code>modify</code>
+     * @throws IOException if writing fails
+     */
+    public void writeChangeType( String changeType ) throws IOException
+    {
+        writeValueLine( "changetype", ":", changeType ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    /**
+     * Writes the first line of a modification, e.g. <code>replace: cn</code>.
+     *
+     * @param modType the modification type, <code>add</code>, <code>delete</code> or <code>replace</code>
+     * @param attributeDescription the attribute description
+     * @throws IOException if writing fails
+     */
+    public void writeModSpecType( String modType, String attributeDescription ) throws IOException
+    {
+        writeValueLine( modType, ":", attributeDescription ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Writes the <code>-</code> line that ends a modification.
+     *
+     * @throws IOException if writing fails
+     */
+    public void writeModSpecSeparator() throws IOException
+    {
+        writer.write( '-' );
+        writer.write( formatParameters.getLineSeparator() );
+    }
+
+
+    /**
+     * Writes the newrdn line, base64 encoded if required.
+     *
+     * @param newrdn the new RDN
+     * @throws IOException if writing fails
+     */
+    public void writeNewrdn( String newrdn ) throws IOException
+    {
+        writeStringValueLine( "newrdn", newrdn ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Writes the deleteoldrdn line.
+     *
+     * @param deleteOldRdn true to delete the old RDN
+     * @throws IOException if writing fails
+     */
+    public void writeDeloldrdn( boolean deleteOldRdn ) throws IOException
+    {
+        writeValueLine( "deleteoldrdn", ":", deleteOldRdn ? "1" : "0" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+
+
+    /**
+     * Writes the newsuperior line, base64 encoded if required.
+     *
+     * @param newsuperior the new superior DN
+     * @throws IOException if writing fails
+     */
+    public void writeNewsuperior( String newsuperior ) throws IOException
+    {
+        writeStringValueLine( "newsuperior", newsuperior ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Flushes the underlying writer.
+     *
+     * @throws IOException if flushing fails
+     */
+    public void flush() throws IOException
+    {
+        writer.flush();
+    }
+
+
+    private void writeStringValueLine( String lineStart, String value ) throws IOException
+    {
+        if ( LdifUtils.mustEncode( value ) )
+        {
+            writeBase64ValueLine( lineStart, LdifUtils.utf8encode( value ) );
+        }
+        else
+        {
+            writeValueLine( lineStart, ":", value ); //$NON-NLS-1$
+        }
+    }
+
+
+    private void writeBase64ValueLine( String lineStart, byte[] value ) throws IOException
+    {
+        if ( !isPlainLineStart( lineStart ) )
+        {
+            writer.write( new LdifValueLineBase( 0, lineStart, "::", LdifUtils.base64encode( value ), //$NON-NLS-1$
+                LdifParserConstants.LINE_SEPARATOR ).toFormattedString( formatParameters ) );
+            return;
+        }
+
+        line.setLength( 0 );
+        line.append( lineStart ).append( "::" ); //$NON-NLS-1$
+        if ( formatParameters.isSpaceAfterColon() )
+        {
+            line.append( ' ' );
+        }
+        appendBase64( line, value );
+        writeFoldedLine();
+    }
+
+
+    /**
+     * Writes a value line. Same as <code>LdifValueLineBase.toFormattedString()</code>: the
+     * separator after the line start is normalized and the line is folded. Lines that the
+     * model classes would treat specially, because they contain line breaks or additional
+     * colons at the separator, are formatted by the model classes.
+     */
+    private void writeValueLine( String lineStart, String valueType, String value ) throws IOException
+    {
+        if ( !isPlainLineStart( lineStart ) || containsNewLine( value )
+            || ( ":".equals( valueType ) && ( value.startsWith( ":" ) || value.startsWith( "<" ) ) ) ) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        {
+            writer.write( new LdifValueLineBase( 0, lineStart, valueType, value, LdifParserConstants.LINE_SEPARATOR )
+                .toFormattedString( formatParameters ) );
+            return;
+        }
+
+        line.setLength( 0 );
+        line.append( lineStart ).append( valueType );
+        if ( formatParameters.isSpaceAfterColon() )
+        {
+            line.append( ' ' );
+        }
+
+        // the separator absorbs the leading spaces of the value
+        int start = 0;
+        while ( start < value.length() && value.charAt( start ) == ' ' )
+        {
+            start++;
+        }
+        line.append( value, start, value.length() );
+        writeFoldedLine();
+    }
+
+
+    /**
+     * Writes the assembled line and the line separator, folded like <code>LdifLineBase.fold()</code>:
+     * the line width includes the line separator, continuation lines start with a space.
+     */
+    private void writeFoldedLine() throws IOException
+    {
+        String lineSeparator = formatParameters.getLineSeparator();
+        line.append( lineSeparator );
+
+        int length = line.length();
+        if ( buffer.length < length )
+        {
+            buffer = new char[Math.max( length, buffer.length * 2 )];
+        }
+        line.getChars( 0, length, buffer, 0 );
+
+        int lineWidth = formatParameters.getLineWidth();
+        int offset = lineWidth;
+        int endIndex = offset;
+        while ( endIndex + lineSeparator.length() < length )
+        {
+            writer.write( buffer, endIndex - offset, offset );
+            writer.write( lineSeparator );
+            writer.write( ' ' );
+            offset = lineWidth - 1;
+            endIndex += offset;
+        }
+        writer.write( buffer, endIndex - offset, length - ( endIndex - offset ) );
+    }
+
+
+    private static boolean isPlainLineStart( String lineStart )
+    {
+        return lineStart.indexOf( ':' ) == -1 && !containsNewLine( lineStart );
+    }
+
+
+    private static boolean containsNewLine( String s )
+    {
+        return s.indexOf( '\n' ) > -1 || s.indexOf( '\r' ) > -1;
+    }
+
+
+    /**
+     * Appends the base64 encoding of the given data, same as <code>LdifUtils.base64encode()</code>.
+     */
+    private static void appendBase64( StringBuilder sb, byte[] data )
+    {
+        int i = 0;
+        for ( ; i + 2 < data.length; i += 3 )
+        {
+            int bits = ( ( data[i] & 0xff ) << 16 ) | ( ( data[i + 1] & 0xff ) << 8 ) | ( data[i + 2] & 0xff );
+            sb.append( BASE64_ALPHABET[( bits >>> 18 ) & 0x3f] );
+            sb.append( BASE64_ALPHABET[( bits >>> 12 ) & 0x3f] );
+            sb.append( BASE64_ALPHABET[( bits >>> 6 ) & 0x3f] );
+            sb.append( BASE64_ALPHABET[bits & 0x3f] );
+        }
+
+        int remaining = data.length - i;
+        if ( remaining == 1 )
+        {
+            int bits = ( data[i] & 0xff ) << 16;
+            sb.append( BASE64_ALPHABET[( bits >>> 18 ) & 0x3f] );
+            sb.append( BASE64_ALPHABET[( bits >>> 12 ) & 0x3f] );
+            sb.append( "==" ); //$NON-NLS-1$
+        }
+        else if ( remaining == 2 )
+        {
+            int bits = ( ( data[i] & 0xff ) << 16 ) | ( ( data[i + 1] & 0xff ) << 8 );
+            sb.append( BASE64_ALPHABET[( bits >>> 18 ) & 0x3f] );
+            sb.append( BASE64_ALPHABET[( bits >>> 12 ) & 0x3f] );
+            sb.append( BASE64_ALPHABET[( bits >>> 6 ) & 0x3f] );
+            sb.append( '=' );
+        }
+    }
+}
@@ -104,6 +104,20 @@ public class LdifParser
 
 
     public LdifEnumeration parse( Reader ldifReader )
+    {
+        return parse( ldifReader, true );
+    }
+
+
+    /**
+     * Parses the given LDIF.
+     *
+     * @param ldifReader the LDIF reader
+     * @param parseVersion true if the input starts at the beginning of an LDIF file and may contain
+     *        the version line, false if the input is a part of an LDIF file after the header
+     * @return the LDIF enumeration
+     */
+    LdifEnumeration parse( Reader ldifReader, final boolean parseVersion )
     {
         scanner.setLdif( ldifReader );
 
@@ -129,7 +143,10 @@ public class LdifParser
                     if ( !headerParsed )
                     {
                         checkAndParseComment( model );
-                        checkAndParseVersion( model );
+                        if ( parseVersion )
+                        {
+                            checkAndParseVersion( model );
+                        }
                         checkAndParseComment( model );
                         headerParsed = true;
                     }
@@ -0,0 +1,292 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser.ChunkSource;
+
+
+/**
+ * The enumeration returned by the {@link ParallelLdifParser}. Chunks are parsed ahead
+ * of the reader, at most two per thread, and returned in input order.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ParallelLdifEnumeration implements LdifEnumeration, Closeable
+{
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /** The chunk source, null if a sequential enumeration is wrapped */
+    private final ChunkSource source;
+
+    /** The approximate chunk size */
+    private final int chunkSize;
+
+    /** The maximum number of chunks parsed ahead */
+    private final int maxInFlight;
+
+    /** The executor, null if the input is parsed in the calling thread */
+    private ExecutorService executor;
+
+    /** The chunks that are parsed, in input order */
+    private final Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<Future<ParsedChunk>>();
+
+    /** The start of the next chunk to submit */
+    private long nextChunkStart;
+
+    /** The offset of the current chunk within the whole input, in chars */
+    private int charOffset;
+
+    /** The containers of the current chunk */
+    private Iterator<LdifContainer> current;
+
+    /** The wrapped sequential enumeration */
+    private final LdifEnumeration delegate;
+
+    /** The resource of the wrapped sequential enumeration */
+    private final Closeable delegateResource;
+
+    private boolean closed;
+
+
+    /**
+     * Creates a new instance of ParallelLdifEnumeration that parses the given source in chunks.
+     */
+    ParallelLdifEnumeration( ChunkSource source, int parallelism, int chunkSize )
+    {
+        this.source = source;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = 2 * parallelism;
+        this.delegate = null;
+        this.delegateResource = null;
+
+        if ( parallelism > 1 && source.length() > chunkSize )
+        {
+            executor = Executors.newFixedThreadPool( parallelism, runnable -> {
+                Thread thread = new Thread( runnable, "LDIF Parser " + THREAD_COUNTER.incrementAndGet() ); //$NON-NLS-1$
+                thread.setDaemon( true );
+                return thread;
+            } );
+        }
+    }
+
+
+    /**
+     * Creates a new instance of ParallelLdifEnumeration that wraps a sequential enumeration.
+     */
+    ParallelLdifEnumeration( LdifEnumeration delegate, Closeable delegateResource )
+    {
+        this.source = null;
+        this.chunkSize = 0;
+        this.maxInFlight = 0;
+        this.delegate = delegate;
+        this.delegateResource = delegateResource;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean hasNext() throws LdapException
+    {
+        if ( delegate != null )
+        {
+            return delegate.hasNext();
+        }
+
+        while ( current == null || !current.hasNext() )
+        {
+            if ( closed )
+            {
+                return false;
+            }
+
+            submitChunks();
+
+            Future<ParsedChunk> future = inFlight.poll();
+            if ( future == null )
+            {
+                close();
+                return false;
+            }
+
+            ParsedChunk chunk = get( future );
+            if ( charOffset > 0 )
+            {
+                for ( LdifContainer container : chunk.containers )
+                {
+                    container.adjustOffset( charOffset );
+                }
+            }
+            charOffset += chunk.length;
+            current = chunk.containers.iterator();
+        }
+
+        return true;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public LdifContainer next() throws LdapException
+    {
+        if ( hasNext() )
+        {
+            return delegate != null ? delegate.next() : current.next();
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+
+    /**
+     * Stops parsing and releases the input and the threads.
+     */
+    public void close()
+    {
+        if ( delegateResource != null )
+        {
+            try
+            {
+                delegateResource.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+            return;
+        }
+
+        if ( !closed )
+        {
+            closed = true;
+            for ( Future<ParsedChunk> future : inFlight )
+            {
+                future.cancel( false );
+            }
+            inFlight.clear();
+            if ( executor != null )
+            {
+                executor.shutdownNow();
+            }
+            source.close();
+        }
+    }
+
+
+    /**
+     * Submits chunks until enough chunks are parsed ahead or the end of the input is reached.
+     */
+    private void submitChunks() throws LdapException
+    {
+        long length = source.length();
+
+        while ( inFlight.size() < maxInFlight && nextChunkStart < length )
+        {
+            final long start = nextChunkStart;
+            final long end;
+            try
+            {
+                end = source.findBoundary( start + chunkSize );
+            }
+            catch ( IOException e )
+            {
+                close();
+                throw new LdapException( e.getMessage(), e );
+            }
+            nextChunkStart = end;
+
+            Callable<ParsedChunk> task = () -> {
+                String text = source.read( start, end );
+                return new ParsedChunk( ParallelLdifParser.parseChunk( text, start == 0 ), text.length() );
+            };
+
+            if ( executor != null )
+            {
+                inFlight.add( executor.submit( task ) );
+            }
+            else
+            {
+                FutureTask<ParsedChunk> future = new FutureTask<ParsedChunk>( task );
+                future.run();
+                inFlight.add( future );
+            }
+        }
+    }
+
+
+    private ParsedChunk get( Future<ParsedChunk> future ) throws LdapException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            close();
+            Thread.currentThread().interrupt();
+            throw new LdapException( e.getMessage(), e );
+        }
+        catch ( ExecutionException e )
+        {
+            close();
+            Throwable cause = e.getCause();
+            throw new LdapException( cause.getMessage(), cause );
+        }
+    }
+
+    /**
+     * The containers of a chunk and its length in chars.
+     */
+    private static final class ParsedChunk
+    {
+        private final List<LdifContainer> containers;
+
+        private final int length;
+
+
+        private ParsedChunk( List<LdifContainer> containers, int length )
+        {
+            this.containers = containers;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.model.container.LdifEOFContainer;
+
+
+/**
+ * Parses large LDIF input on several threads.
+ * 
+ * The input is split into chunks at blank lines, which always end a record, so no
+ * record spans two chunks. The chunks are parsed concurrently, each by its own
+ * {@link LdifParser}, and the containers are returned in input order through the
+ * {@link LdifEnumeration} contract. The offsets of the returned parts are relative to
+ * the whole input, the same as if the input had been parsed by a single {@link LdifParser}.
+ * 
+ * Input that is not larger than one chunk is parsed in the calling thread.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ParallelLdifParser
+{
+    /** The default chunk size, 1 MB */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /** The number of threads */
+    private final int parallelism;
+
+    /** The approximate size of a chunk, in bytes for files and in chars for strings */
+    private final int chunkSize;
+
+
+    /**
+     * Creates a new instance of ParallelLdifParser that uses one thread per processor
+     * and the default chunk size.
+     */
+    public ParallelLdifParser()
+    {
+        this( Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE );
+    }
+
+
+    /**
+     * Creates a new instance of ParallelLdifParser.
+     *
+     * @param parallelism the number of threads
+     * @param chunkSize the approximate size of a chunk
+     */
+    public ParallelLdifParser( int parallelism, int chunkSize )
+    {
+        if ( parallelism < 1 || chunkSize < 1 )
+        {
+            throw new IllegalArgumentException( "parallelism and chunk size must be positive" ); //$NON-NLS-1$
+        }
+
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+
+    /**
+     * Parses the given LDIF file. The returned enumeration must be closed to release
+     * the file and the threads if it is not read to the end.
+     *
+     * @param file the LDIF file
+     * @param charset the charset of the file
+     * @return the LDIF enumeration
+     * @throws IOException if the file can't be opened
+     */
+    public ParallelLdifEnumeration parse( File file, Charset charset ) throws IOException
+    {
+        if ( !isAsciiCompatible( charset ) )
+        {
+            // line breaks can't be found in the raw bytes, parse sequentially
+            Reader reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), charset ) );
+            return new ParallelLdifEnumeration( new LdifParser().parse( reader ), reader );
+        }
+
+        FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+        return new ParallelLdifEnumeration( new FileChunkSource( channel, charset ), parallelism, chunkSize );
+    }
+
+
+    /**
+     * Parses the given LDIF string.
+     *
+     * @param ldif the LDIF
+     * @return the LDIF enumeration
+     */
+    public ParallelLdifEnumeration parse( String ldif )
+    {
+        return new ParallelLdifEnumeration( new StringChunkSource( ldif ), parallelism, chunkSize );
+    }
+
+
+    /**
+     * Parses one chunk.
+     *
+     * @param text the text of the chunk
+     * @param first true if the chunk is the first of the input
+     * @return the containers
+     */
+    static List<LdifContainer> parseChunk( String text, boolean first )
+    {
+        List<LdifContainer> containers = new ArrayList<LdifContainer>();
+        LdifEnumeration enumeration = new LdifParser().parse( new StringReader( text ), first );
+
+        try
+        {
+            while ( enumeration.hasNext() )
+            {
+                LdifContainer container = enumeration.next();
+                if ( !( container instanceof LdifEOFContainer ) )
+                {
+                    containers.add( container );
+                }
+            }
+        }
+        catch ( LdapException e )
+        {
+            // the string based parser doesn't throw
+        }
+
+        return containers;
+    }
+
+
+    /**
+     * Checks if line feeds and carriage returns are encoded as single bytes that never occur
+     * inside the encoding of other characters.
+     */
+    private static boolean isAsciiCompatible( Charset charset )
+    {
+        byte[] bytes = "\r\n".getBytes( charset ); //$NON-NLS-1$
+        return bytes.length == 2 && bytes[0] == '\r' && bytes[1] == '\n'
+            && !charset.name().toUpperCase().startsWith( "UTF-16" ) //$NON-NLS-1$
+            && !charset.name().toUpperCase().startsWith( "UTF-32" ); //$NON-NLS-1$
+    }
+
+    /**
+     * A source of chunks. Chunk boundaries are searched in the reading thread,
+     * the chunks are read by the parser threads.
+     */
+    interface ChunkSource
+    {
+        /**
+         * @return the length of the input
+         */
+        long length();
+
+
+        /**
+         * Searches the end of the first blank line at or after the given position.
+         *
+         * @param from the position to start at
+         * @return the position after the blank line, or the length of the input
+         * @throws IOException if reading fails
+         */
+        long findBoundary( long from ) throws IOException;
+
+
+        /**
+         * Reads a chunk, must be thread-safe.
+         *
+         * @param start the start position
+         * @param end the end position
+         * @return the text of the chunk
+         * @throws IOException if reading fails
+         */
+        String read( long start, long end ) throws IOException;
+
+
+        /**
+         * Releases the input.
+         */
+        void close();
+    }
+
+    /**
+     * Finds blank lines, i.e. a line feed followed by a line feed or by a carriage
+     * return and a line feed. The state is carried over between calls.
+     */
+    static final class BoundaryMatcher
+    {
+        private int state;
+
+
+        /**
+         * @param c the next character
+         * @return true if the character ends a blank line
+         */
+        boolean next( int c )
+        {
+            if ( c == '\n' )
+            {
+                if ( state != 0 )
+                {
+                    state = 0;
+                    return true;
+                }
+                state = 1;
+            }
+            else if ( c == '\r' && state == 1 )
+            {
+                state = 2;
+            }
+            else
+            {
+                state = 0;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Chunks of a file, read with positional reads on a shared channel.
+     */
+    static final class FileChunkSource implements ChunkSource
+    {
+        private final FileChannel channel;
+
+        private final Charset charset;
+
+        private final long length;
+
+        private final ByteBuffer scanBuffer = ByteBuffer.allocate( 8192 );
+
+
+        FileChunkSource( FileChannel channel, Charset charset ) throws IOException
+        {
+            this.channel = channel;
+            this.charset = charset;
+            this.length = channel.size();
+        }
+
+
+        public long length()
+        {
+            return length;
+        }
+
+
+        public long findBoundary( long from ) throws IOException
+        {
+            BoundaryMatcher matcher = new BoundaryMatcher();
+            long position = from;
+
+            while ( position < length )
+            {
+                scanBuffer.clear();
+                int read = channel.read( scanBuffer, position );
+                if ( read <= 0 )
+                {
+                    break;
+                }
+
+                byte[] bytes = scanBuffer.array();
+                for ( int i = 0; i < read; i++ )
+                {
+                    if ( matcher.next( bytes[i] ) )
+                    {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+
+            return length;
+        }
+
+
+        public String read( long start, long end ) throws IOException
+        {
+            if ( end - start > Integer.MAX_VALUE )
+            {
+                throw new IOException( "LDIF record too large at position " + start ); //$NON-NLS-1$
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate( ( int ) ( end - start ) );
+            while ( buffer.hasRemaining() )
+            {
+                if ( channel.read( buffer, start + buffer.position() ) < 0 )
+                {
+                    break;
+                }
+            }
+
+            return new String( buffer.array(), 0, buffer.position(), charset );
+        }
+
+
+        public void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Chunks of a string.
+     */
+    static final class StringChunkSource implements ChunkSource
+    {
+        private final String ldif;
+
+
+        StringChunkSource( String ldif )
+        {
+            this.ldif = ldif != null ? ldif : ""; //$NON-NLS-1$
+        }
+
+
+        public long length()
+        {
+            return ldif.length();
+        }
+
+
+        public long findBoundary( long from )
+        {
+            BoundaryMatcher matcher = new BoundaryMatcher();
+            for ( int i = ( int ) from; i < ldif.length(); i++ )
+            {
+                if ( matcher.next( ldif.charAt( i ) ) )
+                {
+                    return i + 1;
+                }
+            }
+
+            return ldif.length();
+        }
+
+
+        public String read( long start, long end )
+        {
+            return ldif.substring( ( int ) start, ( int ) end );
+        }
+
+
+        public void close()
+        {
+        }
+    }
+}
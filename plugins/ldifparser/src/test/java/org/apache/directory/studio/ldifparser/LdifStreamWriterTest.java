@@ -0,0 +1,150 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifChangeTypeLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifControlLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifDeloldrdnLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifModSpecSepLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifModSpecTypeLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifNewrdnLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifNewsuperiorLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifVersionLine;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that the {@link LdifStreamWriter} produces the same output as the LDIF line model.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifStreamWriterTest
+{
+    private static final String LONG_VALUE = "12345678901234567890123456789012345678901234567890123456789012345"
+        + "678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234";
+
+    private static final String[] VALUES =
+        { "", "foo", "a", " leading space", "trailing space ", ":colon", "<less", "foo: bar", "foo:: bar",
+            "line\nbreak", "\u00e4\u00f6\u00fc", LONG_VALUE, LONG_VALUE + "\u00e4", LONG_VALUE.substring( 0, 72 ),
+            LONG_VALUE.substring( 0, 73 ), LONG_VALUE.substring( 0, 74 ) };
+
+    private static final LdifFormatParameters[] FORMATS =
+        { LdifFormatParameters.DEFAULT, new LdifFormatParameters( false, 78, "\n" ),
+            new LdifFormatParameters( true, 20, "\r\n" ), new LdifFormatParameters( true, 2, "\n" ) };
+
+
+    @Test
+    public void testValueLines() throws IOException
+    {
+        for ( LdifFormatParameters format : FORMATS )
+        {
+            for ( String value : VALUES )
+            {
+                assertLine( LdifDnLine.create( "cn=" + value ).toFormattedString( format ), format,
+                    w -> w.writeDn( "cn=" + value ) );
+                assertLine( LdifDnLine.create( value ).toFormattedString( format ), format, w -> w.writeDn( value ) );
+                assertLine( LdifAttrValLine.create( "description", value ).toFormattedString( format ), format,
+                    w -> w.writeAttrVal( "description", value ) );
+                assertLine( LdifAttrValLine.create( "jpegPhoto", LdifUtils.utf8encode( value ) )
+                    .toFormattedString( format ), format,
+                    w -> w.writeAttrVal( "jpegPhoto", LdifUtils.utf8encode( value ) ) );
+                assertLine( LdifNewrdnLine.create( value ).toFormattedString( format ), format,
+                    w -> w.writeNewrdn( value ) );
+                assertLine( LdifNewsuperiorLine.create( value ).toFormattedString( format ), format,
+                    w -> w.writeNewsuperior( value ) );
+                assertLine( LdifModSpecTypeLine.createReplace( "description" + value ).toFormattedString( format ),
+                    format, w -> w.writeModSpecType( "replace", "description" + value ) );
+            }
+        }
+    }
+
+
+    @Test
+    public void testBinaryValues() throws IOException
+    {
+        for ( int length = 0; length < 100; length++ )
+        {
+            byte[] value = new byte[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                value[i] = ( byte ) ( i * 37 );
+            }
+
+            for ( LdifFormatParameters format : FORMATS )
+            {
+                assertLine( LdifAttrValLine.create( "userCertificate;binary", value ).toFormattedString( format ),
+                    format, w -> w.writeAttrVal( "userCertificate;binary", value ) );
+                if ( length > 0 )
+                {
+                    assertLine( LdifControlLine.create( "1.2.3.4", true, value ).toFormattedString( format ), format,
+                        w -> w.writeControl( "1.2.3.4", true, value ) );
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void testOtherLines() throws IOException
+    {
+        for ( LdifFormatParameters format : FORMATS )
+        {
+            assertLine( LdifVersionLine.create().toFormattedString( format ), format, w -> w.writeVersion() );
+            assertLine( LdifSepLine.create().toFormattedString( format ), format, w -> w.writeSeparator() );
+            assertLine( LdifModSpecSepLine.create().toFormattedString( format ), format,
+                w -> w.writeModSpecSeparator() );
+            assertLine( LdifCommentLine.create( "#" + LONG_VALUE ).toFormattedString( format ), format,
+                w -> w.writeComment( "#" + LONG_VALUE ) );
+            assertLine( LdifChangeTypeLine.createModify().toFormattedString( format ), format,
+                w -> w.writeChangeType( "modify" ) );
+            assertLine( LdifDeloldrdnLine.create1().toFormattedString( format ), format,
+                w -> w.writeDeloldrdn( true ) );
+            assertLine( LdifDeloldrdnLine.create0().toFormattedString( format ), format,
+                w -> w.writeDeloldrdn( false ) );
+        }
+    }
+
+
+    private static void assertLine( String expected, LdifFormatParameters format, WriteAction action )
+        throws IOException
+    {
+        StringWriter sw = new StringWriter();
+        LdifStreamWriter writer = new LdifStreamWriter( sw, format );
+        action.write( writer );
+        writer.flush();
+        assertEquals( expected, sw.toString() );
+    }
+
+    private interface WriteAction
+    {
+        void write( LdifStreamWriter writer ) throws IOException;
+    }
+}
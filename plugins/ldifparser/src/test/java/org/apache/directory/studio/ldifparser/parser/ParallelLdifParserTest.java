@@ -0,0 +1,153 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that the {@link ParallelLdifParser} returns the same containers as the {@link LdifParser}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ParallelLdifParserTest
+{
+    @Test
+    public void testSameContainersAsSequentialParser() throws Exception
+    {
+        for ( String lineSeparator : new String[]
+            { "\n", "\r\n" } )
+        {
+            String ldif = createLdif( lineSeparator );
+            for ( int chunkSize : new int[]
+                { 1, 7, 50, 300, ldif.length() } )
+            {
+                assertSameContainers( ldif, new ParallelLdifParser( 4, chunkSize ).parse( ldif ) );
+                assertSameContainers( ldif, new ParallelLdifParser( 1, chunkSize ).parse( ldif ) );
+            }
+        }
+    }
+
+
+    @Test
+    public void testFile() throws Exception
+    {
+        String ldif = createLdif( "\n" );
+        File file = File.createTempFile( "ParallelLdifParserTest", ".ldif" );
+
+        try
+        {
+            Files.write( file.toPath(), ldif.getBytes( StandardCharsets.UTF_8 ) );
+            for ( int chunkSize : new int[]
+                { 1, 50, 1000000 } )
+            {
+                try ( ParallelLdifEnumeration enumeration = new ParallelLdifParser( 4, chunkSize ).parse( file,
+                    StandardCharsets.UTF_8 ) )
+                {
+                    assertSameContainers( ldif, enumeration );
+                }
+            }
+
+            // not ASCII compatible, parsed sequentially
+            Files.write( file.toPath(), ldif.getBytes( StandardCharsets.UTF_16 ) );
+            try ( ParallelLdifEnumeration enumeration = new ParallelLdifParser( 4, 50 ).parse( file,
+                StandardCharsets.UTF_16 ) )
+            {
+                assertSameContainers( ldif, enumeration );
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+
+    private static void assertSameContainers( String ldif, LdifEnumeration enumeration ) throws Exception
+    {
+        LdifFile expected = new LdifParser().parse( ldif );
+        List<LdifContainer> actual = new ArrayList<LdifContainer>();
+        while ( enumeration.hasNext() )
+        {
+            actual.add( enumeration.next() );
+        }
+
+        assertEquals( expected.getContainers().size(), actual.size() );
+        for ( int i = 0; i < actual.size(); i++ )
+        {
+            LdifContainer expectedContainer = expected.getContainers().get( i );
+            LdifContainer actualContainer = actual.get( i );
+            assertEquals( expectedContainer.getClass(), actualContainer.getClass() );
+            assertEquals( expectedContainer.toRawString(), actualContainer.toRawString() );
+            assertEquals( expectedContainer.getOffset(), actualContainer.getOffset() );
+        }
+    }
+
+
+    private static String createLdif( String nl )
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "# header comment" ).append( nl );
+        sb.append( "version: 1" ).append( nl ).append( nl );
+        for ( int i = 0; i < 20; i++ )
+        {
+            sb.append( "dn: cn=user" ).append( i ).append( ",ou=users,ou=system" ).append( nl );
+            sb.append( "objectClass: person" ).append( nl );
+            sb.append( "cn: user" ).append( i ).append( nl );
+            sb.append( "description: 12345678901234567890123456789012345678901234567890123456789012345" )
+                .append( nl ).append( " 678901234567890" ).append( nl );
+            sb.append( "sn:: w6TDtsO8" ).append( nl ).append( nl );
+
+            if ( i % 3 == 0 )
+            {
+                sb.append( "# comment " ).append( i ).append( nl ).append( nl ).append( nl );
+            }
+            if ( i % 4 == 0 )
+            {
+                sb.append( "dn: cn=user" ).append( i ).append( ",ou=users,ou=system" ).append( nl );
+                sb.append( "changetype: modify" ).append( nl );
+                sb.append( "replace: description" ).append( nl );
+                sb.append( "description: changed" ).append( nl );
+                sb.append( "-" ).append( nl ).append( nl );
+            }
+            if ( i % 7 == 0 )
+            {
+                sb.append( "invalid line" ).append( nl ).append( nl );
+            }
+        }
+        sb.append( "dn: cn=last,ou=system" ).append( nl );
+        sb.append( "cn: last\u00e4" );
+
+        return sb.toString();
+    }
+}
@@ -21,11 +21,14 @@ package org.apache.directory.studio.openldap.config;
 
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.PropertyResourceBundle;
 
 import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.model.schema.registries.SchemaLoader;
 import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.apache.directory.studio.connection.core.SchemaImage;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
@@ -41,6 +44,9 @@ import org.eclipse.ui.plugin.AbstractUIPlugin;
  */
 public class OpenLdapConfigurationPlugin extends AbstractUIPlugin
 {
+    /** The schema image of the OpenLDAP Config schema, generated at build time */
+    private static final String SCHEMA_IMAGE = OpenLdapSchemaLoader.OPENLDAPCONFIG_SCHEMA_NAME + ".schema"; //$NON-NLS-1$
+
     /** The shared instance */
     private static OpenLdapConfigurationPlugin plugin;
 
@@ -70,17 +76,25 @@ public class OpenLdapConfigurationPlugin extends AbstractUIPlugin
     {
         if ( schemaManager == null )
         {
-            // Initializing the schema manager
-            schemaManager = new DefaultSchemaManager( new OpenLdapSchemaLoader() );
-
-            // Loading only the OpenLDAP schema (and its dependencies)
-            schemaManager.loadWithDeps( OpenLdapSchemaLoader.OPENLDAPCONFIG_SCHEMA_NAME );
+            // Initializing the schema manager from the schema image
+            SchemaLoader imageLoader = getSchemaImageLoader();
+            if ( imageLoader != null )
+            {
+                try
+                {
+                    schemaManager = loadSchemaManager( imageLoader );
+                }
+                catch ( Exception e )
+                {
+                    getLog().log( new Status( Status.WARNING, OpenLdapConfigurationPluginConstants.PLUGIN_ID,
+                        Status.OK, Messages.getString( "OpenLdapConfigurationPlugin.CouldNotLoadSchemaImage" ), e ) ); //$NON-NLS-1$
+                }
+            }
 
-            // Checking if no error occurred when loading the schemas
-            if ( !schemaManager.getErrors().isEmpty() )
+            // Falling back to the LDIF files of the schemas
+            if ( schemaManager == null )
             {
-                schemaManager = null;
-                throw new Exception( "Could not load the OpenLDAP schema correctly." );
+                schemaManager = loadSchemaManager( new OpenLdapSchemaLoader() );
             }
         }
 
@@ -88,6 +102,57 @@ public class OpenLdapConfigurationPlugin extends AbstractUIPlugin
     }
 
 
+    /**
+     * Creates a schema manager and loads the OpenLDAP schema.
+     *
+     * @param loader the schema loader
+     * @return the schema manager
+     * @throws Exception if an error occurred
+     */
+    static SchemaManager loadSchemaManager( SchemaLoader loader ) throws Exception
+    {
+        SchemaManager schemaManager = new DefaultSchemaManager( loader );
+
+        // Loading only the OpenLDAP schema (and its dependencies)
+        schemaManager.loadWithDeps( OpenLdapSchemaLoader.OPENLDAPCONFIG_SCHEMA_NAME );
+
+        // Checking if no error occurred when loading the schemas
+        if ( !schemaManager.getErrors().isEmpty() )
+        {
+            throw new Exception( "Could not load the OpenLDAP schema correctly." );
+        }
+
+        return schemaManager;
+    }
+
+
+    /**
+     * Gets the schema loader of the schema image bundled with this plugin.
+     *
+     * @return the schema loader, or null if the image is missing or can't be read
+     */
+    static SchemaLoader getSchemaImageLoader()
+    {
+        try ( InputStream in = OpenLdapConfigurationPlugin.class.getResourceAsStream( SCHEMA_IMAGE ) )
+        {
+            if ( in != null )
+            {
+                return SchemaImage.load( in );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            if ( plugin != null )
+            {
+                plugin.getLog().log( new Status( Status.WARNING, OpenLdapConfigurationPluginConstants.PLUGIN_ID,
+                    Status.OK, Messages.getString( "OpenLdapConfigurationPlugin.CouldNotLoadSchemaImage" ), e ) ); //$NON-NLS-1$
+            }
+        }
+
+        return null;
+    }
+
+
     /**
      * Returns the shared instance.
      *
@@ -0,0 +1,90 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.config;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.api.ldap.model.schema.registries.Schema;
+import org.apache.directory.api.ldap.model.schema.registries.SchemaLoader;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests that the schema image bundled with the plugin provides the same schema as the LDIF files.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaImageTest
+{
+    /**
+     * Tests the schema image generated at build time.
+     */
+    @Test
+    public void testBundledSchemaImage() throws Exception
+    {
+        SchemaManager ldifSchemaManager = OpenLdapConfigurationPlugin.loadSchemaManager( new OpenLdapSchemaLoader() );
+
+        SchemaLoader imageLoader = OpenLdapConfigurationPlugin.getSchemaImageLoader();
+        assertNotNull( imageLoader );
+        SchemaManager imageSchemaManager = OpenLdapConfigurationPlugin.loadSchemaManager( imageLoader );
+
+        assertSameSchema( ldifSchemaManager, imageSchemaManager );
+    }
+
+
+    private static void assertSameSchema( SchemaManager expected, SchemaManager actual )
+    {
+        assertEquals( getSchemaNames( expected.getEnabled() ), getSchemaNames( actual.getEnabled() ) );
+        assertEquals( getOids( expected.getAttributeTypeRegistry() ), getOids( actual.getAttributeTypeRegistry() ) );
+        assertEquals( getOids( expected.getObjectClassRegistry() ), getOids( actual.getObjectClassRegistry() ) );
+    }
+
+
+    private static List<String> getSchemaNames( List<Schema> schemas )
+    {
+        List<String> names = new ArrayList<String>();
+        for ( Schema schema : schemas )
+        {
+            names.add( schema.getSchemaName() + ":" + schema.isEnabled() );
+        }
+        names.sort( null );
+        return names;
+    }
+
+
+    private static Set<String> getOids( Iterable<? extends SchemaObject> schemaObjects )
+    {
+        Set<String> oids = new TreeSet<String>();
+        for ( SchemaObject schemaObject : schemaObjects )
+        {
+            oids.add( schemaObject.getOid() );
+        }
+        return oids;
+    }
+}
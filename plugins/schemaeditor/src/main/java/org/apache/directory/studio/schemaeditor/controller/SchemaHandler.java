@@ -77,6 +77,9 @@ public class SchemaHandler
     //
     private List<SchemaHandlerListener> schemaHandlerListeners;
 
+    /** The search index */
+    private SchemaSearchIndex searchIndex;
+
 
     /**
      * Creates a new instance of SchemaHandler.
@@ -99,6 +102,22 @@ public class SchemaHandler
 
         // Listeners
         schemaHandlerListeners = new ArrayList<SchemaHandlerListener>();
+
+        // Search index, notified before the other listeners
+        searchIndex = new SchemaSearchIndex();
+        addListener( searchIndex );
+    }
+
+
+    /**
+     * Gets the search index over the attribute types and object classes.
+     *
+     * @return
+     *      the search index
+     */
+    public SchemaSearchIndex getSearchIndex()
+    {
+        return searchIndex;
     }
 
 
@@ -0,0 +1,601 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.schemaeditor.controller;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.studio.schemaeditor.model.Schema;
+
+
+/**
+ * This class represents an in-memory search index over the attribute types
+ * and object classes of the {@link SchemaHandler}.
+ * <p>
+ * The search string has the syntax of the Search view: a regular expression
+ * matched against the whole value, case insensitive, where '*' matches any 
+ * sequence of non-whitespace characters and '?' matches one non-whitespace 
+ * character.
+ * <p>
+ * Each field is indexed in a sorted map of its lower-cased values, used to
+ * get the candidates for a literal prefix of the search string, and in a 
+ * trigram index, used to get the candidates for a literal part of the search
+ * string after a leading wildcard. Only the candidates are matched against the
+ * regular expression.
+ * <p>
+ * The index is updated incrementally from the SchemaHandler events.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaSearchIndex extends SchemaHandlerAdapter
+{
+    /**
+     * The indexed fields.
+     */
+    public enum Field
+    {
+        /** The names of attribute types and object classes */
+        ALIASES,
+        /** The OIDs of attribute types and object classes */
+        OID,
+        /** The descriptions of attribute types and object classes */
+        DESCRIPTION,
+        /** The superior of attribute types */
+        SUPERIOR,
+        /** The syntax of attribute types */
+        SYNTAX,
+        /** The equality, ordering and substring matching rules of attribute types */
+        MATCHING_RULES,
+        /** The superiors of object classes */
+        SUPERIORS,
+        /** The mandatory attribute types of object classes */
+        MANDATORY_ATTRIBUTES,
+        /** The optional attribute types of object classes */
+        OPTIONAL_ATTRIBUTES
+    }
+
+    /** The characters with a special meaning in the search string */
+    private static final String SPECIAL_CHARACTERS = "\\^$.|?*+()[]{}"; //$NON-NLS-1$
+
+    /** The characters that make parts of the search string optional */
+    private static final String UNINDEXABLE_CHARACTERS = "|+(){}"; //$NON-NLS-1$
+
+    /** The length of the indexed n-grams */
+    private static final int GRAM_LENGTH = 3;
+
+    /** The index of each field */
+    private Map<Field, FieldIndex> fieldIndexes = new EnumMap<Field, FieldIndex>( Field.class );
+
+    /** The indexed values of each indexed schema object, used to remove it even if it was modified in place */
+    private Map<SchemaObject, List<IndexedValue>> indexedValues = new IdentityHashMap<SchemaObject, List<IndexedValue>>();
+
+    /** The sequence numbers of the indexed schema objects, to return them in the order they were added */
+    private Map<SchemaObject, Long> sequenceNumbers = new IdentityHashMap<SchemaObject, Long>();
+
+    /** The next sequence number */
+    private long nextSequenceNumber;
+
+
+    /**
+     * Creates a new instance of SchemaSearchIndex.
+     */
+    public SchemaSearchIndex()
+    {
+        for ( Field field : Field.values() )
+        {
+            fieldIndexes.put( field, new FieldIndex() );
+        }
+    }
+
+
+    /**
+     * Searches the attribute types and object classes matching the search string
+     * in one of the given fields.
+     *
+     * @param searchString
+     *      the search string
+     * @param fields
+     *      the fields to search in
+     * @param attributeTypes
+     *      true to search attribute types
+     * @param objectClasses
+     *      true to search object classes
+     * @return
+     *      the matching schema objects, attribute types first, each in the order 
+     *      they were added to the SchemaHandler
+     */
+    public List<SchemaObject> search( String searchString, Collection<Field> fields, boolean attributeTypes,
+        boolean objectClasses )
+    {
+        String computedSearchString = searchString.replaceAll( "\\*", "[\\\\S]*" ); //$NON-NLS-1$ //$NON-NLS-2$
+        computedSearchString = computedSearchString.replaceAll( "\\?", "[\\\\S]" ); //$NON-NLS-1$ //$NON-NLS-2$
+        Pattern pattern = Pattern.compile( computedSearchString, Pattern.CASE_INSENSITIVE );
+
+        Set<SchemaObject> matches = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+        for ( Field field : fields )
+        {
+            for ( IndexedValue indexedValue : fieldIndexes.get( field ).getCandidates( searchString ) )
+            {
+                SchemaObject object = indexedValue.object;
+                if ( ( attributeTypes || !( object instanceof AttributeType ) )
+                    && ( objectClasses || !( object instanceof ObjectClass ) ) && !matches.contains( object )
+                    && pattern.matcher( indexedValue.value ).matches() )
+                {
+                    matches.add( object );
+                }
+            }
+        }
+
+        List<SchemaObject> results = new ArrayList<SchemaObject>( matches );
+        Collections.sort( results, ( o1, o2 ) -> {
+            boolean at1 = o1 instanceof AttributeType;
+            boolean at2 = o2 instanceof AttributeType;
+            if ( at1 != at2 )
+            {
+                return at1 ? -1 : 1;
+            }
+            return Long.compare( sequenceNumbers.get( o1 ), sequenceNumbers.get( o2 ) );
+        } );
+
+        return results;
+    }
+
+
+    /**
+     * Adds the given attribute type or object class to the index.
+     *
+     * @param object
+     *      the schema object
+     */
+    public void add( SchemaObject object )
+    {
+        remove( object );
+
+        List<IndexedValue> values = new ArrayList<IndexedValue>();
+        if ( object instanceof AttributeType )
+        {
+            AttributeType at = ( AttributeType ) object;
+            addValues( values, Field.ALIASES, at, at.getNames() );
+            addValue( values, Field.OID, at, at.getOid() );
+            addValue( values, Field.DESCRIPTION, at, at.getDescription() );
+            addValue( values, Field.SUPERIOR, at, at.getSuperiorOid() );
+            addValue( values, Field.SYNTAX, at, at.getSyntaxOid() );
+            addValue( values, Field.MATCHING_RULES, at, at.getEqualityOid() );
+            addValue( values, Field.MATCHING_RULES, at, at.getOrderingOid() );
+            addValue( values, Field.MATCHING_RULES, at, at.getSubstringOid() );
+        }
+        else if ( object instanceof ObjectClass )
+        {
+            ObjectClass oc = ( ObjectClass ) object;
+            addValues( values, Field.ALIASES, oc, oc.getNames() );
+            addValue( values, Field.OID, oc, oc.getOid() );
+            addValue( values, Field.DESCRIPTION, oc, oc.getDescription() );
+            addValues( values, Field.SUPERIORS, oc, oc.getSuperiorOids() );
+            addValues( values, Field.MANDATORY_ATTRIBUTES, oc, oc.getMustAttributeTypeOids() );
+            addValues( values, Field.OPTIONAL_ATTRIBUTES, oc, oc.getMayAttributeTypeOids() );
+        }
+        else
+        {
+            return;
+        }
+
+        indexedValues.put( object, values );
+        sequenceNumbers.put( object, nextSequenceNumber++ );
+    }
+
+
+    /**
+     * Removes the given schema object from the index.
+     *
+     * @param object
+     *      the schema object
+     */
+    public void remove( SchemaObject object )
+    {
+        List<IndexedValue> values = indexedValues.remove( object );
+        if ( values != null )
+        {
+            for ( IndexedValue value : values )
+            {
+                fieldIndexes.get( value.field ).remove( value );
+            }
+        }
+        sequenceNumbers.remove( object );
+    }
+
+
+    private void addValues( List<IndexedValue> values, Field field, SchemaObject object, List<String> strings )
+    {
+        if ( strings != null )
+        {
+            for ( String string : strings )
+            {
+                addValue( values, field, object, string );
+            }
+        }
+    }
+
+
+    private void addValue( List<IndexedValue> values, Field field, SchemaObject object, String string )
+    {
+        if ( string != null )
+        {
+            IndexedValue value = new IndexedValue( field, object, string );
+            fieldIndexes.get( field ).add( value );
+            values.add( value );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void attributeTypeAdded( AttributeType at )
+    {
+        add( at );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void attributeTypeModified( AttributeType at )
+    {
+        add( at );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void attributeTypeRemoved( AttributeType at )
+    {
+        remove( at );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void objectClassAdded( ObjectClass oc )
+    {
+        add( oc );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void objectClassModified( ObjectClass oc )
+    {
+        add( oc );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void objectClassRemoved( ObjectClass oc )
+    {
+        remove( oc );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void schemaAdded( Schema schema )
+    {
+        for ( AttributeType at : schema.getAttributeTypes() )
+        {
+            add( at );
+        }
+        for ( ObjectClass oc : schema.getObjectClasses() )
+        {
+            add( oc );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void schemaRemoved( Schema schema )
+    {
+        for ( AttributeType at : schema.getAttributeTypes() )
+        {
+            remove( at );
+        }
+        for ( ObjectClass oc : schema.getObjectClasses() )
+        {
+            remove( oc );
+        }
+    }
+
+
+    /**
+     * Gets the literal prefix of the search string: every value matching the 
+     * search string starts with it, ignoring case.
+     *
+     * @param searchString
+     *      the search string
+     * @return
+     *      the literal prefix, may be empty
+     */
+    static String getLiteralPrefix( String searchString )
+    {
+        if ( !isIndexable( searchString ) )
+        {
+            return ""; //$NON-NLS-1$
+        }
+
+        int end = 0;
+        while ( end < searchString.length() && SPECIAL_CHARACTERS.indexOf( searchString.charAt( end ) ) == -1 )
+        {
+            end++;
+        }
+
+        return searchString.substring( 0, end );
+    }
+
+
+    /**
+     * Gets the literal parts of the search string: every value matching the search
+     * string contains them, ignoring case.
+     *
+     * @param searchString
+     *      the search string
+     * @return
+     *      the literal parts, in order
+     */
+    static List<String> getLiterals( String searchString )
+    {
+        List<String> literals = new ArrayList<String>();
+
+        if ( !isIndexable( searchString ) )
+        {
+            return literals;
+        }
+
+        StringBuilder literal = new StringBuilder();
+        for ( int i = 0; i < searchString.length(); i++ )
+        {
+            char c = searchString.charAt( i );
+
+            if ( SPECIAL_CHARACTERS.indexOf( c ) > -1 )
+            {
+                if ( literal.length() > 0 )
+                {
+                    literals.add( literal.toString() );
+                    literal.setLength( 0 );
+                }
+
+                // skip escaped characters and character classes, they are no literals
+                if ( c == '\\' )
+                {
+                    i++;
+                }
+                else if ( c == '[' )
+                {
+                    int end = searchString.indexOf( ']', i + 2 );
+                    if ( end == -1 )
+                    {
+                        break;
+                    }
+                    i = end;
+                }
+            }
+            else
+            {
+                literal.append( c );
+            }
+        }
+        if ( literal.length() > 0 )
+        {
+            literals.add( literal.toString() );
+        }
+
+        return literals;
+    }
+
+
+    /**
+     * Checks if the search string can be answered from the index: alternations, 
+     * groups and quantifiers may make literal parts optional.
+     */
+    private static boolean isIndexable( String searchString )
+    {
+        for ( int i = 0; i < searchString.length(); i++ )
+        {
+            if ( UNINDEXABLE_CHARACTERS.indexOf( searchString.charAt( i ) ) > -1 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static String toKey( String value )
+    {
+        return value.toLowerCase( Locale.ENGLISH );
+    }
+
+
+    /**
+     * An indexed value.
+     */
+    private static class IndexedValue
+    {
+        private Field field;
+        private SchemaObject object;
+        private String value;
+
+
+        private IndexedValue( Field field, SchemaObject object, String value )
+        {
+            this.field = field;
+            this.object = object;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The index of a field.
+     */
+    private static class FieldIndex
+    {
+        /** The indexed values, by lower-cased value */
+        private SortedMap<String, List<IndexedValue>> valuesMap = new TreeMap<String, List<IndexedValue>>();
+
+        /** The lower-cased values, by contained n-gram */
+        private Map<String, Set<String>> gramsMap = new HashMap<String, Set<String>>();
+
+
+        private void add( IndexedValue value )
+        {
+            String key = toKey( value.value );
+            List<IndexedValue> values = valuesMap.get( key );
+            if ( values == null )
+            {
+                values = new ArrayList<IndexedValue>( 1 );
+                valuesMap.put( key, values );
+                for ( String gram : getGrams( key ) )
+                {
+                    gramsMap.computeIfAbsent( gram, k -> new HashSet<String>() ).add( key );
+                }
+            }
+            values.add( value );
+        }
+
+
+        private void remove( IndexedValue value )
+        {
+            String key = toKey( value.value );
+            List<IndexedValue> values = valuesMap.get( key );
+            if ( values != null && values.remove( value ) && values.isEmpty() )
+            {
+                valuesMap.remove( key );
+                for ( String gram : getGrams( key ) )
+                {
+                    Set<String> keys = gramsMap.get( gram );
+                    if ( keys != null )
+                    {
+                        keys.remove( key );
+                        if ( keys.isEmpty() )
+                        {
+                            gramsMap.remove( gram );
+                        }
+                    }
+                }
+            }
+        }
+
+
+        /**
+         * Gets the candidates for the search string, a superset of the matching values.
+         */
+        private List<IndexedValue> getCandidates( String searchString )
+        {
+            List<IndexedValue> candidates = new ArrayList<IndexedValue>();
+
+            String prefix = toKey( getLiteralPrefix( searchString ) );
+            if ( !prefix.isEmpty() )
+            {
+                // all values starting with the prefix
+                for ( List<IndexedValue> values : valuesMap.subMap( prefix, prefix + Character.MAX_VALUE )
+                    .values() )
+                {
+                    candidates.addAll( values );
+                }
+                return candidates;
+            }
+
+            // the values containing all n-grams of the longest literal
+            String longestLiteral = ""; //$NON-NLS-1$
+            for ( String literal : getLiterals( searchString ) )
+            {
+                if ( literal.length() > longestLiteral.length() )
+                {
+                    longestLiteral = literal;
+                }
+            }
+            if ( longestLiteral.length() >= GRAM_LENGTH )
+            {
+                Set<String> keys = null;
+                for ( String gram : getGrams( toKey( longestLiteral ) ) )
+                {
+                    Set<String> gramKeys = gramsMap.get( gram );
+                    if ( gramKeys == null )
+                    {
+                        return candidates;
+                    }
+                    if ( keys == null )
+                    {
+                        keys = new HashSet<String>( gramKeys );
+                    }
+                    else
+                    {
+                        keys.retainAll( gramKeys );
+                    }
+                }
+                for ( String key : keys )
+                {
+                    candidates.addAll( valuesMap.get( key ) );
+                }
+                return candidates;
+            }
+
+            // all values
+            for ( List<IndexedValue> values : valuesMap.values() )
+            {
+                candidates.addAll( values );
+            }
+            return candidates;
+        }
+
+
+        private static Set<String> getGrams( String key )
+        {
+            Set<String> grams = new HashSet<String>();
+            for ( int i = 0; i + GRAM_LENGTH <= key.length(); i++ )
+            {
+                grams.add( key.substring( i, i + GRAM_LENGTH ) );
+            }
+            return grams;
+        }
+    }
+}
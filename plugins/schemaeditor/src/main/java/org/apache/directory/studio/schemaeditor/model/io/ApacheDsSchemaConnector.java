@@ -21,7 +21,10 @@ package org.apache.directory.studio.schemaeditor.model.io;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -30,6 +33,7 @@ import java.util.stream.StreamSupport;
 
 import javax.naming.directory.SearchControls;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.directory.api.ldap.model.constants.LdapConstants;
 import org.apache.directory.api.ldap.model.constants.MetaSchemaConstants;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
@@ -38,17 +42,23 @@ import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Value;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
 import org.apache.directory.api.ldap.model.schema.MatchingRule;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.ldap.model.schema.ObjectClassTypeEnum;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
 import org.apache.directory.api.ldap.model.schema.UsageEnum;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
-import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaDescriptionParsers;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaDescriptionParsers.Result;
 import org.apache.directory.studio.schemaeditor.model.Project;
 import org.apache.directory.studio.schemaeditor.model.Schema;
 
@@ -60,6 +70,9 @@ import org.apache.directory.studio.schemaeditor.model.Schema;
  */
 public class ApacheDsSchemaConnector extends AbstractSchemaConnector implements SchemaConnector
 {
+    /** The page size used to read the schema partition */
+    private static final int PAGE_SIZE = 1000;
+
     /**
      * This enum represents the different types of nodes that can be found while
      * reading the schema from the DIT.
@@ -81,42 +94,83 @@ public class ApacheDsSchemaConnector extends AbstractSchemaConnector implements
         project.setInitialSchema( schemas );
         ConnectionWrapper wrapper = project.getConnection().getConnectionWrapper();
 
-        // Looking for all the defined schemas
+        // Reading the whole schema partition with one paged search, the schemas are
+        // created in the order of their metaSchema entries
+        Map<String, List<Entry>> elementsBySchema = new HashMap<String, List<Entry>>();
+        List<String> schemaNames = new ArrayList<String>();
+
         SearchControls constraintSearch = new SearchControls();
-        constraintSearch.setSearchScope( SearchControls.ONELEVEL_SCOPE );
+        constraintSearch.setSearchScope( SearchControls.SUBTREE_SCOPE );
 
-        StudioSearchResultEnumeration answer = wrapper
-            .search( SchemaConstants.OU_SCHEMA, "(objectclass=metaSchema)", constraintSearch, DEREF_ALIAS_METHOD, //$NON-NLS-1$ //$NON-NLS-2$
-                HANDLE_REFERALS_METHOD, null, monitor, null );
-        
-        if ( answer != null )
+        try
         {
-            try
+            Dn schemaPartitionDn = new Dn( SchemaConstants.OU_SCHEMA );
+            byte[] cookie = null;
+
+            do
             {
+                Control[] controls = new Control[]
+                    { Controls.newPagedResultsControl( PAGE_SIZE, cookie ) };
+                cookie = null;
+
+                StudioSearchResultEnumeration answer = wrapper.search( SchemaConstants.OU_SCHEMA,
+                    LdapConstants.OBJECT_CLASS_STAR, constraintSearch, DEREF_ALIAS_METHOD, HANDLE_REFERALS_METHOD,
+                    controls, monitor, null );
+
+                if ( answer == null )
+                {
+                    break;
+                }
+
                 while ( answer.hasMore() )
                 {
-                    StudioSearchResult searchResult = answer.next();
+                    Entry entry = answer.next().getEntry();
+                    Dn dn = entry.getDn();
 
-                    // Getting the 'cn' Attribute
-                    Attribute cnAttribute = searchResult.getEntry()
-                        .get( SchemaConstants.CN_AT );
+                    if ( dn.size() <= schemaPartitionDn.size() )
+                    {
+                        continue;
+                    }
+
+                    // The name of the schema is the value of the RDN below ou=schema
+                    String name = dn.getRdn( dn.size() - schemaPartitionDn.size() - 1 ).getValue();
 
-                    // Looping on the values
-                    if ( cnAttribute != null )
+                    if ( dn.size() == schemaPartitionDn.size() + 1 )
                     {
-                        for ( Value cnValue : cnAttribute )
+                        if ( entry.hasObjectClass( MetaSchemaConstants.META_SCHEMA_OC ) )
                         {
-                            Schema schema = getSchema( wrapper, cnValue.getString(), monitor );
-                            schema.setProject( project );
-                            schemas.add( schema );
+                            schemaNames.add( name );
                         }
                     }
+                    else if ( getNodeType( entry ) != SchemaNodeTypes.UNKNOWN )
+                    {
+                        elementsBySchema.computeIfAbsent( name, k -> new ArrayList<Entry>() ).add( entry );
+                    }
+                }
+
+                for ( Control responseControl : answer.getResponseControls() )
+                {
+                    if ( responseControl instanceof PagedResults
+                        && ArrayUtils.isNotEmpty( ( ( PagedResults ) responseControl ).getCookie() ) )
+                    {
+                        cookie = ( ( PagedResults ) responseControl ).getCookie();
+                    }
                 }
             }
-            catch ( Exception e )
-            {
-                throw new SchemaConnectorException( e );
-            }
+            while ( cookie != null && !monitor.isCanceled() );
+        }
+        catch ( Exception e )
+        {
+            throw new SchemaConnectorException( e );
+        }
+
+        for ( String name : schemaNames )
+        {
+            monitor.subTask( name );
+            Schema schema = getSchema( name, elementsBySchema.getOrDefault( name, Collections.emptyList() ),
+                monitor );
+            schema.setProject( project );
+            schemas.add( schema );
         }
 
         monitor.worked( 1 );
@@ -181,63 +235,47 @@ public class ApacheDsSchemaConnector extends AbstractSchemaConnector implements
     }
 
 
-    private static Schema getSchema( ConnectionWrapper wrapper, String name, StudioProgressMonitor monitor )
-        throws LdapException
+    /**
+     * Creates the schema from its element entries. The entries are converted in
+     * parallel and added in the order of the search results.
+     *
+     * @param name the name of the schema
+     * @param entries the entries of the schema elements
+     * @param monitor the monitor
+     * @return the schema
+     */
+    private static Schema getSchema( String name, List<Entry> entries, StudioProgressMonitor monitor )
     {
-        monitor.subTask( name );
-
         // Creating the schema
         Schema schema = new Schema( name );
 
-        // Looking for the nodes of the schema
-        SearchControls constraintSearch = new SearchControls();
-        constraintSearch.setSearchScope( SearchControls.SUBTREE_SCOPE );
-
-        StudioSearchResultEnumeration answer = wrapper.search( "cn=" + name + ", ou=schema", LdapConstants.OBJECT_CLASS_STAR, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-            constraintSearch, DEREF_ALIAS_METHOD, HANDLE_REFERALS_METHOD, null, monitor, null );
-        
-        if ( answer != null )
+        for ( Result<SchemaObject> result : SchemaDescriptionParsers.parse( entries,
+            ( parsers, entry ) -> createSchemaObject( entry ) ) )
         {
-            try
+            if ( result.getException() != null )
             {
-                while ( answer.hasMore() )
-                {
-                    Entry entry = answer.next().getEntry();
-                    
-                    switch ( getNodeType( entry ) )
-                    {
-                        case ATTRIBUTE_TYPE:
-                            AttributeType at = createAttributeType( entry );
-                            at.setSchemaName( name );
-                            schema.addAttributeType( at );
-                            break;
-                            
-                        case OBJECT_CLASS:
-                            ObjectClass oc = createObjectClass( entry );
-                            oc.setSchemaName( name );
-                            schema.addObjectClass( oc );
-                            break;
-                            
-                        case MATCHING_RULE:
-                            MatchingRule mr = createMatchingRule( entry );
-                            mr.setSchemaName( name );
-                            schema.addMatchingRule( mr );
-                            break;
-                            
-                        case SYNTAX:
-                            LdapSyntax syntax = createSyntax( entry );
-                            syntax.setSchemaName( name );
-                            schema.addSyntax( syntax );
-                            break;
-                            
-                        default:
-                            break;
-                    }
-                }
+                monitor.reportError( result.getException() );
+                continue;
             }
-            catch ( LdapInvalidAttributeValueException e )
+
+            SchemaObject schemaObject = result.getValue();
+            schemaObject.setSchemaName( name );
+
+            if ( schemaObject instanceof AttributeType )
             {
-                monitor.reportError( e );
+                schema.addAttributeType( ( AttributeType ) schemaObject );
+            }
+            else if ( schemaObject instanceof ObjectClass )
+            {
+                schema.addObjectClass( ( ObjectClass ) schemaObject );
+            }
+            else if ( schemaObject instanceof MatchingRule )
+            {
+                schema.addMatchingRule( ( MatchingRule ) schemaObject );
+            }
+            else if ( schemaObject instanceof LdapSyntax )
+            {
+                schema.addSyntax( ( LdapSyntax ) schemaObject );
             }
         }
 
@@ -245,6 +283,35 @@ public class ApacheDsSchemaConnector extends AbstractSchemaConnector implements
     }
 
 
+    /**
+     * Creates the schema object associated with the given entry.
+     *
+     * @param entry the search result entry
+     * @return the schema object
+     * @throws LdapInvalidAttributeValueException
+     */
+    private static SchemaObject createSchemaObject( Entry entry ) throws LdapInvalidAttributeValueException
+    {
+        switch ( getNodeType( entry ) )
+        {
+            case ATTRIBUTE_TYPE:
+                return createAttributeType( entry );
+
+            case OBJECT_CLASS:
+                return createObjectClass( entry );
+
+            case MATCHING_RULE:
+                return createMatchingRule( entry );
+
+            case SYNTAX:
+                return createSyntax( entry );
+
+            default:
+                throw new IllegalArgumentException( entry.getDn().getName() );
+        }
+    }
+
+
     /**
      * Gets the Type of node of the given SearchResult.
      * 
@@ -22,6 +22,7 @@ package org.apache.directory.studio.schemaeditor.model.io;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.naming.directory.SearchControls;
@@ -37,15 +38,14 @@ import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
 import org.apache.directory.api.ldap.model.schema.MatchingRule;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
-import org.apache.directory.api.ldap.model.schema.parsers.AttributeTypeDescriptionSchemaParser;
-import org.apache.directory.api.ldap.model.schema.parsers.LdapSyntaxDescriptionSchemaParser;
-import org.apache.directory.api.ldap.model.schema.parsers.MatchingRuleDescriptionSchemaParser;
-import org.apache.directory.api.ldap.model.schema.parsers.ObjectClassDescriptionSchemaParser;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Utils;
 import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaDescriptionParsers;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaDescriptionParsers.Parser;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaDescriptionParsers.Result;
 import org.apache.directory.studio.schemaeditor.PluginUtils;
 import org.apache.directory.studio.schemaeditor.model.Project;
 import org.apache.directory.studio.schemaeditor.model.Schema;
@@ -187,111 +187,44 @@ public class GenericSchemaConnector extends AbstractSchemaConnector implements S
         // The counter for parser exceptions
         int parseErrorCount = 0;
 
-        Attribute attributeTypesAttribute = entry.get( SchemaConstants.ATTRIBUTE_TYPES_AT );
-        if ( attributeTypesAttribute != null )
+        // The descriptions are parsed in parallel, the results are added in the order of the values
+        for ( Result<AttributeType> result : parse( entry, SchemaConstants.ATTRIBUTE_TYPES_AT,
+            ( parsers, value ) -> createAttributeType( schema, parsers.parseAttributeType( value ) ) ) )
         {
-                for ( Value value : attributeTypesAttribute )
-                {
-                    try
-                    {
-                        AttributeTypeDescriptionSchemaParser parser = new AttributeTypeDescriptionSchemaParser();
-                        parser.setQuirksMode( true );
-
-                        AttributeType atd = parser.parse( value.getString() );
-
-                        AttributeType impl = new AttributeType( atd.getOid() );
-                        impl.setNames( atd.getNames().toArray( new String[0] ) );
-                        impl.setDescription( atd.getDescription() );
-                        impl.setSuperiorOid( atd.getSuperiorOid() );
-                        impl.setUsage( atd.getUsage() );
-                        impl.setSyntaxOid( atd.getSyntaxOid() );
-                        impl.setSyntaxLength( atd.getSyntaxLength() );
-                        impl.setObsolete( atd.isObsolete() );
-                        impl.setCollective( atd.isCollective() );
-                        impl.setSingleValued( atd.isSingleValued() );
-                        impl.setUserModifiable( atd.isUserModifiable() );
-                        impl.setEqualityOid( atd.getEqualityOid() );
-                        impl.setOrderingOid( atd.getOrderingOid() );
-                        impl.setSubstringOid( atd.getSubstringOid() );
-                        impl.setSchemaName( schema.getSchemaName() );
-
-                        // Active Directory hack
-                        if ( impl.getSyntaxOid() != null && "OctetString".equalsIgnoreCase( impl.getSyntaxOid() ) ) //$NON-NLS-1$
-                        {
-                            impl.setSyntaxOid( SchemaConstants.OCTET_STRING_SYNTAX );
-                        }
-
-                        schema.addAttributeType( impl );
-                    }
-                    catch ( ParseException e )
-                    {
-                        // Logging the exception and incrementing the counter
-                        PluginUtils.logError( "Unable to parse the attribute type.", e ); //$NON-NLS-1$
-                        parseErrorCount++;
-                    }
+            if ( isParsed( result, "Unable to parse the attribute type." ) ) //$NON-NLS-1$
+            {
+                schema.addAttributeType( result.getValue() );
+            }
+            else
+            {
+                parseErrorCount++;
             }
         }
 
-        Attribute objectClassesAttribute = entry.get( SchemaConstants.OBJECT_CLASSES_AT );
-        if ( objectClassesAttribute != null )
+        for ( Result<ObjectClass> result : parse( entry, SchemaConstants.OBJECT_CLASSES_AT,
+            ( parsers, value ) -> createObjectClass( schema, parsers.parseObjectClass( value ) ) ) )
         {
-                for ( Value value : objectClassesAttribute )
-                {
-                    try
-                    {
-                        ObjectClassDescriptionSchemaParser parser = new ObjectClassDescriptionSchemaParser();
-                        parser.setQuirksMode( true );
-                        ObjectClass ocd = parser.parse( value.getString() );
-
-                        ObjectClass impl = new ObjectClass( ocd.getOid() );
-                        impl.setNames( ocd.getNames().toArray( new String[0] ) );
-                        impl.setDescription( ocd.getDescription() );
-                        impl.setSuperiorOids( ocd.getSuperiorOids() );
-                        impl.setType( ocd.getType() );
-                        impl.setObsolete( ocd.isObsolete() );
-                        impl.setMustAttributeTypeOids( ocd.getMustAttributeTypeOids() );
-                        impl.setMayAttributeTypeOids( ocd.getMayAttributeTypeOids() );
-                        impl.setSchemaName( schema.getSchemaName() );
-
-                        schema.addObjectClass( impl );
-                    }
-                    catch ( ParseException e )
-                    {
-                        // Logging the exception and incrementing the counter
-                        PluginUtils.logError( "Unable to parse the object class.", e ); //$NON-NLS-1$
-                        parseErrorCount++;
-                    }
-                }
+            if ( isParsed( result, "Unable to parse the object class." ) ) //$NON-NLS-1$
+            {
+                schema.addObjectClass( result.getValue() );
+            }
+            else
+            {
+                parseErrorCount++;
+            }
         }
 
-        Attribute ldapSyntaxesAttribute = entry.get( SchemaConstants.LDAP_SYNTAXES_AT );
-        if ( ldapSyntaxesAttribute != null )
+        for ( Result<LdapSyntax> result : parse( entry, SchemaConstants.LDAP_SYNTAXES_AT,
+            ( parsers, value ) -> createSyntax( schema, parsers.parseLdapSyntax( value ) ) ) )
         {
-                for ( Value value : ldapSyntaxesAttribute )
-                {
-                    try
-                    {
-                        LdapSyntaxDescriptionSchemaParser parser = new LdapSyntaxDescriptionSchemaParser();
-                        parser.setQuirksMode( true );
-                        LdapSyntax lsd = parser.parse( value.getString() );
-
-                        LdapSyntax impl = new LdapSyntax( lsd.getOid() );
-                        impl.setDescription( lsd.getDescription() );
-                        impl.setNames( new String[]
-                            { lsd.getDescription() } );
-                        //impl.setObsolete( lsd.isObsolete() );
-                        impl.setHumanReadable( true );
-                        impl.setSchemaName( schema.getSchemaName() );
-
-                        schema.addSyntax( impl );
-                    }
-                    catch ( ParseException e )
-                    {
-                        // Logging the exception and incrementing the counter
-                        PluginUtils.logError( "Unable to parse the syntax.", e ); //$NON-NLS-1$
-                        parseErrorCount++;
-                    }
-                }
+            if ( isParsed( result, "Unable to parse the syntax." ) ) //$NON-NLS-1$
+            {
+                schema.addSyntax( result.getValue() );
+            }
+            else
+            {
+                parseErrorCount++;
+            }
         }
 
         // if online: assume all received syntaxes in attributes are valid -> create dummy syntaxes if missing
@@ -311,33 +244,17 @@ public class GenericSchemaConnector extends AbstractSchemaConnector implements S
             }
         }
 
-        Attribute matchingRulesAttribute = entry.get( SchemaConstants.MATCHING_RULES_AT );
-        if ( matchingRulesAttribute != null )
+        for ( Result<MatchingRule> result : parse( entry, SchemaConstants.MATCHING_RULES_AT,
+            ( parsers, value ) -> createMatchingRule( schema, parsers.parseMatchingRule( value ) ) ) )
         {
-                for ( Value value : matchingRulesAttribute )
-                {
-                    try
-                    {
-                        MatchingRuleDescriptionSchemaParser parser = new MatchingRuleDescriptionSchemaParser();
-                        parser.setQuirksMode( true );
-                        MatchingRule mrd = parser.parse( value.getString() );
-
-                        MatchingRule impl = new MatchingRule( mrd.getOid() );
-                        impl.setDescription( mrd.getDescription() );
-                        impl.setNames( mrd.getNames().toArray( new String[0] ) );
-                        impl.setObsolete( mrd.isObsolete() );
-                        impl.setSyntaxOid( mrd.getSyntaxOid() );
-                        impl.setSchemaName( schema.getSchemaName() );
-
-                        schema.addMatchingRule( impl );
-                    }
-                    catch ( ParseException e )
-                    {
-                        // Logging the exception and incrementing the counter
-                        PluginUtils.logError( "Unable to parse the matching rule.", e ); //$NON-NLS-1$
-                        parseErrorCount++;
-                    }
-                }
+            if ( isParsed( result, "Unable to parse the matching rule." ) ) //$NON-NLS-1$
+            {
+                schema.addMatchingRule( result.getValue() );
+            }
+            else
+            {
+                parseErrorCount++;
+            }
         }
 
         // if online: assume all received matching rules in attributes are valid -> create dummy matching rules if missing
@@ -368,6 +285,135 @@ public class GenericSchemaConnector extends AbstractSchemaConnector implements S
     }
 
 
+    /**
+     * Parses all values of the given attribute of the subschema entry.
+     *
+     * @param entry the subschema entry
+     * @param attributeId the attribute containing the descriptions
+     * @param parser the parser of one description
+     * @return the results, in the order of the values
+     */
+    private static <T> List<Result<T>> parse( Entry entry, String attributeId, Parser<String, T> parser )
+    {
+        Attribute attribute = entry.get( attributeId );
+
+        if ( attribute == null )
+        {
+            return Collections.emptyList();
+        }
+
+        List<String> values = new ArrayList<String>( attribute.size() );
+
+        for ( Value value : attribute )
+        {
+            values.add( value.getString() );
+        }
+
+        return SchemaDescriptionParsers.parse( values, parser );
+    }
+
+
+    /**
+     * Checks if the description was parsed. Parse errors are logged,
+     * all other errors are rethrown.
+     *
+     * @param result the result of the parser
+     * @param errorMessage the message to log when the description couldn't be parsed
+     * @return true if the description was parsed
+     * @throws SchemaConnectorException if an unexpected error occurred
+     */
+    private static boolean isParsed( Result<?> result, String errorMessage ) throws SchemaConnectorException
+    {
+        Exception exception = result.getException();
+
+        if ( exception == null )
+        {
+            return true;
+        }
+        else if ( exception instanceof ParseException )
+        {
+            // Logging the exception, the caller increments the counter
+            PluginUtils.logError( errorMessage, exception );
+            return false;
+        }
+        else
+        {
+            throw new SchemaConnectorException( exception );
+        }
+    }
+
+
+    private static AttributeType createAttributeType( Schema schema, AttributeType atd )
+    {
+        AttributeType impl = new AttributeType( atd.getOid() );
+        impl.setNames( atd.getNames().toArray( new String[0] ) );
+        impl.setDescription( atd.getDescription() );
+        impl.setSuperiorOid( atd.getSuperiorOid() );
+        impl.setUsage( atd.getUsage() );
+        impl.setSyntaxOid( atd.getSyntaxOid() );
+        impl.setSyntaxLength( atd.getSyntaxLength() );
+        impl.setObsolete( atd.isObsolete() );
+        impl.setCollective( atd.isCollective() );
+        impl.setSingleValued( atd.isSingleValued() );
+        impl.setUserModifiable( atd.isUserModifiable() );
+        impl.setEqualityOid( atd.getEqualityOid() );
+        impl.setOrderingOid( atd.getOrderingOid() );
+        impl.setSubstringOid( atd.getSubstringOid() );
+        impl.setSchemaName( schema.getSchemaName() );
+
+        // Active Directory hack
+        if ( impl.getSyntaxOid() != null && "OctetString".equalsIgnoreCase( impl.getSyntaxOid() ) ) //$NON-NLS-1$
+        {
+            impl.setSyntaxOid( SchemaConstants.OCTET_STRING_SYNTAX );
+        }
+
+        return impl;
+    }
+
+
+    private static ObjectClass createObjectClass( Schema schema, ObjectClass ocd )
+    {
+        ObjectClass impl = new ObjectClass( ocd.getOid() );
+        impl.setNames( ocd.getNames().toArray( new String[0] ) );
+        impl.setDescription( ocd.getDescription() );
+        impl.setSuperiorOids( ocd.getSuperiorOids() );
+        impl.setType( ocd.getType() );
+        impl.setObsolete( ocd.isObsolete() );
+        impl.setMustAttributeTypeOids( ocd.getMustAttributeTypeOids() );
+        impl.setMayAttributeTypeOids( ocd.getMayAttributeTypeOids() );
+        impl.setSchemaName( schema.getSchemaName() );
+
+        return impl;
+    }
+
+
+    private static LdapSyntax createSyntax( Schema schema, LdapSyntax lsd )
+    {
+        LdapSyntax impl = new LdapSyntax( lsd.getOid() );
+        impl.setDescription( lsd.getDescription() );
+        impl.setNames( new String[]
+            { lsd.getDescription() } );
+        //impl.setObsolete( lsd.isObsolete() );
+        impl.setHumanReadable( true );
+        impl.setSchemaName( schema.getSchemaName() );
+
+        return impl;
+    }
+
+
+    private static MatchingRule createMatchingRule( Schema schema, MatchingRule mrd )
+    {
+        MatchingRule impl = new MatchingRule( mrd.getOid() );
+        impl.setDescription( mrd.getDescription() );
+        impl.setNames( mrd.getNames().toArray( new String[0] ) );
+        impl.setObsolete( mrd.isObsolete() );
+        impl.setSyntaxOid( mrd.getSyntaxOid() );
+        impl.setSchemaName( schema.getSchemaName() );
+
+        return impl;
+    }
+
+
     private static void checkMatchingRules( Schema schema, String... matchingRuleNames )
     {
         for ( String matchingRuleName : matchingRuleNames )
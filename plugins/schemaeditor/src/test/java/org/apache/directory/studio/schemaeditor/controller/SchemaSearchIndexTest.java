@@ -0,0 +1,130 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.schemaeditor.controller;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.studio.schemaeditor.controller.SchemaSearchIndex.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the {@link SchemaSearchIndex} class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaSearchIndexTest
+{
+    private SchemaSearchIndex index;
+    private AttributeType cn;
+    private AttributeType sn;
+    private ObjectClass person;
+
+
+    @BeforeEach
+    public void setUp()
+    {
+        index = new SchemaSearchIndex();
+
+        cn = new AttributeType( "2.5.4.3" ); //$NON-NLS-1$
+        cn.setNames( "cn", "commonName" ); //$NON-NLS-1$ //$NON-NLS-2$
+        cn.setDescription( "RFC4519: common name(s) for which the entity is known by" ); //$NON-NLS-1$
+        cn.setSuperiorOid( "name" ); //$NON-NLS-1$
+        index.add( cn );
+
+        sn = new AttributeType( "2.5.4.4" ); //$NON-NLS-1$
+        sn.setNames( "sn", "surname" ); //$NON-NLS-1$ //$NON-NLS-2$
+        sn.setSuperiorOid( "name" ); //$NON-NLS-1$
+        index.add( sn );
+
+        person = new ObjectClass( "2.5.6.6" ); //$NON-NLS-1$
+        person.setNames( "person" ); //$NON-NLS-1$
+        person.setMustAttributeTypeOids( Arrays.asList( "sn", "cn" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        index.add( person );
+    }
+
+
+    private List<SchemaObject> search( String searchString, Field... fields )
+    {
+        return index.search( searchString, Arrays.asList( fields ), true, true );
+    }
+
+
+    @Test
+    public void testExactAndPrefix()
+    {
+        assertEquals( Arrays.asList( cn ), search( "CN", Field.ALIASES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn ), search( "common*", Field.ALIASES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn, sn ), search( "2.5.4.?", Field.OID ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn, sn, person ), search( "2.5.*", Field.OID ) ); //$NON-NLS-1$
+        assertEquals( Collections.emptyList(), search( "comm", Field.ALIASES ) ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testLeadingWildcard()
+    {
+        assertEquals( Arrays.asList( sn ), search( "?URNAME", Field.ALIASES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn, sn ), search( "*name", Field.ALIASES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn, sn, person ), search( "*n", Field.ALIASES ) ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testRegularExpressions()
+    {
+        assertEquals( Arrays.asList( cn, sn ), search( "cn|sn", Field.ALIASES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn, sn ), search( "[cs]n", Field.ALIASES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( sn ), search( "s(ur){0,1}name", Field.ALIASES ) ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testFieldsAndScope()
+    {
+        assertEquals( Arrays.asList( person ), search( "sn", Field.MANDATORY_ATTRIBUTES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( sn, person ), search( "sn", Field.ALIASES, Field.MANDATORY_ATTRIBUTES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( person ),
+            index.search( "sn", EnumSet.allOf( Field.class ), false, true ) ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testIncrementalUpdates()
+    {
+        cn.setNames( "cn", "fullName" ); //$NON-NLS-1$ //$NON-NLS-2$
+        index.attributeTypeModified( cn );
+        assertEquals( Collections.emptyList(), search( "commonName", Field.ALIASES ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn ), search( "full*", Field.ALIASES ) ); //$NON-NLS-1$
+
+        index.attributeTypeRemoved( sn );
+        assertEquals( Arrays.asList( cn ), search( "2.5.4.*", Field.OID ) ); //$NON-NLS-1$
+    }
+}
@@ -775,6 +775,9 @@ public class ImageDialog extends Dialog
     /**
      * Gets the image info.
      * 
+     * The type and dimensions are read from the image header, the image is only
+     * decoded if its format is not recognized by {@link ImageInfo}.
+     * 
      * @param imageRawData the image raw data
      * 
      * @return the image info
@@ -786,28 +789,43 @@ public class ImageDialog extends Dialog
             return IValueEditor.NULL;
         }
 
-        String text;
-        try
+        int type;
+        int width;
+        int height;
+        ImageInfo imageInfo = ImageInfo.probe( imageRawData );
+
+        if ( imageInfo != null )
         {
-            ByteArrayInputStream bais = new ByteArrayInputStream( imageRawData );
-            ImageData imageData = new ImageData( bais );
-            String typePrefix = getImageType( imageData.type );
-            
-            if ( !Strings.isEmpty( typePrefix ) ) //$NON-NLS-1$
+            type = imageInfo.getType();
+            width = imageInfo.getWidth();
+            height = imageInfo.getHeight();
+        }
+        else
+        {
+            try
             {
-                typePrefix += "-"; //$NON-NLS-1$
+                ByteArrayInputStream bais = new ByteArrayInputStream( imageRawData );
+                ImageData imageData = new ImageData( bais );
+                type = imageData.type;
+                width = imageData.width;
+                height = imageData.height;
+            }
+            catch ( SWTException swte )
+            {
+                return NLS.bind( Messages.getString( "ImageDialog.InvalidImage" ), new Object[] { imageRawData.length } ); //$NON-NLS-1$
             }
-
-            text = NLS
-                .bind(
-                    Messages.getString( "ImageDialog.Image" ), new Object[] { typePrefix, imageData.width, imageData.height, imageRawData.length } ); //$NON-NLS-1$
         }
-        catch ( SWTException swte )
+
+        String typePrefix = getImageType( type );
+        
+        if ( !Strings.isEmpty( typePrefix ) ) //$NON-NLS-1$
         {
-            text = NLS.bind( Messages.getString( "ImageDialog.InvalidImage" ), new Object[] { imageRawData.length } ); //$NON-NLS-1$
+            typePrefix += "-"; //$NON-NLS-1$
         }
-        
-        return text;
+
+        return NLS
+            .bind(
+                Messages.getString( "ImageDialog.Image" ), new Object[] { typePrefix, width, height, imageRawData.length } ); //$NON-NLS-1$
     }
 
 
@@ -0,0 +1,297 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.valueeditors.image;
+
+
+import org.eclipse.swt.SWT;
+
+
+/**
+ * The type and dimensions of an image, read from the header of the image
+ * without decoding the bitmap.
+ * <p>
+ * JPEG, PNG, GIF and BMP images are supported. The header of a JPEG image
+ * is scanned up to the start of frame segment, the other formats have the
+ * dimensions at a fixed position.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class ImageInfo
+{
+    private static final byte[] PNG_SIGNATURE = new byte[]
+        { ( byte ) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    /** The image type, one of the SWT.IMAGE_* constants */
+    private final int type;
+
+    private final int width;
+
+    private final int height;
+
+
+    private ImageInfo( int type, int width, int height )
+    {
+        this.type = type;
+        this.width = width;
+        this.height = height;
+    }
+
+
+    /**
+     * Gets the image type.
+     *
+     * @return the image type, one of the SWT.IMAGE_* constants
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Gets the width of the image.
+     *
+     * @return the width of the image in pixels
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+
+    /**
+     * Gets the height of the image.
+     *
+     * @return the height of the image in pixels
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+
+    /**
+     * Reads the type and dimensions of an image from its header.
+     *
+     * @param data the image raw data
+     * @return the image info, or null if the format is not supported or the header is invalid
+     */
+    public static ImageInfo probe( byte[] data )
+    {
+        if ( data == null || data.length < 4 )
+        {
+            return null;
+        }
+
+        ImageInfo info;
+        if ( ( data[0] & 0xFF ) == 0xFF && ( data[1] & 0xFF ) == 0xD8 )
+        {
+            info = probeJpeg( data );
+        }
+        else if ( startsWith( data, PNG_SIGNATURE ) )
+        {
+            info = probePng( data );
+        }
+        else if ( data[0] == 'G' && data[1] == 'I' && data[2] == 'F' && data[3] == '8' )
+        {
+            info = probeGif( data );
+        }
+        else if ( data[0] == 'B' && data[1] == 'M' )
+        {
+            info = probeBmp( data );
+        }
+        else
+        {
+            info = null;
+        }
+
+        if ( info == null || info.width <= 0 || info.height <= 0 )
+        {
+            return null;
+        }
+
+        return info;
+    }
+
+
+    private static ImageInfo probeJpeg( byte[] data )
+    {
+        int pos = 2;
+
+        while ( pos < data.length )
+        {
+            if ( ( data[pos] & 0xFF ) != 0xFF )
+            {
+                return null;
+            }
+
+            // skip fill bytes
+            while ( pos < data.length && ( data[pos] & 0xFF ) == 0xFF )
+            {
+                pos++;
+            }
+            if ( pos >= data.length )
+            {
+                return null;
+            }
+
+            int marker = data[pos] & 0xFF;
+
+            // markers without segment
+            if ( marker == 0x01 || ( marker >= 0xD0 && marker <= 0xD8 ) )
+            {
+                pos++;
+                continue;
+            }
+
+            // end of image or start of scan before any frame
+            if ( marker == 0xD9 || marker == 0xDA || pos + 2 >= data.length )
+            {
+                return null;
+            }
+
+            int length = readUnsignedShortBigEndian( data, pos + 1 );
+
+            // start of frame, except DHT, JPG and DAC which share the range
+            if ( marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC )
+            {
+                if ( pos + 8 > data.length )
+                {
+                    return null;
+                }
+
+                int height = readUnsignedShortBigEndian( data, pos + 4 );
+                int width = readUnsignedShortBigEndian( data, pos + 6 );
+
+                return new ImageInfo( SWT.IMAGE_JPEG, width, height );
+            }
+
+            if ( length < 2 )
+            {
+                return null;
+            }
+
+            pos += 1 + length;
+        }
+
+        return null;
+    }
+
+
+    private static ImageInfo probePng( byte[] data )
+    {
+        // the IHDR chunk must be the first chunk
+        if ( data.length < 24 || data[12] != 'I' || data[13] != 'H' || data[14] != 'D' || data[15] != 'R' )
+        {
+            return null;
+        }
+
+        return new ImageInfo( SWT.IMAGE_PNG, readIntBigEndian( data, 16 ), readIntBigEndian( data, 20 ) );
+    }
+
+
+    private static ImageInfo probeGif( byte[] data )
+    {
+        if ( data.length < 10 || ( data[4] != '7' && data[4] != '9' ) || data[5] != 'a' )
+        {
+            return null;
+        }
+
+        return new ImageInfo( SWT.IMAGE_GIF, readUnsignedShortLittleEndian( data, 6 ),
+            readUnsignedShortLittleEndian( data, 8 ) );
+    }
+
+
+    private static ImageInfo probeBmp( byte[] data )
+    {
+        if ( data.length < 26 )
+        {
+            return null;
+        }
+
+        int headerSize = readIntLittleEndian( data, 14 );
+
+        // OS/2 bitmap core header
+        if ( headerSize == 12 )
+        {
+            return new ImageInfo( SWT.IMAGE_BMP, readUnsignedShortLittleEndian( data, 18 ),
+                readUnsignedShortLittleEndian( data, 20 ) );
+        }
+
+        if ( headerSize < 40 || data.length < 34 )
+        {
+            return null;
+        }
+
+        // a negative height denotes a top-down bitmap
+        int width = readIntLittleEndian( data, 18 );
+        int height = Math.abs( readIntLittleEndian( data, 22 ) );
+        int compression = readIntLittleEndian( data, 30 );
+        int type = ( compression == 1 || compression == 2 ) ? SWT.IMAGE_BMP_RLE : SWT.IMAGE_BMP;
+
+        return new ImageInfo( type, width, height );
+    }
+
+
+    private static boolean startsWith( byte[] data, byte[] prefix )
+    {
+        if ( data.length < prefix.length )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < prefix.length; i++ )
+        {
+            if ( data[i] != prefix[i] )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    private static int readUnsignedShortBigEndian( byte[] data, int pos )
+    {
+        return ( ( data[pos] & 0xFF ) << 8 ) | ( data[pos + 1] & 0xFF );
+    }
+
+
+    private static int readUnsignedShortLittleEndian( byte[] data, int pos )
+    {
+        return ( data[pos] & 0xFF ) | ( ( data[pos + 1] & 0xFF ) << 8 );
+    }
+
+
+    private static int readIntBigEndian( byte[] data, int pos )
+    {
+        return ( ( data[pos] & 0xFF ) << 24 ) | ( ( data[pos + 1] & 0xFF ) << 16 ) | ( ( data[pos + 2] & 0xFF ) << 8 )
+            | ( data[pos + 3] & 0xFF );
+    }
+
+
+    private static int readIntLittleEndian( byte[] data, int pos )
+    {
+        return ( data[pos] & 0xFF ) | ( ( data[pos + 1] & 0xFF ) << 8 ) | ( ( data[pos + 2] & 0xFF ) << 16 )
+            | ( ( data[pos + 3] & 0xFF ) << 24 );
+    }
+}
@@ -21,6 +21,10 @@
 package org.apache.directory.studio.valueeditors.image;
 
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.valueeditors.AbstractDialogBinaryValueEditor;
 import org.eclipse.swt.SWT;
@@ -35,6 +39,13 @@ import org.eclipse.swt.widgets.Shell;
  */
 public class ImageValueEditor extends AbstractDialogBinaryValueEditor
 {
+    /**
+     * The display values by raw image data. The keys are compared by identity and
+     * weakly referenced, so an entry lives as long as the value it was computed for.
+     */
+    private static final Map<byte[], String> DISPLAY_VALUE_CACHE = Collections
+        .synchronizedMap( new WeakHashMap<byte[], String>() );
+
 
     /**
      * {@inheritDoc}
@@ -67,7 +78,7 @@ public class ImageValueEditor extends AbstractDialogBinaryValueEditor
      * {@inheritDoc}
      * 
      * Returns the image info text created by 
-     * ImageDialog.getImageInfo().
+     * ImageDialog.getImageInfo(), cached per value.
      */
     public String getDisplayValue( IValue value )
     {
@@ -84,8 +95,14 @@ public class ImageValueEditor extends AbstractDialogBinaryValueEditor
             else if ( value.isBinary() )
             {
                 byte[] data = value.getBinaryValue();
-                String text = ImageDialog.getImageInfo( data );
-                
+                String text = DISPLAY_VALUE_CACHE.get( data );
+
+                if ( text == null )
+                {
+                    text = ImageDialog.getImageInfo( data );
+                    DISPLAY_VALUE_CACHE.put( data, text );
+                }
+
                 return text;
             }
             else
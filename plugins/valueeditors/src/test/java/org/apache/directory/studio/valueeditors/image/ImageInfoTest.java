@@ -0,0 +1,128 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.valueeditors.image;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.eclipse.swt.SWT;
+import org.junit.jupiter.api.Test;
+
+
+public class ImageInfoTest
+{
+
+    @Test
+    public void testJpeg()
+    {
+        byte[] data = bytes(
+            // SOI
+            0xFF, 0xD8,
+            // APP0 JFIF segment of length 16
+            0xFF, 0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00, 0x01, 0x01, 0x00, 0x00, 0x01, 0x00, 0x01, 0x00, 0x00,
+            // DHT segment of length 4, must not be taken as start of frame
+            0xFF, 0xC4, 0x00, 0x04, 0x00, 0x00,
+            // fill byte and SOF2 segment: precision 8, height 480, width 640
+            0xFF, 0xFF, 0xC2, 0x00, 0x11, 0x08, 0x01, 0xE0, 0x02, 0x80, 0x03 );
+
+        ImageInfo info = ImageInfo.probe( data );
+        assertEquals( SWT.IMAGE_JPEG, info.getType() );
+        assertEquals( 640, info.getWidth() );
+        assertEquals( 480, info.getHeight() );
+    }
+
+
+    @Test
+    public void testJpegWithoutFrame()
+    {
+        assertNull( ImageInfo.probe( bytes( 0xFF, 0xD8, 0xFF, 0xDA, 0x00, 0x02 ) ) );
+        assertNull( ImageInfo.probe( bytes( 0xFF, 0xD8, 0xFF, 0xE0, 0x00, 0x10, 'J', 'F' ) ) );
+    }
+
+
+    @Test
+    public void testPng()
+    {
+        byte[] data = bytes( 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n',
+            // IHDR chunk: width 96, height 128
+            0x00, 0x00, 0x00, 0x0D, 'I', 'H', 'D', 'R', 0x00, 0x00, 0x00, 0x60, 0x00, 0x00, 0x00, 0x80, 0x08, 0x06,
+            0x00, 0x00, 0x00 );
+
+        ImageInfo info = ImageInfo.probe( data );
+        assertEquals( SWT.IMAGE_PNG, info.getType() );
+        assertEquals( 96, info.getWidth() );
+        assertEquals( 128, info.getHeight() );
+    }
+
+
+    @Test
+    public void testGif()
+    {
+        byte[] data = bytes( 'G', 'I', 'F', '8', '9', 'a', 0x2C, 0x01, 0xC8, 0x00, 0x00, 0x00, 0x00 );
+
+        ImageInfo info = ImageInfo.probe( data );
+        assertEquals( SWT.IMAGE_GIF, info.getType() );
+        assertEquals( 300, info.getWidth() );
+        assertEquals( 200, info.getHeight() );
+    }
+
+
+    @Test
+    public void testBmp()
+    {
+        // top-down bitmap with a negative height
+        byte[] data = bytes( 'B', 'M', 0, 0, 0, 0, 0, 0, 0, 0, 0x36, 0, 0, 0,
+            // info header: size 40, width 16, height -8, 1 plane, 24 bits, no compression
+            0x28, 0, 0, 0, 0x10, 0, 0, 0, 0xF8, 0xFF, 0xFF, 0xFF, 0x01, 0x00, 0x18, 0x00, 0, 0, 0, 0 );
+
+        ImageInfo info = ImageInfo.probe( data );
+        assertEquals( SWT.IMAGE_BMP, info.getType() );
+        assertEquals( 16, info.getWidth() );
+        assertEquals( 8, info.getHeight() );
+
+        // RLE8 compression
+        data[30] = 0x01;
+        assertEquals( SWT.IMAGE_BMP_RLE, ImageInfo.probe( data ).getType() );
+    }
+
+
+    @Test
+    public void testUnknownOrInvalid()
+    {
+        assertNull( ImageInfo.probe( null ) );
+        assertNull( ImageInfo.probe( new byte[0] ) );
+        assertNull( ImageInfo.probe( bytes( 'I', 'I', '*', 0x00, 0x08, 0x00, 0x00, 0x00 ) ) );
+        assertNull( ImageInfo.probe( bytes( 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0x00 ) ) );
+        assertNull( ImageInfo.probe( bytes( 'G', 'I', 'F', '8', '9', 'a', 0x00, 0x00, 0x00, 0x00 ) ) );
+    }
+
+
+    private static byte[] bytes( int... values )
+    {
+        byte[] bytes = new byte[values.length];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            bytes[i] = ( byte ) values[i];
+        }
+        return bytes;
+    }
+}
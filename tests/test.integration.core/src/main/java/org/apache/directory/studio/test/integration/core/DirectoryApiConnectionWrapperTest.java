@@ -85,6 +85,7 @@ import org.apache.directory.api.ldap.model.exception.LdapAuthenticationException
 import org.apache.directory.api.ldap.model.exception.LdapAuthenticationNotSupportedException;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.exception.LdapLoopDetectedException;
+import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.ExtendedResponse;
 import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
 import org.apache.directory.api.ldap.model.name.Dn;
@@ -101,6 +102,7 @@ import org.apache.directory.studio.connection.core.ConnectionParameter.Encryptio
 import org.apache.directory.studio.connection.core.ConnectionParameter.Krb5CredentialConfiguration;
 import org.apache.directory.studio.connection.core.ICertificateHandler.TrustLevel;
 import org.apache.directory.studio.connection.core.IReferralHandler;
+import org.apache.directory.studio.connection.core.PostReadControl;
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
@@ -1414,6 +1416,117 @@ public class DirectoryApiConnectionWrapperTest
     }
 
 
+    @ParameterizedTest
+    @LdapServersSource
+    public void testAddWithPostReadControl( TestLdapServer ldapServer ) throws Exception
+    {
+        String dn = "uid=user.X," + USERS_DN;
+        boolean postReadSupported = ldapServer
+            .withAdminConnectionAndGet( connection -> connection.isControlSupported( PostReadControl.OID ) );
+
+        StudioProgressMonitor monitor = getProgressMonitor();
+        Entry entry = new DefaultEntry( dn, "objectClass: inetOrgPerson", "sn: X", "cn: X", "uid: user.X" );
+        PostReadControl postReadControl = new PostReadControl( "*", "+" );
+        getConnectionWrapper( monitor, ldapServer ).createEntry( entry, new Control[]
+            { postReadControl }, monitor, null );
+
+        // should have created entry, and returned it if the server supports the control
+        assertFalse( monitor.isCanceled() );
+        assertFalse( monitor.errorsReported() );
+        assertTrue( ldapServer.withAdminConnectionAndGet( connection -> connection.exists( dn ) ) );
+        if ( postReadSupported )
+        {
+            Entry responseEntry = postReadControl.getResponseEntry();
+            assertNotNull( responseEntry );
+            assertEquals( new Dn( dn ), responseEntry.getDn() );
+            assertEquals( "X", responseEntry.get( "sn" ).getString() );
+            assertNotNull( responseEntry.get( "entryUUID" ) );
+        }
+        else
+        {
+            assertNull( postReadControl.getResponseEntry() );
+        }
+    }
+
+
+    @ParameterizedTest
+    @LdapServersSource
+    public void testModifyWithPostReadControl( TestLdapServer ldapServer ) throws Exception
+    {
+        String dn = "uid=user.X," + USERS_DN;
+        boolean postReadSupported = ldapServer
+            .withAdminConnectionAndGet( connection -> connection.isControlSupported( PostReadControl.OID ) );
+
+        // create entry
+        ldapServer.withAdminConnection( connection -> connection.add( new DefaultEntry( dn,
+            "objectClass: inetOrgPerson", "sn: X", "cn: X", "uid: user.X" ) ) );
+
+        // modify entry
+        StudioProgressMonitor monitor = getProgressMonitor();
+        List<Modification> modifications = Collections.singletonList(
+            new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE,
+                new DefaultAttribute( "sn", "modified" ) ) );
+        PostReadControl postReadControl = new PostReadControl( "*" );
+        getConnectionWrapper( monitor, ldapServer ).modifyEntry( new Dn( dn ), modifications, new Control[]
+            { postReadControl }, monitor, null );
+
+        // should have modified the entry, and returned the modified state if the server supports the control
+        assertFalse( monitor.isCanceled() );
+        assertFalse( monitor.errorsReported() );
+        Entry entry = ldapServer.withAdminConnectionAndGet( connection -> connection.lookup( new Dn( dn ) ) );
+        assertEquals( "modified", entry.get( "sn" ).getString() );
+        if ( postReadSupported )
+        {
+            Entry responseEntry = postReadControl.getResponseEntry();
+            assertNotNull( responseEntry );
+            assertEquals( "modified", responseEntry.get( "sn" ).getString() );
+            assertEquals( "user.X", responseEntry.get( "uid" ).getString() );
+        }
+        else
+        {
+            assertNull( postReadControl.getResponseEntry() );
+        }
+    }
+
+
+    @ParameterizedTest
+    @LdapServersSource
+    public void testRenameWithPostReadControl( TestLdapServer ldapServer ) throws Exception
+    {
+        String dn = "uid=user.X," + USERS_DN;
+        String newDn = "uid=user.Y," + USERS_DN;
+        boolean postReadSupported = ldapServer
+            .withAdminConnectionAndGet( connection -> connection.isControlSupported( PostReadControl.OID ) );
+
+        // create entry
+        ldapServer.withAdminConnection( connection -> connection.add( new DefaultEntry( dn,
+            "objectClass: inetOrgPerson", "sn: X", "cn: X", "uid: user.X" ) ) );
+
+        // rename entry
+        StudioProgressMonitor monitor = getProgressMonitor();
+        PostReadControl postReadControl = new PostReadControl( "*" );
+        getConnectionWrapper( monitor, ldapServer ).renameEntry( new Dn( dn ), new Dn( newDn ), true,
+            new Control[]
+            { postReadControl }, monitor, null );
+
+        // should have renamed the entry, and returned the new state if the server supports the control
+        assertFalse( monitor.isCanceled() );
+        assertFalse( monitor.errorsReported() );
+        assertTrue( ldapServer.withAdminConnectionAndGet( connection -> connection.exists( newDn ) ) );
+        if ( postReadSupported )
+        {
+            Entry responseEntry = postReadControl.getResponseEntry();
+            assertNotNull( responseEntry );
+            assertEquals( new Dn( newDn ), responseEntry.getDn() );
+            assertEquals( "user.Y", responseEntry.get( "uid" ).getString() );
+        }
+        else
+        {
+            assertNull( postReadControl.getResponseEntry() );
+        }
+    }
+
+
     @ParameterizedTest
     @LdapServersSource
     public void testDelete( TestLdapServer ldapServer ) throws Exception
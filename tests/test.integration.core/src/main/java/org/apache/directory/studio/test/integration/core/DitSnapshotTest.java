@@ -0,0 +1,411 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.test.integration.core;
+
+
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.CONTEXT_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USER1_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USERS_DN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.ConnectionCoreConstants;
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.ConnectionParameter;
+import org.apache.directory.studio.connection.core.ConnectionParameter.AuthenticationMethod;
+import org.apache.directory.studio.connection.core.ConnectionParameter.EncryptionMethod;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.DitSnapshot;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeAttributesRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeChildrenRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeRootDSERunnable;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.BrowserConnection;
+import org.apache.directory.studio.test.integration.junit5.LdapServersSource;
+import org.apache.directory.studio.test.integration.junit5.SkipTestIfLdapServerIsNotAvailableInterceptor;
+import org.apache.directory.studio.test.integration.junit5.TestLdapServer;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+
+
+/**
+ * Tests the {@link DitSnapshot}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@ExtendWith(SkipTestIfLdapServerIsNotAvailableInterceptor.class)
+public class DitSnapshotTest
+{
+    private Connection connection;
+
+    private File file;
+
+
+    @BeforeAll
+    public static void suspendEventFiringInCurrentThread()
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        ConnectionCorePlugin.getDefault().setCertificateHandler( null );
+    }
+
+
+    @AfterAll
+    public static void resumeEventFiringInCurrentThread()
+    {
+        ConnectionEventRegistry.resumeEventFiringInCurrentThread();
+    }
+
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        file = Files.createTempFile( "DitSnapshotTest", ".snapshot" ).toFile();
+        file.delete();
+    }
+
+
+    @AfterEach
+    public void tearDown() throws Exception
+    {
+        if ( connection != null )
+        {
+            connection.getConnectionWrapper().disconnect();
+        }
+        DitSnapshot.delete( file );
+    }
+
+
+    /**
+     * Tests that browsed children and viewed attributes are restored in a new session.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testSaveAndRestore( TestLdapServer ldapServer ) throws Exception
+    {
+        IBrowserConnection browserConnection = getBrowserConnection( ldapServer );
+        IEntry users = browse( browserConnection );
+        save( browserConnection );
+
+        IBrowserConnection restoredConnection = getBrowserConnection( ldapServer );
+        DitSnapshot ditSnapshot = new DitSnapshot( restoredConnection, file );
+        ditSnapshot.open();
+
+        IEntry restoredContext = restoredConnection.getEntryFromCache( CONTEXT_DN );
+        assertTrue( ditSnapshot.restoreChildren( restoredContext ) );
+        assertTrue( restoredContext.isChildrenInitialized() );
+        IEntry restoredUsers = restoredConnection.getEntryFromCache( USERS_DN );
+        assertNotNull( restoredUsers );
+        assertTrue( restoredUsers.hasChildren() );
+        assertNotNull( restoredUsers.getAttribute( SchemaConstants.OBJECT_CLASS_AT ) );
+
+        assertTrue( ditSnapshot.restoreChildren( restoredUsers ) );
+        assertEquals( users.getChildrenCount(), restoredUsers.getChildrenCount() );
+        IEntry restoredUser1 = restoredConnection.getEntryFromCache( USER1_DN );
+        assertSame( restoredUsers, restoredUser1.getParententry() );
+
+        assertTrue( ditSnapshot.restoreAttributes( restoredUsers ) );
+        assertTrue( restoredUsers.isAttributesInitialized() );
+        assertEquals( users.getAttributes().length, restoredUsers.getAttributes().length );
+        assertEquals( "users", restoredUsers.getAttribute( "ou" ).getStringValue() );
+
+        // each record is only restored once, a refresh asks the server
+        assertFalse( ditSnapshot.restoreChildren( restoredUsers ) );
+        assertFalse( ditSnapshot.restoreAttributes( restoredUsers ) );
+
+        // unchanged records survive the next session
+        ditSnapshot.save();
+        ditSnapshot.close();
+        IBrowserConnection thirdConnection = getBrowserConnection( ldapServer );
+        ditSnapshot = new DitSnapshot( thirdConnection, file );
+        ditSnapshot.open();
+        assertTrue( ditSnapshot.restoreChildren( thirdConnection.getEntryFromCache( CONTEXT_DN ) ) );
+        ditSnapshot.close();
+    }
+
+
+    /**
+     * Tests that the attributes of an entry with a userPassword or a masked attribute are
+     * not written to disk and are read from the server again.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testSecretAttributes( TestLdapServer ldapServer ) throws Exception
+    {
+        IBrowserConnection browserConnection = getBrowserConnection( ldapServer );
+        browse( browserConnection );
+        IEntry user1 = browserConnection.getEntryFromCache( USER1_DN );
+        IAttribute userPassword = user1.getAttribute( SchemaConstants.USER_PASSWORD_AT );
+        save( browserConnection );
+
+        DitSnapshot ditSnapshot = new DitSnapshot( getBrowserConnection( ldapServer ), file );
+        ditSnapshot.open();
+        assertTrue( ditSnapshot.getEntryDns().contains( USERS_DN ) );
+        assertEquals( userPassword == null, ditSnapshot.getEntryDns().contains( USER1_DN ) );
+        assertFalse( new String( Files.readAllBytes( file.toPath() ), StandardCharsets.ISO_8859_1 )
+            .contains( SchemaConstants.USER_PASSWORD_AT ) );
+        ditSnapshot.close();
+
+        // masked attributes
+        String maskedAttributes = ConnectionCorePlugin.getDefault().getMModificationLogsMaskedAttributes();
+        IEclipsePreferences preferences = InstanceScope.INSTANCE.getNode( ConnectionCoreConstants.PLUGIN_ID );
+        preferences.put( ConnectionCoreConstants.PREFERENCE_MODIFICATIONLOGS_MASKED_ATTRIBUTES, "foo, OU" );
+        try
+        {
+            DitSnapshot.delete( file );
+            save( browserConnection );
+            ditSnapshot = new DitSnapshot( getBrowserConnection( ldapServer ), file );
+            ditSnapshot.open();
+            assertTrue( ditSnapshot.getParentDns().contains( USERS_DN ) );
+            assertFalse( ditSnapshot.getEntryDns().contains( USERS_DN ) );
+            ditSnapshot.close();
+        }
+        finally
+        {
+            preferences.put( ConnectionCoreConstants.PREFERENCE_MODIFICATIONLOGS_MASKED_ATTRIBUTES,
+                maskedAttributes != null ? maskedAttributes : "" );
+        }
+    }
+
+
+    /**
+     * Tests that an incomplete record at the end of the file is ignored.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testIncompleteRecord( TestLdapServer ldapServer ) throws Exception
+    {
+        IBrowserConnection browserConnection = getBrowserConnection( ldapServer );
+        browse( browserConnection );
+        save( browserConnection );
+
+        try ( FileOutputStream out = new FileOutputStream( file, true ) )
+        {
+            out.write( new byte[]
+                { 1, 0, 0, 1, 0 } );
+        }
+
+        IBrowserConnection restoredConnection = getBrowserConnection( ldapServer );
+        DitSnapshot ditSnapshot = new DitSnapshot( restoredConnection, file );
+        ditSnapshot.open();
+        assertTrue( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( CONTEXT_DN ) ) );
+        assertTrue( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( USERS_DN ) ) );
+        ditSnapshot.close();
+    }
+
+
+    /**
+     * Tests that a truncated, zero-padded or corrupted file is opened up to the last
+     * intact record, and that the next save replaces it.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testCorruptFile( TestLdapServer ldapServer ) throws Exception
+    {
+        IBrowserConnection browserConnection = getBrowserConnection( ldapServer );
+        browse( browserConnection );
+        save( browserConnection );
+        byte[] content = Files.readAllBytes( file.toPath() );
+
+        // truncated generation record at the end
+        Files.write( file.toPath(), Arrays.copyOf( content, content.length - 3 ) );
+        IBrowserConnection restoredConnection = getBrowserConnection( ldapServer );
+        DitSnapshot ditSnapshot = new DitSnapshot( restoredConnection, file );
+        ditSnapshot.open();
+        assertTrue( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( CONTEXT_DN ) ) );
+        assertTrue( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( USERS_DN ) ) );
+        ditSnapshot.close();
+
+        // zero-filled tail, e.g. of a pre-allocated file
+        Files.write( file.toPath(), Arrays.copyOf( content, content.length + 100 ) );
+        restoredConnection = getBrowserConnection( ldapServer );
+        ditSnapshot = new DitSnapshot( restoredConnection, file );
+        ditSnapshot.open();
+        assertTrue( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( CONTEXT_DN ) ) );
+        assertTrue( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( USERS_DN ) ) );
+        ditSnapshot.close();
+
+        // flipped bit in the first record, the children of the context entry
+        byte[] corrupted = content.clone();
+        corrupted[20] ^= 1;
+        Files.write( file.toPath(), corrupted );
+        restoredConnection = getBrowserConnection( ldapServer );
+        ditSnapshot = new DitSnapshot( restoredConnection, file );
+        ditSnapshot.open();
+        assertTrue( ditSnapshot.getParentDns().isEmpty() );
+        assertTrue( ditSnapshot.getEntryDns().isEmpty() );
+        assertFalse( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( CONTEXT_DN ) ) );
+
+        // the corrupted file is replaced on the next open
+        browse( restoredConnection );
+        ditSnapshot.save();
+        ditSnapshot.close();
+        restoredConnection = getBrowserConnection( ldapServer );
+        ditSnapshot = new DitSnapshot( restoredConnection, file );
+        ditSnapshot.open();
+        assertTrue( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( CONTEXT_DN ) ) );
+        assertTrue( ditSnapshot.restoreChildren( restoredConnection.getEntryFromCache( USERS_DN ) ) );
+        ditSnapshot.close();
+    }
+
+
+    /**
+     * Tests that outdated children and attributes are detected and not restored again.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testRevalidate( TestLdapServer ldapServer ) throws Exception
+    {
+        IBrowserConnection browserConnection = getBrowserConnection( ldapServer );
+        IEntry users = browse( browserConnection );
+        IEntry context = browserConnection.getEntryFromCache( CONTEXT_DN );
+        IAttribute entryCsn = users.getAttribute( SchemaConstants.ENTRY_CSN_AT );
+        IAttribute modifyTimestamp = users.getAttribute( SchemaConstants.MODIFY_TIMESTAMP_AT );
+        String stamp = DitSnapshot.getStamp( entryCsn != null ? entryCsn.getStringValue() : null,
+            modifyTimestamp != null ? modifyTimestamp.getStringValue() : null );
+        save( browserConnection );
+
+        IBrowserConnection restoredConnection = getBrowserConnection( ldapServer );
+        DitSnapshot ditSnapshot = new DitSnapshot( restoredConnection, file );
+        ditSnapshot.open();
+        assertTrue( ditSnapshot.getParentDns().contains( CONTEXT_DN ) );
+        assertTrue( ditSnapshot.getEntryDns().contains( USERS_DN ) );
+        IEntry restoredContext = restoredConnection.getEntryFromCache( CONTEXT_DN );
+        assertTrue( ditSnapshot.restoreChildren( restoredContext ) );
+        IEntry restoredUsers = restoredConnection.getEntryFromCache( USERS_DN );
+        assertTrue( ditSnapshot.restoreAttributes( restoredUsers ) );
+
+        // unchanged children and attributes
+        Map<Dn, String> children = new HashMap<Dn, String>();
+        for ( IEntry child : context.getChildren() )
+        {
+            children.put( child.getDn(), child.getDn().equals( USERS_DN ) ? stamp : null );
+        }
+        List<IEntry> outdatedAttributes = new ArrayList<IEntry>();
+        assertNull( ditSnapshot.revalidateChildren( CONTEXT_DN, children, outdatedAttributes ) );
+        assertTrue( outdatedAttributes.isEmpty() );
+        assertTrue( restoredContext.isChildrenInitialized() );
+        assertTrue( restoredUsers.isAttributesInitialized() );
+
+        // modified entry and removed child
+        children.put( USERS_DN, stamp + "-modified" );
+        children.remove( children.keySet().stream().filter( dn -> !dn.equals( USERS_DN ) ).findFirst().get() );
+        assertSame( restoredContext, ditSnapshot.revalidateChildren( CONTEXT_DN, children, outdatedAttributes ) );
+        assertEquals( 1, outdatedAttributes.size() );
+        assertSame( restoredUsers, outdatedAttributes.get( 0 ) );
+        assertFalse( restoredContext.isChildrenInitialized() );
+        assertFalse( restoredUsers.isAttributesInitialized() );
+
+        // outdated records are removed on save
+        ditSnapshot.save();
+        ditSnapshot.close();
+        ditSnapshot = new DitSnapshot( getBrowserConnection( ldapServer ), file );
+        ditSnapshot.open();
+        assertFalse( ditSnapshot.getParentDns().contains( CONTEXT_DN ) );
+        assertFalse( ditSnapshot.getEntryDns().contains( USERS_DN ) );
+        ditSnapshot.close();
+    }
+
+
+    /**
+     * Browses to the users entry and reads the attributes of the users entry and of user.1.
+     */
+    private IEntry browse( IBrowserConnection browserConnection )
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        IEntry context = browserConnection.getEntryFromCache( CONTEXT_DN );
+        new InitializeChildrenRunnable( false, context ).run( monitor );
+        IEntry users = browserConnection.getEntryFromCache( USERS_DN );
+        new InitializeChildrenRunnable( false, users ).run( monitor );
+        new InitializeAttributesRunnable( users, browserConnection.getEntryFromCache( USER1_DN ) ).run( monitor );
+        assertNull( monitor.getException() );
+        assertTrue( users.getChildrenCount() > 0 );
+        return users;
+    }
+
+
+    private void save( IBrowserConnection browserConnection ) throws Exception
+    {
+        DitSnapshot ditSnapshot = new DitSnapshot( browserConnection, file );
+        ditSnapshot.open();
+        ditSnapshot.save();
+        ditSnapshot.close();
+        assertTrue( file.length() > 0 );
+    }
+
+
+    private IBrowserConnection getBrowserConnection( TestLdapServer ldapServer )
+    {
+        if ( connection != null )
+        {
+            connection.getConnectionWrapper().disconnect();
+        }
+
+        ConnectionParameter connectionParameter = new ConnectionParameter( null, ldapServer.getHost(),
+            ldapServer.getPort(), EncryptionMethod.NONE, AuthenticationMethod.SIMPLE,
+            ldapServer.getAdminDn(), ldapServer.getAdminPassword(), null, true, null, 30000L );
+        connectionParameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES,
+            true );
+        connection = new Connection( connectionParameter );
+
+        StudioProgressMonitor monitor = getProgressMonitor();
+        connection.getConnectionWrapper().connect( monitor );
+        connection.getConnectionWrapper().bind( monitor );
+        assertNull( monitor.getException() );
+
+        BrowserConnection browserConnection = new BrowserConnection( connection );
+        InitializeRootDSERunnable.loadRootDSE( browserConnection, monitor );
+        assertNull( monitor.getException() );
+        assertNotNull( browserConnection.getEntryFromCache( CONTEXT_DN ) );
+        return browserConnection;
+    }
+
+
+    private StudioProgressMonitor getProgressMonitor()
+    {
+        return new StudioProgressMonitor( new NullProgressMonitor() );
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.test.integration.core;
+
+
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USERS_DN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.ConnectionParameter;
+import org.apache.directory.studio.connection.core.ConnectionParameter.AuthenticationMethod;
+import org.apache.directory.studio.connection.core.ConnectionParameter.EncryptionMethod;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeAttributesRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeChildrenRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeRootDSERunnable;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.BrowserConnection;
+import org.apache.directory.studio.test.integration.junit5.LdapServersSource;
+import org.apache.directory.studio.test.integration.junit5.SkipTestIfLdapServerIsNotAvailableInterceptor;
+import org.apache.directory.studio.test.integration.junit5.TestLdapServer;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+
+
+/**
+ * Tests the attribute prefetch of the {@link InitializeAttributesRunnable}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@ExtendWith(SkipTestIfLdapServerIsNotAvailableInterceptor.class)
+public class InitializeAttributesRunnableTest
+{
+    private List<Connection> connections = new ArrayList<Connection>();
+
+
+    @BeforeAll
+    public static void suspendEventFiringInCurrentThread()
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        ConnectionCorePlugin.getDefault().setCertificateHandler( null );
+    }
+
+
+    @AfterAll
+    public static void resumeEventFiringInCurrentThread()
+    {
+        ConnectionEventRegistry.resumeEventFiringInCurrentThread();
+    }
+
+
+    @AfterEach
+    public void tearDown() throws Exception
+    {
+        for ( Connection connection : connections )
+        {
+            connection.getConnectionWrapper().disconnect();
+        }
+    }
+
+
+    /**
+     * Tests that the prefetched attributes of sibling entries are the same as the
+     * attributes loaded entry by entry.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testPrefetchedAttributesMatchEntryLoads( TestLdapServer ldapServer ) throws Exception
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        IEntry[] prefetchedEntries = getUsers( getBrowserConnection( ldapServer ) );
+        Set<IEntry> prefetched = InitializeAttributesRunnable.prefetchAttributes( prefetchedEntries, monitor );
+        assertNull( monitor.getException() );
+        assertEquals( prefetchedEntries.length, prefetched.size() );
+
+        IBrowserConnection browserConnection = getBrowserConnection( ldapServer );
+        IEntry[] loadedEntries = getUsers( browserConnection );
+        assertEquals( prefetchedEntries.length, loadedEntries.length );
+        for ( IEntry loadedEntry : loadedEntries )
+        {
+            InitializeAttributesRunnable.initializeAttributes( loadedEntry, monitor );
+        }
+        assertNull( monitor.getException() );
+
+        for ( IEntry prefetchedEntry : prefetchedEntries )
+        {
+            IEntry loadedEntry = browserConnection.getEntryFromCache( prefetchedEntry.getDn() );
+            assertNotNull( loadedEntry );
+            assertTrue( prefetchedEntry.isAttributesInitialized() );
+            assertTrue( loadedEntry.isAttributesInitialized() );
+            assertEquals( describe( loadedEntry ), describe( prefetchedEntry ) );
+        }
+    }
+
+
+    /**
+     * Tests that entries without siblings in the request are left to the entry load.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testSingleEntryIsNotPrefetched( TestLdapServer ldapServer ) throws Exception
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        IEntry user = getUsers( getBrowserConnection( ldapServer ) )[0];
+        assertTrue( InitializeAttributesRunnable.prefetchAttributes( new IEntry[]
+            { user }, monitor ).isEmpty() );
+        assertFalse( user.isAttributesInitialized() );
+    }
+
+
+    private IEntry[] getUsers( IBrowserConnection browserConnection )
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        IEntry users = browserConnection.getEntryFromCache( USERS_DN );
+        assertNotNull( users );
+        new InitializeChildrenRunnable( false, users ).run( monitor );
+        assertNull( monitor.getException() );
+        assertTrue( users.getChildrenCount() > 1 );
+        return users.getChildren();
+    }
+
+
+    private static Map<String, Set<String>> describe( IEntry entry )
+    {
+        Map<String, Set<String>> attributes = new TreeMap<String, Set<String>>( String.CASE_INSENSITIVE_ORDER );
+        for ( IAttribute attribute : entry.getAttributes() )
+        {
+            Set<String> values = new TreeSet<String>();
+            for ( IValue value : attribute.getValues() )
+            {
+                values.add( value.isBinary() ? Arrays.toString( value.getBinaryValue() ) : value.getStringValue() );
+            }
+            attributes.put( attribute.getDescription(), values );
+        }
+        return attributes;
+    }
+
+
+    private IBrowserConnection getBrowserConnection( TestLdapServer ldapServer )
+    {
+        ConnectionParameter connectionParameter = new ConnectionParameter( null, ldapServer.getHost(),
+            ldapServer.getPort(), EncryptionMethod.NONE, AuthenticationMethod.SIMPLE,
+            ldapServer.getAdminDn(), ldapServer.getAdminPassword(), null, true, null, 30000L );
+        Connection connection = new Connection( connectionParameter );
+        connections.add( connection );
+
+        StudioProgressMonitor monitor = getProgressMonitor();
+        connection.getConnectionWrapper().connect( monitor );
+        connection.getConnectionWrapper().bind( monitor );
+        assertNull( monitor.getException() );
+
+        BrowserConnection browserConnection = new BrowserConnection( connection );
+        InitializeRootDSERunnable.loadRootDSE( browserConnection, monitor );
+        assertNull( monitor.getException() );
+        return browserConnection;
+    }
+
+
+    private StudioProgressMonitor getProgressMonitor()
+    {
+        return new StudioProgressMonitor( new NullProgressMonitor() );
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.test.integration.core;
+
+
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.MISC_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USER1_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USERS_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.dn;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.ConnectionParameter;
+import org.apache.directory.studio.connection.core.ConnectionParameter.AuthenticationMethod;
+import org.apache.directory.studio.connection.core.ConnectionParameter.EncryptionMethod;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.connection.core.io.api.OperationStatistics;
+import org.apache.directory.studio.ldapbrowser.core.jobs.LoadTestResult;
+import org.apache.directory.studio.ldapbrowser.core.jobs.LoadTestRunnable;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Bookmark;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.BrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
+import org.apache.directory.studio.test.integration.junit5.LdapServersSource;
+import org.apache.directory.studio.test.integration.junit5.SkipTestIfLdapServerIsNotAvailableInterceptor;
+import org.apache.directory.studio.test.integration.junit5.TestLdapServer;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+
+
+/**
+ * Tests the {@link LoadTestRunnable}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@ExtendWith(SkipTestIfLdapServerIsNotAvailableInterceptor.class)
+public class LoadTestRunnableTest
+{
+    private Connection connection;
+
+
+    @BeforeAll
+    public static void suspendEventFiringInCurrentThread()
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        ConnectionCorePlugin.getDefault().setCertificateHandler( null );
+    }
+
+
+    @AfterAll
+    public static void resumeEventFiringInCurrentThread()
+    {
+        ConnectionEventRegistry.resumeEventFiringInCurrentThread();
+    }
+
+
+    @AfterEach
+    public void tearDown() throws Exception
+    {
+        if ( connection != null )
+        {
+            connection.getConnectionWrapper().disconnect();
+        }
+    }
+
+
+    /**
+     * Tests a weighted mix of a search and a bookmark with a maximum number of operations.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testWorkloadMix( TestLdapServer ldapServer ) throws Exception
+    {
+        BrowserConnection browserConnection = getBrowserConnection( ldapServer );
+
+        LoadTestRunnable runnable = new LoadTestRunnable( browserConnection, 4, 0d, 60000L );
+        runnable.setMaxOperations( 200 );
+        runnable.addSearch( getSearch( browserConnection, "users", USERS_DN ), 3 );
+        runnable.addBookmark( new Bookmark( browserConnection, USER1_DN, "user.1" ), 1 );
+
+        StudioProgressMonitor monitor = getProgressMonitor();
+        runnable.run( monitor );
+        assertNull( monitor.getException() );
+
+        LoadTestResult result = runnable.getResult();
+        assertEquals( 200, result.getTotal().getCount() );
+        assertEquals( 0, result.getTotal().getErrors() );
+        assertEquals( 0d, result.getErrorRate() );
+        assertTrue( result.getOperationsPerSecond() > 0d );
+        assertTrue( result.getTotal().getMaxMillis() >= result.getTotal().getPercentile99Millis() );
+
+        assertEquals( 2, result.getItems().size() );
+        OperationStatistics search = result.getItems().get( 0 );
+        assertEquals( "users", search.getOperation() );
+        assertEquals( 150, search.getCount() );
+        OperationStatistics bookmark = result.getItems().get( 1 );
+        assertEquals( "user.1", bookmark.getOperation() );
+        assertEquals( 50, bookmark.getCount() );
+
+        // the bookmark returns one entry, the search more than one
+        assertTrue( result.getEntries() > 150 + 50 );
+    }
+
+
+    /**
+     * Tests that the target rate limits the number of operations.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testTargetRate( TestLdapServer ldapServer ) throws Exception
+    {
+        BrowserConnection browserConnection = getBrowserConnection( ldapServer );
+
+        LoadTestRunnable runnable = new LoadTestRunnable( browserConnection, 2, 50d, 1000L );
+        runnable.addBookmark( new Bookmark( browserConnection, MISC_DN, "misc" ), 1 );
+
+        StudioProgressMonitor monitor = getProgressMonitor();
+        runnable.run( monitor );
+        assertNull( monitor.getException() );
+
+        LoadTestResult result = runnable.getResult();
+        assertEquals( 50, result.getTotal().getCount() );
+        assertTrue( result.getDurationMillis() >= 950L );
+    }
+
+
+    /**
+     * Tests that failed operations are counted by result code.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testErrors( TestLdapServer ldapServer ) throws Exception
+    {
+        BrowserConnection browserConnection = getBrowserConnection( ldapServer );
+
+        LoadTestRunnable runnable = new LoadTestRunnable( browserConnection, 2, 0d, 60000L );
+        runnable.setMaxOperations( 20 );
+        runnable.addBookmark( new Bookmark( browserConnection, USER1_DN, "user.1" ), 1 );
+        runnable.addBookmark( new Bookmark( browserConnection, dn( "cn=missing", USERS_DN ), "missing" ), 1 );
+
+        StudioProgressMonitor monitor = getProgressMonitor();
+        runnable.run( monitor );
+        assertFalse( monitor.errorsReported() );
+
+        LoadTestResult result = runnable.getResult();
+        assertEquals( 20, result.getTotal().getCount() );
+        assertEquals( 10, result.getTotal().getErrors() );
+        assertEquals( 0.5d, result.getErrorRate() );
+        assertEquals( 0, result.getItems().get( 0 ).getErrors() );
+        assertEquals( 10, result.getItems().get( 1 ).getErrors() );
+        assertEquals( Long.valueOf( 10 ),
+            result.getItems().get( 1 ).getErrorCodes().get( ResultCodeEnum.NO_SUCH_OBJECT.getResultCode() ) );
+    }
+
+
+    private ISearch getSearch( BrowserConnection browserConnection, String name, Dn base )
+    {
+        SearchParameter searchParameter = new SearchParameter();
+        searchParameter.setName( name );
+        searchParameter.setSearchBase( base );
+        searchParameter.setScope( SearchScope.SUBTREE );
+        searchParameter.setReturningAttributes( new String[]
+            { "cn", "uid" } );
+        return new Search( browserConnection, searchParameter );
+    }
+
+
+    private BrowserConnection getBrowserConnection( TestLdapServer ldapServer )
+    {
+        ConnectionParameter connectionParameter = new ConnectionParameter( null, ldapServer.getHost(),
+            ldapServer.getPort(), EncryptionMethod.NONE, AuthenticationMethod.SIMPLE,
+            ldapServer.getAdminDn(), ldapServer.getAdminPassword(), null, true, null, 30000L );
+        connection = new Connection( connectionParameter );
+
+        StudioProgressMonitor monitor = getProgressMonitor();
+        connection.getConnectionWrapper().connect( monitor );
+        connection.getConnectionWrapper().bind( monitor );
+        assertNull( monitor.getException() );
+
+        return new BrowserConnection( connection );
+    }
+
+
+    private StudioProgressMonitor getProgressMonitor()
+    {
+        return new StudioProgressMonitor( new NullProgressMonitor() );
+    }
+}